@@ -9,6 +9,7 @@ plugins {
     alias(libs.plugins.dokka)
     alias(libs.plugins.sonar)
     alias(libs.plugins.maven.publish)
+    alias(libs.plugins.jmh)
     `java-library`
     jacoco
 }
@@ -22,10 +23,10 @@ repositories {
 }
 
 dependencies {
-    implementation(libs.jackson.module.kotlin)
     implementation(libs.jackson.dataformat.yaml)
 
     testImplementation(kotlin("test"))
+    testImplementation(libs.jackson.module.kotlin)
     testImplementation(libs.hamcrest)
     testImplementation(libs.json.path.assert)
     testImplementation(libs.junit.jupiter.params)
@@ -34,12 +35,33 @@ dependencies {
     detektPlugins(libs.detekt.formatting)
 }
 
+tasks.jar {
+    manifest {
+        attributes("Implementation-Version" to project.version)
+    }
+}
+
 tasks.test {
     useJUnitPlatform()
 }
 
 kotlin {
     jvmToolchain(17)
+
+    // Benchmarks exercise internal helpers (escaping, rendering) directly
+    target.compilations.named("jmh") {
+        associateWith(target.compilations.getByName("main"))
+    }
+}
+
+sourceSets.named("jmh") {
+    resources.srcDir("src/test/resources")
+}
+
+jmh {
+    jmhVersion = libs.versions.jmh
+    profilers = listOf("gc")
+    resultFormat = "JSON"
 }
 
 tasks.withType<Detekt>().configureEach {
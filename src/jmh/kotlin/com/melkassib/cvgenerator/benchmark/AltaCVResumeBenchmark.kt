@@ -0,0 +1,65 @@
+package com.melkassib.cvgenerator.benchmark
+
+import com.melkassib.cvgenerator.altacv.domain.AltaCVResume
+import com.melkassib.cvgenerator.altacv.serialization.buildAltaCVResumeFromBinary
+import com.melkassib.cvgenerator.altacv.serialization.buildAltaCVResumeFromJson
+import com.melkassib.cvgenerator.altacv.serialization.buildAltaCVResumeFromYaml
+import org.openjdk.jmh.annotations.*
+import java.util.concurrent.TimeUnit
+
+/**
+ * Parses, renders and serializes AltaCV resumes, from the sample fixtures or synthetic resumes of growing size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+open class AltaCVResumeBenchmark {
+    @Param(SAMPLE_RESUME, "10", "100", "1000")
+    lateinit var size: String
+
+    private lateinit var resume: AltaCVResume
+    private lateinit var json: String
+    private lateinit var yaml: String
+    private lateinit var binary: ByteArray
+
+    @Setup
+    fun setup() {
+        if (size == SAMPLE_RESUME) {
+            json = readFixture("/altacv/sample-resume.json")
+            yaml = readFixture("/altacv/sample-resume.yaml")
+            resume = buildAltaCVResumeFromJson(json)
+        } else {
+            resume = syntheticAltaCVResume(size.toInt())
+            json = resume.toJson()
+            yaml = resume.toYaml()
+        }
+        binary = resume.toBinary()
+    }
+
+    @Benchmark
+    fun parseJson() = buildAltaCVResumeFromJson(json)
+
+    @Benchmark
+    fun parseYaml() = buildAltaCVResumeFromYaml(yaml)
+
+    @Benchmark
+    fun parseBinary() = buildAltaCVResumeFromBinary(binary)
+
+    @Benchmark
+    fun toLaTeX() = resume.toLaTeX()
+
+    @Benchmark
+    fun toCompactLaTeX() = resume.toLaTeX(compact = true)
+
+    @Benchmark
+    fun toJson() = resume.toJson()
+
+    @Benchmark
+    fun toYaml() = resume.toYaml()
+
+    @Benchmark
+    fun toBinary() = resume.toBinary()
+}
@@ -0,0 +1,65 @@
+package com.melkassib.cvgenerator.benchmark
+
+import com.melkassib.cvgenerator.awesomecv.domain.AwesomeCVResume
+import com.melkassib.cvgenerator.awesomecv.serialization.buildAwesomeCVResumeFromBinary
+import com.melkassib.cvgenerator.awesomecv.serialization.buildAwesomeCVResumeFromJson
+import com.melkassib.cvgenerator.awesomecv.serialization.buildAwesomeCVResumeFromYaml
+import org.openjdk.jmh.annotations.*
+import java.util.concurrent.TimeUnit
+
+/**
+ * Parses, renders and serializes AwesomeCV resumes, from the sample fixtures or synthetic resumes of growing size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+open class AwesomeCVResumeBenchmark {
+    @Param(SAMPLE_RESUME, "10", "100", "1000")
+    lateinit var size: String
+
+    private lateinit var resume: AwesomeCVResume
+    private lateinit var json: String
+    private lateinit var yaml: String
+    private lateinit var binary: ByteArray
+
+    @Setup
+    fun setup() {
+        if (size == SAMPLE_RESUME) {
+            json = readFixture("/awesomecv/sample-resume.json")
+            yaml = readFixture("/awesomecv/sample-resume.yaml")
+            resume = buildAwesomeCVResumeFromJson(json)
+        } else {
+            resume = syntheticAwesomeCVResume(size.toInt())
+            json = resume.toJson()
+            yaml = resume.toYaml()
+        }
+        binary = resume.toBinary()
+    }
+
+    @Benchmark
+    fun parseJson() = buildAwesomeCVResumeFromJson(json)
+
+    @Benchmark
+    fun parseYaml() = buildAwesomeCVResumeFromYaml(yaml)
+
+    @Benchmark
+    fun parseBinary() = buildAwesomeCVResumeFromBinary(binary)
+
+    @Benchmark
+    fun toLaTeX() = resume.toLaTeX()
+
+    @Benchmark
+    fun toCompactLaTeX() = resume.toLaTeX(compact = true)
+
+    @Benchmark
+    fun toJson() = resume.toJson()
+
+    @Benchmark
+    fun toYaml() = resume.toYaml()
+
+    @Benchmark
+    fun toBinary() = resume.toBinary()
+}
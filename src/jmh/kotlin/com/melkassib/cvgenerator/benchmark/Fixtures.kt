@@ -0,0 +1,102 @@
+@file:JvmName("Fixtures")
+
+package com.melkassib.cvgenerator.benchmark
+
+import com.melkassib.cvgenerator.altacv.domain.AltaCVResume
+import com.melkassib.cvgenerator.altacv.domain.altacv
+import com.melkassib.cvgenerator.awesomecv.domain.AwesomeCVResume
+import com.melkassib.cvgenerator.awesomecv.domain.awesomecv
+import com.melkassib.cvgenerator.common.domain.Divider
+import com.melkassib.cvgenerator.common.domain.EventPeriodDate.Companion.eventDurationDate
+import com.melkassib.cvgenerator.common.domain.EventPeriodString.Companion.eventDurationStr
+import com.melkassib.cvgenerator.common.domain.Item
+import com.melkassib.cvgenerator.common.domain.NewLine
+import com.melkassib.cvgenerator.common.utils.firstColumn
+import com.melkassib.cvgenerator.common.utils.secondColumn
+
+/**
+ * Name of the resume size parameter value selecting the `sample-resume.*` test fixtures.
+ */
+const val SAMPLE_RESUME = "sample"
+
+/**
+ * Reads a test fixture from the benchmark classpath.
+ *
+ * @param path The absolute resource path of the fixture.
+ * @return The content of the fixture.
+ */
+fun readFixture(path: String): String =
+    object {}.javaClass.getResource(path)?.readText() ?: error("Missing fixture $path")
+
+/**
+ * Builds a synthetic AltaCV resume with the given number of sections, spread over both columns.
+ *
+ * @param sectionCount The number of sections of the resume.
+ * @return The synthetic [AltaCVResume].
+ */
+fun syntheticAltaCVResume(sectionCount: Int): AltaCVResume = altacv {
+    header {
+        tagline = "Synthetic résumé with $sectionCount sections"
+    }
+
+    sections {
+        repeat(sectionCount) { index ->
+            val position = if (index % 2 == 0) firstColumn(index) else secondColumn(index)
+
+            section("Section #$index", position, Divider) {
+                contents {
+                    event("Job Title $index") {
+                        holder = "Company & Co."
+                        location = "Location"
+                        duration = if (index % 3 == 0) eventDurationDate("2020-01", "2023-10") else eventDurationStr("Month XXXX", "Ongoing")
+                        description = listOf(
+                            Item("Reduced system downtime by 40% with automated monitoring."),
+                            Item("Led a team of 5 engineers on the real_time dashboard."),
+                            Item("Implemented CI/CD pipelines", false)
+                        )
+                    }
+                    tag("Kotlin")
+                    tag("C++ & Rust")
+                    content(NewLine)
+                    skill("English", "Professional working proficiency")
+                    skill("Statistics", 4.0)
+                    achievement("faTrophy", "Fantastic Achievement", "and some details about it")
+                }
+            }
+        }
+    }
+}
+
+/**
+ * Builds a synthetic AwesomeCV resume with the given number of sections.
+ *
+ * @param sectionCount The number of sections of the resume.
+ * @return The synthetic [AwesomeCVResume].
+ */
+fun syntheticAwesomeCVResume(sectionCount: Int): AwesomeCVResume = awesomecv {
+    header {
+        quote = "Synthetic résumé with $sectionCount sections"
+    }
+
+    sections {
+        repeat(sectionCount) { index ->
+            section("Section #$index", firstColumn(index)) {
+                contents {
+                    paragraph("Nulla blandit sapien ligula, sit amet rutrum urna scelerisque a & b.")
+                    event("Software Engineer $index") {
+                        holder = "TechNova Solutions"
+                        location = "New York, USA"
+                        duration = if (index % 3 == 0) eventDurationDate("2020-01", "2023-10") else eventDurationStr("Jan. 2022", "Present")
+                        description = listOf(
+                            Item("Developed scalable microservices architecture for cloud applications."),
+                            Item("Reduced system downtime by 40% by implementing automated monitoring.")
+                        )
+                    }
+                    honors("International Awards") {
+                        honor("Winner", "Google Cloud Hackathon", "Online", "2022")
+                    }
+                }
+            }
+        }
+    }
+}
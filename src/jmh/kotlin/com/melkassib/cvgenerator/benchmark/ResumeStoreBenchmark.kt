@@ -0,0 +1,47 @@
+package com.melkassib.cvgenerator.benchmark
+
+import com.melkassib.cvgenerator.common.utils.ResumeStore
+import org.openjdk.jmh.annotations.*
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.ThreadLocalRandom
+import java.util.concurrent.TimeUnit
+
+/**
+ * Looks up and renders resumes by ID in a memory-mapped [ResumeStore] of growing size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+open class ResumeStoreBenchmark {
+    @Param("1000", "100000")
+    var records: Int = 0
+
+    private lateinit var path: Path
+    private lateinit var store: ResumeStore
+
+    @Setup
+    fun setup() {
+        path = Files.createTempFile("resumes", ".store")
+        Files.delete(path)
+        store = ResumeStore.open(path)
+
+        val resume = syntheticAltaCVResume(10)
+        repeat(records) { store.put("resume-$it", resume) }
+    }
+
+    @TearDown
+    fun tearDown() {
+        store.close()
+        Files.deleteIfExists(path)
+    }
+
+    @Benchmark
+    fun get() = store["resume-${ThreadLocalRandom.current().nextInt(records)}"]
+
+    @Benchmark
+    fun getAndRender() = store["resume-${ThreadLocalRandom.current().nextInt(records)}"]?.toLaTeX()
+}
@@ -0,0 +1,34 @@
+package com.melkassib.cvgenerator.benchmark
+
+import com.melkassib.cvgenerator.altacv.serialization.buildAltaCVResumeFromJson
+import com.melkassib.cvgenerator.altacv.serialization.buildAltaCVResumeFromYaml
+import org.openjdk.jmh.annotations.*
+import java.util.concurrent.TimeUnit
+
+/**
+ * Measures the time to the first rendered document in a fresh JVM, from a JSON or a YAML résumé.
+ * Every fork parses and renders a single résumé, so that class loading and the initialization
+ * of the serialization stack are part of the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+open class StartupBenchmark {
+    private lateinit var json: String
+    private lateinit var yaml: String
+
+    @Setup
+    fun setup() {
+        json = readFixture("/altacv/sample-resume.json")
+        yaml = readFixture("/altacv/sample-resume.yaml")
+    }
+
+    @Benchmark
+    fun firstLaTeXFromJson() = buildAltaCVResumeFromJson(json).toLaTeX()
+
+    @Benchmark
+    fun firstLaTeXFromYaml() = buildAltaCVResumeFromYaml(yaml).toLaTeX()
+}
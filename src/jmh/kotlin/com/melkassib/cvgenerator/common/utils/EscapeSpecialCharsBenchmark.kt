@@ -0,0 +1,67 @@
+package com.melkassib.cvgenerator.common.utils
+
+import com.fasterxml.jackson.databind.JsonNode
+import com.melkassib.cvgenerator.common.serialization.JSON_MAPPER
+import org.openjdk.jmh.annotations.*
+import org.openjdk.jmh.infra.Blackhole
+import java.util.concurrent.TimeUnit
+
+/**
+ * Compares the single-pass [escapeSpecialChars] with the former chain of `String.replace` calls,
+ * on every string value of the sample resumes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+open class EscapeSpecialCharsBenchmark {
+    private lateinit var values: List<String>
+    private val builder = StringBuilder()
+
+    @Setup
+    fun setup() {
+        values = listOf("/altacv/sample-resume.json", "/awesomecv/sample-resume.json").flatMap { fixture ->
+            val json = javaClass.getResource(fixture)?.readText() ?: error("Missing fixture $fixture")
+            JSON_MAPPER.readTree(json).textValues()
+        }
+    }
+
+    @Benchmark
+    fun replaceChain(blackhole: Blackhole) {
+        values.forEach { blackhole.consume(it.escapeWithReplaceChain()) }
+    }
+
+    @Benchmark
+    fun singlePass(blackhole: Blackhole) {
+        values.forEach { blackhole.consume(it.escapeSpecialChars()) }
+    }
+
+    @Benchmark
+    fun singlePassIntoBuilder(): Int {
+        builder.setLength(0)
+        values.forEach { builder.appendEscaped(it) }
+        return builder.length
+    }
+
+    private fun JsonNode.textValues(): List<String> = when {
+        isTextual -> listOf(asText())
+        isContainerNode -> flatMap { it.textValues() }
+        else -> emptyList()
+    }
+
+    /**
+     * The escaping implementation used before the single-pass lookup table.
+     */
+    private fun String.escapeWithReplaceChain() =
+        this.replace("_", "\\_")
+            .replace("#", "\\#")
+            .replace("%", "\\%")
+            .replace("&", "\\&")
+            .replace("$", "\\$")
+            .replace("{", "\\{")
+            .replace("}", "\\}")
+            .replace("^", "\\textasciicircum")
+            .replace("~", "\\textasciitilde")
+}
@@ -3,9 +3,13 @@
 package com.melkassib.cvgenerator.altacv.domain
 
 import com.fasterxml.jackson.annotation.JsonValue
+import com.melkassib.cvgenerator.altacv.utils.ALTACV_LICENSE_NOTICE
 import com.melkassib.cvgenerator.altacv.utils.generateResumeLatex
+import com.melkassib.cvgenerator.altacv.utils.renderTemplatePreamble
 import com.melkassib.cvgenerator.common.domain.*
 import com.melkassib.cvgenerator.common.domain.Section
+import com.melkassib.cvgenerator.common.utils.RenderCache
+import com.melkassib.cvgenerator.common.utils.SectionRenderer
 import com.melkassib.cvgenerator.common.utils.TITLE_WIDTH
 import com.melkassib.cvgenerator.common.utils.centered
 
@@ -79,11 +83,57 @@ class AltaCVResume @JvmOverloads constructor(
     sections: List<Section> = listOf()
 ) : Resume<AltaCVConfig, AltaCVHeader, NoFooter>(config, header, NoFooter, sections) {
     /**
-     * Extension function to convert a [Resume] object to LaTeX format.
+     * Renders the [Resume] object in LaTeX format.
      *
-     * @return Complete LaTeX document as a string
+     * @param plan The [RenderPlan] of the resume sections
+     * @param out The [Appendable] receiving the complete LaTeX document
+     * @param sectionCache The [RenderCache] of rendered sections, or null to render every section
      */
-    override fun toLaTeX() = generateResumeLatex(this)
+    override fun toLaTeX(plan: RenderPlan, out: Appendable, sectionCache: RenderCache?) =
+        generateResumeLatex(this, plan, out, sectionCache)
+
+    /**
+     * Renders the body of the [Resume] object in LaTeX format, inputting the shared preamble file.
+     *
+     * @param preambleName The name of the preamble file, without extension
+     * @param plan The [RenderPlan] of the resume sections
+     * @param out The [Appendable] receiving the LaTeX body
+     * @param sectionCache The [RenderCache] of rendered sections, or null to render every section
+     */
+    override fun toLaTeXBody(preambleName: String, plan: RenderPlan, out: Appendable, sectionCache: RenderCache?) =
+        generateResumeLatex(this, plan, out, sectionCache, preambleName)
+
+    /**
+     * Renders the [Resume] object in LaTeX format, with the sections rendered by the given section renderer.
+     *
+     * @param plan The [RenderPlan] of the resume sections
+     * @param out The [Appendable] receiving the complete LaTeX document
+     * @param sectionRenderer The [SectionRenderer] rendering the sections
+     */
+    override fun toLaTeX(plan: RenderPlan, out: Appendable, sectionRenderer: SectionRenderer) =
+        generateResumeLatex(this, plan, out, null, sectionRenderer = sectionRenderer)
+
+    /**
+     * Renders the LaTeX preamble of the [Resume] object, shared by the resumes with the same configuration.
+     *
+     * @return The LaTeX preamble
+     */
+    override fun toLaTeXPreamble() = renderTemplatePreamble(config)
+
+    /**
+     * Returns the single-line license attribution of the AltaCV template, kept in compact documents.
+     *
+     * @return The license attribution as a LaTeX comment
+     */
+    override fun licenseNotice() = ALTACV_LICENSE_NOTICE
+
+    /**
+     * Returns a resume with the same configuration and header, and the given sections.
+     *
+     * @param sections The sections of the new resume
+     * @return The new [AltaCVResume]
+     */
+    override fun withSections(sections: List<Section>) = AltaCVResume(config, header, sections)
 
     /**
      * Prints the sections of the resume in a formatted string.
@@ -5,7 +5,7 @@ package com.melkassib.cvgenerator.altacv.domain
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize
 import com.fasterxml.jackson.databind.annotation.JsonSerialize
 import com.melkassib.cvgenerator.altacv.serialization.UserInfoSerializers
-import com.melkassib.cvgenerator.common.serialization.JSON_MAPPER
+import com.melkassib.cvgenerator.common.serialization.jsonWriterFor
 import java.util.*
 import kotlin.collections.LinkedHashSet
 
@@ -47,7 +47,7 @@ open class UserInfoField(
      *
      * @return The JSON string representation of the user information field.
      */
-    fun toJson(): String = JSON_MAPPER.writeValueAsString(this)
+    fun toJson(): String = jsonWriterFor(javaClass).writeValueAsString(this)
 
     override fun equals(other: Any?): Boolean {
         if (this === other) return true
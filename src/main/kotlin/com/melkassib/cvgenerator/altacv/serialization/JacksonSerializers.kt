@@ -5,12 +5,20 @@ package com.melkassib.cvgenerator.altacv.serialization
 import com.fasterxml.jackson.core.JsonGenerator
 import com.fasterxml.jackson.core.JsonParser
 import com.fasterxml.jackson.databind.*
-import com.fasterxml.jackson.module.kotlin.readValue
+import com.fasterxml.jackson.databind.module.SimpleModule
 import com.melkassib.cvgenerator.altacv.domain.*
+import com.melkassib.cvgenerator.altacv.utils.ColorPalette
 import com.melkassib.cvgenerator.altacv.utils.USER_CONTACT_FIELDS
-import com.melkassib.cvgenerator.common.serialization.JSON_MAPPER
-import com.melkassib.cvgenerator.common.serialization.YAML_MAPPER
+import com.melkassib.cvgenerator.common.domain.AltaCVConfig
+import com.melkassib.cvgenerator.common.domain.AltaCVHeader
+import com.melkassib.cvgenerator.common.domain.PhotoDirection
+import com.melkassib.cvgenerator.common.domain.Section
+import com.melkassib.cvgenerator.common.serialization.*
 import com.melkassib.cvgenerator.common.utils.JsonFieldNames
+import java.io.InputStream
+import java.io.Reader
+import java.nio.file.Files
+import java.nio.file.Path
 
 /**
  * Contains custom serializers and deserializers for UserInfoField (AltaCV).
@@ -35,25 +43,309 @@ object UserInfoSerializers {
     object Deserializer : JsonDeserializer<UserInfoField>() {
         override fun deserialize(parser: JsonParser, ctxt: DeserializationContext?): UserInfoField {
             val node = parser.readValueAsTree<JsonNode>()
-            return when (val fieldName = node[JsonFieldNames.FIELD_NAME].asText()) {
-                "email" -> Email(node[JsonFieldNames.VALUE].asText())
-                "phone" -> Phone(node[JsonFieldNames.VALUE].asText())
-                "mailaddress" -> MailAddress(node[JsonFieldNames.VALUE].asText())
-                "location" -> Location(node[JsonFieldNames.VALUE].asText())
-                "homepage" -> HomePage(node[JsonFieldNames.VALUE].asText())
-                "twitter" -> Twitter(node[JsonFieldNames.VALUE].asText())
-                "linkedin" -> LinkedIn(node[JsonFieldNames.VALUE].asText())
-                "github" -> Github(node[JsonFieldNames.VALUE].asText())
-                "orcid" -> Orcid(node[JsonFieldNames.VALUE].asText())
-                else -> {
-                    val symbol = node[JsonFieldNames.SYMBOL].asText()
-                    val prefix = node[JsonFieldNames.PREFIX].asText()
-                    val value = node[JsonFieldNames.VALUE].asText()
-                    return UserInfoField(fieldName, symbol, prefix, value)
+            val fieldName = node[JsonFieldNames.FIELD_NAME].asText()
+            val value = node[JsonFieldNames.VALUE].asText()
+
+            return if (fieldName in USER_CONTACT_FIELDS) {
+                userInfoFieldOf(fieldName, "", "", value)
+            } else {
+                userInfoFieldOf(fieldName, node[JsonFieldNames.SYMBOL].asText(), node[JsonFieldNames.PREFIX].asText(), value)
+            }
+        }
+    }
+}
+
+/**
+ * Creates the user info field of the given name, as the predefined field class for contact fields.
+ *
+ * @param fieldName The name of the field
+ * @param symbol The symbol of the field, ignored for contact fields
+ * @param prefix The prefix of the field, ignored for contact fields
+ * @param value The value of the field
+ * @return The [UserInfoField]
+ */
+internal fun userInfoFieldOf(fieldName: String, symbol: String, prefix: String, value: String): UserInfoField =
+    when (fieldName) {
+        "email" -> Email(value)
+        "phone" -> Phone(value)
+        "mailaddress" -> MailAddress(value)
+        "location" -> Location(value)
+        "homepage" -> HomePage(value)
+        "twitter" -> Twitter(value)
+        "linkedin" -> LinkedIn(value)
+        "github" -> Github(value)
+        "orcid" -> Orcid(value)
+        else -> UserInfoField(fieldName, symbol, prefix, value)
+    }
+
+/**
+ * Contains the serializers and deserializers of the AltaCV resume and of its configuration and header.
+ */
+object AltaCVSerializers {
+    private val COLOR_ALIASES = RColorAlias.entries.associateBy { it.value }
+
+    /**
+     * Serializer for AltaCVResume. The resume has no footer, which is written as an empty object.
+     */
+    object ResumeSerializer : JsonSerializer<AltaCVResume>() {
+        override fun serialize(value: AltaCVResume, gen: JsonGenerator, serializers: SerializerProvider) {
+            gen.writeObjectFields(value) {
+                writeFieldName("config")
+                ConfigSerializer.serialize(value.config, gen, serializers)
+                writeFieldName("header")
+                HeaderSerializer.serialize(value.header, gen, serializers)
+                writeArrayOf("sections", value.sections) { SectionSerializers.Serializer.serialize(it, gen, serializers) }
+                writeFieldName("footer")
+                writeStartObject(value.footer)
+                writeEndObject()
+            }
+        }
+    }
+
+    /**
+     * Deserializer for AltaCVResume.
+     */
+    object ResumeDeserializer : JsonDeserializer<AltaCVResume>() {
+        override fun deserialize(parser: JsonParser, ctxt: DeserializationContext): AltaCVResume {
+            var config = AltaCVConfig()
+            var header = AltaCVHeader()
+            var sections: List<Section> = listOf()
+
+            parser.readFields(ctxt, this, AltaCVResume::class.java) { field ->
+                when (field) {
+                    "config" -> config = parser.readValue(ctxt, ConfigDeserializer, AltaCVResume::class.java, field)
+                    "header" -> header = parser.readValue(ctxt, HeaderDeserializer, AltaCVResume::class.java, field)
+                    "sections" -> sections = parser.readArray(ctxt, AltaCVResume::class.java, field) {
+                        parser.readValue(ctxt, SectionSerializers.Deserializer, AltaCVResume::class.java, field)
+                    }
+                    "footer" -> parser.skipChildren()
+                    else -> return@readFields false
+                }
+                true
+            }
+
+            return AltaCVResume(config, header, sections)
+        }
+    }
+
+    /**
+     * Serializer for AltaCVConfig.
+     */
+    object ConfigSerializer : JsonSerializer<AltaCVConfig>() {
+        override fun serialize(value: AltaCVConfig, gen: JsonGenerator, serializers: SerializerProvider) {
+            gen.writeObjectFields(value) {
+                writeNumberField("columnRatio", value.columnRatio)
+                writeStringField("photoShape", value.photoShape.name)
+                writeFieldName("theme")
+                writeStartObject(value.theme)
+                value.theme.forEach { (alias, color) ->
+                    writeFieldName(alias.value)
+                    ColorSerializer.serialize(color, gen, serializers)
+                }
+                writeEndObject()
+            }
+        }
+    }
+
+    /**
+     * Deserializer for AltaCVConfig.
+     */
+    object ConfigDeserializer : JsonDeserializer<AltaCVConfig>() {
+        override fun deserialize(parser: JsonParser, ctxt: DeserializationContext): AltaCVConfig {
+            val config = AltaCVConfig()
+
+            parser.readFields(ctxt, this, AltaCVConfig::class.java) { field ->
+                when (field) {
+                    "columnRatio" -> config.columnRatio = parser.readDouble(ctxt)
+                    "photoShape" -> config.photoShape = parser.readEnum(ctxt, PhotoShape::class.java, AltaCVConfig::class.java, field)
+                    "theme" -> config.theme = parser.readValue(ctxt, ThemeDeserializer, AltaCVConfig::class.java, field)
+                    else -> return@readFields false
+                }
+                true
+            }
+
+            return config
+        }
+    }
+
+    /**
+     * Deserializer for the color palette of the configuration, keyed by the value of the color aliases.
+     */
+    private object ThemeDeserializer : JsonDeserializer<ColorPalette>() {
+        override fun deserialize(parser: JsonParser, ctxt: DeserializationContext): ColorPalette {
+            val theme = LinkedHashMap<RColorAlias, RColor>()
+
+            parser.readFields(ctxt, this, ColorPalette::class.java) { key ->
+                val alias = COLOR_ALIASES[key]
+                    ?: ctxt.handleWeirdKey(RColorAlias::class.java, key, "not one of the values accepted for Enum class") as RColorAlias
+                theme[alias] = parser.readValue(ctxt, ColorDeserializer, AltaCVConfig::class.java, key)
+                true
+            }
+
+            return theme
+        }
+    }
+
+    /**
+     * Serializer for RColor.
+     */
+    object ColorSerializer : JsonSerializer<RColor>() {
+        override fun serialize(value: RColor, gen: JsonGenerator, serializers: SerializerProvider) {
+            gen.writeObjectFields(value) {
+                writeStringField("colorName", value.colorName)
+                writeStringField("colorHexValue", value.colorHexValue)
+            }
+        }
+    }
+
+    /**
+     * Deserializer for RColor.
+     */
+    object ColorDeserializer : JsonDeserializer<RColor>() {
+        override fun deserialize(parser: JsonParser, ctxt: DeserializationContext): RColor {
+            var colorName: String? = null
+            var colorHexValue: String? = null
+
+            parser.readFields(ctxt, this, RColor::class.java) { field ->
+                when (field) {
+                    "colorName" -> colorName = parser.readString(ctxt, RColor::class.java, field)
+                    "colorHexValue" -> colorHexValue = parser.readString(ctxt, RColor::class.java, field)
+                    else -> return@readFields false
+                }
+                true
+            }
+
+            return RColor(
+                ctxt.required(colorName, RColor::class.java, "colorName"),
+                ctxt.required(colorHexValue, RColor::class.java, "colorHexValue")
+            )
+        }
+    }
+
+    /**
+     * Serializer for AltaCVHeader.
+     */
+    object HeaderSerializer : JsonSerializer<AltaCVHeader>() {
+        override fun serialize(value: AltaCVHeader, gen: JsonGenerator, serializers: SerializerProvider) {
+            gen.writeObjectFields(value) {
+                writeStringField("tagline", value.tagline)
+                writeNullableField("userInfo", value.userInfo, UserSerializer, serializers)
+                writeNullableField("photo", value.photo, PhotoSerializer, serializers)
+            }
+        }
+    }
+
+    /**
+     * Deserializer for AltaCVHeader.
+     */
+    object HeaderDeserializer : JsonDeserializer<AltaCVHeader>() {
+        override fun deserialize(parser: JsonParser, ctxt: DeserializationContext): AltaCVHeader {
+            val header = AltaCVHeader()
+
+            parser.readFields(ctxt, this, AltaCVHeader::class.java) { field ->
+                when (field) {
+                    "tagline" -> header.tagline = parser.readString(ctxt, AltaCVHeader::class.java, field)
+                    "userInfo" -> header.userInfo = parser.readNullableValue(ctxt, UserDeserializer)
+                    "photo" -> header.photo = parser.readNullableValue(ctxt, PhotoDeserializer)
+                    else -> return@readFields false
+                }
+                true
+            }
+
+            return header
+        }
+    }
+
+    /**
+     * Serializer for AltaCVUserInfo.
+     */
+    object UserSerializer : JsonSerializer<AltaCVUserInfo>() {
+        override fun serialize(value: AltaCVUserInfo, gen: JsonGenerator, serializers: SerializerProvider) {
+            gen.writeObjectFields(value) {
+                writeStringField("name", value.name)
+                writeArrayOf("personalInfo", value.personalInfo) { UserInfoSerializers.Serializer.serialize(it, gen, serializers) }
+            }
+        }
+    }
+
+    /**
+     * Deserializer for AltaCVUserInfo.
+     */
+    object UserDeserializer : JsonDeserializer<AltaCVUserInfo>() {
+        override fun deserialize(parser: JsonParser, ctxt: DeserializationContext): AltaCVUserInfo {
+            var name = ""
+            val personalInfo = AltaCVUserPersonalInfo()
+
+            parser.readFields(ctxt, this, AltaCVUserInfo::class.java) { field ->
+                when (field) {
+                    "name" -> name = parser.readString(ctxt, AltaCVUserInfo::class.java, field)
+                    "personalInfo" -> parser.readArray(ctxt, AltaCVUserInfo::class.java, field) {
+                        personalInfo += UserInfoSerializers.Deserializer.deserialize(parser, ctxt)
+                    }
+                    else -> return@readFields false
                 }
+                true
             }
+
+            return AltaCVUserInfo(name, personalInfo)
+        }
+    }
+
+    /**
+     * Serializer for Photo.
+     */
+    object PhotoSerializer : JsonSerializer<Photo>() {
+        override fun serialize(value: Photo, gen: JsonGenerator, serializers: SerializerProvider) {
+            gen.writeObjectFields(value) {
+                writeNumberField("size", value.size)
+                writeStringField("path", value.path)
+                writeStringField("direction", value.direction.name)
+            }
+        }
+    }
+
+    /**
+     * Deserializer for Photo.
+     */
+    object PhotoDeserializer : JsonDeserializer<Photo>() {
+        override fun deserialize(parser: JsonParser, ctxt: DeserializationContext): Photo {
+            var size: Double? = null
+            var path: String? = null
+            var direction = PhotoDirection.RIGHT
+
+            parser.readFields(ctxt, this, Photo::class.java) { field ->
+                when (field) {
+                    "size" -> size = parser.readDouble(ctxt)
+                    "path" -> path = parser.readString(ctxt, Photo::class.java, field)
+                    "direction" -> direction = parser.readEnum(ctxt, PhotoDirection::class.java, Photo::class.java, field)
+                    else -> return@readFields false
+                }
+                true
+            }
+
+            return Photo(ctxt.required(size, Photo::class.java, "size"), ctxt.required(path, Photo::class.java, "path"), direction)
         }
     }
+
+    /**
+     * Registers the serializers and deserializers of the AltaCV domain into the given module.
+     *
+     * @param module The module binding the resume domain model
+     */
+    internal fun register(module: SimpleModule) = with(module) {
+        addSerializer(AltaCVResume::class.java, ResumeSerializer)
+        addDeserializer(AltaCVResume::class.java, ResumeDeserializer)
+        addSerializer(AltaCVConfig::class.java, ConfigSerializer)
+        addDeserializer(AltaCVConfig::class.java, ConfigDeserializer)
+        addSerializer(RColor::class.java, ColorSerializer)
+        addDeserializer(RColor::class.java, ColorDeserializer)
+        addSerializer(AltaCVHeader::class.java, HeaderSerializer)
+        addDeserializer(AltaCVHeader::class.java, HeaderDeserializer)
+        addSerializer(AltaCVUserInfo::class.java, UserSerializer)
+        addDeserializer(AltaCVUserInfo::class.java, UserDeserializer)
+        addSerializer(Photo::class.java, PhotoSerializer)
+        addDeserializer(Photo::class.java, PhotoDeserializer)
+    }
 }
 
 /**
@@ -62,7 +354,33 @@ object UserInfoSerializers {
  * @param json The JSON string representing the resume.
  * @return The [AltaCVResume] object.
  */
-fun buildAltaCVResumeFromJson(json: String) = JSON_MAPPER.readValue<AltaCVResume>(json)
+fun buildAltaCVResumeFromJson(json: String): AltaCVResume = jsonReaderFor(AltaCVResume::class.java).readValue(json)
+
+/**
+ * Builds an AltaCV Resume object from a JSON input stream, without loading it into a string first.
+ * The stream is not closed.
+ *
+ * @param input The stream of the JSON document representing the resume.
+ * @return The [AltaCVResume] object.
+ */
+fun buildAltaCVResumeFromJson(input: InputStream): AltaCVResume = jsonReaderFor(AltaCVResume::class.java).readValue(input)
+
+/**
+ * Builds an AltaCV Resume object from a JSON reader, without loading it into a string first.
+ * The reader is not closed.
+ *
+ * @param reader The reader of the JSON document representing the resume.
+ * @return The [AltaCVResume] object.
+ */
+fun buildAltaCVResumeFromJson(reader: Reader): AltaCVResume = jsonReaderFor(AltaCVResume::class.java).readValue(reader)
+
+/**
+ * Builds an AltaCV Resume object from a JSON file.
+ *
+ * @param path The path of the JSON file representing the resume.
+ * @return The [AltaCVResume] object.
+ */
+fun buildAltaCVResumeFromJson(path: Path): AltaCVResume = Files.newInputStream(path).use { buildAltaCVResumeFromJson(it) }
 
 /**
  * Builds an AltaCV Resume object from a YAML string.
@@ -70,4 +388,73 @@ fun buildAltaCVResumeFromJson(json: String) = JSON_MAPPER.readValue<AltaCVResume
  * @param yaml The YAML string representing the resume.
  * @return The [AltaCVResume] object.
  */
-fun buildAltaCVResumeFromYaml(yaml: String) = YAML_MAPPER.readValue<AltaCVResume>(yaml)
+fun buildAltaCVResumeFromYaml(yaml: String): AltaCVResume = yamlReaderFor(AltaCVResume::class.java).readValue(yaml)
+
+/**
+ * Builds an AltaCV Resume object from a YAML input stream, without loading it into a string first.
+ * The stream is not closed.
+ *
+ * @param input The stream of the YAML document representing the resume.
+ * @return The [AltaCVResume] object.
+ */
+fun buildAltaCVResumeFromYaml(input: InputStream): AltaCVResume = yamlReaderFor(AltaCVResume::class.java).readValue(input)
+
+/**
+ * Builds an AltaCV Resume object from a YAML reader, without loading it into a string first.
+ * The reader is not closed.
+ *
+ * @param reader The reader of the YAML document representing the resume.
+ * @return The [AltaCVResume] object.
+ */
+fun buildAltaCVResumeFromYaml(reader: Reader): AltaCVResume = yamlReaderFor(AltaCVResume::class.java).readValue(reader)
+
+/**
+ * Builds an AltaCV Resume object from a YAML file.
+ *
+ * @param path The path of the YAML file representing the resume.
+ * @return The [AltaCVResume] object.
+ */
+fun buildAltaCVResumeFromYaml(path: Path): AltaCVResume = Files.newInputStream(path).use { buildAltaCVResumeFromYaml(it) }
+
+/**
+ * Builds an AltaCV Resume object from a binary input stream, as written by [Resume.toBinary].
+ * The stream is not closed.
+ *
+ * @param input The stream of the binary resume.
+ * @return The [AltaCVResume] object.
+ * @throws java.io.StreamCorruptedException If the input is not a binary AltaCV resume.
+ */
+fun buildAltaCVResumeFromBinary(input: InputStream): AltaCVResume = buildResumeFromBinary(input).asBinaryResumeOf(AltaCVResume::class.java)
+
+/**
+ * Builds an AltaCV Resume object from its binary form, as returned by [Resume.toBinary].
+ *
+ * @param bytes The binary resume.
+ * @return The [AltaCVResume] object.
+ * @throws java.io.StreamCorruptedException If the bytes are not a binary AltaCV resume.
+ */
+fun buildAltaCVResumeFromBinary(bytes: ByteArray): AltaCVResume = buildResumeFromBinary(bytes).asBinaryResumeOf(AltaCVResume::class.java)
+
+/**
+ * Reads AltaCV resumes lazily from a stream of newline-delimited JSON documents, one resume at a time.
+ * The sequence can be iterated only once, and the stream is not closed.
+ *
+ * @param input The stream of JSON documents, one resume per line.
+ * @param onMalformed Receives the records that could not be read and are skipped, or null to fail on the first one.
+ * @return The lazy sequence of [AltaCVResume] objects.
+ */
+@JvmOverloads
+fun readAltaCVResumes(input: InputStream, onMalformed: ((MalformedRecord) -> Unit)? = null): Sequence<AltaCVResume> =
+    readRecords(jsonReaderFor(AltaCVResume::class.java), input, onMalformed)
+
+/**
+ * Reads AltaCV resumes lazily from a multi-document YAML stream, one resume at a time.
+ * The sequence can be iterated only once, and the stream is not closed.
+ *
+ * @param input The stream of YAML documents, one resume per document.
+ * @param onMalformed Receives the documents that could not be read and are skipped, or null to fail on the first one.
+ * @return The lazy sequence of [AltaCVResume] objects.
+ */
+@JvmOverloads
+fun readAltaCVResumesFromYaml(input: InputStream, onMalformed: ((MalformedRecord) -> Unit)? = null): Sequence<AltaCVResume> =
+    readRecords(yamlReaderFor(AltaCVResume::class.java), input, onMalformed)
@@ -5,11 +5,16 @@ package com.melkassib.cvgenerator.altacv.utils
 import com.melkassib.cvgenerator.altacv.domain.AltaCVResume
 import com.melkassib.cvgenerator.altacv.domain.AltaCVUserPersonalInfo
 import com.melkassib.cvgenerator.altacv.domain.PhotoShape
+import com.melkassib.cvgenerator.altacv.domain.RColor
+import com.melkassib.cvgenerator.altacv.domain.RColorAlias
 import com.melkassib.cvgenerator.common.domain.AltaCVConfig
 import com.melkassib.cvgenerator.common.domain.AltaCVHeader
 import com.melkassib.cvgenerator.common.domain.PhotoDirection
-import com.melkassib.cvgenerator.common.utils.escapeSpecialChars
-import com.melkassib.cvgenerator.common.utils.renderSections
+import com.melkassib.cvgenerator.common.domain.RenderPlan
+import com.melkassib.cvgenerator.common.utils.RenderCache
+import com.melkassib.cvgenerator.common.utils.SectionRenderer
+import com.melkassib.cvgenerator.common.utils.appendEscaped
+import com.melkassib.cvgenerator.common.utils.renderOrderedSections
 
 /**
  * Represents the copyright of the AltaCV template.
@@ -30,49 +35,232 @@ private val ALTACV_COPYRIGHT =
     %%%%%%%%%%%%%%%%
     """.trimIndent()
 
+/**
+ * Single-line license attribution of the AltaCV template, replacing [ALTACV_COPYRIGHT] in compact documents.
+ */
+internal const val ALTACV_LICENSE_NOTICE =
+    "% Created using altacv.cls (v1.7.2) by LianTze Lim (liantze@gmail.com), LPPL 1.3 or later (http://www.latex-project.org/lppl.txt)"
+
+/**
+ * Static part of the preamble preceding the document class declaration.
+ */
+private val PREAMBLE_DOCUMENT_CLASS_HINT =
+    """
+    %% Use the "normalphoto" option if you want a normal photo instead of cropped to a circle
+    % \documentclass[10pt,a4paper,normalphoto]{altacv}
+    """.trimIndent()
+
+/**
+ * Static part of the preamble between the document class declaration and the color theme.
+ */
+private val PREAMBLE_LAYOUT_AND_FONTS =
+    """
+    %% AltaCV uses the fontawesome5 and packages.
+    %% See http://texdoc.net/pkg/fontawesome5 for full list of symbols.
+
+    % Change the page layout if you need to
+    \geometry{left=1.25cm,right=1.25cm,top=1.5cm,bottom=1.5cm,columnsep=1.2cm}
+
+    % The paracol package lets you typeset columns of text in parallel
+    \usepackage{paracol}
+    \usepackage{hyperref}
+
+    % Change the font if you want to, depending on whether
+    % you're using pdflatex or xelatex/lualatex
+    % WHEN COMPILING WITH XELATEX PLEASE USE
+    % xelatex -shell-escape -output-driver="xdvipdfmx -z 0" sample.tex
+    \ifxetexorluatex
+    % If using xelatex or lualatex:
+    \usepackage{fontspec}
+    \setmainfont[
+        Path = fonts/Roboto_Slab/,
+        UprightFont = RobotoSlab-VariableFont_wght.ttf
+    ]{Roboto Slab}
+    \setsansfont[
+        Path = fonts/Lato/,
+        UprightFont = Lato-Regular.ttf
+    ]{Lato}
+    \renewcommand{\familydefault}{\sfdefault}
+    \else
+    % If using pdflatex:
+    \usepackage[rm]{roboto}
+    \usepackage[defaultsans]{lato}
+    % \usepackage{sourcesanspro}
+    \renewcommand{\familydefault}{\sfdefault}
+    \fi
+
+    % Change the colours if you want to
+    """.trimIndent()
+
+/**
+ * Static part of the preamble following the color theme.
+ */
+private val PREAMBLE_CUSTOMIZATIONS =
+    """
+    % Change some fonts, if necessary
+    \renewcommand{\namefont}{\Huge\rmfamily\bfseries}
+    \renewcommand{\personalinfofont}{\footnotesize}
+    \renewcommand{\cvsectionfont}{\LARGE\rmfamily\bfseries}
+    \renewcommand{\cvsubsectionfont}{\large\bfseries}
+
+    % Change the bullets for itemize and rating marker
+    % for \cvskill if you want to
+    \renewcommand{\cvItemMarker}{{\small\textbullet}}
+    \renewcommand{\cvRatingMarker}{\faCircle}
+    % ...and the markers for the date/location for \cvevent
+    \renewcommand{\cvDateMarker}{\faCalendar*[regular]}
+    \renewcommand{\cvLocationMarker}{\faMapMarker*}
+
+    % To display language skill fluency as string rather than stars
+    \newcommand{\cvskillstr}[2]{%
+        \textcolor{emphasis}{\textbf{#1}}\hfill
+        \textbf{\color{body}#2}\par
+    }
+
+    % If your CV/résumé is in a language other than English,
+    % then you probably want to change these so that when you
+    % copy-paste from the PDF or run pdftotext, the location
+    % and date marker icons for \cvevent will paste as correct
+    % translations. For example Spanish:
+    % \renewcommand{\locationname}{Ubicación}
+    % \renewcommand{\datename}{Fecha}
+    """.trimIndent()
+
+/**
+ * Static part of the document between the header and the column ratio.
+ */
+private val DOCUMENT_MAKE_HEADER =
+    """
+    \makecvheader
+    %% Depending on your tastes, you may want to make fonts of itemize environments slightly smaller
+    % \AtBeginEnvironment{itemize}{\small}
+
+    %% Set the left/right column width ratio to 6:4.
+    """.trimIndent()
+
+/**
+ * Static part of the document opening the two columns.
+ */
+private val DOCUMENT_BEGIN_COLUMNS =
+    """
+    % Start a 2-column paracol. Both the left and right columns will automatically
+    % break across pages if things get too long.
+    \begin{paracol}{2}
+    """.trimIndent()
+
+/**
+ * Static part of the document switching to the second column.
+ */
+private val DOCUMENT_SWITCH_COLUMN =
+    """
+    %% Switch to the right column. This will now automatically move to the second
+    %% page if the content is too long.
+    \switchcolumn
+    """.trimIndent()
+
+/**
+ * Static part of the header following the user personal information.
+ */
+private val HEADER_PERSONAL_INFO_HINTS =
+    """
+      % Not all of these are required!
+      %\email{your_name@email.com}
+      %\phone{000-00-0000}
+      %\mailaddress{Address, Street, 00000 Country}
+      %\location{Location, COUNTRY}
+      %\homepage{www.homepage.com}
+      %\xtwitter{@twitterhandle}
+      %\linkedin{your_id}
+      %\github{your_id}
+      %\orcid{0000-0000-0000-0000}
+
+      %% You can add your own arbitrary detail with
+      %% \printinfo{symbol}{detail}[optional hyperlink prefix]
+      % \printinfo{\faPaw}{Hey ho!}[https://example.com/]
+      %% Or you can declare your own field with
+      %% \NewInfoField{fieldname}{symbol}[optional hyperlink prefix] and use it:
+      % \NewInfoField{gitlab}{\faGitlab}[https://gitlab.com/]
+      % \gitlab{your_id}
+      %%
+      %% For services and platforms like Mastodon where there isn't a
+      %% straightforward relation between the user ID/nickname and the hyperlink,
+      %% you can use \printinfo directly e.g.
+      % \printinfo{\faMastodon}{@username@instace}[https://instance.url/@username]
+      %% But if you absolutely want to create new dedicated info fields for
+      %% such platforms, then use \NewInfoField* with a star:
+      % \NewInfoField*{mastodon}{\faMastodon}
+      %% then you can use \mastodon, with TWO arguments where the 2nd argument is
+      %% the full hyperlink.
+      % \mastodon{@username@instance}{https://instance.url/@username}
+    }
+    """.trimIndent()
+
 /**
  * Generates the complete LaTeX document for an AltaCV resume.
  *
  * @param resumeInfo The [AltaCVResume] object containing all resume information
  * @return The LaTeX document as a string
  */
-internal fun generateResumeLatex(resumeInfo: AltaCVResume) =
-    """
-    |${renderTemplatePreamble(resumeInfo.config)}
-    |
-    |\begin{document}
-    |
-    |${renderResumeHeader(resumeInfo.header)}
-    |
-    |\makecvheader
-    |%% Depending on your tastes, you may want to make fonts of itemize environments slightly smaller
-    |% \AtBeginEnvironment{itemize}{\small}
-    |
-    |%% Set the left/right column width ratio to 6:4.
-    |\columnratio{${resumeInfo.config.columnRatio}}
-    |
-    |% Start a 2-column paracol. Both the left and right columns will automatically
-    |% break across pages if things get too long.
-    |\begin{paracol}{2}
-    |
-    |${renderSections(resumeInfo.sections.filter { it.position.column == 1 })}
-    |
-    |${
-        if (resumeInfo.sections.any { it.position.column == 2 }) {
-            """
-            |%% Switch to the right column. This will now automatically move to the second
-            |%% page if the content is too long.
-            |\switchcolumn
-            |
-            |${renderSections(resumeInfo.sections.filter { it.position.column == 2 })}
-            """.trimMargin()
-        } else { "" }
+internal fun generateResumeLatex(resumeInfo: AltaCVResume) = resumeInfo.toLaTeX()
+
+/**
+ * Generates the complete LaTeX document for an AltaCV resume directly into the given output.
+ *
+ * @param resumeInfo The [AltaCVResume] object containing all resume information
+ * @param plan The [RenderPlan] of the resume sections
+ * @param out The [Appendable] receiving the LaTeX document
+ * @param sectionCache The [RenderCache] of rendered sections, or null to render every section
+ * @param preambleName The name of the shared preamble file to input instead of the preamble, or null to inline the preamble
+ * @param sectionRenderer The [SectionRenderer] rendering the sections, or null to render them inline
+ */
+internal fun generateResumeLatex(
+    resumeInfo: AltaCVResume,
+    plan: RenderPlan,
+    out: Appendable,
+    sectionCache: RenderCache?,
+    preambleName: String? = null,
+    sectionRenderer: SectionRenderer? = null
+) {
+    if (preambleName == null) {
+        renderTemplatePreamble(resumeInfo.config, out)
+    } else {
+        out.append("\\input{").append(preambleName).append('}')
+    }
+    out.append("\n\n\\begin{document}\n\n")
+    renderResumeHeader(resumeInfo.header, out)
+    out.append("\n\n").append(DOCUMENT_MAKE_HEADER).append('\n')
+        .append("\\columnratio{").append(resumeInfo.config.columnRatio.toString()).append("}\n\n")
+        .append(DOCUMENT_BEGIN_COLUMNS).append("\n\n")
+    renderOrderedSections(plan.firstColumn, out, sectionCache, sectionRenderer)
+    out.append("\n\n")
+
+    if (plan.hasSecondColumn) {
+        out.append(DOCUMENT_SWITCH_COLUMN).append("\n\n")
+        renderOrderedSections(plan.secondColumn, out, sectionCache, sectionRenderer)
     }
-    |\end{paracol}
-    |
-    |\end{document}
-    |
-    """.trimMargin()
+
+    out.append("\n\\end{paracol}\n\n\\end{document}\n")
+}
+
+/**
+ * Cache of the rendered color theme definitions, keyed by a snapshot of the color palette.
+ */
+internal val ALTACV_COLOR_THEME_CACHE = RenderCache()
+
+/**
+ * Cache of the rendered preambles, keyed by a snapshot of the [AltaCVConfig] values they depend on.
+ */
+internal val ALTACV_PREAMBLE_CACHE = RenderCache()
+
+/**
+ * Immutable snapshot of a color palette, preserving the order of its entries.
+ */
+private typealias ColorPaletteSnapshot = List<Pair<RColorAlias, RColor>>
+
+/**
+ * Takes an immutable snapshot of the color palette, usable as a cache key.
+ */
+private fun ColorPalette.snapshot(): ColorPaletteSnapshot = map { (alias, color) -> alias to color }
 
 /**
  * Renders the color theme definitions for the AltaCV resume in LaTeX format (AltaCV template).
@@ -80,103 +268,73 @@ internal fun generateResumeLatex(resumeInfo: AltaCVResume) =
  * @param resumeTheme The [ColorPalette] containing color definitions
  * @return LaTeX commands defining colors and their aliases
  */
-internal fun renderResumeColorTheme(resumeTheme: ColorPalette): String {
-    val latexColorsDefinition = resumeTheme.values.distinct().joinToString("\n") {
-        "\\definecolor{${it.colorName}}{HTML}{${it.colorHexValue}}"
-    }
-
-    val latexColorAliasesDefinition = resumeTheme.entries.joinToString("\n") {
-        "\\colorlet{${it.key.value}}{${it.value.colorName}}"
-    }
+internal fun renderResumeColorTheme(resumeTheme: ColorPalette) = renderCachedColorTheme(resumeTheme.snapshot())
 
-    return "$latexColorsDefinition\n\n$latexColorAliasesDefinition"
+/**
+ * Renders the color theme definitions for the AltaCV resume directly into the given output (AltaCV template).
+ *
+ * @param resumeTheme The [ColorPalette] containing color definitions
+ * @param out The [Appendable] receiving the LaTeX commands defining colors and their aliases
+ */
+internal fun renderResumeColorTheme(resumeTheme: ColorPalette, out: Appendable) {
+    out.append(renderResumeColorTheme(resumeTheme))
 }
 
+/**
+ * Returns the color theme definitions of a palette snapshot, from [ALTACV_COLOR_THEME_CACHE] when already rendered.
+ *
+ * @param theme The snapshot of the color palette
+ * @return LaTeX commands defining colors and their aliases
+ */
+private fun renderCachedColorTheme(theme: ColorPaletteSnapshot) =
+    ALTACV_COLOR_THEME_CACHE.getOrRender(theme) { out ->
+        theme.map { it.second }.distinct().forEachIndexed { index, color ->
+            if (index > 0) out.append('\n')
+            out.append("\\definecolor{").append(color.colorName).append("}{HTML}{").append(color.colorHexValue).append('}')
+        }
+
+        out.append("\n\n")
+
+        theme.forEachIndexed { index, (alias, color) ->
+            if (index > 0) out.append('\n')
+            out.append("\\colorlet{").append(alias.value).append("}{").append(color.colorName).append('}')
+        }
+    }
+
 /**
  * Generates the LaTeX preamble containing document class settings, package imports, and styling configurations (AltaCV template).
  *
  * @param resumeConfig The [AltaCVConfig] containing resume-wide settings
  * @return LaTeX preamble as a string with all necessary configurations
  */
-@Suppress("LongMethod")
 internal fun renderTemplatePreamble(resumeConfig: AltaCVConfig): String {
-    val withNormalPhoto = when (resumeConfig.photoShape) {
-        PhotoShape.NORMAL -> ",normalphoto"
-        PhotoShape.CIRCLE -> ""
+    val photoShape = resumeConfig.photoShape
+    val theme = resumeConfig.theme.snapshot()
+
+    return ALTACV_PREAMBLE_CACHE.getOrRender(photoShape to theme) { out ->
+        val withNormalPhoto = when (photoShape) {
+            PhotoShape.NORMAL -> ",normalphoto"
+            PhotoShape.CIRCLE -> ""
+        }
+
+        out.append(ALTACV_COPYRIGHT).append("\n\n")
+            .append(PREAMBLE_DOCUMENT_CLASS_HINT).append("\n\n")
+            .append("\\documentclass[10pt,a4paper,ragged2e,withhyper").append(withNormalPhoto).append("]{altacv}\n")
+            .append(PREAMBLE_LAYOUT_AND_FONTS).append('\n')
+            .append(renderCachedColorTheme(theme))
+            .append("\n\n").append(PREAMBLE_CUSTOMIZATIONS)
     }
+}
 
-    return """
-    |$ALTACV_COPYRIGHT
-    |
-    |%% Use the "normalphoto" option if you want a normal photo instead of cropped to a circle
-    |% \documentclass[10pt,a4paper,normalphoto]{altacv}
-    |
-    |\documentclass[10pt,a4paper,ragged2e,withhyper$withNormalPhoto]{altacv}
-    |%% AltaCV uses the fontawesome5 and packages.
-    |%% See http://texdoc.net/pkg/fontawesome5 for full list of symbols.
-    |
-    |% Change the page layout if you need to
-    |\geometry{left=1.25cm,right=1.25cm,top=1.5cm,bottom=1.5cm,columnsep=1.2cm}
-    |
-    |% The paracol package lets you typeset columns of text in parallel
-    |\usepackage{paracol}
-    |\usepackage{hyperref}
-    |
-    |% Change the font if you want to, depending on whether
-    |% you're using pdflatex or xelatex/lualatex
-    |% WHEN COMPILING WITH XELATEX PLEASE USE
-    |% xelatex -shell-escape -output-driver="xdvipdfmx -z 0" sample.tex
-    |\ifxetexorluatex
-    |% If using xelatex or lualatex:
-    |\usepackage{fontspec}
-    |\setmainfont[
-    |    Path = fonts/Roboto_Slab/,
-    |    UprightFont = RobotoSlab-VariableFont_wght.ttf
-    |]{Roboto Slab}
-    |\setsansfont[
-    |    Path = fonts/Lato/,
-    |    UprightFont = Lato-Regular.ttf
-    |]{Lato}
-    |\renewcommand{\familydefault}{\sfdefault}
-    |\else
-    |% If using pdflatex:
-    |\usepackage[rm]{roboto}
-    |\usepackage[defaultsans]{lato}
-    |% \usepackage{sourcesanspro}
-    |\renewcommand{\familydefault}{\sfdefault}
-    |\fi
-    |
-    |% Change the colours if you want to
-    |${renderResumeColorTheme(resumeConfig.theme)}
-    |
-    |% Change some fonts, if necessary
-    |\renewcommand{\namefont}{\Huge\rmfamily\bfseries}
-    |\renewcommand{\personalinfofont}{\footnotesize}
-    |\renewcommand{\cvsectionfont}{\LARGE\rmfamily\bfseries}
-    |\renewcommand{\cvsubsectionfont}{\large\bfseries}
-    |
-    |% Change the bullets for itemize and rating marker
-    |% for \cvskill if you want to
-    |\renewcommand{\cvItemMarker}{{\small\textbullet}}
-    |\renewcommand{\cvRatingMarker}{\faCircle}
-    |% ...and the markers for the date/location for \cvevent
-    |\renewcommand{\cvDateMarker}{\faCalendar*[regular]}
-    |\renewcommand{\cvLocationMarker}{\faMapMarker*}
-    |
-    |% To display language skill fluency as string rather than stars
-    |\newcommand{\cvskillstr}[2]{%
-    |    \textcolor{emphasis}{\textbf{#1}}\hfill
-    |    \textbf{\color{body}#2}\par
-    |}
-    |
-    |% If your CV/résumé is in a language other than English,
-    |% then you probably want to change these so that when you
-    |% copy-paste from the PDF or run pdftotext, the location
-    |% and date marker icons for \cvevent will paste as correct
-    |% translations. For example Spanish:
-    |% \renewcommand{\locationname}{Ubicación}
-    |% \renewcommand{\datename}{Fecha}
-    """.trimMargin()
+/**
+ * Generates the LaTeX preamble directly into the given output (AltaCV template).
+ * The preamble is rendered once per distinct configuration and then served from [ALTACV_PREAMBLE_CACHE].
+ *
+ * @param resumeConfig The [AltaCVConfig] containing resume-wide settings
+ * @param out The [Appendable] receiving the LaTeX preamble
+ */
+internal fun renderTemplatePreamble(resumeConfig: AltaCVConfig, out: Appendable) {
+    out.append(renderTemplatePreamble(resumeConfig))
 }
 
 /**
@@ -185,58 +343,36 @@ internal fun renderTemplatePreamble(resumeConfig: AltaCVConfig): String {
  * @param header The [AltaCVHeader] containing name, tagline, photo, and personal information
  * @return LaTeX commands for rendering the resume header
  */
-internal fun renderResumeHeader(header: AltaCVHeader): String {
-    val photo = when (header.photo?.direction) {
-        PhotoDirection.LEFT -> "\\photoL{${header.photo?.size}cm}{${header.photo?.path}}"
-        PhotoDirection.RIGHT -> "\\photoR{${header.photo?.size}cm}{${header.photo?.path}}"
-        else -> ""
+internal fun renderResumeHeader(header: AltaCVHeader) = buildString { renderResumeHeader(header, this) }
+
+/**
+ * Generates the LaTeX code for the AltaCV resume header section directly into the given output.
+ *
+ * @param header The [AltaCVHeader] containing name, tagline, photo, and personal information
+ * @param out The [Appendable] receiving the LaTeX commands for rendering the resume header
+ */
+internal fun renderResumeHeader(header: AltaCVHeader, out: Appendable) {
+    out.append("\\name{").appendEscaped(header.userInfo?.name ?: "").append("}\n")
+        .append("\\tagline{").appendEscaped(header.tagline).append("}\n")
+        .append("%% You can add multiple photos on the left or right\n")
+
+    header.photo?.let { photo ->
+        val command = when (photo.direction) {
+            PhotoDirection.LEFT -> "%\\photoL{"
+            PhotoDirection.RIGHT -> "%\\photoR{"
+        }
+        out.append(command).append(photo.size.toString()).append("cm}{").append(photo.path).append('}')
+    }
+
+    out.append("\n%\\photoL{2.5cm}{Yacht_High,Suitcase_High}\n\n")
+        .append("\\personalinfo{%\n")
+
+    header.userInfo?.personalInfo?.let {
+        out.append("  ")
+        renderUserPersonalInfo(it, out)
     }
 
-    val userPersonalInfo = header.userInfo?.personalInfo?.let {
-        "  ${renderUserPersonalInfo(it)}"
-    } ?: ""
-
-    return """
-    |\name{${header.userInfo?.name?.escapeSpecialChars() ?: ""}}
-    |\tagline{${header.tagline.escapeSpecialChars()}}
-    |%% You can add multiple photos on the left or right
-    |${if (photo.isEmpty()) "" else "%$photo"}
-    |%\photoL{2.5cm}{Yacht_High,Suitcase_High}
-    |
-    |\personalinfo{%
-    |$userPersonalInfo
-    |
-    |  % Not all of these are required!
-    |  %\email{your_name@email.com}
-    |  %\phone{000-00-0000}
-    |  %\mailaddress{Address, Street, 00000 Country}
-    |  %\location{Location, COUNTRY}
-    |  %\homepage{www.homepage.com}
-    |  %\xtwitter{@twitterhandle}
-    |  %\linkedin{your_id}
-    |  %\github{your_id}
-    |  %\orcid{0000-0000-0000-0000}
-    |
-    |  %% You can add your own arbitrary detail with
-    |  %% \printinfo{symbol}{detail}[optional hyperlink prefix]
-    |  % \printinfo{\faPaw}{Hey ho!}[https://example.com/]
-    |  %% Or you can declare your own field with
-    |  %% \NewInfoField{fieldname}{symbol}[optional hyperlink prefix] and use it:
-    |  % \NewInfoField{gitlab}{\faGitlab}[https://gitlab.com/]
-    |  % \gitlab{your_id}
-    |  %%
-    |  %% For services and platforms like Mastodon where there isn't a
-    |  %% straightforward relation between the user ID/nickname and the hyperlink,
-    |  %% you can use \printinfo directly e.g.
-    |  % \printinfo{\faMastodon}{@username@instace}[https://instance.url/@username]
-    |  %% But if you absolutely want to create new dedicated info fields for
-    |  %% such platforms, then use \NewInfoField* with a star:
-    |  % \NewInfoField*{mastodon}{\faMastodon}
-    |  %% then you can use \mastodon, with TWO arguments where the 2nd argument is
-    |  %% the full hyperlink.
-    |  % \mastodon{@username@instance}{https://instance.url/@username}
-    |}
-    """.trimMargin()
+    out.append("\n\n").append(HEADER_PERSONAL_INFO_HINTS)
 }
 
 /**
@@ -245,17 +381,27 @@ internal fun renderResumeHeader(header: AltaCVHeader): String {
  * @param personalInfo The [AltaCVUserPersonalInfo] containing contact and social media information
  * @return LaTeX commands for displaying personal information fields
  */
-internal fun renderUserPersonalInfo(personalInfo: AltaCVUserPersonalInfo): String =
-    personalInfo.joinToString("\n  ") { userInfo ->
+internal fun renderUserPersonalInfo(personalInfo: AltaCVUserPersonalInfo) = buildString { renderUserPersonalInfo(personalInfo, this) }
+
+/**
+ * Renders personal information fields directly into the given output (AltaCV template).
+ *
+ * @param personalInfo The [AltaCVUserPersonalInfo] containing contact and social media information
+ * @param out The [Appendable] receiving the LaTeX commands for displaying personal information fields
+ */
+internal fun renderUserPersonalInfo(personalInfo: AltaCVUserPersonalInfo, out: Appendable) {
+    personalInfo.forEachIndexed { index, userInfo ->
+        if (index > 0) out.append("\n  ")
+
         val fieldName = userInfo.fieldName
         val fieldValue = userInfo.value
 
         when (fieldName) {
-            "twitter" -> "\\x$fieldName{$fieldValue}"
-            in USER_CONTACT_FIELDS -> "\\$fieldName{$fieldValue}"
-            else -> """
-                \NewInfoField{$fieldName}{${userInfo.symbol}}[${userInfo.prefix}]
-                  \$fieldName{$fieldValue}
-            """.trimIndent()
+            "twitter" -> out.append("\\x").append(fieldName).append('{').append(fieldValue).append('}')
+            in USER_CONTACT_FIELDS -> out.append('\\').append(fieldName).append('{').append(fieldValue).append('}')
+            else -> out.append("\\NewInfoField{").append(fieldName).append("}{").append(userInfo.symbol)
+                .append("}[").append(userInfo.prefix).append("]\n")
+                .append("  \\").append(fieldName).append('{').append(fieldValue).append('}')
         }
     }
+}
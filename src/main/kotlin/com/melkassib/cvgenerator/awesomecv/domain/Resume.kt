@@ -2,8 +2,12 @@
 
 package com.melkassib.cvgenerator.awesomecv.domain
 
+import com.melkassib.cvgenerator.awesomecv.utils.AWESOME_CV_LICENSE_NOTICE
 import com.melkassib.cvgenerator.awesomecv.utils.generateResumeLatex
+import com.melkassib.cvgenerator.awesomecv.utils.renderTemplatePreamble
 import com.melkassib.cvgenerator.common.domain.*
+import com.melkassib.cvgenerator.common.utils.RenderCache
+import com.melkassib.cvgenerator.common.utils.SectionRenderer
 import com.melkassib.cvgenerator.common.utils.TITLE_WIDTH
 import com.melkassib.cvgenerator.common.utils.centered
 
@@ -82,7 +86,20 @@ class AwesomeCVResume @JvmOverloads constructor(
     footer: AwesomeCVFooter = AwesomeCVFooter(),
     sections: List<Section> = listOf()
 ) : Resume<AwesomeCVConfig, AwesomeCVHeader, AwesomeCVFooter>(config, header, footer, sections) {
-    override fun toLaTeX(): String = generateResumeLatex(this)
+    override fun toLaTeX(plan: RenderPlan, out: Appendable, sectionCache: RenderCache?) =
+        generateResumeLatex(this, plan, out, sectionCache)
+
+    override fun toLaTeXBody(preambleName: String, plan: RenderPlan, out: Appendable, sectionCache: RenderCache?) =
+        generateResumeLatex(this, plan, out, sectionCache, preambleName)
+
+    override fun toLaTeX(plan: RenderPlan, out: Appendable, sectionRenderer: SectionRenderer) =
+        generateResumeLatex(this, plan, out, null, sectionRenderer = sectionRenderer)
+
+    override fun toLaTeXPreamble() = renderTemplatePreamble(config)
+
+    override fun licenseNotice() = AWESOME_CV_LICENSE_NOTICE
+
+    override fun withSections(sections: List<Section>) = AwesomeCVResume(config, header, footer, sections)
 
     /**
      * Prints the sections of the resume in a formatted string.
@@ -5,7 +5,7 @@ package com.melkassib.cvgenerator.awesomecv.domain
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize
 import com.fasterxml.jackson.databind.annotation.JsonSerialize
 import com.melkassib.cvgenerator.awesomecv.serialization.UserInfoSerializers
-import com.melkassib.cvgenerator.common.serialization.JSON_MAPPER
+import com.melkassib.cvgenerator.common.serialization.jsonWriterFor
 
 /**
  * Represents a collection of personal information of a user in the AwesomeCV resume.
@@ -40,7 +40,7 @@ open class UserInfoField(val fieldName: String, open val value: String = "", ope
      *
      * @return The JSON string representation of the user information field.
      */
-    fun toJson(): String = JSON_MAPPER.writeValueAsString(this)
+    fun toJson(): String = jsonWriterFor(javaClass).writeValueAsString(this)
 
     override fun toString(): String {
         return "AwesomeCVUserInfoField(fieldName='$fieldName', value='$value', valueId=$valueId)"
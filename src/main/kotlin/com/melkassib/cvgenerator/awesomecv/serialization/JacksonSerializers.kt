@@ -5,11 +5,19 @@ package com.melkassib.cvgenerator.awesomecv.serialization
 import com.fasterxml.jackson.core.JsonGenerator
 import com.fasterxml.jackson.core.JsonParser
 import com.fasterxml.jackson.databind.*
-import com.fasterxml.jackson.module.kotlin.readValue
+import com.fasterxml.jackson.databind.module.SimpleModule
 import com.melkassib.cvgenerator.awesomecv.domain.*
-import com.melkassib.cvgenerator.common.serialization.JSON_MAPPER
-import com.melkassib.cvgenerator.common.serialization.YAML_MAPPER
+import com.melkassib.cvgenerator.common.domain.AwesomeCVConfig
+import com.melkassib.cvgenerator.common.domain.AwesomeCVFooter
+import com.melkassib.cvgenerator.common.domain.AwesomeCVHeader
+import com.melkassib.cvgenerator.common.domain.PhotoDirection
+import com.melkassib.cvgenerator.common.domain.Section
+import com.melkassib.cvgenerator.common.serialization.*
 import com.melkassib.cvgenerator.common.utils.JsonFieldNames
+import java.io.InputStream
+import java.io.Reader
+import java.nio.file.Files
+import java.nio.file.Path
 
 /**
  * Contains custom serializers and deserializers for UserInfoField (AwesomeCV).
@@ -33,26 +41,293 @@ object UserInfoSerializers {
     object Deserializer : JsonDeserializer<UserInfoField>() {
         override fun deserialize(parser: JsonParser, ctxt: DeserializationContext?): UserInfoField {
             val node = parser.readValueAsTree<JsonNode>()
-            return when (node[JsonFieldNames.FIELD_NAME].asText()) {
-                "position" -> Position(node[JsonFieldNames.VALUE].asText())
-                "address" -> MailAddress(node[JsonFieldNames.VALUE].asText())
-                "mobile" -> Phone(node[JsonFieldNames.VALUE].asText())
-                "email" -> Email(node[JsonFieldNames.VALUE].asText())
-                "homepage" -> HomePage(node[JsonFieldNames.VALUE].asText())
-                "github" -> Github(node[JsonFieldNames.VALUE].asText())
-                "linkedin" -> LinkedIn(node[JsonFieldNames.VALUE].asText())
-                "gitlab" -> Gitlab(node[JsonFieldNames.VALUE].asText())
-                "twitter" -> Twitter(node[JsonFieldNames.VALUE].asText())
-                "skype" -> Skype(node[JsonFieldNames.VALUE].asText())
-                "reddit" -> Reddit(node[JsonFieldNames.VALUE].asText())
-                "medium" -> Medium(node[JsonFieldNames.VALUE].asText())
-                "stackoverflow" -> StackOverFlow(node[JsonFieldNames.VALUE_ID].asText(), node[JsonFieldNames.VALUE].asText())
-                "googlescholar" -> GoogleScholar(node[JsonFieldNames.VALUE_ID].asText(), node[JsonFieldNames.VALUE].asText())
-                "extrainfo" -> ExtraInfo(node[JsonFieldNames.VALUE].asText())
-                else -> UserInfoField("null")
+            val fieldName = node[JsonFieldNames.FIELD_NAME].asText()
+            val valueId = if (fieldName in VALUE_ID_FIELDS) node[JsonFieldNames.VALUE_ID].asText() else null
+
+            return userInfoFieldOf(fieldName, node[JsonFieldNames.VALUE].asText(), valueId) ?: UserInfoField("null")
+        }
+    }
+}
+
+/**
+ * Names of the user info fields identified by a value id.
+ */
+private val VALUE_ID_FIELDS = setOf("stackoverflow", "googlescholar")
+
+/**
+ * Creates the predefined user info field of the given name.
+ *
+ * @param fieldName The name of the field
+ * @param value The value of the field
+ * @param valueId The value id of the field, for the fields identified by one
+ * @return The [UserInfoField], or null if the name is not one of a predefined field
+ */
+internal fun userInfoFieldOf(fieldName: String, value: String, valueId: String?): UserInfoField? =
+    when (fieldName) {
+        "position" -> Position(value)
+        "address" -> MailAddress(value)
+        "mobile" -> Phone(value)
+        "email" -> Email(value)
+        "homepage" -> HomePage(value)
+        "github" -> Github(value)
+        "linkedin" -> LinkedIn(value)
+        "gitlab" -> Gitlab(value)
+        "twitter" -> Twitter(value)
+        "skype" -> Skype(value)
+        "reddit" -> Reddit(value)
+        "medium" -> Medium(value)
+        "stackoverflow" -> StackOverFlow(valueId.orEmpty(), value)
+        "googlescholar" -> GoogleScholar(valueId.orEmpty(), value)
+        "extrainfo" -> ExtraInfo(value)
+        else -> null
+    }
+
+/**
+ * Contains the serializers and deserializers of the AwesomeCV resume and of its configuration, header and footer.
+ */
+object AwesomeCVSerializers {
+    /**
+     * Serializer for AwesomeCVResume.
+     */
+    object ResumeSerializer : JsonSerializer<AwesomeCVResume>() {
+        override fun serialize(value: AwesomeCVResume, gen: JsonGenerator, serializers: SerializerProvider) {
+            gen.writeObjectFields(value) {
+                writeFieldName("config")
+                ConfigSerializer.serialize(value.config, gen, serializers)
+                writeFieldName("header")
+                HeaderSerializer.serialize(value.header, gen, serializers)
+                writeFieldName("footer")
+                FooterSerializer.serialize(value.footer, gen, serializers)
+                writeArrayOf("sections", value.sections) { SectionSerializers.Serializer.serialize(it, gen, serializers) }
+            }
+        }
+    }
+
+    /**
+     * Deserializer for AwesomeCVResume.
+     */
+    object ResumeDeserializer : JsonDeserializer<AwesomeCVResume>() {
+        override fun deserialize(parser: JsonParser, ctxt: DeserializationContext): AwesomeCVResume {
+            var config = AwesomeCVConfig()
+            var header = AwesomeCVHeader()
+            var footer = AwesomeCVFooter()
+            var sections: List<Section> = listOf()
+
+            parser.readFields(ctxt, this, AwesomeCVResume::class.java) { field ->
+                when (field) {
+                    "config" -> config = parser.readValue(ctxt, ConfigDeserializer, AwesomeCVResume::class.java, field)
+                    "header" -> header = parser.readValue(ctxt, HeaderDeserializer, AwesomeCVResume::class.java, field)
+                    "footer" -> footer = parser.readValue(ctxt, FooterDeserializer, AwesomeCVResume::class.java, field)
+                    "sections" -> sections = parser.readArray(ctxt, AwesomeCVResume::class.java, field) {
+                        parser.readValue(ctxt, SectionSerializers.Deserializer, AwesomeCVResume::class.java, field)
+                    }
+                    else -> return@readFields false
+                }
+                true
+            }
+
+            return AwesomeCVResume(config, header, footer, sections)
+        }
+    }
+
+    /**
+     * Serializer for AwesomeCVConfig.
+     */
+    object ConfigSerializer : JsonSerializer<AwesomeCVConfig>() {
+        override fun serialize(value: AwesomeCVConfig, gen: JsonGenerator, serializers: SerializerProvider) {
+            gen.writeObjectFields(value) {
+                writeStringField("colorTheme", value.colorTheme.name)
+                writeBooleanField("isSectionHighlighted", value.isSectionHighlighted)
+                writeStringField("headerSocialSeparator", value.headerSocialSeparator)
+            }
+        }
+    }
+
+    /**
+     * Deserializer for AwesomeCVConfig.
+     */
+    object ConfigDeserializer : JsonDeserializer<AwesomeCVConfig>() {
+        override fun deserialize(parser: JsonParser, ctxt: DeserializationContext): AwesomeCVConfig {
+            val config = AwesomeCVConfig()
+
+            parser.readFields(ctxt, this, AwesomeCVConfig::class.java) { field ->
+                when (field) {
+                    "colorTheme" -> config.colorTheme = parser.readEnum(ctxt, ColorTheme::class.java, AwesomeCVConfig::class.java, field)
+                    "isSectionHighlighted" -> config.isSectionHighlighted = parser.readBoolean(ctxt)
+                    "headerSocialSeparator" -> config.headerSocialSeparator = parser.readString(ctxt, AwesomeCVConfig::class.java, field)
+                    else -> return@readFields false
+                }
+                true
+            }
+
+            return config
+        }
+    }
+
+    /**
+     * Serializer for AwesomeCVHeader.
+     */
+    object HeaderSerializer : JsonSerializer<AwesomeCVHeader>() {
+        override fun serialize(value: AwesomeCVHeader, gen: JsonGenerator, serializers: SerializerProvider) {
+            gen.writeObjectFields(value) {
+                writeStringField("alignment", value.alignment.name)
+                writeNullableField("userInfo", value.userInfo, UserSerializer, serializers)
+                writeNullableField("photo", value.photo, PhotoSerializer, serializers)
+                writeStringField("quote", value.quote)
+            }
+        }
+    }
+
+    /**
+     * Deserializer for AwesomeCVHeader.
+     */
+    object HeaderDeserializer : JsonDeserializer<AwesomeCVHeader>() {
+        override fun deserialize(parser: JsonParser, ctxt: DeserializationContext): AwesomeCVHeader {
+            val header = AwesomeCVHeader()
+
+            parser.readFields(ctxt, this, AwesomeCVHeader::class.java) { field ->
+                when (field) {
+                    "alignment" -> header.alignment = parser.readEnum(ctxt, HeaderAlignment::class.java, AwesomeCVHeader::class.java, field)
+                    "userInfo" -> header.userInfo = parser.readNullableValue(ctxt, UserDeserializer)
+                    "photo" -> header.photo = parser.readNullableValue(ctxt, PhotoDeserializer)
+                    "quote" -> header.quote = parser.readString(ctxt, AwesomeCVHeader::class.java, field)
+                    else -> return@readFields false
+                }
+                true
+            }
+
+            return header
+        }
+    }
+
+    /**
+     * Serializer for AwesomeCVFooter.
+     */
+    object FooterSerializer : JsonSerializer<AwesomeCVFooter>() {
+        override fun serialize(value: AwesomeCVFooter, gen: JsonGenerator, serializers: SerializerProvider) {
+            gen.writeObjectFields(value) {
+                writeStringField("left", value.left)
+                writeStringField("center", value.center)
+                writeStringField("right", value.right)
             }
         }
     }
+
+    /**
+     * Deserializer for AwesomeCVFooter.
+     */
+    object FooterDeserializer : JsonDeserializer<AwesomeCVFooter>() {
+        override fun deserialize(parser: JsonParser, ctxt: DeserializationContext): AwesomeCVFooter {
+            val footer = AwesomeCVFooter()
+
+            parser.readFields(ctxt, this, AwesomeCVFooter::class.java) { field ->
+                when (field) {
+                    "left" -> footer.left = parser.readString(ctxt, AwesomeCVFooter::class.java, field)
+                    "center" -> footer.center = parser.readString(ctxt, AwesomeCVFooter::class.java, field)
+                    "right" -> footer.right = parser.readString(ctxt, AwesomeCVFooter::class.java, field)
+                    else -> return@readFields false
+                }
+                true
+            }
+
+            return footer
+        }
+    }
+
+    /**
+     * Serializer for AwesomeCVUserInfo.
+     */
+    object UserSerializer : JsonSerializer<AwesomeCVUserInfo>() {
+        override fun serialize(value: AwesomeCVUserInfo, gen: JsonGenerator, serializers: SerializerProvider) {
+            gen.writeObjectFields(value) {
+                writeStringField("firstName", value.firstName)
+                writeStringField("lastName", value.lastName)
+                writeArrayOf("personalInfo", value.personalInfo) { UserInfoSerializers.Serializer.serialize(it, gen, serializers) }
+            }
+        }
+    }
+
+    /**
+     * Deserializer for AwesomeCVUserInfo.
+     */
+    object UserDeserializer : JsonDeserializer<AwesomeCVUserInfo>() {
+        override fun deserialize(parser: JsonParser, ctxt: DeserializationContext): AwesomeCVUserInfo {
+            val userInfo = AwesomeCVUserInfo()
+
+            parser.readFields(ctxt, this, AwesomeCVUserInfo::class.java) { field ->
+                when (field) {
+                    "firstName" -> userInfo.firstName = parser.readString(ctxt, AwesomeCVUserInfo::class.java, field)
+                    "lastName" -> userInfo.lastName = parser.readString(ctxt, AwesomeCVUserInfo::class.java, field)
+                    "personalInfo" -> parser.readArray(ctxt, AwesomeCVUserInfo::class.java, field) {
+                        userInfo.personalInfo += UserInfoSerializers.Deserializer.deserialize(parser, ctxt)
+                    }
+                    else -> return@readFields false
+                }
+                true
+            }
+
+            return userInfo
+        }
+    }
+
+    /**
+     * Serializer for Photo.
+     */
+    object PhotoSerializer : JsonSerializer<Photo>() {
+        override fun serialize(value: Photo, gen: JsonGenerator, serializers: SerializerProvider) {
+            gen.writeObjectFields(value) {
+                writeStringField("shape", value.shape.name)
+                writeStringField("edge", value.edge.name)
+                writeStringField("direction", value.direction.name)
+                writeStringField("path", value.path)
+            }
+        }
+    }
+
+    /**
+     * Deserializer for Photo.
+     */
+    object PhotoDeserializer : JsonDeserializer<Photo>() {
+        override fun deserialize(parser: JsonParser, ctxt: DeserializationContext): Photo {
+            var shape = PhotoShape.RECTANGLE
+            var edge = PhotoEdge.EDGE
+            var direction = PhotoDirection.RIGHT
+            var path = ""
+
+            parser.readFields(ctxt, this, Photo::class.java) { field ->
+                when (field) {
+                    "shape" -> shape = parser.readEnum(ctxt, PhotoShape::class.java, Photo::class.java, field)
+                    "edge" -> edge = parser.readEnum(ctxt, PhotoEdge::class.java, Photo::class.java, field)
+                    "direction" -> direction = parser.readEnum(ctxt, PhotoDirection::class.java, Photo::class.java, field)
+                    "path" -> path = parser.readString(ctxt, Photo::class.java, field)
+                    else -> return@readFields false
+                }
+                true
+            }
+
+            return Photo(shape, edge, direction, path)
+        }
+    }
+
+    /**
+     * Registers the serializers and deserializers of the AwesomeCV domain into the given module.
+     *
+     * @param module The module binding the resume domain model
+     */
+    internal fun register(module: SimpleModule) = with(module) {
+        addSerializer(AwesomeCVResume::class.java, ResumeSerializer)
+        addDeserializer(AwesomeCVResume::class.java, ResumeDeserializer)
+        addSerializer(AwesomeCVConfig::class.java, ConfigSerializer)
+        addDeserializer(AwesomeCVConfig::class.java, ConfigDeserializer)
+        addSerializer(AwesomeCVHeader::class.java, HeaderSerializer)
+        addDeserializer(AwesomeCVHeader::class.java, HeaderDeserializer)
+        addSerializer(AwesomeCVFooter::class.java, FooterSerializer)
+        addDeserializer(AwesomeCVFooter::class.java, FooterDeserializer)
+        addSerializer(AwesomeCVUserInfo::class.java, UserSerializer)
+        addDeserializer(AwesomeCVUserInfo::class.java, UserDeserializer)
+        addSerializer(Photo::class.java, PhotoSerializer)
+        addDeserializer(Photo::class.java, PhotoDeserializer)
+    }
 }
 
 /**
@@ -61,7 +336,33 @@ object UserInfoSerializers {
  * @param json The JSON string representing the resume.
  * @return The [AwesomeCVResume] object.
  */
-fun buildAwesomeCVResumeFromJson(json: String) = JSON_MAPPER.readValue<AwesomeCVResume>(json)
+fun buildAwesomeCVResumeFromJson(json: String): AwesomeCVResume = jsonReaderFor(AwesomeCVResume::class.java).readValue(json)
+
+/**
+ * Builds an AwesomeCV Resume object from a JSON input stream, without loading it into a string first.
+ * The stream is not closed.
+ *
+ * @param input The stream of the JSON document representing the resume.
+ * @return The [AwesomeCVResume] object.
+ */
+fun buildAwesomeCVResumeFromJson(input: InputStream): AwesomeCVResume = jsonReaderFor(AwesomeCVResume::class.java).readValue(input)
+
+/**
+ * Builds an AwesomeCV Resume object from a JSON reader, without loading it into a string first.
+ * The reader is not closed.
+ *
+ * @param reader The reader of the JSON document representing the resume.
+ * @return The [AwesomeCVResume] object.
+ */
+fun buildAwesomeCVResumeFromJson(reader: Reader): AwesomeCVResume = jsonReaderFor(AwesomeCVResume::class.java).readValue(reader)
+
+/**
+ * Builds an AwesomeCV Resume object from a JSON file.
+ *
+ * @param path The path of the JSON file representing the resume.
+ * @return The [AwesomeCVResume] object.
+ */
+fun buildAwesomeCVResumeFromJson(path: Path): AwesomeCVResume = Files.newInputStream(path).use { buildAwesomeCVResumeFromJson(it) }
 
 /**
  * Builds an AwesomeCVResume Resume object from a YAML string.
@@ -69,4 +370,73 @@ fun buildAwesomeCVResumeFromJson(json: String) = JSON_MAPPER.readValue<AwesomeCV
  * @param yaml The YAML string representing the resume.
  * @return The [AwesomeCVResume] object.
  */
-fun buildAwesomeCVResumeFromYaml(yaml: String) = YAML_MAPPER.readValue<AwesomeCVResume>(yaml)
+fun buildAwesomeCVResumeFromYaml(yaml: String): AwesomeCVResume = yamlReaderFor(AwesomeCVResume::class.java).readValue(yaml)
+
+/**
+ * Builds an AwesomeCV Resume object from a YAML input stream, without loading it into a string first.
+ * The stream is not closed.
+ *
+ * @param input The stream of the YAML document representing the resume.
+ * @return The [AwesomeCVResume] object.
+ */
+fun buildAwesomeCVResumeFromYaml(input: InputStream): AwesomeCVResume = yamlReaderFor(AwesomeCVResume::class.java).readValue(input)
+
+/**
+ * Builds an AwesomeCV Resume object from a YAML reader, without loading it into a string first.
+ * The reader is not closed.
+ *
+ * @param reader The reader of the YAML document representing the resume.
+ * @return The [AwesomeCVResume] object.
+ */
+fun buildAwesomeCVResumeFromYaml(reader: Reader): AwesomeCVResume = yamlReaderFor(AwesomeCVResume::class.java).readValue(reader)
+
+/**
+ * Builds an AwesomeCV Resume object from a YAML file.
+ *
+ * @param path The path of the YAML file representing the resume.
+ * @return The [AwesomeCVResume] object.
+ */
+fun buildAwesomeCVResumeFromYaml(path: Path): AwesomeCVResume = Files.newInputStream(path).use { buildAwesomeCVResumeFromYaml(it) }
+
+/**
+ * Builds an AwesomeCV Resume object from a binary input stream, as written by [Resume.toBinary].
+ * The stream is not closed.
+ *
+ * @param input The stream of the binary resume.
+ * @return The [AwesomeCVResume] object.
+ * @throws java.io.StreamCorruptedException If the input is not a binary AwesomeCV resume.
+ */
+fun buildAwesomeCVResumeFromBinary(input: InputStream): AwesomeCVResume = buildResumeFromBinary(input).asBinaryResumeOf(AwesomeCVResume::class.java)
+
+/**
+ * Builds an AwesomeCV Resume object from its binary form, as returned by [Resume.toBinary].
+ *
+ * @param bytes The binary resume.
+ * @return The [AwesomeCVResume] object.
+ * @throws java.io.StreamCorruptedException If the bytes are not a binary AwesomeCV resume.
+ */
+fun buildAwesomeCVResumeFromBinary(bytes: ByteArray): AwesomeCVResume = buildResumeFromBinary(bytes).asBinaryResumeOf(AwesomeCVResume::class.java)
+
+/**
+ * Reads AwesomeCV resumes lazily from a stream of newline-delimited JSON documents, one resume at a time.
+ * The sequence can be iterated only once, and the stream is not closed.
+ *
+ * @param input The stream of JSON documents, one resume per line.
+ * @param onMalformed Receives the records that could not be read and are skipped, or null to fail on the first one.
+ * @return The lazy sequence of [AwesomeCVResume] objects.
+ */
+@JvmOverloads
+fun readAwesomeCVResumes(input: InputStream, onMalformed: ((MalformedRecord) -> Unit)? = null): Sequence<AwesomeCVResume> =
+    readRecords(jsonReaderFor(AwesomeCVResume::class.java), input, onMalformed)
+
+/**
+ * Reads AwesomeCV resumes lazily from a multi-document YAML stream, one resume at a time.
+ * The sequence can be iterated only once, and the stream is not closed.
+ *
+ * @param input The stream of YAML documents, one resume per document.
+ * @param onMalformed Receives the documents that could not be read and are skipped, or null to fail on the first one.
+ * @return The lazy sequence of [AwesomeCVResume] objects.
+ */
+@JvmOverloads
+fun readAwesomeCVResumesFromYaml(input: InputStream, onMalformed: ((MalformedRecord) -> Unit)? = null): Sequence<AwesomeCVResume> =
+    readRecords(yamlReaderFor(AwesomeCVResume::class.java), input, onMalformed)
@@ -6,7 +6,10 @@ import com.melkassib.cvgenerator.awesomecv.domain.AwesomeCVResume
 import com.melkassib.cvgenerator.awesomecv.domain.AwesomeCVUserPersonalInfo
 import com.melkassib.cvgenerator.common.domain.AwesomeCVConfig
 import com.melkassib.cvgenerator.common.domain.AwesomeCVHeader
-import com.melkassib.cvgenerator.common.utils.renderSections
+import com.melkassib.cvgenerator.common.domain.RenderPlan
+import com.melkassib.cvgenerator.common.utils.RenderCache
+import com.melkassib.cvgenerator.common.utils.SectionRenderer
+import com.melkassib.cvgenerator.common.utils.renderOrderedSections
 
 /**
  * Represents the copyright of the AwesomeCV template.
@@ -29,42 +32,142 @@ private val AWESOME_CV_COPYRIGHT =
     %
     """.trimIndent()
 
+/**
+ * Single-line license attribution of the AwesomeCV template, replacing [AWESOME_CV_COPYRIGHT] in compact documents.
+ */
+internal const val AWESOME_CV_LICENSE_NOTICE =
+    "% Awesome CV LaTeX Template (https://github.com/posquit0/Awesome-CV) by Claud D. Park, CC BY-SA 4.0 (https://creativecommons.org/licenses/by-sa/4.0/)"
+
+/**
+ * Static part of the preamble preceding the color theme.
+ */
+private val PREAMBLE_DOCUMENT_CLASS =
+    """
+    %-------------------------------------------------------------------------------
+    % CONFIGURATIONS
+    %-------------------------------------------------------------------------------
+    % A4 paper size by default, use 'letterpaper' for US letter
+    \documentclass[11pt, a4paper]{awesome-cv}
+
+    % Configure page margins with geometry
+    \geometry{left=1.4cm, top=.8cm, right=1.4cm, bottom=1.8cm, footskip=.5cm}
+
+    % Color for highlights
+    % Awesome Colors: awesome-emerald, awesome-skyblue, awesome-red, awesome-pink, awesome-orange
+    %                 awesome-nephritis, awesome-concrete, awesome-darknight
+    """.trimIndent()
+
+/**
+ * Static part of the preamble between the color theme and the section highlighting.
+ */
+private val PREAMBLE_TEXT_COLORS =
+    """
+    % Uncomment if you would like to specify your own color
+    % \definecolor{awesome}{HTML}{3E6D9C}
+
+    % Colors for text
+    % Uncomment if you would like to specify your own color
+    % \definecolor{darktext}{HTML}{414141}
+    % \definecolor{text}{HTML}{333333}
+    % \definecolor{graytext}{HTML}{5D5D5D}
+    % \definecolor{lighttext}{HTML}{999999}
+    % \definecolor{sectiondivider}{HTML}{5D5D5D}
+
+    % Set false if you don't want to highlight section with awesome color
+    """.trimIndent()
+
+/**
+ * Static part of the document between the header and the header alignment.
+ */
+private val DOCUMENT_MAKE_HEADER =
+    """
+    \begin{document}
+
+    % Print the header with above personal information
+    % Give optional argument to change alignment(C: center, L: left, R: right)
+    """.trimIndent()
+
+/**
+ * Static part of the document preceding the footer arguments.
+ */
+private val DOCUMENT_MAKE_FOOTER =
+    """
+    % Print the footer with 3 arguments(<left>, <center>, <right>)
+    % Leave any of these blank if they are not needed
+    \makecvfooter
+    """.trimIndent()
+
+/**
+ * Static part of the document announcing the resume content.
+ */
+private val DOCUMENT_CONTENT_BANNER =
+    """
+    %-------------------------------------------------------------------------------
+    %	CV/RESUME CONTENT
+    %-------------------------------------------------------------------------------
+    """.trimIndent()
+
+/**
+ * Static part of the header preceding the photo.
+ */
+private val HEADER_PERSONAL_INFO_BANNER =
+    """
+    %-------------------------------------------------------------------------------
+    %	PERSONAL INFORMATION
+    %	Comment any of the lines below if they are not required
+    %-------------------------------------------------------------------------------
+    % Available options: circle|rectangle,edge/noedge,left/right
+    """.trimIndent()
+
 /**
  * Generates the complete LaTeX document for an AwesomeCV resume.
  *
  * @param resumeInfo The [AwesomeCVResume] object containing all resume information
  * @return The LaTeX document as a string
  */
-internal fun generateResumeLatex(resumeInfo: AwesomeCVResume): String {
-    return """
-    |${renderTemplatePreamble(resumeInfo.config)}
-    |
-    |${renderResumeHeader(resumeInfo.header)}
-    |
-    |\begin{document}
-    |
-    |% Print the header with above personal information
-    |% Give optional argument to change alignment(C: center, L: left, R: right)
-    |\makecvheader[${resumeInfo.header.alignment.value}]
-    |
-    |% Print the footer with 3 arguments(<left>, <center>, <right>)
-    |% Leave any of these blank if they are not needed
-    |\makecvfooter
-    |  {${resumeInfo.footer.left}}
-    |  {${resumeInfo.footer.center}}
-    |  {${resumeInfo.footer.right}}
-    |
-    |
-    |%-------------------------------------------------------------------------------
-    |%	CV/RESUME CONTENT
-    |%-------------------------------------------------------------------------------
-    |
-    |${renderSections(resumeInfo.sections)}
-    |
-    |\end{document}
-    """.trimMargin()
+internal fun generateResumeLatex(resumeInfo: AwesomeCVResume) = resumeInfo.toLaTeX()
+
+/**
+ * Generates the complete LaTeX document for an AwesomeCV resume directly into the given output.
+ *
+ * @param resumeInfo The [AwesomeCVResume] object containing all resume information
+ * @param plan The [RenderPlan] of the resume sections
+ * @param out The [Appendable] receiving the LaTeX document
+ * @param sectionCache The [RenderCache] of rendered sections, or null to render every section
+ * @param preambleName The name of the shared preamble file to input instead of the preamble, or null to inline the preamble
+ * @param sectionRenderer The [SectionRenderer] rendering the sections, or null to render them inline
+ */
+internal fun generateResumeLatex(
+    resumeInfo: AwesomeCVResume,
+    plan: RenderPlan,
+    out: Appendable,
+    sectionCache: RenderCache?,
+    preambleName: String? = null,
+    sectionRenderer: SectionRenderer? = null
+) {
+    if (preambleName == null) {
+        renderTemplatePreamble(resumeInfo.config, out)
+    } else {
+        out.append("\\input{").append(preambleName).append('}')
+    }
+    out.append("\n\n")
+    renderResumeHeader(resumeInfo.header, out)
+    out.append("\n\n").append(DOCUMENT_MAKE_HEADER).append('\n')
+        .append("\\makecvheader[").append(resumeInfo.header.alignment.value).append("]\n\n")
+        .append(DOCUMENT_MAKE_FOOTER).append('\n')
+        .append("  {").append(resumeInfo.footer.left).append("}\n")
+        .append("  {").append(resumeInfo.footer.center).append("}\n")
+        .append("  {").append(resumeInfo.footer.right).append("}\n\n\n")
+        .append(DOCUMENT_CONTENT_BANNER).append("\n\n")
+    renderOrderedSections(plan.sections, out, sectionCache, sectionRenderer)
+    out.append("\n\n\\end{document}")
 }
 
+/**
+ * Cache of the rendered preambles, keyed by a snapshot of the [AwesomeCVConfig].
+ */
+internal val AWESOMECV_PREAMBLE_CACHE = RenderCache()
+
 /**
  * Generates the LaTeX preamble containing document class settings and styling configurations (AwesomeCV template).
  *
@@ -72,38 +175,28 @@ internal fun generateResumeLatex(resumeInfo: AwesomeCVResume): String {
  * @return LaTeX preamble as a string with all necessary configurations
  */
 internal fun renderTemplatePreamble(resumeConfig: AwesomeCVConfig): String {
-    return """
-    |$AWESOME_CV_COPYRIGHT
-    |%-------------------------------------------------------------------------------
-    |% CONFIGURATIONS
-    |%-------------------------------------------------------------------------------
-    |% A4 paper size by default, use 'letterpaper' for US letter
-    |\documentclass[11pt, a4paper]{awesome-cv}
-    |
-    |% Configure page margins with geometry
-    |\geometry{left=1.4cm, top=.8cm, right=1.4cm, bottom=1.8cm, footskip=.5cm}
-    |
-    |% Color for highlights
-    |% Awesome Colors: awesome-emerald, awesome-skyblue, awesome-red, awesome-pink, awesome-orange
-    |%                 awesome-nephritis, awesome-concrete, awesome-darknight
-    |\colorlet{awesome}{${resumeConfig.colorTheme.theme}}
-    |% Uncomment if you would like to specify your own color
-    |% \definecolor{awesome}{HTML}{3E6D9C}
-    |
-    |% Colors for text
-    |% Uncomment if you would like to specify your own color
-    |% \definecolor{darktext}{HTML}{414141}
-    |% \definecolor{text}{HTML}{333333}
-    |% \definecolor{graytext}{HTML}{5D5D5D}
-    |% \definecolor{lighttext}{HTML}{999999}
-    |% \definecolor{sectiondivider}{HTML}{5D5D5D}
-    |
-    |% Set false if you don't want to highlight section with awesome color
-    |\setbool{acvSectionColorHighlight}{${resumeConfig.isSectionHighlighted}}
-    |
-    |% If you would like to change the social information separator from a pipe (|) to something else
-    |\renewcommand{\acvHeaderSocialSep}{\quad${resumeConfig.headerSocialSeparator}\quad}
-    """.trimMargin()
+    val config = resumeConfig.copy()
+
+    return AWESOMECV_PREAMBLE_CACHE.getOrRender(config) { out ->
+        out.append(AWESOME_CV_COPYRIGHT).append('\n')
+            .append(PREAMBLE_DOCUMENT_CLASS).append('\n')
+            .append("\\colorlet{awesome}{").append(config.colorTheme.theme).append("}\n")
+            .append(PREAMBLE_TEXT_COLORS).append('\n')
+            .append("\\setbool{acvSectionColorHighlight}{").append(config.isSectionHighlighted.toString()).append("}\n\n")
+            .append("% If you would like to change the social information separator from a pipe (|) to something else\n")
+            .append("\\renewcommand{\\acvHeaderSocialSep}{\\quad").append(config.headerSocialSeparator).append("\\quad}")
+    }
+}
+
+/**
+ * Generates the LaTeX preamble directly into the given output (AwesomeCV template).
+ * The preamble is rendered once per distinct configuration and then served from [AWESOMECV_PREAMBLE_CACHE].
+ *
+ * @param resumeConfig The [AwesomeCVConfig] containing resume-wide settings
+ * @param out The [Appendable] receiving the LaTeX preamble
+ */
+internal fun renderTemplatePreamble(resumeConfig: AwesomeCVConfig, out: Appendable) {
+    out.append(renderTemplatePreamble(resumeConfig))
 }
 
 /**
@@ -112,28 +205,34 @@ internal fun renderTemplatePreamble(resumeConfig: AwesomeCVConfig): String {
  * @param header The [AwesomeCVHeader] containing name, quote, photo, and personal information
  * @return LaTeX commands for rendering the resume header
  */
-internal fun renderResumeHeader(header: AwesomeCVHeader): String {
-    val photo = header.photo?.let {
-        "\\photo[${it.shape.name.lowercase()},${it.edge.value.lowercase()},${it.direction.name.lowercase()}]{${it.path}}"
-    } ?: "%\\photo[rectangle,edge,right]{./examples/profile}"
-
-    val userPersonalInfo = header.userInfo?.personalInfo?.let {
-        renderUserPersonalInfo(it)
-    } ?: ""
-
-    return """
-     |%-------------------------------------------------------------------------------
-     |%	PERSONAL INFORMATION
-     |%	Comment any of the lines below if they are not required
-     |%-------------------------------------------------------------------------------
-     |% Available options: circle|rectangle,edge/noedge,left/right
-     |$photo
-     |
-     |\name{${header.userInfo?.firstName ?: ""}}{${header.userInfo?.lastName ?: ""}}
-     |$userPersonalInfo
-     |
-     |${if (header.quote.isEmpty()) "" else "\\quote{``${header.quote}''}"}
-    """.trimMargin()
+internal fun renderResumeHeader(header: AwesomeCVHeader) = buildString { renderResumeHeader(header, this) }
+
+/**
+ * Generates the LaTeX code for the AwesomeCV resume header section directly into the given output.
+ *
+ * @param header The [AwesomeCVHeader] containing name, quote, photo, and personal information
+ * @param out The [Appendable] receiving the LaTeX commands for rendering the resume header
+ */
+internal fun renderResumeHeader(header: AwesomeCVHeader, out: Appendable) {
+    out.append(HEADER_PERSONAL_INFO_BANNER).append('\n')
+
+    header.photo?.let {
+        out.append("\\photo[").append(it.shape.name.lowercase())
+            .append(',').append(it.edge.value.lowercase())
+            .append(',').append(it.direction.name.lowercase())
+            .append("]{").append(it.path).append('}')
+    } ?: out.append("%\\photo[rectangle,edge,right]{./examples/profile}")
+
+    out.append("\n\n\\name{").append(header.userInfo?.firstName ?: "")
+        .append("}{").append(header.userInfo?.lastName ?: "").append("}\n")
+
+    header.userInfo?.personalInfo?.let { renderUserPersonalInfo(it, out) }
+
+    out.append("\n\n")
+
+    if (header.quote.isNotEmpty()) {
+        out.append("\\quote{``").append(header.quote).append("''}")
+    }
 }
 
 /**
@@ -142,12 +241,22 @@ internal fun renderResumeHeader(header: AwesomeCVHeader): String {
  * @param personalInfo The [AwesomeCVUserPersonalInfo] containing contact and social media information
  * @return LaTeX commands for displaying personal information fields
  */
-internal fun renderUserPersonalInfo(personalInfo: AwesomeCVUserPersonalInfo): String {
-    return personalInfo.joinToString("\n") { userInfo ->
-        val fieldName = userInfo.fieldName
-        val fieldValue = userInfo.value
-        val fieldValueId = userInfo.valueId
+internal fun renderUserPersonalInfo(personalInfo: AwesomeCVUserPersonalInfo) = buildString { renderUserPersonalInfo(personalInfo, this) }
+
+/**
+ * Renders personal information fields directly into the given output (AwesomeCV template).
+ *
+ * @param personalInfo The [AwesomeCVUserPersonalInfo] containing contact and social media information
+ * @param out The [Appendable] receiving the LaTeX commands for displaying personal information fields
+ */
+internal fun renderUserPersonalInfo(personalInfo: AwesomeCVUserPersonalInfo, out: Appendable) {
+    personalInfo.forEachIndexed { index, userInfo ->
+        if (index > 0) out.append('\n')
 
-        "\\$fieldName${if (userInfo.valueId.isNullOrEmpty()) "" else "{$fieldValueId}"}{$fieldValue}"
+        out.append('\\').append(userInfo.fieldName)
+        if (!userInfo.valueId.isNullOrEmpty()) {
+            out.append('{').append(userInfo.valueId).append('}')
+        }
+        out.append('{').append(userInfo.value).append('}')
     }
 }
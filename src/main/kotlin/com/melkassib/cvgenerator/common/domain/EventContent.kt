@@ -2,8 +2,10 @@
 
 package com.melkassib.cvgenerator.common.domain
 
-import com.melkassib.cvgenerator.common.utils.SectionEventDuration
+import com.melkassib.cvgenerator.common.utils.isYearMonth
+import com.melkassib.cvgenerator.common.utils.toYearMonth
 import java.time.LocalDate
+import java.time.YearMonth
 
 /**
  * Represents a period of time for an event.
@@ -21,10 +23,17 @@ sealed interface EventPeriod
 @JvmInline
 private value class EventDuration(val date: String) {
     init {
-        require(date.matches(Regex("\\d{4}-\\d{2}"))) {
+        require(date.isYearMonth()) {
             "Invalid date format: $date. Expected format: yyyy-MM"
         }
     }
+
+    /**
+     * Converts the event duration to the first day of its month.
+     *
+     * @return The [LocalDate] of the first day of the month.
+     */
+    fun toLocalDate(): LocalDate = date.toYearMonth().atDay(1)
 }
 
 /**
@@ -70,10 +79,19 @@ class EventPeriodDate private constructor(val start: LocalDate, val end: LocalDa
          */
         @JvmStatic
         fun eventDurationDate(from: String, to: String): EventPeriodDate {
-            val startDate = LocalDate.parse("${EventDuration(from).date}-01", SectionEventDuration.DATE_PATTERN)
-            val endDate = LocalDate.parse("${EventDuration(to).date}-01", SectionEventDuration.DATE_PATTERN)
+            val startDate = EventDuration(from).toLocalDate()
+            val endDate = EventDuration(to).toLocalDate()
             return EventPeriodDate(startDate, endDate)
         }
+
+        /**
+         * Creates an instance of EventPeriodDate from the months of its start and end.
+         *
+         * @param from The start month of the event period.
+         * @param to The end month of the event period.
+         * @return An instance of EventPeriodDate.
+         */
+        internal fun of(from: YearMonth, to: YearMonth) = EventPeriodDate(from.atDay(1), to.atDay(1))
     }
 }
 
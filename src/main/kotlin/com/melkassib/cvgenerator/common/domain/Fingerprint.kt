@@ -0,0 +1,213 @@
+@file:JvmName("Fingerprint")
+
+package com.melkassib.cvgenerator.common.domain
+
+import com.melkassib.cvgenerator.altacv.domain.AltaCVUserInfo
+import com.melkassib.cvgenerator.awesomecv.domain.AwesomeCVUserInfo
+
+private const val FNV_OFFSET_BASIS = -0x340d631b7bdddcdbL
+private const val FNV_PRIME = 0x100000001b3L
+private const val MIX_MULTIPLIER_1 = -0x40a7b892e31b1a47L
+private const val MIX_MULTIPLIER_2 = -0x6b2fb644ecceee15L
+private const val MIX_SHIFT_1 = 30
+private const val MIX_SHIFT_2 = 27
+private const val MIX_SHIFT_3 = 31
+
+/**
+ * Builder of a stable 64-bit fingerprint, computed only from the values added to it,
+ * so that it is the same in every JVM and can be used as a persistent key.
+ * Strings are hashed with FNV-1a over their UTF-16 code units and their length,
+ * and every value is mixed into the fingerprint with the SplitMix64 finalizer.
+ *
+ * @param seed The name of the kind of value being fingerprinted
+ */
+internal class FingerprintBuilder(seed: String) {
+    private var hash = FNV_OFFSET_BASIS
+
+    init {
+        add(seed)
+    }
+
+    fun add(value: Long) = apply {
+        hash = mix(hash * FNV_PRIME + value)
+    }
+
+    fun add(value: Int) = add(value.toLong())
+
+    fun add(value: Boolean) = add(if (value) 1L else 0L)
+
+    fun add(value: Double) = add(value.toRawBits())
+
+    fun add(value: Enum<*>) = add(value.name)
+
+    fun add(value: String) = apply {
+        var stringHash = FNV_OFFSET_BASIS
+        for (char in value) {
+            stringHash = (stringHash xor char.code.toLong()) * FNV_PRIME
+        }
+        add(stringHash)
+        add(value.length)
+    }
+
+    fun addNullable(value: String?) = if (value == null) add(false) else add(true).add(value)
+
+    inline fun <T> addAll(values: Collection<T>, addElement: FingerprintBuilder.(T) -> Unit) = apply {
+        add(values.size)
+        values.forEach { addElement(it) }
+    }
+
+    fun build(): Long = mix(hash)
+
+    private fun mix(value: Long): Long {
+        var mixed = (value xor (value ushr MIX_SHIFT_1)) * MIX_MULTIPLIER_1
+        mixed = (mixed xor (mixed ushr MIX_SHIFT_2)) * MIX_MULTIPLIER_2
+        return mixed xor (mixed ushr MIX_SHIFT_3)
+    }
+}
+
+/**
+ * Computes the fingerprint of a section content, seeded by its [ContentType].
+ */
+internal fun SectionContent.computeFingerprint(): Long {
+    val fingerprint = FingerprintBuilder(type.name)
+
+    when (this) {
+        is Divider, is NewLine, is NewPage, is NoContent -> Unit
+        is HasSimpleContent -> fingerprint.add(content)
+        is Achievement -> fingerprint.add(iconName).add(achievement).add(detail)
+        is Skill -> fingerprint.add(skill).add(rating)
+        is SkillStr -> fingerprint.add(skill).add(fluency)
+        is BaseEvent -> {
+            fingerprint.add(title).add(holder).add(location)
+            when (val period = duration) {
+                is EventPeriodString -> fingerprint.add("string").add(period.start).add(period.end)
+                is EventPeriodDate -> fingerprint.add("date").add(period.start.toEpochDay()).add(period.end.toEpochDay())
+                is NoEventPeriod -> fingerprint.add("none")
+            }
+            fingerprint.addAll(description) { add(it.fingerprint()) }
+        }
+        is Item -> fingerprint.add(description).add(withBullet)
+        is WheelChart -> fingerprint.add(innerRadius).add(outerRadius).addAll(items) {
+            add(it.value).add(it.textWidth).add(it.color).add(it.detail)
+        }
+        is HonorList -> fingerprint.add(sectionTitle).addAll(honorItems) {
+            add(it.award).add(it.event).add(it.location).add(it.date)
+        }
+        else -> throw IllegalArgumentException("Unsupported section content: ${javaClass.name}")
+    }
+
+    return fingerprint.build()
+}
+
+/**
+ * Computes the fingerprint of a section from the fingerprints of its contents.
+ */
+internal fun Section.computeFingerprint(): Long =
+    FingerprintBuilder("SECTION")
+        .add(title)
+        .add(position.column)
+        .add(position.order)
+        .add(ignored)
+        .addAll(contents) { add(it.fingerprint()) }
+        .build()
+
+/**
+ * Computes the fingerprint of a resume from its configuration, header, footer and the fingerprint of its sections
+ * (see [computeSectionsFingerprint]).
+ */
+internal fun Resume<*, *, *>.computeFingerprint(sectionsFingerprint: Long): Long {
+    val fingerprint = FingerprintBuilder(javaClass.simpleName)
+
+    when (val config = config) {
+        is AltaCVConfig -> fingerprint.add(config.columnRatio).add(config.photoShape).addAll(config.theme.entries) { (alias, color) ->
+            add(alias).add(color.colorName).add(color.colorHexValue)
+        }
+        is AwesomeCVConfig -> fingerprint.add(config.colorTheme).add(config.isSectionHighlighted).add(config.headerSocialSeparator)
+    }
+
+    when (val header = header) {
+        is AltaCVHeader -> {
+            fingerprint.add(header.tagline).addUserInfo(header.userInfo)
+            fingerprint.add(header.photo != null)
+            header.photo?.let { fingerprint.add(it.size).add(it.path).add(it.direction) }
+        }
+        is AwesomeCVHeader -> {
+            fingerprint.add(header.alignment).addUserInfo(header.userInfo)
+            fingerprint.add(header.photo != null)
+            header.photo?.let { fingerprint.add(it.shape).add(it.edge).add(it.direction).add(it.path) }
+            fingerprint.add(header.quote)
+        }
+    }
+
+    when (val footer = footer) {
+        is AwesomeCVFooter -> fingerprint.add(footer.left).add(footer.center).add(footer.right)
+        is NoFooter -> Unit
+    }
+
+    return fingerprint.add(sectionsFingerprint).build()
+}
+
+/**
+ * Computes the fingerprint of the sections of a resume from their fingerprints.
+ */
+internal fun List<Section>.computeSectionsFingerprint(ignoreIgnoredSections: Boolean): Long {
+    val fingerprint = FingerprintBuilder("SECTIONS").add(ignoreIgnoredSections)
+    if (!ignoreIgnoredSections) return fingerprint.addAll(this) { add(it.fingerprint()) }.build()
+
+    // The layout of AltaCV resumes depends on the declared columns, ignored sections included
+    return fingerprint.add(any { it.position.column == 2 })
+        .addAll(filterNot { it.ignored }) { add(it.fingerprint()) }
+        .build()
+}
+
+private fun FingerprintBuilder.addUserInfo(userInfo: AltaCVUserInfo?) = apply {
+    add(userInfo != null)
+    if (userInfo != null) {
+        add(userInfo.name).addAll(userInfo.personalInfo) { add(it.fieldName).add(it.symbol).add(it.prefix).add(it.value) }
+    }
+}
+
+private fun FingerprintBuilder.addUserInfo(userInfo: AwesomeCVUserInfo?) = apply {
+    add(userInfo != null)
+    if (userInfo != null) {
+        add(userInfo.firstName).add(userInfo.lastName).addAll(userInfo.personalInfo) { add(it.fieldName).add(it.value).addNullable(it.valueId) }
+    }
+}
+
+/**
+ * Returns whether the resume renders the same document as the other one, comparing the values fingerprinted
+ * by [Resume.fingerprint] when ignoring the ignored sections. It tells apart resumes whose fingerprints collide.
+ */
+internal fun Resume<*, *, *>.rendersSameDocumentAs(other: Resume<*, *, *>): Boolean {
+    if (this === other) return true
+    if (javaClass != other.javaClass || config != other.config || header != other.header || footer != other.footer) {
+        return false
+    }
+
+    if (sections.any { it.position.column == 2 } != other.sections.any { it.position.column == 2 }) return false
+    val rendered = sections.filterNot { it.ignored }
+    val otherRendered = other.sections.filterNot { it.ignored }
+    return rendered.size == otherRendered.size && rendered.zip(otherRendered).all { (section, otherSection) ->
+        section.title == otherSection.title &&
+            section.position == otherSection.position &&
+            section.contents.size == otherSection.contents.size &&
+            section.contents.zip(otherSection.contents).all { (content, otherContent) -> content.sameAs(otherContent) }
+    }
+}
+
+/**
+ * Events have no structural equality, as they are mutable: they are compared field by field.
+ */
+private fun SectionContent.sameAs(other: SectionContent): Boolean =
+    if (this is BaseEvent && other is BaseEvent) {
+        javaClass == other.javaClass && title == other.title && holder == other.holder && location == other.location &&
+            duration.sameAs(other.duration) && description == other.description
+    } else {
+        this == other
+    }
+
+private fun EventPeriod.sameAs(other: EventPeriod): Boolean = when (this) {
+    is EventPeriodString -> other is EventPeriodString && start == other.start && end == other.end
+    is EventPeriodDate -> other is EventPeriodDate && start.isEqual(other.start) && end.isEqual(other.end)
+    is NoEventPeriod -> other is NoEventPeriod
+}
@@ -0,0 +1,62 @@
+package com.melkassib.cvgenerator.common.domain
+
+import com.melkassib.cvgenerator.common.utils.inRenderOrder
+
+/**
+ * Immutable rendering plan of the sections of a resume.
+ * It is compiled once from the sections and reused by every render of the resume,
+ * whatever the output or the template configuration.
+ *
+ * @property sections The sections to render, without the ignored ones, sorted by order
+ * @property firstColumn The sections to render in the first column, sorted by order
+ * @property secondColumn The sections to render in the second column, sorted by order
+ * @property hasSecondColumn Whether the resume declares sections in the second column, ignored ones included
+ * @property estimatedLength The estimated length of the rendered LaTeX document, used to size output buffers
+ */
+class RenderPlan private constructor(
+    val sections: List<Section>,
+    val firstColumn: List<Section>,
+    val secondColumn: List<Section>,
+    val hasSecondColumn: Boolean,
+    val estimatedLength: Int
+) {
+    companion object {
+        /**
+         * Estimated length of the preamble, header and closing commands of a document.
+         */
+        private const val DOCUMENT_LENGTH = 6 * 1024
+
+        /**
+         * Estimated length of the banners and title of a section.
+         */
+        private const val SECTION_LENGTH = 200
+
+        /**
+         * Estimated length of a rendered section content.
+         */
+        private const val CONTENT_LENGTH = 160
+
+        /**
+         * Compiles the rendering plan of the given sections.
+         *
+         * @param sections The sections of the resume.
+         * @return The [RenderPlan] of the sections.
+         */
+        @JvmStatic
+        fun of(sections: List<Section>): RenderPlan {
+            val ordered = sections.inRenderOrder()
+            val (firstColumn, secondColumn) = ordered.partition { it.position.column == 1 }
+            val estimatedLength = ordered.fold(DOCUMENT_LENGTH) { length, section ->
+                length + SECTION_LENGTH + section.contents.size * CONTENT_LENGTH
+            }
+
+            return RenderPlan(
+                ordered,
+                firstColumn,
+                secondColumn,
+                sections.any { it.position.column == 2 },
+                estimatedLength
+            )
+        }
+    }
+}
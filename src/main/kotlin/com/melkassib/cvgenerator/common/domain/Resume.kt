@@ -10,8 +10,15 @@ import com.melkassib.cvgenerator.awesomecv.domain.AwesomeCVUserInfo
 import com.melkassib.cvgenerator.awesomecv.domain.ColorTheme
 import com.melkassib.cvgenerator.awesomecv.domain.HeaderAlignment
 import com.melkassib.cvgenerator.awesomecv.domain.Photo
-import com.melkassib.cvgenerator.common.serialization.JSON_MAPPER
-import com.melkassib.cvgenerator.common.serialization.YAML_MAPPER
+import com.melkassib.cvgenerator.common.serialization.jsonWriterFor
+import com.melkassib.cvgenerator.common.serialization.writeBinaryResume
+import com.melkassib.cvgenerator.common.serialization.yamlWriterFor
+import com.melkassib.cvgenerator.common.utils.CompactLaTeXAppendable
+import com.melkassib.cvgenerator.common.utils.RenderCache
+import com.melkassib.cvgenerator.common.utils.SectionRenderer
+import java.io.ByteArrayOutputStream
+import java.io.OutputStream
+import java.io.Writer
 
 /**
  * Defines the positioning options for the photo in the resume.
@@ -128,26 +135,236 @@ abstract class Resume<C : ResumeConfig, H : ResumeHeader, F : ResumeFooter>(
     open val config: C,
     open val header: H,
     val footer: F,
-    open val sections: List<Section>
+    sections: List<Section>
 ) {
     /**
-     * Converts the resume to a LaTeX string.
+     * The sections of the resume, copied from the given list, so that the rendering plan, the fingerprint
+     * and the rendered documents all reflect the same sections even if the caller mutates its list afterwards.
+     */
+    open val sections: List<Section> = sections.toList()
+
+    /**
+     * The rendering plan of the sections, compiled on first render.
+     */
+    private val renderPlan by lazy { RenderPlan.of(sections) }
+
+    /**
+     * Returns the rendering plan of the resume sections, compiled once and reused by every render.
      *
+     * @return The [RenderPlan] of the resume.
+     */
+    fun renderPlan(): RenderPlan = renderPlan
+
+    /**
+     * The fingerprints of all the sections and of the sections left once the ignored ones are removed,
+     * cached once computed unless the sections contain events, which are mutable.
+     */
+    @Volatile
+    private var cachedSectionsFingerprint = 0L
+
+    @Volatile
+    private var cachedRenderedSectionsFingerprint = 0L
+
+    /**
+     * Returns the stable 64-bit fingerprint of the resume, combining its configuration, header, footer
+     * and the fingerprints of its sections. It is the same in every JVM, so it can be used as a persistent cache key
+     * of the rendered documents. The configuration, header and footer are mutable, so they are fingerprinted
+     * on every call, while the fingerprint of the sections is computed once, unless they contain events.
+     *
+     * @param ignoreIgnoredSections Whether to leave the ignored sections out of the fingerprint,
+     * so that resumes rendering the same document have the same fingerprint.
+     * @return The fingerprint of the resume.
+     */
+    @JvmOverloads
+    fun fingerprint(ignoreIgnoredSections: Boolean = false): Long =
+        computeFingerprint(sectionsFingerprint(ignoreIgnoredSections))
+
+    private fun sectionsFingerprint(ignoreIgnoredSections: Boolean): Long {
+        var fingerprint = if (ignoreIgnoredSections) cachedRenderedSectionsFingerprint else cachedSectionsFingerprint
+        if (fingerprint == 0L) {
+            fingerprint = sections.computeSectionsFingerprint(ignoreIgnoredSections)
+            if (sections.none { it.hasEvents }) {
+                if (ignoreIgnoredSections) cachedRenderedSectionsFingerprint = fingerprint else cachedSectionsFingerprint = fingerprint
+            }
+        }
+        return fingerprint
+    }
+
+    /**
+     * Converts the resume to a LaTeX string, optionally compact, reusing the fragments of the sections
+     * already rendered in the cache: only the sections that changed since they were cached are rendered again.
+     * See [LaTeXFileCache][com.melkassib.cvgenerator.common.utils.LaTeXFileCache] to also cache the whole documents.
+     *
+     * @param compact Whether to strip the comments, indentation and blank lines of the templates,
+     * keeping the license attribution in a single line. The typeset document is the same.
+     * @param sectionCache The [RenderCache] of rendered sections, or null to render every section.
      * @return The LaTeX string representation of the resume.
      */
-    abstract fun toLaTeX(): String
+    @JvmOverloads
+    fun toLaTeX(compact: Boolean = false, sectionCache: RenderCache? = null): String {
+        val plan = renderPlan()
+        val out = StringBuilder(plan.estimatedLength)
+        if (compact) toCompactLaTeX(plan, out, sectionCache) else toLaTeX(plan, out, sectionCache)
+        return out.toString()
+    }
+
+    /**
+     * Renders the resume as LaTeX directly into the given output, optionally compact, without building
+     * the whole document in memory first.
+     *
+     * @param out The [Appendable] receiving the LaTeX document.
+     * @param compact Whether to strip the comments, indentation and blank lines of the templates,
+     * keeping the license attribution in a single line. The typeset document is the same.
+     */
+    @JvmOverloads
+    fun toLaTeX(out: Appendable, compact: Boolean = false) =
+        if (compact) toCompactLaTeX(renderPlan(), out, null) else toLaTeX(renderPlan(), out)
+
+    /**
+     * Renders the resume as LaTeX directly into the given output, following the given rendering plan.
+     *
+     * @param plan The [RenderPlan] of the resume sections.
+     * @param out The [Appendable] receiving the LaTeX document.
+     * @param sectionCache The [RenderCache] of rendered sections, or null to render every section.
+     */
+    abstract fun toLaTeX(plan: RenderPlan, out: Appendable, sectionCache: RenderCache? = null)
+
+    /**
+     * Returns the LaTeX preamble of the resume: the document class, packages and styling settings
+     * derived from its configuration. It is the same for every resume of the same template and configuration.
+     *
+     * @return The LaTeX preamble of the resume.
+     */
+    abstract fun toLaTeXPreamble(): String
+
+    /**
+     * Returns the name of the shared preamble file of the resume, without extension, derived from the fingerprint
+     * of the preamble. Resumes with the same preamble share the same name, in every JVM.
+     *
+     * @return The name of the preamble file of the resume.
+     */
+    fun preambleName(): String =
+        "${javaClass.simpleName}-preamble-%016x".format(FingerprintBuilder("preamble").add(toLaTeXPreamble()).build())
+
+    /**
+     * Converts the resume to a LaTeX body, which inputs the shared preamble file instead of repeating the preamble.
+     * Replacing the input command by the content of the preamble file gives back the document of [toLaTeX].
+     *
+     * @param preambleName The name of the preamble file, without extension (defaults to [preambleName]).
+     * @return The LaTeX body of the resume.
+     */
+    @JvmOverloads
+    fun toLaTeXBody(preambleName: String = preambleName()): String {
+        val plan = renderPlan()
+        return StringBuilder(plan.estimatedLength).also { toLaTeXBody(preambleName, plan, it) }.toString()
+    }
+
+    /**
+     * Renders the LaTeX body of the resume directly into the given output, following the given rendering plan.
+     *
+     * @param preambleName The name of the preamble file, without extension.
+     * @param plan The [RenderPlan] of the resume sections.
+     * @param out The [Appendable] receiving the LaTeX body.
+     * @param sectionCache The [RenderCache] of rendered sections, or null to render every section.
+     */
+    abstract fun toLaTeXBody(preambleName: String, plan: RenderPlan, out: Appendable, sectionCache: RenderCache? = null)
+
+    /**
+     * Renders the resume as LaTeX directly into the given output, with the sections rendered
+     * by the given section renderer, for example as inputs of their own files.
+     *
+     * @param plan The [RenderPlan] of the resume sections.
+     * @param out The [Appendable] receiving the LaTeX document.
+     * @param sectionRenderer The [SectionRenderer] rendering the sections.
+     */
+    internal abstract fun toLaTeX(plan: RenderPlan, out: Appendable, sectionRenderer: SectionRenderer)
+
+    /**
+     * Returns a resume of the same template, configuration, header and footer with the given sections.
+     *
+     * @param sections The sections of the new resume.
+     * @return The new resume.
+     */
+    internal abstract fun withSections(sections: List<Section>): Resume<C, H, F>
+
+    /**
+     * Returns the single-line license attribution of the template, kept in compact documents.
+     *
+     * @return The license attribution as a LaTeX comment.
+     */
+    internal abstract fun licenseNotice(): String
+
+    /**
+     * Writes the resume as LaTeX to the given writer and flushes it.
+     * The writer is not closed.
+     *
+     * @param writer The [Writer] receiving the LaTeX document.
+     * @param compact Whether to strip the comments, indentation and blank lines of the templates (defaults to false).
+     */
+    @JvmOverloads
+    fun writeLaTeX(writer: Writer, compact: Boolean = false) {
+        toLaTeX(writer, compact)
+        writer.flush()
+    }
 
     /**
      * Converts the resume object to a JSON string.
      *
      * @return A JSON string representation of the resume
      */
-    fun toJson(): String = JSON_MAPPER.writeValueAsString(this)
+    fun toJson(): String = jsonWriterFor(javaClass).writeValueAsString(this)
+
+    /**
+     * Writes the resume as JSON to the given output stream. The stream is not closed.
+     *
+     * @param out The [OutputStream] receiving the JSON document.
+     */
+    fun writeJson(out: OutputStream) = jsonWriterFor(javaClass).writeValue(out, this)
+
+    /**
+     * Writes the resume as JSON to the given writer. The writer is not closed.
+     *
+     * @param writer The [Writer] receiving the JSON document.
+     */
+    fun writeJson(writer: Writer) = jsonWriterFor(javaClass).writeValue(writer, this)
 
     /**
      * Converts the resume object to a YAML string.
      *
      * @return A YAML string representation of the resume
      */
-    fun toYaml(): String = YAML_MAPPER.writeValueAsString(this)
+    fun toYaml(): String = yamlWriterFor(javaClass).writeValueAsString(this)
+
+    /**
+     * Writes the resume as YAML to the given output stream. The stream is not closed.
+     *
+     * @param out The [OutputStream] receiving the YAML document.
+     */
+    fun writeYaml(out: OutputStream) = yamlWriterFor(javaClass).writeValue(out, this)
+
+    /**
+     * Writes the resume as YAML to the given writer. The writer is not closed.
+     *
+     * @param writer The [Writer] receiving the YAML document.
+     */
+    fun writeYaml(writer: Writer) = yamlWriterFor(javaClass).writeValue(writer, this)
+
+    /**
+     * Converts the resume to its compact binary form, which is smaller and faster to read than JSON or YAML.
+     *
+     * @return The binary representation of the resume
+     */
+    fun toBinary(): ByteArray = ByteArrayOutputStream().also { toBinary(it) }.toByteArray()
+
+    /**
+     * Writes the resume in its compact binary form to the given output stream. The stream is not closed.
+     *
+     * @param out The [OutputStream] receiving the binary resume.
+     */
+    fun toBinary(out: OutputStream) = writeBinaryResume(this, out)
+
+    private fun toCompactLaTeX(plan: RenderPlan, out: Appendable, sectionCache: RenderCache?) {
+        out.append(licenseNotice()).append('\n')
+        CompactLaTeXAppendable(out).also { toLaTeX(plan, it, sectionCache) }.flush()
+    }
 }
@@ -6,6 +6,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize
 import com.fasterxml.jackson.databind.annotation.JsonSerialize
 import com.melkassib.cvgenerator.common.serialization.SectionContentSerializers
+import java.util.Objects
 
 /**
  * Represents the position of a section in the resume.
@@ -25,16 +26,68 @@ data class SectionPosition(val column: Int, val order: Int) {
 /**
  * Represents a section in the resume with a title, position, and contents.
  *
+ * Behaves like a data class, except that the contents are copied from the given list, so that the fingerprint
+ * cached by the section and the rendered documents keyed on it reflect the same contents even if the caller
+ * mutates its list afterwards.
+ *
  * @property title The title of the section
  * @property position The [SectionPosition] indicating where this section should be placed
- * @property contents The list of [SectionContent] elements in this section
  * @property ignored Whether this section should be ignored when generating the resume
  */
-data class Section @JvmOverloads constructor(
+class Section @JvmOverloads constructor(
     val title: String,
     val position: SectionPosition,
+    contents: List<SectionContent> = listOf(),
+    @JsonIgnore val ignored: Boolean = false
+) {
+    /**
+     * The list of [SectionContent] elements in this section, copied from the given list.
+     */
     @JsonSerialize(using = SectionContentSerializers.ContentListSerializer::class)
     @JsonDeserialize(using = SectionContentSerializers.ContentListDeserializer::class)
-    val contents: List<SectionContent> = listOf(),
-    @JsonIgnore val ignored: Boolean = false
-)
+    val contents: List<SectionContent> = contents.toList()
+
+    /**
+     * Whether the contents hold events, which are mutable, so that the fingerprint cannot be cached.
+     */
+    internal val hasEvents = this.contents.any { it is BaseEvent }
+
+    @Volatile
+    private var cachedFingerprint = 0L
+
+    /**
+     * Returns the stable 64-bit fingerprint of the section, combining its title, position, ignored flag
+     * and the fingerprints of its contents. It is the same in every JVM, so it can be used as a persistent cache key.
+     * It is computed once, unless the section contains events, which are mutable.
+     *
+     * @return The fingerprint of the section
+     */
+    fun fingerprint(): Long {
+        var fingerprint = cachedFingerprint
+        if (fingerprint == 0L) {
+            fingerprint = computeFingerprint()
+            if (!hasEvents) cachedFingerprint = fingerprint
+        }
+        return fingerprint
+    }
+
+    operator fun component1() = title
+    operator fun component2() = position
+    operator fun component3() = contents
+    operator fun component4() = ignored
+
+    @JvmOverloads
+    fun copy(
+        title: String = this.title,
+        position: SectionPosition = this.position,
+        contents: List<SectionContent> = this.contents,
+        ignored: Boolean = this.ignored
+    ) = Section(title, position, contents, ignored)
+
+    override fun equals(other: Any?) = this === other || other is Section &&
+        title == other.title && position == other.position && contents == other.contents && ignored == other.ignored
+
+    override fun hashCode() = Objects.hash(title, position, contents, ignored)
+
+    override fun toString() = "Section(title=$title, position=$position, contents=$contents, ignored=$ignored)"
+}
@@ -6,11 +6,11 @@ import com.fasterxml.jackson.annotation.JsonIgnore
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize
 import com.fasterxml.jackson.databind.annotation.JsonSerialize
 import com.melkassib.cvgenerator.common.serialization.EventPeriodDeserializer
-import com.melkassib.cvgenerator.common.serialization.JSON_MAPPER
+import com.melkassib.cvgenerator.common.serialization.jsonWriterFor
 import com.melkassib.cvgenerator.common.serialization.SectionContentSerializers
 import com.melkassib.cvgenerator.common.utils.SectionEventDuration
+import com.melkassib.cvgenerator.common.utils.appendEscaped
 import com.melkassib.cvgenerator.common.utils.escapeSpecialChars
-import java.time.LocalDate
 
 /**
  * Represents the different types of content that can be added to a section of the resume.
@@ -55,12 +55,40 @@ interface HasSimpleContent {
  * @property type The type of the section content.
  */
 sealed class SectionContent(@JsonIgnore val type: ContentType) {
+    @Volatile
+    private var cachedFingerprint = 0L
+
+    /**
+     * Returns the stable 64-bit fingerprint of the section content, seeded by its [ContentType].
+     * Unlike [hashCode], it is the same in every JVM, so it can be used as a persistent cache key.
+     * It is computed once for immutable contents, and on every call for events, which are mutable.
+     *
+     * @return The fingerprint of the section content.
+     */
+    fun fingerprint(): Long {
+        if (this is BaseEvent) return computeFingerprint()
+
+        var fingerprint = cachedFingerprint
+        if (fingerprint == 0L) {
+            fingerprint = computeFingerprint()
+            cachedFingerprint = fingerprint
+        }
+        return fingerprint
+    }
+
     /**
      * Renders the section content as a string.
      *
      * @return The rendered string of the section content.
      */
-    abstract fun render(): String
+    fun render(): String = buildString { renderTo(this) }
+
+    /**
+     * Renders the section content directly into the given output.
+     *
+     * @param out The [Appendable] receiving the rendered LaTeX.
+     */
+    abstract fun renderTo(out: Appendable)
 
     /**
      * Wraps the section content in a ContentWrapper.
@@ -74,35 +102,41 @@ sealed class SectionContent(@JsonIgnore val type: ContentType) {
      *
      * @return The JSON string representation of the section content.
      */
-    fun toJson(): String = JSON_MAPPER.writeValueAsString(wrapped())
+    fun toJson(): String = jsonWriterFor(ContentWrapper::class.java).writeValueAsString(wrapped())
 }
 
 /**
  * Represents a divider content.
  */
 data object Divider : SectionContent(ContentType.DIVIDER) {
-    override fun render() = "\n\\divider\n"
+    override fun renderTo(out: Appendable) {
+        out.append("\n\\divider\n")
+    }
 }
 
 /**
  * Represents a newline content.
  */
 data object NewLine : SectionContent(ContentType.NEWLINE) {
-    override fun render() = "\\\\"
+    override fun renderTo(out: Appendable) {
+        out.append("\\\\")
+    }
 }
 
 /**
  * Represents a new page content.
  */
 data object NewPage : SectionContent(ContentType.NEWPAGE) {
-    override fun render() = "\\newpage"
+    override fun renderTo(out: Appendable) {
+        out.append("\\newpage")
+    }
 }
 
 /**
  * Represents an empty content.
  */
 data object NoContent : SectionContent(ContentType.EMPTY) {
-    override fun render() = ""
+    override fun renderTo(out: Appendable) = Unit
 }
 
 /**
@@ -111,7 +145,9 @@ data object NoContent : SectionContent(ContentType.EMPTY) {
  * @property content The content of the tag.
  */
 data class Tag(override val content: String) : SectionContent(ContentType.TAG), HasSimpleContent {
-    override fun render() = "\\cvtag{${content.escapeSpecialChars()}}"
+    override fun renderTo(out: Appendable) {
+        out.append("\\cvtag{").appendEscaped(content).append('}')
+    }
 }
 
 /**
@@ -120,7 +156,9 @@ data class Tag(override val content: String) : SectionContent(ContentType.TAG),
  * @property content The content of the quote.
  */
 data class Quote(override val content: String) : SectionContent(ContentType.QUOTE), HasSimpleContent {
-    override fun render() = "\\begin{quote}\n``${content.escapeSpecialChars()}''\n\\end{quote}"
+    override fun renderTo(out: Appendable) {
+        out.append("\\begin{quote}\n``").appendEscaped(content).append("''\n\\end{quote}")
+    }
 }
 
 /**
@@ -129,7 +167,9 @@ data class Quote(override val content: String) : SectionContent(ContentType.QUOT
  * @property content The content of the paragraph.
  */
 data class Paragraph(override val content: String) : SectionContent(ContentType.PARAGRAPH), HasSimpleContent {
-    override fun render() = "\\begin{cvparagraph}\n${content.escapeSpecialChars()}\n\\end{cvparagraph}"
+    override fun renderTo(out: Appendable) {
+        out.append("\\begin{cvparagraph}\n").appendEscaped(content).append("\n\\end{cvparagraph}")
+    }
 }
 
 /**
@@ -138,7 +178,9 @@ data class Paragraph(override val content: String) : SectionContent(ContentType.
  * @property content The latex content.
  */
 data class LatexContent(override val content: String) : SectionContent(ContentType.GENERIC), HasSimpleContent {
-    override fun render() = content
+    override fun renderTo(out: Appendable) {
+        out.append(content)
+    }
 }
 
 /**
@@ -153,8 +195,11 @@ data class Achievement(
     val achievement: String,
     val detail: String
 ) : SectionContent(ContentType.ACHIEVEMENT) {
-    override fun render() =
-        "\\cvachievement{\\$iconName}{${achievement.escapeSpecialChars()}}{${detail.escapeSpecialChars()}}"
+    override fun renderTo(out: Appendable) {
+        out.append("\\cvachievement{\\").append(iconName)
+            .append("}{").appendEscaped(achievement)
+            .append("}{").appendEscaped(detail).append('}')
+    }
 }
 
 /**
@@ -170,7 +215,9 @@ data class Skill(val skill: String, val rating: Double) : SectionContent(Content
         }
     }
 
-    override fun render() = "\\cvskill{${skill.escapeSpecialChars()}}{$rating}"
+    override fun renderTo(out: Appendable) {
+        out.append("\\cvskill{").appendEscaped(skill).append("}{").append(rating.toString()).append('}')
+    }
 }
 
 /**
@@ -180,7 +227,9 @@ data class Skill(val skill: String, val rating: Double) : SectionContent(Content
  * @property fluency The fluency level of the skill.
  */
 data class SkillStr(val skill: String, val fluency: String) : SectionContent(ContentType.SKILL) {
-    override fun render() = "\\cvskillstr{${skill.escapeSpecialChars()}}{${fluency.escapeSpecialChars()}}"
+    override fun renderTo(out: Appendable) {
+        out.append("\\cvskillstr{").appendEscaped(skill).append("}{").appendEscaped(fluency).append('}')
+    }
 }
 
 /**
@@ -193,10 +242,8 @@ data class Item @JvmOverloads constructor(
     val description: String,
     val withBullet: Boolean = true
 ) : SectionContent(ContentType.ITEM) {
-    override fun render() = if (withBullet) {
-        "\\item ${description.escapeSpecialChars()}"
-    } else {
-        "\\item[] ${description.escapeSpecialChars()}"
+    override fun renderTo(out: Appendable) {
+        out.append(if (withBullet) "\\item " else "\\item[] ").appendEscaped(description)
     }
 }
 
@@ -219,36 +266,36 @@ sealed class BaseEvent(
     var description: List<Item> = mutableListOf()
 ) : SectionContent(type) {
     /**
-     * Renders a LocalDate to a string using the specified date pattern.
+     * Renders the duration of the event into the given output.
      *
-     * @return The rendered string of the LocalDate.
+     * @param out The [Appendable] receiving the rendered duration.
      */
-    private fun LocalDate.render() = format(SectionEventDuration.RENDER_DATE_PATTERN)
-
-    /**
-     * Renders the duration of the event as a string.
-     *
-     * @return The rendered string of the event duration.
-     */
-    protected fun renderDuration(): String = when (duration) {
-        is EventPeriodString -> with(duration as EventPeriodString) {
-            if (end.isEmpty()) start else "$start -- $end"
-        }
-        is EventPeriodDate -> with(duration as EventPeriodDate) {
-            "${start.render()} -- ${end.render()}"
+    protected fun renderDurationTo(out: Appendable) {
+        when (val period = duration) {
+            is EventPeriodString -> {
+                out.append(period.start)
+                if (period.end.isNotEmpty()) out.append(" -- ").append(period.end)
+            }
+            is EventPeriodDate -> {
+                SectionEventDuration.RENDER_DATE_PATTERN.formatTo(period.start, out)
+                out.append(" -- ")
+                SectionEventDuration.RENDER_DATE_PATTERN.formatTo(period.end, out)
+            }
+            is NoEventPeriod -> Unit
         }
-        is NoEventPeriod -> ""
     }
 
     /**
-     * Renders the description of the event as a string.
+     * Renders the description items of the event into the given output, one per line.
      *
-     * @return The LaTeX string of the event description.
+     * @param out The [Appendable] receiving the rendered items.
+     * @param separator The separator written between two consecutive items.
      */
-    protected fun renderDescription(): String = if (description.isNotEmpty()) {
-        "\n\\begin{itemize}\n" + description.joinToString("\n") { it.render() } + "\n\\end{itemize}"
-    } else {
-        ""
+    protected fun renderDescriptionItemsTo(out: Appendable, separator: String) {
+        description.forEachIndexed { index, item ->
+            if (index > 0) out.append(separator)
+            item.renderTo(out)
+        }
     }
 }
 
@@ -261,11 +308,17 @@ class Event : BaseEvent(type = ContentType.EVENT) {
         @JsonDeserialize(using = EventPeriodDeserializer::class)
         set
 
-    override fun render(): String {
-        val durationStr = renderDuration()
-        return buildString {
-            append("\\cvevent{${title.escapeSpecialChars()}}{${holder.escapeSpecialChars()}}{$durationStr}{${location.escapeSpecialChars()}}")
-            append(renderDescription())
+    override fun renderTo(out: Appendable) {
+        out.append("\\cvevent{").appendEscaped(title)
+            .append("}{").appendEscaped(holder)
+            .append("}{")
+        renderDurationTo(out)
+        out.append("}{").appendEscaped(location).append('}')
+
+        if (description.isNotEmpty()) {
+            out.append("\n\\begin{itemize}\n")
+            renderDescriptionItemsTo(out, "\n")
+            out.append("\n\\end{itemize}")
         }
     }
 
@@ -287,27 +340,25 @@ class Entry : BaseEvent(type = ContentType.EVENT_ENTRY) {
         @JsonDeserialize(using = EventPeriodDeserializer::class)
         set
 
-    override fun render(): String {
-        return """
-        |\cventry
-        |   {${title.escapeSpecialChars()}} % Job title
-        |   {${holder.escapeSpecialChars()}} % Organization
-        |   {${location.escapeSpecialChars()}} % Location
-        |   {${renderDuration()}} % Date(s)
-        |   ${
-            if (description.isNotEmpty()) {
-                """
-                |{
-                |     \begin{cvitems} % Description(s) of tasks/responsibilities
-                |     ${description.joinToString(prefix = "\t", separator = "\n\t\t") { it.render() }}
-                |     \end{cvitems}
-                |   }
-                """.trimMargin()
-            } else {
-                "{}"
-            }
+    override fun renderTo(out: Appendable) {
+        out.append("\\cventry\n")
+            .append("   {").appendEscaped(title).append("} % Job title\n")
+            .append("   {").appendEscaped(holder).append("} % Organization\n")
+            .append("   {").appendEscaped(location).append("} % Location\n")
+            .append("   {")
+        renderDurationTo(out)
+        out.append("} % Date(s)\n")
+
+        if (description.isNotEmpty()) {
+            out.append("   {\n")
+                .append("     \\begin{cvitems} % Description(s) of tasks/responsibilities\n")
+                .append("     \t")
+            renderDescriptionItemsTo(out, "\n\t\t")
+            out.append("\n     \\end{cvitems}\n")
+                .append("   }")
+        } else {
+            out.append("   {}")
         }
-        """.trimMargin()
     }
 
     companion object {
@@ -331,14 +382,18 @@ data class WheelChart(
     val outerRadius: Double,
     val items: List<WheelChartItem>
 ) : SectionContent(ContentType.WHEELCHART) {
-    override fun render() =
-        """
-        |% \wheelchart{outer radius}{inner radius}{
-        |% comma-separated list of value/text width/color/detail}
-        |\wheelchart{${innerRadius}cm}{${outerRadius}cm}{
-        |  ${items.joinToString(",\n  ") { it.toString() }}
-        |}
-        """.trimMargin()
+    override fun renderTo(out: Appendable) {
+        out.append("% \\wheelchart{outer radius}{inner radius}{\n")
+            .append("% comma-separated list of value/text width/color/detail}\n")
+            .append("\\wheelchart{").append(innerRadius.toString())
+            .append("cm}{").append(outerRadius.toString()).append("cm}{\n")
+            .append("  ")
+        items.forEachIndexed { index, item ->
+            if (index > 0) out.append(",\n  ")
+            item.renderTo(out)
+        }
+        out.append("\n}")
+    }
 }
 
 /**
@@ -350,13 +405,23 @@ data class WheelChart(
  * @property detail The detail of the item.
  */
 data class WheelChartItem(val value: Int, val textWidth: Int, val color: String, val detail: String) {
-    override fun toString(): String {
-        val itemDetail = detail.escapeSpecialChars().let {
-            if (it.contains(",")) "{$it}" else it
+    /**
+     * Renders the wheel chart item into the given output.
+     *
+     * @param out The [Appendable] receiving the rendered item.
+     */
+    internal fun renderTo(out: Appendable) {
+        val itemDetail = detail.escapeSpecialChars()
+
+        out.append(value.toString()).append('/').append(textWidth.toString()).append("em/").append(color).append('/')
+        if (itemDetail.contains(",")) {
+            out.append('{').append(itemDetail).append('}')
+        } else {
+            out.append(itemDetail)
         }
-
-        return "$value/${textWidth}em/$color/$itemDetail"
     }
+
+    override fun toString() = buildString { renderTo(this) }
 }
 
 /**
@@ -370,21 +435,19 @@ data class HonorList(
     val honorItems: List<HonorItem>
 ) : SectionContent(ContentType.HONOR_LIST) {
     /**
-     * Renders the honor list content as a string.
+     * Renders the honor list content into the given output.
      *
-     * @return The rendered string of the honor list content.
+     * @param out The [Appendable] receiving the rendered honor list.
      */
-    override fun render() =
-        """
-        |\cvsubsection{$sectionTitle}
-        |
-        |\begin{cvhonors}
-        |
-        |${honorItems.joinToString("\n\n") { it.toString() }}
-        |
-        |\end{cvhonors}
-        |
-        """.trimMargin()
+    override fun renderTo(out: Appendable) {
+        out.append("\\cvsubsection{").append(sectionTitle).append("}\n\n")
+            .append("\\begin{cvhonors}\n\n")
+        honorItems.forEachIndexed { index, item ->
+            if (index > 0) out.append("\n\n")
+            item.renderTo(out)
+        }
+        out.append("\n\n\\end{cvhonors}\n")
+    }
 }
 
 /**
@@ -396,13 +459,18 @@ data class HonorList(
  * @property date The date when the award was received.
  */
 data class HonorItem(val award: String, val event: String, val location: String, val date: String) {
-    override fun toString(): String {
-        return """
-        |\cvhonor
-        |    {$award} % Award
-        |    {$event} % Event
-        |    {$location} % Location
-        |    {$date} % Date(s)
-        """.trimMargin()
+    /**
+     * Renders the honor item into the given output.
+     *
+     * @param out The [Appendable] receiving the rendered honor item.
+     */
+    internal fun renderTo(out: Appendable) {
+        out.append("\\cvhonor\n")
+            .append("    {").append(award).append("} % Award\n")
+            .append("    {").append(event).append("} % Event\n")
+            .append("    {").append(location).append("} % Location\n")
+            .append("    {").append(date).append("} % Date(s)")
     }
+
+    override fun toString() = buildString { renderTo(this) }
 }
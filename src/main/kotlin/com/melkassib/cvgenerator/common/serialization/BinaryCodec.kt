@@ -0,0 +1,629 @@
+@file:JvmName("BinaryCodec")
+
+package com.melkassib.cvgenerator.common.serialization
+
+import com.melkassib.cvgenerator.altacv.domain.AltaCVResume
+import com.melkassib.cvgenerator.altacv.domain.AltaCVUserInfo
+import com.melkassib.cvgenerator.altacv.domain.RColor
+import com.melkassib.cvgenerator.altacv.domain.RColorAlias
+import com.melkassib.cvgenerator.awesomecv.domain.AwesomeCVResume
+import com.melkassib.cvgenerator.awesomecv.domain.AwesomeCVUserInfo
+import com.melkassib.cvgenerator.awesomecv.domain.ColorTheme
+import com.melkassib.cvgenerator.awesomecv.domain.HeaderAlignment
+import com.melkassib.cvgenerator.awesomecv.domain.PhotoEdge
+import com.melkassib.cvgenerator.common.domain.*
+import com.melkassib.cvgenerator.common.domain.EventPeriodString.Companion.eventDurationStr
+import java.io.EOFException
+import java.io.InputStream
+import java.io.OutputStream
+import java.io.StreamCorruptedException
+import java.nio.BufferUnderflowException
+import java.nio.ByteBuffer
+import java.nio.charset.StandardCharsets
+import java.time.DateTimeException
+import java.time.YearMonth
+import com.melkassib.cvgenerator.altacv.domain.Photo as AltaCVPhoto
+import com.melkassib.cvgenerator.altacv.domain.PhotoShape as AltaCVPhotoShape
+import com.melkassib.cvgenerator.altacv.serialization.userInfoFieldOf as altaCVUserInfoFieldOf
+import com.melkassib.cvgenerator.awesomecv.domain.Photo as AwesomeCVPhoto
+import com.melkassib.cvgenerator.awesomecv.domain.PhotoShape as AwesomeCVPhotoShape
+import com.melkassib.cvgenerator.awesomecv.domain.UserInfoField as AwesomeCVUserInfoField
+import com.melkassib.cvgenerator.awesomecv.serialization.userInfoFieldOf as awesomeCVUserInfoFieldOf
+
+/**
+ * Magic bytes starting every binary resume.
+ */
+private val BINARY_MAGIC = byteArrayOf('C'.code.toByte(), 'V'.code.toByte(), 'B'.code.toByte())
+
+/**
+ * Version of the binary format.
+ * Enum values, including the content types tagging the section contents, are written by ordinal,
+ * so that adding, removing or reordering enum values requires a new version.
+ */
+const val BINARY_FORMAT_VERSION = 1
+
+/**
+ * Tags of the templates of the binary resumes.
+ */
+private const val ALTACV_TAG = 1
+private const val AWESOMECV_TAG = 2
+
+/**
+ * Tags of the event periods.
+ */
+private const val NO_PERIOD_TAG = 0
+private const val STRING_PERIOD_TAG = 1
+private const val DATE_PERIOD_TAG = 2
+
+/**
+ * Size of the header of a binary resume: magic bytes, version and template tag, before the payload length.
+ */
+private const val BINARY_HEADER_SIZE = 5
+
+private const val MONTHS_PER_YEAR = 12
+
+/**
+ * Writes a resume in the compact binary format.
+ *
+ * A binary resume is made of the magic bytes `CVB`, the format version, the template tag,
+ * the length of the payload as a varint, then the payload.
+ * Integers are written as varints, doubles as their 8 IEEE 754 bytes, enums by ordinal,
+ * and section contents are tagged with the ordinal of their [ContentType].
+ * Each string is written once: later occurrences refer to its index in the string table of the resume,
+ * which is built as the resume is written and read.
+ *
+ * @param resume The resume to write
+ * @param out The stream receiving the binary resume, which is not closed
+ */
+internal fun writeBinaryResume(resume: Resume<*, *, *>, out: OutputStream) {
+    val payload = BinaryEncoder()
+    val template = when (resume) {
+        is AltaCVResume -> ALTACV_TAG.also { payload.writeAltaCVResume(resume) }
+        is AwesomeCVResume -> AWESOMECV_TAG.also { payload.writeAwesomeCVResume(resume) }
+        else -> throw IllegalArgumentException("Unsupported resume type: ${resume.javaClass.name}")
+    }
+
+    val header = BinaryEncoder(BINARY_HEADER_SIZE + Int.SIZE_BYTES + 1)
+    BINARY_MAGIC.forEach { header.writeByte(it.toInt()) }
+    header.writeByte(BINARY_FORMAT_VERSION)
+    header.writeByte(template)
+    header.writeVarInt(payload.size)
+
+    header.writeTo(out)
+    payload.writeTo(out)
+}
+
+/**
+ * Reads a resume written in the compact binary format, consuming exactly its bytes from the stream.
+ *
+ * @param input The stream of the binary resume, which is not closed
+ * @return The [AltaCVResume] or [AwesomeCVResume]
+ * @throws StreamCorruptedException If the input is not a binary resume of a supported version
+ * @throws EOFException If the input ends before the end of the resume
+ */
+fun buildResumeFromBinary(input: InputStream): Resume<*, *, *> {
+    val header = input.readExactly(BINARY_HEADER_SIZE)
+    val template = checkBinaryHeader(ByteBuffer.wrap(header))
+
+    var length = 0
+    var shift = 0
+    do {
+        if (shift >= Int.SIZE_BITS) throw StreamCorruptedException("Malformed varint")
+        val byte = input.read()
+        if (byte < 0) throw EOFException("Truncated binary resume")
+        length = length or ((byte and VARINT_PAYLOAD_MASK) shl shift)
+        shift += VARINT_PAYLOAD_BITS
+    } while (byte and VARINT_CONTINUATION_BIT != 0)
+    if (length < 0) throw StreamCorruptedException("Malformed binary resume length: $length")
+
+    val payload = ByteBuffer.wrap(input.readExactly(length))
+    val resume = BinaryDecoder(payload).decodeResume(template)
+    if (payload.hasRemaining()) throw StreamCorruptedException("Binary resume length mismatch")
+
+    return resume
+}
+
+/**
+ * Reads a resume written in the compact binary format.
+ *
+ * @param bytes The binary resume
+ * @return The [AltaCVResume] or [AwesomeCVResume]
+ * @throws StreamCorruptedException If the bytes are not a binary resume of a supported version
+ */
+fun buildResumeFromBinary(bytes: ByteArray): Resume<*, *, *> = readBinaryResume(ByteBuffer.wrap(bytes))
+
+/**
+ * Reads a resume written in the compact binary format from the position of the buffer,
+ * which is left after the end of the resume.
+ * The resume is decoded from the buffer in place, including from a direct or memory-mapped buffer.
+ *
+ * @param buffer The buffer of the binary resume
+ * @return The [AltaCVResume] or [AwesomeCVResume]
+ * @throws StreamCorruptedException If the buffer does not hold a binary resume of a supported version
+ */
+internal fun readBinaryResume(buffer: ByteBuffer): Resume<*, *, *> {
+    val template = checkBinaryHeader(buffer)
+    val decoder = BinaryDecoder(buffer)
+    val length = decoder.decodeVarInt()
+    if (length < 0 || length > buffer.remaining()) throw StreamCorruptedException("Truncated binary resume")
+
+    val end = buffer.position() + length
+    val resume = decoder.decodeResume(template)
+    if (buffer.position() != end) throw StreamCorruptedException("Binary resume length mismatch")
+
+    return resume
+}
+
+/**
+ * Checks that a binary resume was written from the given resume type.
+ *
+ * @param type The expected resume type
+ * @return The resume as the expected type
+ * @throws StreamCorruptedException If the resume is of another template
+ */
+internal fun <R : Resume<*, *, *>> Resume<*, *, *>.asBinaryResumeOf(type: Class<R>): R =
+    if (type.isInstance(this)) type.cast(this) else throw StreamCorruptedException("Not a binary ${type.simpleName}: ${javaClass.simpleName}")
+
+/**
+ * Checks the magic bytes and version of a binary resume, and returns its template tag.
+ */
+private fun checkBinaryHeader(buffer: ByteBuffer): Int {
+    if (buffer.remaining() < BINARY_HEADER_SIZE) throw StreamCorruptedException("Truncated binary resume")
+    if (BINARY_MAGIC.any { it != buffer.get() }) throw StreamCorruptedException("Not a binary resume")
+
+    val version = buffer.get().toInt()
+    if (version != BINARY_FORMAT_VERSION) throw StreamCorruptedException("Unsupported binary resume version: $version")
+
+    return buffer.get().toInt()
+}
+
+/**
+ * Decodes a primitive or the resume of a payload, reporting the reads past its end and the invalid values
+ * of a corrupted payload as a [StreamCorruptedException].
+ */
+private inline fun <T> decodeCorruptible(decode: () -> T): T = try {
+    decode()
+} catch (e: BufferUnderflowException) {
+    throw StreamCorruptedException("Truncated binary resume").apply { initCause(e) }
+} catch (e: IndexOutOfBoundsException) {
+    throw StreamCorruptedException("Truncated binary resume").apply { initCause(e) }
+} catch (e: IllegalArgumentException) {
+    throw StreamCorruptedException("Invalid binary resume: ${e.message}").apply { initCause(e) }
+} catch (e: DateTimeException) {
+    throw StreamCorruptedException("Invalid binary resume: ${e.message}").apply { initCause(e) }
+}
+
+private fun BinaryDecoder.decodeVarInt(): Int = decodeCorruptible { readVarInt() }
+
+private fun BinaryDecoder.decodeResume(template: Int): Resume<*, *, *> = decodeCorruptible { readResume(template) }
+
+/**
+ * Reads exactly the given number of bytes from the stream, growing the buffer as the bytes arrive,
+ * so that a corrupted length does not allocate more than the bytes actually read.
+ */
+private fun InputStream.readExactly(length: Int): ByteArray {
+    var bytes = ByteArray(minOf(length, READ_CHUNK_SIZE))
+    var count = 0
+    while (count < length) {
+        if (count == bytes.size) bytes = bytes.copyOf(minOf(length, bytes.size * 2))
+        val read = read(bytes, count, bytes.size - count)
+        if (read < 0) throw EOFException("Truncated binary resume")
+        count += read
+    }
+    return bytes
+}
+
+/**
+ * Initial size of the buffer of a binary resume read from a stream.
+ */
+private const val READ_CHUNK_SIZE = 8192
+
+private const val VARINT_PAYLOAD_BITS = 7
+private const val VARINT_PAYLOAD_MASK = 0x7F
+private const val VARINT_CONTINUATION_BIT = 0x80
+private const val BYTE_MASK = 0xFF
+
+/**
+ * Growable buffer writing the primitives of the binary format.
+ */
+private class BinaryEncoder(initialCapacity: Int = 4096) {
+    private var buffer = ByteArray(initialCapacity)
+    private val strings = HashMap<String, Int>()
+
+    var size = 0
+        private set
+
+    fun writeByte(value: Int) {
+        ensureCapacity(1)
+        buffer[size++] = value.toByte()
+    }
+
+    fun writeBoolean(value: Boolean) = writeByte(if (value) 1 else 0)
+
+    /**
+     * Writes a non-negative int on 1 to 5 bytes, 7 bits at a time.
+     */
+    fun writeVarInt(value: Int) {
+        ensureCapacity(Int.SIZE_BYTES + 1)
+        var remaining = value
+        while (remaining and VARINT_PAYLOAD_MASK.inv() != 0) {
+            buffer[size++] = ((remaining and VARINT_PAYLOAD_MASK) or VARINT_CONTINUATION_BIT).toByte()
+            remaining = remaining ushr VARINT_PAYLOAD_BITS
+        }
+        buffer[size++] = remaining.toByte()
+    }
+
+    /**
+     * Writes a signed int as a zigzag varint, so that small negative values stay small.
+     */
+    fun writeSignedVarInt(value: Int) = writeVarInt((value shl 1) xor (value shr Int.SIZE_BITS - 1))
+
+    fun writeDouble(value: Double) {
+        ensureCapacity(Long.SIZE_BYTES)
+        val bits = value.toRawBits()
+        for (index in Long.SIZE_BYTES - 1 downTo 0) {
+            buffer[size++] = (bits ushr index * Byte.SIZE_BITS).toByte()
+        }
+    }
+
+    fun writeEnum(value: Enum<*>) = writeVarInt(value.ordinal)
+
+    /**
+     * Writes a string, as a reference to the string table when it was already written:
+     * `0` followed by the length and UTF-8 bytes of a new string, or the index of a known string plus one.
+     */
+    fun writeString(value: String) {
+        val index = strings[value]
+        if (index != null) {
+            writeVarInt(index + 1)
+            return
+        }
+
+        strings[value] = strings.size
+        val bytes = value.toByteArray(StandardCharsets.UTF_8)
+        writeVarInt(0)
+        writeVarInt(bytes.size)
+        ensureCapacity(bytes.size)
+        bytes.copyInto(buffer, size)
+        size += bytes.size
+    }
+
+    inline fun <T> writeCollection(values: Collection<T>, writeElement: (T) -> Unit) {
+        writeVarInt(values.size)
+        values.forEach(writeElement)
+    }
+
+    inline fun <T : Any> writeNullable(value: T?, writeValue: (T) -> Unit) {
+        writeBoolean(value != null)
+        if (value != null) writeValue(value)
+    }
+
+    fun writeTo(out: OutputStream) = out.write(buffer, 0, size)
+
+    private fun ensureCapacity(length: Int) {
+        if (size + length > buffer.size) {
+            buffer = buffer.copyOf(maxOf(buffer.size * 2, size + length))
+        }
+    }
+}
+
+/**
+ * Reader of the primitives of the binary format, from the position of a buffer.
+ */
+private class BinaryDecoder(private val buffer: ByteBuffer) {
+    private val strings = ArrayList<String>()
+
+    fun readByte(): Int = buffer.get().toInt() and BYTE_MASK
+
+    fun readBoolean(): Boolean = readByte() != 0
+
+    fun readVarInt(): Int {
+        var value = 0
+        var shift = 0
+        do {
+            if (shift >= Int.SIZE_BITS) throw StreamCorruptedException("Malformed varint")
+            val byte = readByte()
+            value = value or ((byte and VARINT_PAYLOAD_MASK) shl shift)
+            shift += VARINT_PAYLOAD_BITS
+        } while (byte and VARINT_CONTINUATION_BIT != 0)
+        return value
+    }
+
+    fun readSignedVarInt(): Int {
+        val value = readVarInt()
+        return (value ushr 1) xor -(value and 1)
+    }
+
+    fun readDouble(): Double = Double.fromBits(buffer.getLong())
+
+    fun <E : Enum<E>> readEnum(values: Array<E>): E =
+        values.getOrNull(readVarInt()) ?: throw StreamCorruptedException("Unknown ${values.javaClass.componentType.simpleName} ordinal")
+
+    fun readString(): String {
+        val reference = readVarInt()
+        if (reference > 0) {
+            return strings.getOrNull(reference - 1) ?: throw StreamCorruptedException("Unknown string reference: $reference")
+        }
+
+        val length = readVarInt()
+        if (length < 0 || length > buffer.remaining()) throw StreamCorruptedException("Truncated string")
+
+        val value = if (buffer.hasArray()) {
+            String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8).also {
+                buffer.position(buffer.position() + length)
+            }
+        } else {
+            ByteArray(length).also { buffer.get(it) }.toString(StandardCharsets.UTF_8)
+        }
+
+        strings += value
+        return value
+    }
+
+    inline fun <T> readList(readElement: () -> T): MutableList<T> {
+        val count = readVarInt()
+        if (count < 0 || count > buffer.remaining()) throw StreamCorruptedException("Malformed element count: $count")
+        return MutableList(count) { readElement() }
+    }
+
+    inline fun <T : Any> readNullable(readValue: () -> T): T? = if (readBoolean()) readValue() else null
+
+    fun readResume(template: Int): Resume<*, *, *> = when (template) {
+        ALTACV_TAG -> readAltaCVResume()
+        AWESOMECV_TAG -> readAwesomeCVResume()
+        else -> throw StreamCorruptedException("Unknown resume template: $template")
+    }
+}
+
+private fun BinaryEncoder.writeAltaCVResume(resume: AltaCVResume) {
+    with(resume.config) {
+        writeDouble(columnRatio)
+        writeEnum(photoShape)
+        writeCollection(theme.entries) { (alias, color) ->
+            writeEnum(alias)
+            writeString(color.colorName)
+            writeString(color.colorHexValue)
+        }
+    }
+
+    with(resume.header) {
+        writeString(tagline)
+        writeNullable(userInfo) { user ->
+            writeString(user.name)
+            writeCollection(user.personalInfo) { field ->
+                writeString(field.fieldName)
+                writeString(field.symbol)
+                writeString(field.prefix)
+                writeString(field.value)
+            }
+        }
+        writeNullable(photo) { photo ->
+            writeDouble(photo.size)
+            writeString(photo.path)
+            writeEnum(photo.direction)
+        }
+    }
+
+    writeCollection(resume.sections) { writeSection(it) }
+}
+
+private fun BinaryDecoder.readAltaCVResume(): AltaCVResume {
+    val config = AltaCVConfig(
+        columnRatio = readDouble(),
+        photoShape = readEnum(AltaCVPhotoShape.entries.toTypedArray()),
+        theme = readList { readEnum(RColorAlias.entries.toTypedArray()) to RColor(readString(), readString()) }.toMap()
+    )
+
+    val header = AltaCVHeader(
+        tagline = readString(),
+        userInfo = readNullable {
+            val name = readString()
+            val personalInfo = readList { altaCVUserInfoFieldOf(readString(), readString(), readString(), readString()) }
+            AltaCVUserInfo(name, LinkedHashSet(personalInfo))
+        },
+        photo = readNullable { AltaCVPhoto(readDouble(), readString(), readEnum(PhotoDirection.entries.toTypedArray())) }
+    )
+
+    return AltaCVResume(config, header, readList { readSection() })
+}
+
+private fun BinaryEncoder.writeAwesomeCVResume(resume: AwesomeCVResume) {
+    with(resume.config) {
+        writeEnum(colorTheme)
+        writeBoolean(isSectionHighlighted)
+        writeString(headerSocialSeparator)
+    }
+
+    with(resume.header) {
+        writeEnum(alignment)
+        writeNullable(userInfo) { user ->
+            writeString(user.firstName)
+            writeString(user.lastName)
+            writeCollection(user.personalInfo) { field ->
+                writeString(field.fieldName)
+                writeString(field.value)
+                writeNullable(field.valueId) { writeString(it) }
+            }
+        }
+        writeNullable(photo) { photo ->
+            writeEnum(photo.shape)
+            writeEnum(photo.edge)
+            writeEnum(photo.direction)
+            writeString(photo.path)
+        }
+        writeString(quote)
+    }
+
+    with(resume.footer) {
+        writeString(left)
+        writeString(center)
+        writeString(right)
+    }
+
+    writeCollection(resume.sections) { writeSection(it) }
+}
+
+private fun BinaryDecoder.readAwesomeCVResume(): AwesomeCVResume {
+    val config = AwesomeCVConfig(readEnum(ColorTheme.entries.toTypedArray()), readBoolean(), readString())
+
+    val header = AwesomeCVHeader(
+        alignment = readEnum(HeaderAlignment.entries.toTypedArray()),
+        userInfo = readNullable {
+            val firstName = readString()
+            val lastName = readString()
+            val personalInfo = readList {
+                val fieldName = readString()
+                val value = readString()
+                val valueId = readNullable { readString() }
+                awesomeCVUserInfoFieldOf(fieldName, value, valueId) ?: AwesomeCVUserInfoField(fieldName, value, valueId)
+            }
+            AwesomeCVUserInfo(firstName, lastName, LinkedHashSet(personalInfo))
+        },
+        photo = readNullable {
+            AwesomeCVPhoto(
+                readEnum(AwesomeCVPhotoShape.entries.toTypedArray()),
+                readEnum(PhotoEdge.entries.toTypedArray()),
+                readEnum(PhotoDirection.entries.toTypedArray()),
+                readString()
+            )
+        },
+        quote = readString()
+    )
+
+    val footer = AwesomeCVFooter(readString(), readString(), readString())
+
+    return AwesomeCVResume(config, header, footer, readList { readSection() })
+}
+
+private fun BinaryEncoder.writeSection(section: Section) {
+    writeString(section.title)
+    writeVarInt(section.position.column)
+    writeSignedVarInt(section.position.order)
+    writeBoolean(section.ignored)
+    writeCollection(section.contents) { writeContent(it) }
+}
+
+private fun BinaryDecoder.readSection(): Section {
+    val title = readString()
+    val position = SectionPosition(readVarInt(), readSignedVarInt())
+    val ignored = readBoolean()
+    return Section(title, position, readList { readContent() }, ignored)
+}
+
+private fun BinaryEncoder.writeContent(content: SectionContent) {
+    writeEnum(content.type)
+
+    when (content) {
+        is Divider, is NewLine, is NewPage, is NoContent -> Unit
+        is HasSimpleContent -> writeString(content.content)
+        is Achievement -> {
+            writeString(content.iconName)
+            writeString(content.achievement)
+            writeString(content.detail)
+        }
+        is Skill -> {
+            writeBoolean(false)
+            writeString(content.skill)
+            writeDouble(content.rating)
+        }
+        is SkillStr -> {
+            writeBoolean(true)
+            writeString(content.skill)
+            writeString(content.fluency)
+        }
+        is BaseEvent -> writeEvent(content)
+        is Item -> writeItem(content)
+        is WheelChart -> {
+            writeDouble(content.innerRadius)
+            writeDouble(content.outerRadius)
+            writeCollection(content.items) { item ->
+                writeSignedVarInt(item.value)
+                writeSignedVarInt(item.textWidth)
+                writeString(item.color)
+                writeString(item.detail)
+            }
+        }
+        is HonorList -> {
+            writeString(content.sectionTitle)
+            writeCollection(content.honorItems) { item ->
+                writeString(item.award)
+                writeString(item.event)
+                writeString(item.location)
+                writeString(item.date)
+            }
+        }
+        else -> throw IllegalArgumentException("Unsupported section content: ${content.javaClass.name}")
+    }
+}
+
+private fun BinaryDecoder.readContent(): SectionContent = when (readEnum(ContentType.entries.toTypedArray())) {
+    ContentType.DIVIDER -> Divider
+    ContentType.NEWLINE -> NewLine
+    ContentType.NEWPAGE -> NewPage
+    ContentType.EMPTY -> NoContent
+    ContentType.TAG -> Tag(readString())
+    ContentType.QUOTE -> Quote(readString())
+    ContentType.GENERIC -> LatexContent(readString())
+    ContentType.PARAGRAPH -> Paragraph(readString())
+    ContentType.ACHIEVEMENT -> Achievement(readString(), readString(), readString())
+    ContentType.SKILL -> if (readBoolean()) SkillStr(readString(), readString()) else Skill(readString(), readDouble())
+    ContentType.EVENT -> readEvent(Event())
+    ContentType.EVENT_ENTRY -> readEvent(Entry())
+    ContentType.ITEM -> readItem()
+    ContentType.WHEELCHART -> WheelChart(
+        readDouble(),
+        readDouble(),
+        readList { WheelChartItem(readSignedVarInt(), readSignedVarInt(), readString(), readString()) }
+    )
+    ContentType.HONOR_LIST -> HonorList(readString(), readList { HonorItem(readString(), readString(), readString(), readString()) })
+}
+
+private fun BinaryEncoder.writeEvent(event: BaseEvent) {
+    writeString(event.title)
+    writeString(event.holder)
+    writeString(event.location)
+
+    when (val period = event.duration) {
+        is EventPeriodString -> {
+            writeByte(STRING_PERIOD_TAG)
+            writeString(period.start)
+            writeString(period.end)
+        }
+        is EventPeriodDate -> {
+            writeByte(DATE_PERIOD_TAG)
+            writeSignedVarInt(period.start.year * MONTHS_PER_YEAR + period.start.monthValue - 1)
+            writeSignedVarInt(period.end.year * MONTHS_PER_YEAR + period.end.monthValue - 1)
+        }
+        is NoEventPeriod -> writeByte(NO_PERIOD_TAG)
+    }
+
+    writeCollection(event.description) { writeItem(it) }
+}
+
+private fun <E : BaseEvent> BinaryDecoder.readEvent(event: E): E = event.apply {
+    title = readString()
+    holder = readString()
+    location = readString()
+    duration = when (val tag = readByte()) {
+        NO_PERIOD_TAG -> NoEventPeriod
+        STRING_PERIOD_TAG -> eventDurationStr(readString(), readString())
+        DATE_PERIOD_TAG -> EventPeriodDate.of(readYearMonth(), readYearMonth())
+        else -> throw StreamCorruptedException("Unknown event period tag: $tag")
+    }
+    description = readList { readItem() }
+}
+
+/**
+ * Reads a month written as the number of months since year 0.
+ */
+private fun BinaryDecoder.readYearMonth(): YearMonth {
+    val months = readSignedVarInt()
+    return YearMonth.of(Math.floorDiv(months, MONTHS_PER_YEAR), Math.floorMod(months, MONTHS_PER_YEAR) + 1)
+}
+
+private fun BinaryEncoder.writeItem(item: Item) {
+    writeString(item.description)
+    writeBoolean(item.withBullet)
+}
+
+private fun BinaryDecoder.readItem() = Item(readString(), readBoolean())
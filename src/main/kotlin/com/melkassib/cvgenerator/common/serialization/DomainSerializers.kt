@@ -0,0 +1,521 @@
+@file:JvmName("DomainSerializers")
+
+package com.melkassib.cvgenerator.common.serialization
+
+import com.fasterxml.jackson.core.JsonGenerator
+import com.fasterxml.jackson.core.JsonParser
+import com.fasterxml.jackson.core.JsonToken
+import com.fasterxml.jackson.databind.DeserializationContext
+import com.fasterxml.jackson.databind.JsonDeserializer
+import com.fasterxml.jackson.databind.JsonSerializer
+import com.fasterxml.jackson.databind.SerializerProvider
+import com.melkassib.cvgenerator.common.domain.*
+
+/**
+ * Contains the serializers and deserializers of sections.
+ *
+ * Like the other domain serializers, they read and write the token stream directly,
+ * so that binding a resume needs neither bean introspection nor kotlin-reflect.
+ */
+object SectionSerializers {
+    /**
+     * Serializer for SectionPosition.
+     */
+    object PositionSerializer : JsonSerializer<SectionPosition>() {
+        override fun serialize(value: SectionPosition, gen: JsonGenerator, serializers: SerializerProvider) {
+            gen.writeObjectFields(value) {
+                writeNumberField("column", value.column)
+                writeNumberField("order", value.order)
+            }
+        }
+    }
+
+    /**
+     * Deserializer for SectionPosition.
+     */
+    object PositionDeserializer : JsonDeserializer<SectionPosition>() {
+        override fun deserialize(parser: JsonParser, ctxt: DeserializationContext): SectionPosition {
+            var column: Int? = null
+            var order: Int? = null
+
+            parser.readFields(ctxt, this, SectionPosition::class.java) { field ->
+                when (field) {
+                    "column" -> column = parser.readInt(ctxt)
+                    "order" -> order = parser.readInt(ctxt)
+                    else -> return@readFields false
+                }
+                true
+            }
+
+            return SectionPosition(
+                ctxt.required(column, SectionPosition::class.java, "column"),
+                ctxt.required(order, SectionPosition::class.java, "order")
+            )
+        }
+    }
+
+    /**
+     * Serializer for Section. The `ignored` flag is not serialized.
+     */
+    object Serializer : JsonSerializer<Section>() {
+        override fun serialize(value: Section, gen: JsonGenerator, serializers: SerializerProvider) {
+            gen.writeObjectFields(value) {
+                writeStringField("title", value.title)
+                writeFieldName("position")
+                PositionSerializer.serialize(value.position, gen, serializers)
+                writeFieldName("contents")
+                SectionContentSerializers.ContentListSerializer.serialize(value.contents, gen, serializers)
+            }
+        }
+    }
+
+    /**
+     * Deserializer for Section. The `ignored` flag is skipped if present.
+     */
+    object Deserializer : JsonDeserializer<Section>() {
+        override fun deserialize(parser: JsonParser, ctxt: DeserializationContext): Section {
+            var title: String? = null
+            var position: SectionPosition? = null
+            var contents: List<SectionContent> = listOf()
+
+            parser.readFields(ctxt, this, Section::class.java) { field ->
+                when (field) {
+                    "title" -> title = parser.readString(ctxt, Section::class.java, field)
+                    "position" -> position = parser.readValue(ctxt, PositionDeserializer, Section::class.java, field)
+                    "contents" -> contents = parser.readValue(ctxt, SectionContentSerializers.ContentListDeserializer, Section::class.java, field)
+                    "ignored" -> parser.skipChildren()
+                    else -> return@readFields false
+                }
+                true
+            }
+
+            return Section(
+                ctxt.required(title, Section::class.java, "title"),
+                ctxt.required(position, Section::class.java, "position"),
+                contents
+            )
+        }
+    }
+}
+
+/**
+ * Contains the serializers and deserializers of the structured section contents,
+ * written as the `content` field of a ContentWrapper.
+ */
+object ContentSerializers {
+    /**
+     * Serializer for Event and Entry.
+     */
+    object EventSerializer : JsonSerializer<BaseEvent>() {
+        override fun serialize(value: BaseEvent, gen: JsonGenerator, serializers: SerializerProvider) {
+            gen.writeObjectFields(value) {
+                writeStringField("title", value.title)
+                writeStringField("holder", value.holder)
+                writeStringField("location", value.location)
+                writeFieldName("duration")
+                EventPeriodSerializer.serialize(value.duration, gen, serializers)
+                writeArrayOf("description", value.description) { ItemSerializer.serialize(it, gen, serializers) }
+            }
+        }
+    }
+
+    /**
+     * Deserializer for Event.
+     */
+    object EventDeserializer : JsonDeserializer<Event>() {
+        override fun deserialize(parser: JsonParser, ctxt: DeserializationContext): Event =
+            readEvent(parser, ctxt, this, Event())
+    }
+
+    /**
+     * Deserializer for Entry.
+     */
+    object EntryDeserializer : JsonDeserializer<Entry>() {
+        override fun deserialize(parser: JsonParser, ctxt: DeserializationContext): Entry =
+            readEvent(parser, ctxt, this, Entry())
+    }
+
+    /**
+     * Serializer for Achievement.
+     */
+    object AchievementSerializer : JsonSerializer<Achievement>() {
+        override fun serialize(value: Achievement, gen: JsonGenerator, serializers: SerializerProvider) {
+            gen.writeObjectFields(value) {
+                writeStringField("iconName", value.iconName)
+                writeStringField("achievement", value.achievement)
+                writeStringField("detail", value.detail)
+            }
+        }
+    }
+
+    /**
+     * Deserializer for Achievement.
+     */
+    object AchievementDeserializer : JsonDeserializer<Achievement>() {
+        override fun deserialize(parser: JsonParser, ctxt: DeserializationContext): Achievement {
+            var iconName: String? = null
+            var achievement: String? = null
+            var detail: String? = null
+
+            parser.readFields(ctxt, this, Achievement::class.java) { field ->
+                when (field) {
+                    "iconName" -> iconName = parser.readString(ctxt, Achievement::class.java, field)
+                    "achievement" -> achievement = parser.readString(ctxt, Achievement::class.java, field)
+                    "detail" -> detail = parser.readString(ctxt, Achievement::class.java, field)
+                    "type" -> parser.skipChildren()
+                    else -> return@readFields false
+                }
+                true
+            }
+
+            return Achievement(
+                ctxt.required(iconName, Achievement::class.java, "iconName"),
+                ctxt.required(achievement, Achievement::class.java, "achievement"),
+                ctxt.required(detail, Achievement::class.java, "detail")
+            )
+        }
+    }
+
+    /**
+     * Serializer for Item.
+     */
+    object ItemSerializer : JsonSerializer<Item>() {
+        override fun serialize(value: Item, gen: JsonGenerator, serializers: SerializerProvider) {
+            gen.writeObjectFields(value) {
+                writeStringField("description", value.description)
+                writeBooleanField("withBullet", value.withBullet)
+            }
+        }
+    }
+
+    /**
+     * Deserializer for Item.
+     */
+    object ItemDeserializer : JsonDeserializer<Item>() {
+        override fun deserialize(parser: JsonParser, ctxt: DeserializationContext): Item {
+            var description: String? = null
+            var withBullet = true
+
+            parser.readFields(ctxt, this, Item::class.java) { field ->
+                when (field) {
+                    "description" -> description = parser.readString(ctxt, Item::class.java, field)
+                    "withBullet" -> withBullet = parser.readBoolean(ctxt)
+                    "type" -> parser.skipChildren()
+                    else -> return@readFields false
+                }
+                true
+            }
+
+            return Item(ctxt.required(description, Item::class.java, "description"), withBullet)
+        }
+    }
+
+    /**
+     * Serializer for WheelChart.
+     */
+    object WheelChartSerializer : JsonSerializer<WheelChart>() {
+        override fun serialize(value: WheelChart, gen: JsonGenerator, serializers: SerializerProvider) {
+            gen.writeObjectFields(value) {
+                writeNumberField("innerRadius", value.innerRadius)
+                writeNumberField("outerRadius", value.outerRadius)
+                writeArrayOf("items", value.items) { item ->
+                    writeObjectFields(item) {
+                        writeNumberField("value", item.value)
+                        writeNumberField("textWidth", item.textWidth)
+                        writeStringField("color", item.color)
+                        writeStringField("detail", item.detail)
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Deserializer for WheelChart.
+     */
+    object WheelChartDeserializer : JsonDeserializer<WheelChart>() {
+        override fun deserialize(parser: JsonParser, ctxt: DeserializationContext): WheelChart {
+            var innerRadius: Double? = null
+            var outerRadius: Double? = null
+            var items: List<WheelChartItem>? = null
+
+            parser.readFields(ctxt, this, WheelChart::class.java) { field ->
+                when (field) {
+                    "innerRadius" -> innerRadius = parser.readDouble(ctxt)
+                    "outerRadius" -> outerRadius = parser.readDouble(ctxt)
+                    "items" -> items = parser.readArray(ctxt, WheelChart::class.java, field) { readWheelChartItem(parser, ctxt) }
+                    "type" -> parser.skipChildren()
+                    else -> return@readFields false
+                }
+                true
+            }
+
+            return WheelChart(
+                ctxt.required(innerRadius, WheelChart::class.java, "innerRadius"),
+                ctxt.required(outerRadius, WheelChart::class.java, "outerRadius"),
+                ctxt.required(items, WheelChart::class.java, "items")
+            )
+        }
+
+        private fun readWheelChartItem(parser: JsonParser, ctxt: DeserializationContext): WheelChartItem {
+            var value: Int? = null
+            var textWidth: Int? = null
+            var color: String? = null
+            var detail: String? = null
+
+            parser.readFields(ctxt, this, WheelChartItem::class.java) { field ->
+                when (field) {
+                    "value" -> value = parser.readInt(ctxt)
+                    "textWidth" -> textWidth = parser.readInt(ctxt)
+                    "color" -> color = parser.readString(ctxt, WheelChartItem::class.java, field)
+                    "detail" -> detail = parser.readString(ctxt, WheelChartItem::class.java, field)
+                    else -> return@readFields false
+                }
+                true
+            }
+
+            return WheelChartItem(
+                ctxt.required(value, WheelChartItem::class.java, "value"),
+                ctxt.required(textWidth, WheelChartItem::class.java, "textWidth"),
+                ctxt.required(color, WheelChartItem::class.java, "color"),
+                ctxt.required(detail, WheelChartItem::class.java, "detail")
+            )
+        }
+    }
+
+    /**
+     * Serializer for HonorList.
+     */
+    object HonorListSerializer : JsonSerializer<HonorList>() {
+        override fun serialize(value: HonorList, gen: JsonGenerator, serializers: SerializerProvider) {
+            gen.writeObjectFields(value) {
+                writeStringField("sectionTitle", value.sectionTitle)
+                writeArrayOf("honorItems", value.honorItems) { item ->
+                    writeObjectFields(item) {
+                        writeStringField("award", item.award)
+                        writeStringField("event", item.event)
+                        writeStringField("location", item.location)
+                        writeStringField("date", item.date)
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Deserializer for HonorList.
+     */
+    object HonorListDeserializer : JsonDeserializer<HonorList>() {
+        override fun deserialize(parser: JsonParser, ctxt: DeserializationContext): HonorList {
+            var sectionTitle: String? = null
+            var honorItems: List<HonorItem>? = null
+
+            parser.readFields(ctxt, this, HonorList::class.java) { field ->
+                when (field) {
+                    "sectionTitle" -> sectionTitle = parser.readString(ctxt, HonorList::class.java, field)
+                    "honorItems" -> honorItems = parser.readArray(ctxt, HonorList::class.java, field) { readHonorItem(parser, ctxt) }
+                    "type" -> parser.skipChildren()
+                    else -> return@readFields false
+                }
+                true
+            }
+
+            return HonorList(
+                ctxt.required(sectionTitle, HonorList::class.java, "sectionTitle"),
+                ctxt.required(honorItems, HonorList::class.java, "honorItems")
+            )
+        }
+
+        private fun readHonorItem(parser: JsonParser, ctxt: DeserializationContext): HonorItem {
+            var award: String? = null
+            var event: String? = null
+            var location: String? = null
+            var date: String? = null
+
+            parser.readFields(ctxt, this, HonorItem::class.java) { field ->
+                when (field) {
+                    "award" -> award = parser.readString(ctxt, HonorItem::class.java, field)
+                    "event" -> event = parser.readString(ctxt, HonorItem::class.java, field)
+                    "location" -> location = parser.readString(ctxt, HonorItem::class.java, field)
+                    "date" -> date = parser.readString(ctxt, HonorItem::class.java, field)
+                    else -> return@readFields false
+                }
+                true
+            }
+
+            return HonorItem(
+                ctxt.required(award, HonorItem::class.java, "award"),
+                ctxt.required(event, HonorItem::class.java, "event"),
+                ctxt.required(location, HonorItem::class.java, "location"),
+                ctxt.required(date, HonorItem::class.java, "date")
+            )
+        }
+    }
+
+    /**
+     * Reads the fields of an Event or an Entry into the given instance.
+     */
+    private fun <E : BaseEvent> readEvent(parser: JsonParser, ctxt: DeserializationContext, deserializer: JsonDeserializer<E>, event: E): E {
+        val type = event.javaClass
+
+        parser.readFields(ctxt, deserializer, type) { field ->
+            when (field) {
+                "title" -> event.title = parser.readString(ctxt, type, field)
+                "holder" -> event.holder = parser.readString(ctxt, type, field)
+                "location" -> event.location = parser.readString(ctxt, type, field)
+                "duration" -> event.duration = EventPeriodDeserializer.deserialize(parser, ctxt)
+                "description" -> event.description = parser.readArray(ctxt, type, field) { ItemDeserializer.deserialize(parser, ctxt) }
+                "type" -> parser.skipChildren()
+                else -> return@readFields false
+            }
+            true
+        }
+
+        return event
+    }
+}
+
+/**
+ * Writes an object whose fields are written by the given block.
+ */
+internal inline fun JsonGenerator.writeObjectFields(value: Any, writeFields: JsonGenerator.() -> Unit) {
+    writeStartObject(value)
+    writeFields()
+    writeEndObject()
+}
+
+/**
+ * Writes an array field whose elements are written one by one by the given block.
+ */
+internal inline fun <T> JsonGenerator.writeArrayOf(field: String, values: Collection<T>, writeElement: JsonGenerator.(T) -> Unit) {
+    writeFieldName(field)
+    writeStartArray(values, values.size)
+    values.forEach { writeElement(it) }
+    writeEndArray()
+}
+
+/**
+ * Writes a nullable object field with the given serializer, or a null value.
+ */
+internal fun <T : Any> JsonGenerator.writeNullableField(
+    field: String,
+    value: T?,
+    serializer: JsonSerializer<T>,
+    serializers: SerializerProvider
+) {
+    writeFieldName(field)
+    if (value == null) {
+        writeNull()
+    } else {
+        serializer.serialize(value, this, serializers)
+    }
+}
+
+/**
+ * Reads the fields of the object the parser is on, calling [readField] with the parser on the value of each field.
+ * Fields for which [readField] returns false are unknown properties of [type],
+ * which fail the binding unless unknown properties are allowed.
+ */
+internal inline fun JsonParser.readFields(
+    ctxt: DeserializationContext,
+    deserializer: JsonDeserializer<*>,
+    type: Class<*>,
+    readField: (String) -> Boolean
+) {
+    var token = currentToken()
+    if (token == JsonToken.START_OBJECT) {
+        token = nextToken()
+    } else if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+        ctxt.handleUnexpectedToken(type, this)
+        return
+    }
+
+    while (token == JsonToken.FIELD_NAME) {
+        val field = currentName()
+        nextToken()
+
+        if (!readField(field)) {
+            ctxt.handleUnknownProperty(this, deserializer, type, field)
+        }
+
+        token = nextToken()
+    }
+}
+
+/**
+ * Reads a non-null string value, coercing scalars like the default string deserializer.
+ */
+internal fun JsonParser.readString(ctxt: DeserializationContext, type: Class<*>, field: String): String = when {
+    hasToken(JsonToken.VALUE_STRING) -> text
+    hasToken(JsonToken.VALUE_NULL) -> ctxt.reportInputMismatch(type, "Null value for '$field' of ${type.simpleName}")
+    else -> ctxt.readValue(this, String::class.java)
+}
+
+/**
+ * Reads a double value, coercing other tokens like the default deserializer.
+ */
+internal fun JsonParser.readDouble(ctxt: DeserializationContext): Double =
+    if (currentToken().isNumeric) doubleValue else ctxt.readValue(this, Double::class.javaPrimitiveType)
+
+/**
+ * Reads an int value, coercing other tokens like the default deserializer.
+ */
+internal fun JsonParser.readInt(ctxt: DeserializationContext): Int =
+    if (hasToken(JsonToken.VALUE_NUMBER_INT)) intValue else ctxt.readValue(this, Int::class.javaPrimitiveType)
+
+/**
+ * Reads a boolean value, coercing other tokens like the default deserializer.
+ */
+internal fun JsonParser.readBoolean(ctxt: DeserializationContext): Boolean = when {
+    hasToken(JsonToken.VALUE_TRUE) -> true
+    hasToken(JsonToken.VALUE_FALSE) -> false
+    else -> ctxt.readValue(this, Boolean::class.javaPrimitiveType)
+}
+
+/**
+ * Reads a non-null enum value by name.
+ */
+internal fun <E : Enum<E>> JsonParser.readEnum(ctxt: DeserializationContext, enumType: Class<E>, type: Class<*>, field: String): E =
+    if (hasToken(JsonToken.VALUE_NULL)) {
+        ctxt.reportInputMismatch(type, "Null value for '$field' of ${type.simpleName}")
+    } else {
+        ctxt.readValue(this, enumType)
+    }
+
+/**
+ * Reads a non-null object value with the given deserializer.
+ */
+internal fun <T : Any> JsonParser.readValue(ctxt: DeserializationContext, deserializer: JsonDeserializer<T>, type: Class<*>, field: String): T =
+    if (hasToken(JsonToken.VALUE_NULL)) {
+        ctxt.reportInputMismatch(type, "Null value for '$field' of ${type.simpleName}")
+    } else {
+        deserializer.deserialize(this, ctxt)
+    }
+
+/**
+ * Reads a nullable object value with the given deserializer.
+ */
+internal fun <T : Any> JsonParser.readNullableValue(ctxt: DeserializationContext, deserializer: JsonDeserializer<T>): T? =
+    if (hasToken(JsonToken.VALUE_NULL)) null else deserializer.deserialize(this, ctxt)
+
+/**
+ * Reads the elements of the array the parser is on, calling [readElement] with the parser on each element.
+ */
+internal inline fun <T> JsonParser.readArray(ctxt: DeserializationContext, type: Class<*>, field: String, readElement: () -> T): MutableList<T> {
+    if (!isExpectedStartArrayToken) {
+        ctxt.reportWrongTokenException(type, JsonToken.START_ARRAY, "Expected an array for '$field' of ${type.simpleName}")
+    }
+
+    val elements = mutableListOf<T>()
+    while (nextToken() != JsonToken.END_ARRAY) {
+        elements += readElement()
+    }
+
+    return elements
+}
+
+/**
+ * Returns the value of a field without default, failing the binding if it was absent.
+ */
+internal fun <T : Any> DeserializationContext.required(value: T?, type: Class<*>, field: String): T =
+    value ?: reportInputMismatch(type, "Missing '$field' for ${type.simpleName}")
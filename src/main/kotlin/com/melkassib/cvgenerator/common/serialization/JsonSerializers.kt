@@ -4,18 +4,22 @@ package com.melkassib.cvgenerator.common.serialization
 
 import com.fasterxml.jackson.core.JsonGenerator
 import com.fasterxml.jackson.core.JsonParser
+import com.fasterxml.jackson.core.JsonToken
 import com.fasterxml.jackson.databind.*
 import com.fasterxml.jackson.databind.module.SimpleModule
+import com.fasterxml.jackson.databind.util.TokenBuffer
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory
 import com.fasterxml.jackson.dataformat.yaml.YAMLGenerator
-import com.fasterxml.jackson.module.kotlin.KotlinFeature
-import com.fasterxml.jackson.module.kotlin.KotlinModule
+import com.melkassib.cvgenerator.altacv.serialization.AltaCVSerializers
+import com.melkassib.cvgenerator.awesomecv.serialization.AwesomeCVSerializers
 import com.melkassib.cvgenerator.common.domain.*
 import com.melkassib.cvgenerator.common.domain.EventPeriodDate.Companion.eventDurationDate
 import com.melkassib.cvgenerator.common.domain.EventPeriodString.Companion.eventDurationStr
 import com.melkassib.cvgenerator.common.utils.JsonFieldNames
+import com.melkassib.cvgenerator.common.utils.isYearMonth
 import java.time.LocalDate
 import java.time.format.DateTimeFormatter
+import java.util.EnumSet
 
 /**
  * Contains custom serializers and deserializers for SectionContent and related classes.
@@ -34,11 +38,20 @@ object SectionContentSerializers {
 
     /**
      * Deserializer for a list of SectionContent.
+     * Each element is read directly from the token stream, without building a tree of the array.
      */
     object ContentListDeserializer : JsonDeserializer<List<SectionContent>>() {
         override fun deserialize(parser: JsonParser, ctxt: DeserializationContext): List<SectionContent> {
-            val node = parser.readValueAsTree<JsonNode>()
-            return node.map { parser.codec.treeToValue(it, ContentWrapper::class.java).content }
+            if (!parser.isExpectedStartArrayToken) {
+                ctxt.reportWrongTokenException(this, JsonToken.START_ARRAY, "Expected an array of section contents")
+            }
+
+            val contents = mutableListOf<SectionContent>()
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                contents += readSectionContent(parser, ctxt)
+            }
+
+            return contents
         }
     }
 
@@ -70,34 +83,133 @@ object SectionContentSerializers {
      * Deserializer for ContentWrapper.
      */
     object ContentWrapperDeserializer : JsonDeserializer<ContentWrapper>() {
-        override fun deserialize(parser: JsonParser, ctxt: DeserializationContext): ContentWrapper {
-            val node = parser.readValueAsTree<JsonNode>()
-            val type = parser.codec.treeToValue(node[JsonFieldNames.TYPE], ContentType::class.java)
-            val content = node[JsonFieldNames.CONTENT]
-
-            return when (type!!) {
-                ContentType.DIVIDER -> ContentWrapper(Divider)
-                ContentType.NEWLINE -> ContentWrapper(NewLine)
-                ContentType.NEWPAGE -> ContentWrapper(NewPage)
-                ContentType.QUOTE -> ContentWrapper(Quote(content.asText()))
-                ContentType.GENERIC -> ContentWrapper(LatexContent(content.asText()))
-                ContentType.TAG -> ContentWrapper(Tag(content.asText()))
-                ContentType.EVENT -> ContentWrapper(parser.codec.treeToValue(content, Event::class.java))
-                ContentType.EVENT_ENTRY -> ContentWrapper(parser.codec.treeToValue(content, Entry::class.java))
-                ContentType.ACHIEVEMENT -> ContentWrapper(parser.codec.treeToValue(content, Achievement::class.java))
-                ContentType.SKILL -> {
-                    if (content.has(JsonFieldNames.FLUENCY)) {
-                        ContentWrapper(parser.codec.treeToValue(content, SkillStr::class.java))
+        override fun deserialize(parser: JsonParser, ctxt: DeserializationContext): ContentWrapper =
+            ContentWrapper(readSectionContent(parser, ctxt))
+    }
+
+    /**
+     * Content types that are serialized without a content field.
+     */
+    private val CONTENTLESS_TYPES = EnumSet.of(ContentType.DIVIDER, ContentType.NEWLINE, ContentType.NEWPAGE, ContentType.EMPTY)
+
+    /**
+     * Reads a `{"type": ..., "content": ...}` object from the token stream.
+     * When the content comes before its type, it is buffered as tokens until the type is known.
+     */
+    private fun readSectionContent(parser: JsonParser, ctxt: DeserializationContext): SectionContent {
+        var token = parser.currentToken()
+        if (token == JsonToken.START_OBJECT) {
+            token = parser.nextToken()
+        }
+
+        var type: ContentType? = null
+        var content: SectionContent? = null
+        var bufferedContent: TokenBuffer? = null
+
+        while (token == JsonToken.FIELD_NAME) {
+            val fieldName = parser.currentName()
+            parser.nextToken()
+
+            when (fieldName) {
+                JsonFieldNames.TYPE -> type = ctxt.readValue(parser, ContentType::class.java)
+                JsonFieldNames.CONTENT -> {
+                    val knownType = type
+                    if (knownType != null) {
+                        content = readContent(knownType, parser, ctxt)
                     } else {
-                        ContentWrapper(parser.codec.treeToValue(content, Skill::class.java))
+                        bufferedContent = ctxt.bufferAsCopyOfValue(parser)
                     }
                 }
-                ContentType.WHEELCHART -> ContentWrapper(parser.codec.treeToValue(content, WheelChart::class.java))
-                ContentType.ITEM -> ContentWrapper(parser.codec.treeToValue(content, Item::class.java))
-                ContentType.EMPTY -> ContentWrapper(NoContent)
-                ContentType.HONOR_LIST -> ContentWrapper(parser.codec.treeToValue(content, HonorList::class.java))
-                ContentType.PARAGRAPH -> ContentWrapper(Paragraph(content.asText()))
+                else -> parser.skipChildren()
+            }
+
+            token = parser.nextToken()
+        }
+
+        if (type == null) {
+            return ctxt.reportInputMismatch(ContentWrapper::class.java, "Missing section content '${JsonFieldNames.TYPE}'")
+        }
+
+        return when {
+            content != null -> content
+            bufferedContent != null -> bufferedContent.asParserOnFirstToken().use { readContent(type, it, ctxt) }
+            type in CONTENTLESS_TYPES -> readContentless(type)
+            else -> ctxt.reportInputMismatch(ContentWrapper::class.java, "Missing '${JsonFieldNames.CONTENT}' for section content of type $type")
+        }
+    }
+
+    /**
+     * Reads the content of a section content of the given type, the parser being on its first token.
+     */
+    private fun readContent(type: ContentType, parser: JsonParser, ctxt: DeserializationContext): SectionContent =
+        when (type) {
+            ContentType.DIVIDER, ContentType.NEWLINE, ContentType.NEWPAGE, ContentType.EMPTY -> {
+                parser.skipChildren()
+                readContentless(type)
             }
+            ContentType.QUOTE -> Quote(readText(parser))
+            ContentType.GENERIC -> LatexContent(readText(parser))
+            ContentType.TAG -> Tag(readText(parser))
+            ContentType.PARAGRAPH -> Paragraph(readText(parser))
+            ContentType.SKILL -> readSkill(parser, ctxt)
+            ContentType.EVENT -> ctxt.readValue(parser, Event::class.java)
+            ContentType.EVENT_ENTRY -> ctxt.readValue(parser, Entry::class.java)
+            ContentType.ACHIEVEMENT -> ctxt.readValue(parser, Achievement::class.java)
+            ContentType.WHEELCHART -> ctxt.readValue(parser, WheelChart::class.java)
+            ContentType.ITEM -> ctxt.readValue(parser, Item::class.java)
+            ContentType.HONOR_LIST -> ctxt.readValue(parser, HonorList::class.java)
+        }
+
+    /**
+     * Returns the singleton of a section content type serialized without content.
+     */
+    private fun readContentless(type: ContentType): SectionContent = when (type) {
+        ContentType.DIVIDER -> Divider
+        ContentType.NEWLINE -> NewLine
+        ContentType.NEWPAGE -> NewPage
+        else -> NoContent
+    }
+
+    /**
+     * Reads a simple string content; structured values are skipped and read as an empty string.
+     */
+    private fun readText(parser: JsonParser): String {
+        if (parser.currentToken().isScalarValue) {
+            return parser.text
+        }
+
+        parser.skipChildren()
+        return ""
+    }
+
+    /**
+     * Reads a skill content, which is a [SkillStr] when it has a fluency and a [Skill] otherwise.
+     */
+    private fun readSkill(parser: JsonParser, ctxt: DeserializationContext): SectionContent {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            return ctxt.reportInputMismatch(Skill::class.java, "Expected an object for section content of type ${ContentType.SKILL}")
+        }
+
+        var skill = ""
+        var rating: Double? = null
+        var fluency: String? = null
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            val fieldName = parser.currentName()
+            parser.nextToken()
+
+            when (fieldName) {
+                JsonFieldNames.SKILL -> skill = parser.valueAsString ?: ""
+                JsonFieldNames.RATING -> rating = parser.valueAsDouble
+                JsonFieldNames.FLUENCY -> fluency = parser.valueAsString
+                else -> parser.skipChildren()
+            }
+        }
+
+        return when {
+            fluency != null -> SkillStr(skill, fluency)
+            rating != null -> Skill(skill, rating)
+            else -> ctxt.reportInputMismatch(Skill::class.java, "Missing '${JsonFieldNames.RATING}' or '${JsonFieldNames.FLUENCY}' for skill $skill")
         }
     }
 }
@@ -122,41 +234,98 @@ object DateSerializers {
     }
 }
 
+/**
+ * Serializer for EventPeriod.
+ */
+object EventPeriodSerializer : JsonSerializer<EventPeriod>() {
+    override fun serialize(value: EventPeriod, gen: JsonGenerator, serializers: SerializerProvider) {
+        gen.writeStartObject(value)
+
+        when (value) {
+            is EventPeriodString -> {
+                gen.writeStringField(JsonFieldNames.START, value.start)
+                gen.writeStringField(JsonFieldNames.END, value.end)
+            }
+            is EventPeriodDate -> {
+                gen.writeFieldName(JsonFieldNames.START)
+                DateSerializers.Serializer.serialize(value.start, gen, serializers)
+                gen.writeFieldName(JsonFieldNames.END)
+                DateSerializers.Serializer.serialize(value.end, gen, serializers)
+            }
+            is NoEventPeriod -> Unit
+        }
+
+        gen.writeEndObject()
+    }
+}
+
 /**
  * Deserializer for EventPeriod.
  */
 object EventPeriodDeserializer : JsonDeserializer<EventPeriod>() {
     override fun deserialize(parser: JsonParser, ctxt: DeserializationContext?): EventPeriod {
-        val node = parser.readValueAsTree<JsonNode>()
+        var startDate = ""
+        var endDate = ""
 
-        val startDate = node[JsonFieldNames.START]?.asText() ?: ""
-        val endDate = node[JsonFieldNames.END]?.asText() ?: ""
+        if (parser.currentToken() == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                val fieldName = parser.currentName()
+                parser.nextToken()
+
+                when (fieldName) {
+                    JsonFieldNames.START -> startDate = parser.valueAsString ?: ""
+                    JsonFieldNames.END -> endDate = parser.valueAsString ?: ""
+                    else -> parser.skipChildren()
+                }
+            }
+        } else {
+            parser.skipChildren()
+        }
 
         return when {
             startDate.isEmpty() && endDate.isEmpty() -> NoEventPeriod
-            listOf(startDate, endDate).all { it.matches(Regex("\\d{4}-\\d{2}")) } -> eventDurationDate(startDate, endDate)
+            startDate.isYearMonth() && endDate.isYearMonth() -> eventDurationDate(startDate, endDate)
             else -> eventDurationStr(startDate, endDate)
         }
     }
 }
 
 /**
- * Custom modules for Kotlin and date serialization.
+ * Custom modules for date and domain serialization. Every type of the domain model is bound by the domain module,
+ * so the reflection-based Kotlin module is not registered, and kotlin-reflect is never loaded.
  */
 private val commonJacksonModules: List<SimpleModule> = run {
     val dateModule = SimpleModule()
     dateModule.addSerializer(LocalDate::class.java, DateSerializers.Serializer)
 
-    val kotlinModule = KotlinModule.Builder()
-        .withReflectionCacheSize(512)
-        .configure(KotlinFeature.NullToEmptyCollection, false)
-        .configure(KotlinFeature.NullToEmptyMap, false)
-        .configure(KotlinFeature.NullIsSameAsDefault, false)
-        .configure(KotlinFeature.SingletonSupport, false)
-        .configure(KotlinFeature.StrictNullChecks, false)
-        .build()
+    listOf(dateModule, domainModule())
+}
+
+/**
+ * Module binding the resume domain model with hand-written serializers and deserializers,
+ * so that reading and writing resumes needs neither bean introspection nor kotlin-reflect.
+ */
+private fun domainModule() = SimpleModule("DomainModule").apply {
+    addSerializer(EventPeriod::class.java, EventPeriodSerializer)
+    addSerializer(SectionPosition::class.java, SectionSerializers.PositionSerializer)
+    addDeserializer(SectionPosition::class.java, SectionSerializers.PositionDeserializer)
+    addSerializer(Section::class.java, SectionSerializers.Serializer)
+    addDeserializer(Section::class.java, SectionSerializers.Deserializer)
+
+    addSerializer(BaseEvent::class.java, ContentSerializers.EventSerializer)
+    addDeserializer(Event::class.java, ContentSerializers.EventDeserializer)
+    addDeserializer(Entry::class.java, ContentSerializers.EntryDeserializer)
+    addSerializer(Achievement::class.java, ContentSerializers.AchievementSerializer)
+    addDeserializer(Achievement::class.java, ContentSerializers.AchievementDeserializer)
+    addSerializer(Item::class.java, ContentSerializers.ItemSerializer)
+    addDeserializer(Item::class.java, ContentSerializers.ItemDeserializer)
+    addSerializer(WheelChart::class.java, ContentSerializers.WheelChartSerializer)
+    addDeserializer(WheelChart::class.java, ContentSerializers.WheelChartDeserializer)
+    addSerializer(HonorList::class.java, ContentSerializers.HonorListSerializer)
+    addDeserializer(HonorList::class.java, ContentSerializers.HonorListDeserializer)
 
-    listOf(dateModule, kotlinModule)
+    AltaCVSerializers.register(this)
+    AwesomeCVSerializers.register(this)
 }
 
 /**
@@ -167,12 +336,79 @@ internal val JSON_MAPPER = ObjectMapper().apply {
 }
 
 /**
- * YAML ObjectMapper
+ * Holder of the YAML stack, initialized on first YAML use only, so that JSON-only callers never load SnakeYAML.
  */
-internal val YAML_MAPPER = ObjectMapper(YAMLFactory().disable(YAMLGenerator.Feature.WRITE_DOC_START_MARKER)).apply {
-    commonJacksonModules.forEach { registerModule(it) }
+private object YamlSupport {
+    val mapper: ObjectMapper = ObjectMapper(YAMLFactory().disable(YAMLGenerator.Feature.WRITE_DOC_START_MARKER)).apply {
+        commonJacksonModules.forEach { registerModule(it) }
+    }
+
+    val codecs = TypedCodecs(mapper)
 }
 
+/**
+ * YAML ObjectMapper, created on first access.
+ */
+internal val YAML_MAPPER: ObjectMapper
+    get() = YamlSupport.mapper
+
+/**
+ * Typed readers and writers of an [ObjectMapper], resolved once per root type and shared by all the calls.
+ * They do not close the streams they read from or write to.
+ */
+private class TypedCodecs(mapper: ObjectMapper) {
+    private val readers = object : ClassValue<ObjectReader>() {
+        override fun computeValue(type: Class<*>): ObjectReader =
+            mapper.readerFor(type).without(JsonParser.Feature.AUTO_CLOSE_SOURCE)
+    }
+
+    private val writers = object : ClassValue<ObjectWriter>() {
+        override fun computeValue(type: Class<*>): ObjectWriter =
+            mapper.writerFor(type).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+    }
+
+    fun readerFor(type: Class<*>): ObjectReader = readers.get(type)
+
+    fun writerFor(type: Class<*>): ObjectWriter = writers.get(type)
+}
+
+/**
+ * Typed readers and writers of [JSON_MAPPER].
+ */
+private val JSON_CODECS = TypedCodecs(JSON_MAPPER)
+
+/**
+ * Returns the cached JSON reader of the given root type.
+ *
+ * @param type The root type to read
+ * @return The [ObjectReader] of the type
+ */
+internal fun jsonReaderFor(type: Class<*>) = JSON_CODECS.readerFor(type)
+
+/**
+ * Returns the cached JSON writer of the given root type.
+ *
+ * @param type The root type to write
+ * @return The [ObjectWriter] of the type
+ */
+internal fun jsonWriterFor(type: Class<*>) = JSON_CODECS.writerFor(type)
+
+/**
+ * Returns the cached YAML reader of the given root type.
+ *
+ * @param type The root type to read
+ * @return The [ObjectReader] of the type
+ */
+internal fun yamlReaderFor(type: Class<*>) = YamlSupport.codecs.readerFor(type)
+
+/**
+ * Returns the cached YAML writer of the given root type.
+ *
+ * @param type The root type to write
+ * @return The [ObjectWriter] of the type
+ */
+internal fun yamlWriterFor(type: Class<*>) = YamlSupport.codecs.writerFor(type)
+
 /**
  * Helper function to serialize ContentWrapper with content.
  */
@@ -0,0 +1,59 @@
+@file:JvmName("RecordSequences")
+
+package com.melkassib.cvgenerator.common.serialization
+
+import com.fasterxml.jackson.core.JsonProcessingException
+import com.fasterxml.jackson.databind.DatabindException
+import com.fasterxml.jackson.databind.ObjectReader
+import java.io.InputStream
+
+/**
+ * Reports a record of a multi-record input that could not be read.
+ *
+ * @property index The position of the record in the input, starting at 0
+ * @property line The line of the input where the error was detected, or -1 if unknown
+ * @property error The error raised while reading the record
+ */
+class MalformedRecord(val index: Int, val line: Int, val error: JsonProcessingException) {
+    override fun toString() = "MalformedRecord(index=$index, line=$line, error=${error.originalMessage})"
+}
+
+/**
+ * Reads the records of a stream lazily, one at a time, with a single parser over the whole stream,
+ * so that memory stays constant whatever the size of the input.
+ * Records are root-level JSON values separated by whitespace (e.g. newline-delimited JSON),
+ * or the documents of a multi-document YAML stream, depending on the reader.
+ *
+ * Without [onMalformed], the first malformed record stops the sequence with its error.
+ * With it, records that are well-formed but cannot be bound are reported and skipped,
+ * while a syntax error, after which the parser cannot find the next record, is reported and ends the sequence.
+ * The sequence can be iterated only once, and the stream is not closed.
+ *
+ * @param reader The typed reader of the records
+ * @param input The stream of records
+ * @param onMalformed Receives the records that could not be read, or null to fail on the first one
+ * @return The lazy sequence of records
+ */
+internal fun <T> readRecords(
+    reader: ObjectReader,
+    input: InputStream,
+    onMalformed: ((MalformedRecord) -> Unit)?
+): Sequence<T> = sequence {
+    reader.readValues<T>(input).use { records ->
+        var index = 0
+        while (true) {
+            val record = try {
+                if (!records.hasNextValue()) break
+                records.nextValue()
+            } catch (e: JsonProcessingException) {
+                if (onMalformed == null) throw e
+                onMalformed(MalformedRecord(index, e.location?.lineNr ?: -1, e))
+                if (e !is DatabindException) break
+                null
+            }
+
+            if (record != null) yield(record)
+            index++
+        }
+    }
+}.constrainOnce()
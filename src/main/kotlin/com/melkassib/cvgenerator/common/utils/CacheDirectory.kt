@@ -0,0 +1,172 @@
+package com.melkassib.cvgenerator.common.utils
+
+import java.io.IOException
+import java.nio.file.AtomicMoveNotSupportedException
+import java.nio.file.Files
+import java.nio.file.NoSuchFileException
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption
+import java.nio.file.attribute.FileTime
+import java.util.concurrent.atomic.AtomicLong
+import kotlin.io.path.extension
+import kotlin.io.path.name
+
+private const val TEMP_FILE_PREFIX = ".tmp-"
+
+/**
+ * Age after which a temporary file, left by a process that stopped while writing it, is deleted.
+ */
+private const val STALE_TEMP_FILE_MILLIS = 60L * 60 * 1000
+
+/**
+ * Writes the file to a temporary file in the same directory then renames it, replacing the existing file if any,
+ * so that readers never see a partial file, and the directory can be shared by several processes.
+ *
+ * @param target The file to write
+ * @param content The content of the file
+ */
+internal fun writeAtomically(target: Path, content: ByteArray) {
+    val tempFile = Files.createTempFile(target.toAbsolutePath().parent, TEMP_FILE_PREFIX, ".${target.extension}")
+    try {
+        Files.write(tempFile, content)
+        try {
+            Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING)
+        } catch (ignored: AtomicMoveNotSupportedException) {
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING)
+        }
+    } finally {
+        Files.deleteIfExists(tempFile)
+    }
+}
+
+/**
+ * Directory of cached files with the same extension, evicting the least recently used files
+ * when their total size exceeds the maximum size.
+ *
+ * Files are written with [writeAtomically]. Reading a file updates its modification time,
+ * which orders the files for eviction.
+ *
+ * @property directory The directory of the cached files, created if it does not exist
+ * @property maxBytes The maximum total size of the cached files, in bytes
+ * @property extension The extension of the cached files
+ */
+internal class CacheDirectory(val directory: Path, val maxBytes: Long, val extension: String) {
+
+    init {
+        require(maxBytes > 0) { "maxBytes: should be positive" }
+        Files.createDirectories(directory)
+    }
+
+    /**
+     * Estimated total size of the cached files, recomputed from the directory on eviction.
+     */
+    private val totalBytes = AtomicLong(files().sumOf { sizeOf(it) })
+
+    /**
+     * Returns the path of the cached file of the given key, whether it is cached or not.
+     */
+    fun pathOf(key: String): Path = directory.resolve("$key.$extension")
+
+    /**
+     * Reads the cached file of the given key, or returns null if it is not cached.
+     */
+    fun read(key: String): ByteArray? = readOrNull(key) { Files.readAllBytes(it) }
+
+    /**
+     * Reads the cached text file of the given key, or returns null if it is not cached.
+     */
+    fun readString(key: String): String? = readOrNull(key) { Files.readString(it) }
+
+    /**
+     * Copies the cached file of the given key to the target file, and returns false if it is not cached.
+     */
+    fun copyTo(key: String, target: Path): Boolean =
+        readOrNull(key) { Files.copy(it, target, StandardCopyOption.REPLACE_EXISTING) } != null
+
+    /**
+     * Stores the file of the given key, replacing the cached one if any.
+     */
+    fun write(key: String, content: ByteArray) {
+        writeAtomically(pathOf(key), content)
+
+        if (totalBytes.addAndGet(content.size.toLong()) > maxBytes) evict()
+    }
+
+    /**
+     * Deletes all the cached files.
+     */
+    fun clear() {
+        files().forEach { Files.deleteIfExists(it) }
+        totalBytes.set(0)
+    }
+
+    private inline fun <T> readOrNull(key: String, read: (Path) -> T): T? {
+        val path = pathOf(key)
+        return try {
+            read(path).also { touch(path) }
+        } catch (ignored: NoSuchFileException) {
+            // Not cached yet, or evicted by another process
+            null
+        }
+    }
+
+    /**
+     * Deletes the least recently used files until their total size fits in the maximum size,
+     * from a fresh listing of the directory, which other processes may have changed.
+     */
+    @Synchronized
+    private fun evict() {
+        val entries = files().mapNotNull { path ->
+            try {
+                Triple(path, Files.getLastModifiedTime(path), Files.size(path))
+            } catch (ignored: NoSuchFileException) {
+                null
+            }
+        }.sortedBy { it.second }
+
+        var size = entries.sumOf { it.third }
+        for ((path, _, length) in entries) {
+            if (size <= maxBytes) break
+            try {
+                Files.deleteIfExists(path)
+                size -= length
+            } catch (ignored: IOException) {
+                // Still open by another process, evicted later
+            }
+        }
+        totalBytes.set(size)
+
+        deleteStaleTempFiles()
+    }
+
+    private fun deleteStaleTempFiles() {
+        val staleBefore = System.currentTimeMillis() - STALE_TEMP_FILE_MILLIS
+        Files.list(directory).use { files ->
+            files.filter { it.name.startsWith(TEMP_FILE_PREFIX) }.forEach { path ->
+                try {
+                    if (Files.getLastModifiedTime(path).toMillis() < staleBefore) Files.deleteIfExists(path)
+                } catch (ignored: IOException) {
+                    // Renamed or deleted by its writer meanwhile
+                }
+            }
+        }
+    }
+
+    private fun touch(path: Path) {
+        try {
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()))
+        } catch (ignored: IOException) {
+            // Evicted by another process meanwhile
+        }
+    }
+
+    private fun files(): List<Path> = Files.list(directory).use { files ->
+        files.filter { it.extension == extension && !it.name.startsWith(TEMP_FILE_PREFIX) }.toList()
+    }
+
+    private fun sizeOf(path: Path): Long = try {
+        Files.size(path)
+    } catch (ignored: NoSuchFileException) {
+        0L
+    }
+}
@@ -0,0 +1,131 @@
+package com.melkassib.cvgenerator.common.utils
+
+/**
+ * Output stripping the non-essential parts of a LaTeX document while it is written to the underlying output:
+ * comment-only lines, indentation and trailing spaces, the blank lines of the preamble, and the repeated blank lines
+ * of the body. TeX magic comments (`%!TEX ...`) are kept.
+ *
+ * The typeset document is unchanged, since TeX ignores the spaces at the start and end of a line,
+ * a comment-only line produces nothing, and consecutive blank lines end a single paragraph.
+ * This does not hold for verbatim content, which the templates do not use: the LaTeX supplied by users,
+ * which may hold verbatim environments or significant comments, is written as is by [appendVerbatim].
+ *
+ * Lines are written to the underlying output once complete, [flush] writes the last one.
+ *
+ * @param out The [Appendable] receiving the compact LaTeX document
+ */
+internal class CompactLaTeXAppendable(private val out: Appendable) : Appendable {
+    private val line = StringBuilder(TITLE_WIDTH)
+    private var inPreamble = true
+    private var pendingBlankLine = false
+    private var empty = true
+
+    /**
+     * Whether the content is written as is, see [appendVerbatim].
+     */
+    private var verbatim = false
+
+    /**
+     * Whether the current line started with content written as is, so that its start is kept.
+     */
+    private var continuedLine = false
+
+    override fun append(csq: CharSequence?): Appendable = append(csq ?: "null", 0, (csq ?: "null").length)
+
+    override fun append(csq: CharSequence?, start: Int, end: Int): Appendable {
+        val value = csq ?: "null"
+        if (verbatim) {
+            if (start < end) writeVerbatim(value, start, end)
+            return this
+        }
+
+        var lineStart = start
+        for (i in start until end) {
+            if (value[i] == '\n') {
+                line.append(value, lineStart, i)
+                writeLine(true)
+                lineStart = i + 1
+            }
+        }
+        line.append(value, lineStart, end)
+        return this
+    }
+
+    override fun append(c: Char): Appendable {
+        when {
+            verbatim -> writeVerbatim(c.toString(), 0, 1)
+            c == '\n' -> writeLine(true)
+            else -> line.append(c)
+        }
+        return this
+    }
+
+    /**
+     * Writes the LaTeX rendered by the given function as is, after the start of the current line.
+     *
+     * @param render Renders the LaTeX into the given [Appendable]
+     */
+    fun appendVerbatim(render: (Appendable) -> Unit) {
+        writeLine(lineBreak = false, complete = false)
+        verbatim = true
+        try {
+            render(this)
+        } finally {
+            verbatim = false
+        }
+    }
+
+    /**
+     * Writes the last line, when it does not end with a line break.
+     */
+    fun flush() {
+        if (line.isNotEmpty()) writeLine(false)
+    }
+
+    /**
+     * Writes the current line, stripped unless it continues content written as is.
+     *
+     * @param lineBreak Whether the line ends with a line break
+     * @param complete Whether the line is complete, or is followed by content written as is
+     */
+    private fun writeLine(lineBreak: Boolean, complete: Boolean = true) {
+        var start = 0
+        var end = line.length
+        if (!continuedLine) while (start < end && line[start].isLineSpace()) start++
+        if (complete) while (end > start && line[end - 1].isLineSpace() && (end < 2 || line[end - 2] != '\\')) end--
+
+        when {
+            start == end && !continuedLine -> if (complete) pendingBlankLine = !inPreamble && !empty
+            complete && !continuedLine && line[start] == '%' && (end - start < 2 || line[start + 1] != '!') -> Unit
+            else -> {
+                if (pendingBlankLine) out.append('\n')
+                out.append(line, start, end)
+                if (lineBreak) out.append('\n')
+                if (inPreamble && line.startsWith("\\begin{document}", start)) inPreamble = false
+                pendingBlankLine = false
+                empty = false
+            }
+        }
+        continuedLine = !complete && (continuedLine || start < end)
+        line.setLength(0)
+    }
+
+    private fun writeVerbatim(value: CharSequence, start: Int, end: Int) {
+        if (pendingBlankLine) out.append('\n')
+        out.append(value, start, end)
+        pendingBlankLine = false
+        empty = false
+        continuedLine = value[end - 1] != '\n'
+    }
+
+    private fun Char.isLineSpace() = this == ' ' || this == '\t' || this == '\r'
+}
+
+/**
+ * Strips the non-essential parts of a LaTeX document (see [CompactLaTeXAppendable]).
+ *
+ * @param latex The LaTeX document
+ * @return The compact LaTeX document
+ */
+internal fun compactLaTeX(latex: String): String =
+    StringBuilder(latex.length).also { CompactLaTeXAppendable(it).apply { append(latex) }.flush() }.toString()
@@ -26,11 +26,6 @@ internal object JsonFieldNames {
  * Date patterns used for event durations in the resumes.
  */
 internal object SectionEventDuration {
-    /**
-     * Date pattern for parsing dates.
-     */
-    val DATE_PATTERN: DateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd")
-
     /**
      * Date pattern for rendering dates.
      */
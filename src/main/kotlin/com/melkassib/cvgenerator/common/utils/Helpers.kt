@@ -2,10 +2,16 @@
 
 package com.melkassib.cvgenerator.common.utils
 
+import com.melkassib.cvgenerator.common.domain.LatexContent
 import com.melkassib.cvgenerator.common.domain.NoContent
 import com.melkassib.cvgenerator.common.domain.Section
 import com.melkassib.cvgenerator.common.domain.SectionContent
 import com.melkassib.cvgenerator.common.domain.SectionPosition
+import java.time.DateTimeException
+import java.time.YearMonth
+import java.time.format.DateTimeParseException
+import java.util.concurrent.ThreadFactory
+import java.util.concurrent.atomic.AtomicInteger
 
 /**
  * The width of the title.
@@ -57,16 +63,88 @@ fun secondColumn(order: Int) = SectionPosition(2, order)
  * @param sections List of [Section] objects to be rendered
  * @return LaTeX code for all sections, sorted by position and filtered for ignored sections
  */
-internal fun renderSections(sections: List<Section>) =
-    sections.filterNot { it.ignored }.sortedBy { it.position.order }.joinToString("\n\n") { section ->
-        """
-        |%${section.title.centered()}
-        |\cvsection{${section.title.escapeSpecialChars()}}
-        |
-        |${section.contents.joinToString("\n") { it.render() }}
-        |%${"-".repeat(TITLE_WIDTH)}
-        """.trimMargin()
+internal fun renderSections(sections: List<Section>) = buildString { renderSections(sections, this) }
+
+/**
+ * Renders resume sections in LaTeX format directly into the given output.
+ *
+ * @param sections List of [Section] objects to be rendered
+ * @param out The [Appendable] receiving the LaTeX code, sorted by position and filtered for ignored sections
+ */
+internal fun renderSections(sections: List<Section>, out: Appendable) = renderOrderedSections(sections.inRenderOrder(), out)
+
+/**
+ * Renders resume sections, already filtered and sorted, in LaTeX format directly into the given output.
+ * When a section cache is given, the unchanged sections are spliced in from the cache instead of being rendered.
+ * When a section renderer is given, it renders the sections instead, for example to input them from their own files.
+ *
+ * @param sections List of [Section] objects to be rendered, in rendering order
+ * @param out The [Appendable] receiving the LaTeX code
+ * @param sectionCache The [RenderCache] of rendered sections, or null to render every section
+ * @param sectionRenderer The [SectionRenderer] rendering the sections, or null to render them with [renderSection]
+ */
+internal fun renderOrderedSections(
+    sections: List<Section>,
+    out: Appendable,
+    sectionCache: RenderCache? = null,
+    sectionRenderer: SectionRenderer? = null
+) {
+    sections.forEachIndexed { index, section ->
+        if (index > 0) out.append("\n\n")
+
+        when {
+            sectionRenderer != null -> sectionRenderer.render(section, out)
+            // The cached sections are compacted as a whole, which would strip the LaTeX supplied by users
+            sectionCache == null || out is CompactLaTeXAppendable && section.contents.any { it is LatexContent } ->
+                renderSection(section, out)
+            else -> out.append(sectionCache.getOrRender(section.fingerprint()) { renderSection(section, it) })
+        }
     }
+}
+
+/**
+ * Renders the sections of a resume in place of [renderSection], for example to input them from their own files
+ * or to splice in sections rendered beforehand.
+ */
+internal fun interface SectionRenderer {
+    /**
+     * Renders the section directly into the given output.
+     *
+     * @param section The [Section] to be rendered
+     * @param out The [Appendable] receiving the LaTeX code of the section
+     */
+    fun render(section: Section, out: Appendable)
+}
+
+/**
+ * Filters out the ignored sections and sorts the others by their order.
+ *
+ * @return The sections to render, in rendering order
+ */
+internal fun List<Section>.inRenderOrder() = filterNot { it.ignored }.sortedBy { it.position.order }
+
+/**
+ * Renders a single resume section in LaTeX format directly into the given output.
+ *
+ * @param section The [Section] to be rendered
+ * @param out The [Appendable] receiving the LaTeX code of the section
+ */
+internal fun renderSection(section: Section, out: Appendable) {
+    out.append('%').appendCentered(section.title).append('\n')
+        .append("\\cvsection{").appendEscaped(section.title).append("}\n\n")
+
+    section.contents.forEachIndexed { index, content ->
+        if (index > 0) out.append('\n')
+        if (content is LatexContent && out is CompactLaTeXAppendable) out.appendVerbatim(content::renderTo) else content.renderTo(out)
+    }
+
+    out.append("\n%").append(SECTION_RULE)
+}
+
+/**
+ * The horizontal rule closing every rendered section.
+ */
+private val SECTION_RULE = "-".repeat(TITLE_WIDTH)
 
 /**
  * Centers a string by padding it with repeated characters on both sides.
@@ -75,23 +153,155 @@ internal fun renderSections(sections: List<Section>) =
  * @param width The total desired width of the resulting string (defaults to [TITLE_WIDTH])
  * @return A new string with the original content centered and padded with [char]
  */
-internal fun String.centered(char: String = "-", width: Int = TITLE_WIDTH): String {
-    val leftPadding = (width - length) / 2
-    return char.repeat(leftPadding) + this + char.repeat(leftPadding)
+internal fun String.centered(char: String = "-", width: Int = TITLE_WIDTH) =
+    buildString { appendCentered(this@centered, char, width) }
+
+/**
+ * Appends a string centered by padding it with repeated characters on both sides.
+ *
+ * @param value The string to center
+ * @param char The character to use for padding (defaults to "-")
+ * @param width The total desired width of the centered string (defaults to [TITLE_WIDTH])
+ * @return This [Appendable]
+ */
+internal fun Appendable.appendCentered(value: String, char: String = "-", width: Int = TITLE_WIDTH): Appendable {
+    val padding = char.repeat((width - value.length) / 2)
+    return append(padding).append(value).append(padding)
+}
+
+/**
+ * Length of a date in yyyy-MM format.
+ */
+private const val YEAR_MONTH_LENGTH = 7
+
+/**
+ * Index of the dash separating the year and the month in a yyyy-MM date.
+ */
+private const val YEAR_MONTH_SEPARATOR_INDEX = 4
+
+/**
+ * Checks in a single scan whether a string is a date in yyyy-MM format (four digits, a dash, two digits).
+ *
+ * @return true if the string is in yyyy-MM format, false otherwise
+ */
+internal fun String.isYearMonth(): Boolean {
+    if (length != YEAR_MONTH_LENGTH || this[YEAR_MONTH_SEPARATOR_INDEX] != '-') return false
+
+    for (index in 0 until YEAR_MONTH_LENGTH) {
+        if (index != YEAR_MONTH_SEPARATOR_INDEX && this[index] !in '0'..'9') return false
+    }
+    return true
+}
+
+/**
+ * Converts a date in yyyy-MM format to a [YearMonth], without regex or formatter.
+ *
+ * @return The [YearMonth] represented by the string
+ * @throws IllegalArgumentException if the string is not in yyyy-MM format
+ * @throws DateTimeParseException if the month is out of range
+ */
+internal fun String.toYearMonth(): YearMonth {
+    require(isYearMonth()) {
+        "Invalid date format: $this. Expected format: yyyy-MM"
+    }
+
+    val year = (this[0] - '0') * 1000 + (this[1] - '0') * 100 + (this[2] - '0') * 10 + (this[3] - '0')
+    val month = (this[5] - '0') * 10 + (this[6] - '0')
+
+    return try {
+        YearMonth.of(year, month)
+    } catch (e: DateTimeException) {
+        throw DateTimeParseException("Text '$this-01' could not be parsed: ${e.message}", "$this-01", 0, e)
+    }
+}
+
+/**
+ * Replacement strings for LaTeX special characters, indexed by character code.
+ */
+private val LATEX_ESCAPES: Array<String?> = arrayOfNulls<String>(128).apply {
+    this['_'.code] = "\\_"
+    this['#'.code] = "\\#"
+    this['%'.code] = "\\%"
+    this['&'.code] = "\\&"
+    this['$'.code] = "\\$"
+    this['{'.code] = "\\{"
+    this['}'.code] = "\\}"
+    this['^'.code] = "\\textasciicircum"
+    this['~'.code] = "\\textasciitilde"
+}
+
+/**
+ * Returns the LaTeX replacement of a character, or null if it does not need to be escaped.
+ */
+private fun latexEscapeOf(char: Char): String? = if (char.code < LATEX_ESCAPES.size) LATEX_ESCAPES[char.code] else null
+
+/**
+ * Finds the index of the first LaTeX special character of the string.
+ *
+ * @param from The index to start searching from
+ * @return The index of the first special character, or -1 if there is none
+ */
+private fun String.indexOfSpecialChar(from: Int = 0): Int {
+    for (index in from until length) {
+        if (latexEscapeOf(this[index]) != null) return index
+    }
+    return -1
 }
 
 /**
  * Escapes LaTeX special characters in a string to ensure proper rendering.
  *
- * @return A new string with LaTeX special characters properly escaped
- */
-internal fun String.escapeSpecialChars() =
-    this.replace("_", "\\_")
-        .replace("#", "\\#")
-        .replace("%", "\\%")
-        .replace("&", "\\&")
-        .replace("$", "\\$")
-        .replace("{", "\\{")
-        .replace("}", "\\}")
-        .replace("^", "\\textasciicircum")
-        .replace("~", "\\textasciitilde")
+ * @return A new string with LaTeX special characters properly escaped,
+ *         or this string itself when it has no special characters
+ */
+internal fun String.escapeSpecialChars(): String {
+    val first = indexOfSpecialChar()
+    if (first < 0) return this
+
+    return StringBuilder(length + 16).appendEscaped(this, first).toString()
+}
+
+/**
+ * Appends a string with its LaTeX special characters escaped, in a single scan.
+ *
+ * @param value The string to escape
+ * @return This [Appendable]
+ */
+internal fun <A : Appendable> A.appendEscaped(value: String): A = appendEscaped(value, value.indexOfSpecialChar())
+
+/**
+ * Appends a string with its LaTeX special characters escaped, knowing the index of its first special character.
+ *
+ * @param value The string to escape
+ * @param first The index of the first special character of [value], or -1 if there is none
+ * @return This [Appendable]
+ */
+private fun <A : Appendable> A.appendEscaped(value: String, first: Int): A {
+    if (first < 0) {
+        append(value)
+        return this
+    }
+
+    var start = 0
+    var index = first
+    while (index >= 0) {
+        append(value, start, index).append(latexEscapeOf(value[index]))
+        start = index + 1
+        index = value.indexOfSpecialChar(start)
+    }
+    append(value, start, value.length)
+
+    return this
+}
+
+/**
+ * Creates a factory of daemon threads named after the given prefix and their creation number,
+ * such as `resume-compiler-1`, so that the pools of the library never keep the JVM alive.
+ *
+ * @param namePrefix The prefix of the thread names
+ * @return The thread factory
+ */
+internal fun daemonThreadFactory(namePrefix: String): ThreadFactory {
+    val threadCount = AtomicInteger()
+    return ThreadFactory { task -> Thread(task, "$namePrefix-${threadCount.incrementAndGet()}").apply { isDaemon = true } }
+}
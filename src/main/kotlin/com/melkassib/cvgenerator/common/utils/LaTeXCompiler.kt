@@ -0,0 +1,142 @@
+package com.melkassib.cvgenerator.common.utils
+
+import java.io.IOException
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Path
+import java.security.MessageDigest
+import java.time.Duration
+import java.util.HexFormat
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.TimeoutException
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.io.path.nameWithoutExtension
+
+/**
+ * Placeholder of the LaTeX file name in the command of a [ProcessLaTeXCompiler].
+ */
+const val TEX_FILE_PLACEHOLDER = "{tex}"
+
+/**
+ * Default command of a [ProcessLaTeXCompiler], compiling with XeLaTeX through latexmk.
+ */
+val DEFAULT_LATEX_COMMAND = listOf("latexmk", "-xelatex", "-interaction=nonstopmode", "-halt-on-error", TEX_FILE_PLACEHOLDER)
+
+/**
+ * Maximum time to wait for a killed command to exit, in milliseconds.
+ */
+private const val KILL_TIMEOUT_MILLIS = 5000L
+
+/**
+ * Raised when a LaTeX document could not be compiled, or when its compilation timed out.
+ *
+ * @property log The output of the compiler, empty if unavailable
+ */
+class LaTeXCompilationException(message: String, val log: String = "") : IOException(message)
+
+/**
+ * Compiles LaTeX documents to PDF.
+ */
+fun interface LaTeXCompiler {
+    /**
+     * Compiles the given LaTeX file into a PDF file, in the directory of the LaTeX file.
+     * The directory is dedicated to the compilation, and deleted afterwards.
+     *
+     * @param texFile The LaTeX file to compile
+     * @param timeout The maximum duration of the compilation
+     * @return The compiled PDF file
+     * @throws LaTeXCompilationException If the document could not be compiled in time
+     */
+    fun compile(texFile: Path, timeout: Duration): Path
+}
+
+/**
+ * Compiles LaTeX documents by running an external command, such as latexmk, xelatex or tectonic, in the job directory.
+ * The command is killed, with the processes it started, when it runs longer than the timeout.
+ *
+ * @property command The command and its arguments, where [TEX_FILE_PLACEHOLDER] is replaced by the name of the LaTeX file
+ */
+class ProcessLaTeXCompiler @JvmOverloads constructor(val command: List<String> = DEFAULT_LATEX_COMMAND) : LaTeXCompiler {
+
+    init {
+        require(command.isNotEmpty()) { "command: should not be empty" }
+    }
+
+    override fun compile(texFile: Path, timeout: Duration): Path {
+        val directory = texFile.toAbsolutePath().parent
+        val logFile = directory.resolve("compiler.log")
+        val process = ProcessBuilder(command.map { it.replace(TEX_FILE_PLACEHOLDER, texFile.fileName.toString()) })
+            .directory(directory.toFile())
+            .redirectErrorStream(true)
+            .redirectOutput(logFile.toFile())
+            .start()
+
+        var exited = false
+        try {
+            exited = process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS)
+        } finally {
+            // Also kills the command when the waiting thread is interrupted, before the job directory is deleted
+            if (!exited) destroyProcessTree(process)
+        }
+        if (!exited) {
+            throw LaTeXCompilationException("Compilation of ${texFile.fileName} timed out after $timeout", readLog(logFile))
+        }
+
+        val pdfFile = directory.resolve("${texFile.nameWithoutExtension}.pdf")
+        if (process.exitValue() != 0 || !Files.exists(pdfFile)) {
+            throw LaTeXCompilationException("Compilation of ${texFile.fileName} failed with exit code ${process.exitValue()}", readLog(logFile))
+        }
+
+        return pdfFile
+    }
+
+    private fun destroyProcessTree(process: Process) {
+        val processes = process.descendants().toList() + process.toHandle()
+        processes.forEach { it.destroyForcibly() }
+
+        // Killing is asynchronous: waits for every process to exit, so that none of them outlives the compilation
+        val deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(KILL_TIMEOUT_MILLIS)
+        processes.forEach {
+            try {
+                it.onExit().get(maxOf(deadline - System.nanoTime(), 0L), TimeUnit.NANOSECONDS)
+            } catch (ignored: TimeoutException) {
+                // Left to the operating system
+            }
+        }
+    }
+
+    private fun readLog(logFile: Path) = if (Files.exists(logFile)) String(Files.readAllBytes(logFile), StandardCharsets.UTF_8) else ""
+}
+
+/**
+ * Compiler producing a minimal PDF naming the hash of the LaTeX document, without running any TeX engine,
+ * to test the compilation pipeline where no TeX distribution is installed.
+ *
+ * @property delay The simulated duration of each compilation
+ */
+class FakeLaTeXCompiler @JvmOverloads constructor(val delay: Duration = Duration.ZERO) : LaTeXCompiler {
+    private val compilationCount = AtomicInteger()
+
+    /**
+     * The number of documents compiled so far, failed compilations included.
+     */
+    val compilations: Int
+        get() = compilationCount.get()
+
+    override fun compile(texFile: Path, timeout: Duration): Path {
+        compilationCount.incrementAndGet()
+        if (delay > timeout) {
+            Thread.sleep(timeout.toMillis())
+            throw LaTeXCompilationException("Compilation of ${texFile.fileName} timed out after $timeout")
+        }
+        Thread.sleep(delay.toMillis())
+
+        val latex = Files.readAllBytes(texFile)
+        if (latex.isEmpty()) throw LaTeXCompilationException("Compilation of ${texFile.fileName} failed: empty document")
+
+        val hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(latex))
+        val pdfFile = texFile.resolveSibling("${texFile.nameWithoutExtension}.pdf")
+        Files.writeString(pdfFile, "%PDF-1.4\n% Fake PDF of $hash\n%%EOF\n")
+        return pdfFile
+    }
+}
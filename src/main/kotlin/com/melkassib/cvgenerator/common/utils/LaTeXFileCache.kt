@@ -0,0 +1,107 @@
+package com.melkassib.cvgenerator.common.utils
+
+import com.melkassib.cvgenerator.common.domain.Resume
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Default maximum total size of the documents kept by a [LaTeXFileCache], in bytes.
+ */
+const val DEFAULT_LATEX_FILE_CACHE_SIZE = 256L * 1024 * 1024
+
+/**
+ * Version of the library, part of the cache keys so that documents rendered by another version are not reused.
+ */
+internal val LIBRARY_VERSION = LaTeXFileCache::class.java.`package`?.implementationVersion ?: "dev"
+
+/**
+ * Content-addressed cache of rendered LaTeX documents in a directory, evicting the least recently used documents
+ * when their total size exceeds the maximum size.
+ *
+ * A document is stored in a file named after the template, the library version and the fingerprint of the resume
+ * (see [Resume.fingerprint]), so that an unchanged resume is read back from the file instead of being rendered.
+ * Documents are stored in a [CacheDirectory]: they are written with [writeAtomically], and reading a document
+ * updates its modification time, which orders the documents for eviction.
+ *
+ * @property directory The directory of the cached documents, created if it does not exist
+ * @property maxBytes The maximum total size of the cached documents, in bytes
+ */
+class LaTeXFileCache @JvmOverloads constructor(
+    val directory: Path,
+    val maxBytes: Long = DEFAULT_LATEX_FILE_CACHE_SIZE
+) {
+    private val documents = CacheDirectory(directory, maxBytes, "tex")
+
+    private val hitCount = AtomicLong()
+    private val missCount = AtomicLong()
+
+    /**
+     * The number of documents read from the cache.
+     */
+    val hits: Long
+        get() = hitCount.get()
+
+    /**
+     * The number of documents that had to be rendered.
+     */
+    val misses: Long
+        get() = missCount.get()
+
+    /**
+     * Returns the path of the cached document of the given resume, whether it is cached or not.
+     *
+     * @param resume The resume
+     * @return The [Path] of the document in the cache directory
+     */
+    fun pathOf(resume: Resume<*, *, *>): Path = documents.pathOf(keyOf(resume))
+
+    /**
+     * Returns the LaTeX document of the resume, read from the cache, or rendered then cached.
+     *
+     * @param resume The resume to render
+     * @return The LaTeX document of the resume
+     */
+    fun toLaTeX(resume: Resume<*, *, *>): String {
+        val key = keyOf(resume)
+        documents.readString(key)?.let {
+            hitCount.incrementAndGet()
+            return it
+        }
+
+        return render(resume, key)
+    }
+
+    /**
+     * Writes the LaTeX document of the resume to the given file, copied from the cache when the resume is cached,
+     * or rendered then cached.
+     *
+     * @param resume The resume to render
+     * @param target The file receiving the LaTeX document, replaced if it exists
+     */
+    fun writeLaTeX(resume: Resume<*, *, *>, target: Path) {
+        val key = keyOf(resume)
+        if (documents.copyTo(key, target)) {
+            hitCount.incrementAndGet()
+        } else {
+            Files.writeString(target, render(resume, key))
+        }
+    }
+
+    /**
+     * Removes all the cached documents and resets the counters.
+     */
+    fun clear() {
+        documents.clear()
+        hitCount.set(0)
+        missCount.set(0)
+    }
+
+    private fun keyOf(resume: Resume<*, *, *>) =
+        "${resume.javaClass.simpleName}-$LIBRARY_VERSION-%016x".format(resume.fingerprint(ignoreIgnoredSections = true))
+
+    private fun render(resume: Resume<*, *, *>, key: String): String {
+        missCount.incrementAndGet()
+        return resume.toLaTeX().also { documents.write(key, it.toByteArray()) }
+    }
+}
@@ -0,0 +1,104 @@
+package com.melkassib.cvgenerator.common.utils
+
+import com.melkassib.cvgenerator.common.domain.Resume
+import com.melkassib.cvgenerator.common.domain.Section
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Name of the directory of the section files, relative to the main documents.
+ */
+const val SECTIONS_DIRECTORY = "sections"
+
+/**
+ * Writes resumes as multi-file LaTeX documents in a directory: every section is written to its own file
+ * `sections/<fingerprint>.tex` (see [Section.fingerprint]), and the main document inputs the section files
+ * in column order.
+ *
+ * Files are only written when their content changes: a section file is named after the content of the section,
+ * so it is written once and never rewritten, and the main document is left untouched when it is unchanged.
+ * Toolchains watching the directory, such as live previews, only see the files of the sections that changed.
+ * Files are written with [writeAtomically].
+ *
+ * Section files of the sections that no longer exist are kept, and can be deleted once no document inputs them.
+ *
+ * @property directory The directory of the main documents, created if it does not exist
+ */
+class MultiFileLaTeXWriter(val directory: Path) {
+
+    /**
+     * The directory of the section files, created if it does not exist.
+     */
+    val sectionsDirectory: Path = Files.createDirectories(directory.resolve(SECTIONS_DIRECTORY))
+
+    /**
+     * Renders the sections as inputs of their section files.
+     */
+    private val sectionInputs = SectionRenderer { section, out -> out.append("\\input{").append(sectionInput(section)).append('}') }
+
+    private val sectionsWrittenCount = AtomicLong()
+    private val documentsWrittenCount = AtomicLong()
+
+    /**
+     * The number of section files written by this writer.
+     */
+    val sectionsWritten: Long
+        get() = sectionsWrittenCount.get()
+
+    /**
+     * The number of main documents written by this writer, the unchanged documents excluded.
+     */
+    val documentsWritten: Long
+        get() = documentsWrittenCount.get()
+
+    /**
+     * Writes the resume to the main document `<name>.tex` inputting its section files,
+     * and the section files which are not in the sections directory yet.
+     *
+     * @param resume The resume to write
+     * @param name The name of the main document, without extension
+     * @return The [Path] of the main document
+     */
+    fun write(resume: Resume<*, *, *>, name: String): Path {
+        require(name.isNotBlank()) { "name: should not be blank" }
+
+        val plan = resume.renderPlan()
+        val document = StringBuilder(plan.estimatedLength).also { resume.toLaTeX(plan, it, sectionInputs) }.toString()
+        val documentFile = directory.resolve("$name.tex")
+        val content = document.toByteArray()
+
+        if (!Files.exists(documentFile) || !Files.readAllBytes(documentFile).contentEquals(content)) {
+            writeAtomically(documentFile, content)
+            documentsWrittenCount.incrementAndGet()
+        }
+        return documentFile
+    }
+
+    /**
+     * Returns the path of the section file of the given section, whether it is written or not.
+     *
+     * @param section The section
+     * @return The [Path] of the section file in the sections directory
+     */
+    fun pathOf(section: Section): Path = sectionsDirectory.resolve("${nameOf(section)}.tex")
+
+    /**
+     * Writes the section file of the section if it is not in the sections directory yet,
+     * and returns the name to input it from the main documents.
+     *
+     * @param section The section to write
+     * @return The path of the section file relative to the main documents, without extension
+     */
+    private fun sectionInput(section: Section): String {
+        val name = nameOf(section)
+        val sectionFile = sectionsDirectory.resolve("$name.tex")
+        if (!Files.exists(sectionFile)) {
+            writeAtomically(sectionFile, buildString { renderSection(section, this) }.toByteArray())
+            sectionsWrittenCount.incrementAndGet()
+        }
+        return "$SECTIONS_DIRECTORY/$name"
+    }
+
+    private fun nameOf(section: Section) = "%016x".format(section.fingerprint())
+}
@@ -0,0 +1,81 @@
+package com.melkassib.cvgenerator.common.utils
+
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Default maximum number of fragments kept by a [RenderCache].
+ */
+const val DEFAULT_RENDER_CACHE_SIZE = 64
+
+/**
+ * Bounded, thread-safe cache of rendered LaTeX fragments, evicting the least recently used fragment when full.
+ * Used for the preambles of the templates, and as an opt-in cache of rendered sections
+ * to only re-render the sections of a resume that changed.
+ *
+ * Keys must be immutable snapshots of the values the fragment is rendered from,
+ * since the resume configuration classes are mutable.
+ *
+ * @property maxEntries The maximum number of fragments kept by the cache
+ */
+class RenderCache @JvmOverloads constructor(val maxEntries: Int = DEFAULT_RENDER_CACHE_SIZE) {
+
+    init {
+        require(maxEntries > 0) { "maxEntries: should be positive" }
+    }
+
+    private val fragments = object : LinkedHashMap<Any, String>(16, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<Any, String>) = size > maxEntries
+    }
+
+    private val hitCount = AtomicLong()
+    private val missCount = AtomicLong()
+
+    /**
+     * The number of lookups served from the cache.
+     */
+    val hits: Long
+        get() = hitCount.get()
+
+    /**
+     * The number of lookups that had to render the fragment.
+     */
+    val misses: Long
+        get() = missCount.get()
+
+    /**
+     * The number of fragments currently cached.
+     */
+    val size: Int
+        get() = synchronized(fragments) { fragments.size }
+
+    /**
+     * Removes all the cached fragments and resets the counters.
+     */
+    fun clear() {
+        synchronized(fragments) { fragments.clear() }
+        hitCount.set(0)
+        missCount.set(0)
+    }
+
+    /**
+     * Returns the fragment cached for the given key, rendering and caching it on a miss.
+     * The fragment is rendered outside the lock, so concurrent misses on the same key may render it more than once.
+     *
+     * @param key The immutable key of the fragment
+     * @param render Renders the fragment into the given [Appendable]
+     * @return The rendered fragment
+     */
+    internal fun getOrRender(key: Any, render: (Appendable) -> Unit): String {
+        synchronized(fragments) { fragments[key] }?.let {
+            hitCount.incrementAndGet()
+            return it
+        }
+
+        missCount.incrementAndGet()
+        val fragment = buildString(render)
+        synchronized(fragments) { fragments.putIfAbsent(key, fragment) }
+        return fragment
+    }
+
+    override fun toString() = "RenderCache(size=$size, maxEntries=$maxEntries, hits=$hits, misses=$misses)"
+}
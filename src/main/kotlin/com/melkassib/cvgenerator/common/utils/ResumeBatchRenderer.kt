@@ -0,0 +1,207 @@
+package com.melkassib.cvgenerator.common.utils
+
+import com.melkassib.cvgenerator.common.domain.Resume
+import java.io.Closeable
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executor
+import java.util.concurrent.ExecutorCompletionService
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.FutureTask
+import java.util.stream.Stream
+
+/**
+ * Outcome of the rendering of one input of a batch.
+ *
+ * @property index The position of the input in the batch, starting at 0
+ */
+sealed class BatchResult(val index: Int) {
+    /**
+     * The input was parsed and rendered.
+     *
+     * @property latex The LaTeX document of the resume
+     */
+    class Rendered(index: Int, val latex: String) : BatchResult(index) {
+        override fun toString() = "Rendered(index=$index, length=${latex.length})"
+    }
+
+    /**
+     * The input could not be parsed or rendered.
+     *
+     * @property error The error raised while parsing or rendering the input
+     */
+    class Failed(index: Int, val error: Throwable) : BatchResult(index) {
+        override fun toString() = "Failed(index=$index, error=$error)"
+    }
+}
+
+/**
+ * Renders batches of resumes to LaTeX in parallel.
+ *
+ * Inputs are parsed and rendered on the given executor, with at most [maxInFlight] inputs
+ * being processed or waiting to be consumed at any time, so that arbitrarily large batches
+ * can be streamed through with a bounded memory footprint.
+ * A failing input does not stop the batch: it is reported as a [BatchResult.Failed].
+ *
+ * Without an executor, the inputs are handled by a pool of daemon threads, one per core, owned by the renderer
+ * and stopped by [close]. On JDK 21 or later, a virtual-thread executor can be given instead.
+ *
+ * @param executor The executor parsing and rendering the inputs, or null to use the pool of the renderer
+ * @property maxInFlight The maximum number of inputs processed at the same time (defaults to twice the number of cores)
+ */
+class ResumeBatchRenderer @JvmOverloads constructor(
+    executor: Executor? = null,
+    val maxInFlight: Int = Runtime.getRuntime().availableProcessors() * 2
+) : Closeable {
+
+    init {
+        require(maxInFlight > 0) { "maxInFlight: should be positive" }
+    }
+
+    private val poolDelegate = lazy<ExecutorService> {
+        Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), daemonThreadFactory("resume-batch-renderer"))
+    }
+    private val executor: Executor = executor ?: Executor { task -> poolDelegate.value.execute(task) }
+
+    /**
+     * Stops the thread pool of the renderer, if it has one, letting the submitted inputs complete.
+     */
+    override fun close() {
+        if (poolDelegate.isInitialized()) poolDelegate.value.shutdown()
+    }
+
+    /**
+     * Parses and renders the inputs, reporting every result to the given consumer on the calling thread.
+     *
+     * @param inputs The inputs of the batch, for example JSON or YAML documents
+     * @param parse Builds the resume of an input, for example `::buildAltaCVResumeFromJson`
+     * @param ordered Whether the results are reported in the order of the inputs, or as soon as they are ready
+     * @param onResult Receives the result of each input
+     */
+    @JvmOverloads
+    fun <I> render(
+        inputs: Iterable<I>,
+        parse: (I) -> Resume<*, *, *>,
+        ordered: Boolean = true,
+        onResult: (BatchResult) -> Unit
+    ) = renderWith(inputs, { parse(it).toLaTeX() }, ordered, onResult)
+
+    /**
+     * Renders the inputs with the given function, reporting every result to the given consumer on the calling thread.
+     *
+     * @param inputs The inputs of the batch
+     * @param render Builds the LaTeX document of an input
+     * @param ordered Whether the results are reported in the order of the inputs, or as soon as they are ready
+     * @param onResult Receives the result of each input
+     */
+    internal fun <I> renderWith(
+        inputs: Iterable<I>,
+        render: (I) -> String,
+        ordered: Boolean,
+        onResult: (BatchResult) -> Unit
+    ) {
+        val tasks = inputs.asSequence().mapIndexed { index, input -> renderTask(index, input, render) }
+        if (ordered) {
+            runOrdered(tasks.iterator(), onResult)
+        } else {
+            runUnordered(tasks.iterator(), onResult)
+        }
+    }
+
+    /**
+     * Parses and renders the inputs of a stream, reporting every result to the given consumer on the calling thread.
+     *
+     * @param inputs The stream of inputs of the batch
+     * @param parse Builds the resume of an input
+     * @param ordered Whether the results are reported in the order of the inputs, or as soon as they are ready
+     * @param onResult Receives the result of each input
+     */
+    @JvmOverloads
+    fun <I> render(
+        inputs: Stream<I>,
+        parse: (I) -> Resume<*, *, *>,
+        ordered: Boolean = true,
+        onResult: (BatchResult) -> Unit
+    ) = render(Iterable { inputs.iterator() }, parse, ordered, onResult)
+
+    /**
+     * Renders already built resumes, reporting every result to the given consumer on the calling thread.
+     *
+     * @param resumes The resumes of the batch
+     * @param ordered Whether the results are reported in the order of the resumes, or as soon as they are ready
+     * @param onResult Receives the result of each resume
+     */
+    @JvmOverloads
+    fun renderResumes(resumes: Iterable<Resume<*, *, *>>, ordered: Boolean = true, onResult: (BatchResult) -> Unit) =
+        render(resumes, { it }, ordered, onResult)
+
+    /**
+     * Parses and renders the inputs and collects all the results, in the order of the inputs.
+     *
+     * @param inputs The inputs of the batch
+     * @param parse Builds the resume of an input
+     * @return The result of each input
+     */
+    fun <I> renderAll(inputs: Iterable<I>, parse: (I) -> Resume<*, *, *>): List<BatchResult> =
+        buildList { render(inputs, parse, true) { add(it) } }
+
+    /**
+     * Creates the task rendering an input, never failing but reporting the error in its result.
+     */
+    private fun <I> renderTask(index: Int, input: I, render: (I) -> String) = Callable<BatchResult> {
+        @Suppress("TooGenericExceptionCaught")
+        try {
+            BatchResult.Rendered(index, render(input))
+        } catch (e: Exception) {
+            BatchResult.Failed(index, e)
+        }
+    }
+
+    /**
+     * Runs the tasks with a sliding window, reporting the results in submission order.
+     */
+    private fun runOrdered(tasks: Iterator<Callable<BatchResult>>, onResult: (BatchResult) -> Unit) {
+        val window = ArrayDeque<Future<BatchResult>>(maxInFlight)
+        try {
+            while (tasks.hasNext()) {
+                if (window.size == maxInFlight) onResult(window.removeFirst().await())
+                window.addLast(FutureTask(tasks.next()).also(executor::execute))
+            }
+            while (window.isNotEmpty()) {
+                onResult(window.removeFirst().await())
+            }
+        } finally {
+            window.forEach { it.cancel(true) }
+        }
+    }
+
+    /**
+     * Runs the tasks with at most [maxInFlight] pending tasks, reporting the results in completion order.
+     */
+    private fun runUnordered(tasks: Iterator<Callable<BatchResult>>, onResult: (BatchResult) -> Unit) {
+        val completion = ExecutorCompletionService<BatchResult>(executor)
+        val pending = mutableSetOf<Future<BatchResult>>()
+        try {
+            while (tasks.hasNext()) {
+                if (pending.size == maxInFlight) onResult(completion.take().also(pending::remove).await())
+                pending += completion.submit(tasks.next())
+            }
+            while (pending.isNotEmpty()) {
+                onResult(completion.take().also(pending::remove).await())
+            }
+        } finally {
+            pending.forEach { it.cancel(true) }
+        }
+    }
+
+    /**
+     * Waits for the result of a task, which reports its own errors.
+     */
+    private fun Future<BatchResult>.await(): BatchResult = try {
+        get()
+    } catch (e: ExecutionException) {
+        throw IllegalStateException("Batch rendering task failed", e.cause)
+    }
+}
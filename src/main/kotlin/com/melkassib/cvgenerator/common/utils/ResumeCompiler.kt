@@ -0,0 +1,218 @@
+package com.melkassib.cvgenerator.common.utils
+
+import com.melkassib.cvgenerator.common.domain.Resume
+import java.io.Closeable
+import java.io.IOException
+import java.nio.charset.StandardCharsets
+import java.nio.file.FileVisitOption
+import java.nio.file.Files
+import java.nio.file.Path
+import java.security.MessageDigest
+import java.time.Duration
+import java.util.HexFormat
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.Executor
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Semaphore
+import java.util.concurrent.atomic.AtomicLong
+import kotlin.io.path.ExperimentalPathApi
+import kotlin.io.path.copyToRecursively
+import kotlin.io.path.deleteRecursively
+
+/**
+ * Default maximum duration of the compilation of a document.
+ */
+val DEFAULT_COMPILE_TIMEOUT: Duration = Duration.ofMinutes(1)
+
+/**
+ * Default maximum total size of the PDF files kept by the cache of a [ResumeCompiler], in bytes.
+ */
+const val DEFAULT_PDF_CACHE_SIZE = 1024L * 1024 * 1024
+
+/**
+ * Compiles resumes to PDF with a [LaTeXCompiler], running at most [maxConcurrentJobs] compilations at the same time.
+ *
+ * Every compilation runs in its own temporary job directory, deleted afterwards, and is killed when it runs longer
+ * than the timeout. With a cache directory, the compiled PDF files are cached by the SHA-256 hash of the LaTeX
+ * document, so that unchanged documents are never compiled twice, even by several processes sharing the directory
+ * (see [LaTeXFileCache] for the sharing and eviction rules). The cache directory should not be shared by compilers
+ * producing different PDF files from the same document.
+ *
+ * Templates such as AwesomeCV need files next to the document: the document class, its fonts, and the photos of the
+ * headers. The entries of the support directory are linked into every job directory, or copied where links are not
+ * supported, so that they are found at the same relative paths as in the template project. The support files are
+ * part of the cache key of the PDF files: they are hashed when the compiler is created, so a new compiler should be
+ * created after they change.
+ *
+ * Asynchronous compilations run on a pool of [maxConcurrentJobs] daemon threads owned by the compiler,
+ * and stopped by [close].
+ *
+ * @property compiler The [LaTeXCompiler] compiling the documents (defaults to latexmk with XeLaTeX)
+ * @property maxConcurrentJobs The maximum number of compilations running at the same time (defaults to the number of cores)
+ * @property timeout The maximum duration of a compilation
+ * @param cacheDirectory The directory of the cached PDF files, or null to compile every document
+ * @param maxCacheBytes The maximum total size of the cached PDF files, in bytes
+ * @param workDirectory The parent directory of the job directories (defaults to the system temporary directory)
+ * @property supportDirectory The directory of the files needed to compile the documents, such as `awesome-cv.cls`,
+ * its `fonts` directory and the photos, or null if the documents need no other file
+ */
+class ResumeCompiler @JvmOverloads constructor(
+    val compiler: LaTeXCompiler = ProcessLaTeXCompiler(),
+    val maxConcurrentJobs: Int = Runtime.getRuntime().availableProcessors(),
+    val timeout: Duration = DEFAULT_COMPILE_TIMEOUT,
+    cacheDirectory: Path? = null,
+    maxCacheBytes: Long = DEFAULT_PDF_CACHE_SIZE,
+    private val workDirectory: Path? = null,
+    val supportDirectory: Path? = null
+) : Closeable {
+
+    init {
+        require(maxConcurrentJobs > 0) { "maxConcurrentJobs: should be positive" }
+        require(!timeout.isNegative && !timeout.isZero) { "timeout: should be positive" }
+    }
+
+    private val pdfCache = cacheDirectory?.let { CacheDirectory(it, maxCacheBytes, "pdf") }
+    private val supportDigest: ByteArray? = supportDirectory?.let(::digestOf)
+    private val permits = Semaphore(maxConcurrentJobs, true)
+
+    private val executorDelegate = lazy<ExecutorService> {
+        Executors.newFixedThreadPool(maxConcurrentJobs, daemonThreadFactory("resume-compiler"))
+    }
+    private val executor by executorDelegate
+
+    /**
+     * The thread pool of the compiler, started on first use.
+     */
+    internal val asyncExecutor: Executor
+        get() = executor
+
+    private val hitCount = AtomicLong()
+    private val missCount = AtomicLong()
+
+    /**
+     * The number of PDF files read from the cache.
+     */
+    val hits: Long
+        get() = hitCount.get()
+
+    /**
+     * The number of documents that had to be compiled.
+     */
+    val misses: Long
+        get() = missCount.get()
+
+    /**
+     * Compiles the resume to PDF, waiting for a free compilation slot if needed.
+     *
+     * @param resume The resume to compile
+     * @return The content of the PDF file
+     * @throws LaTeXCompilationException If the document could not be compiled in time
+     */
+    fun compile(resume: Resume<*, *, *>): ByteArray = compile(resume.toLaTeX())
+
+    /**
+     * Compiles the LaTeX document to PDF, waiting for a free compilation slot if needed.
+     *
+     * @param latex The LaTeX document to compile
+     * @return The content of the PDF file
+     * @throws LaTeXCompilationException If the document could not be compiled in time
+     */
+    fun compile(latex: String): ByteArray {
+        val bytes = latex.toByteArray(StandardCharsets.UTF_8)
+        val key = MessageDigest.getInstance("SHA-256").run {
+            supportDigest?.let(::update)
+            HexFormat.of().formatHex(digest(bytes))
+        }
+
+        pdfCache?.read(key)?.let {
+            hitCount.incrementAndGet()
+            return it
+        }
+
+        missCount.incrementAndGet()
+        permits.acquire()
+        val pdf = try {
+            runJob(bytes)
+        } finally {
+            permits.release()
+        }
+
+        pdfCache?.write(key, pdf)
+        return pdf
+    }
+
+    /**
+     * Compiles the resume to PDF on the thread pool of the compiler.
+     *
+     * @param resume The resume to compile
+     * @return The future content of the PDF file
+     */
+    fun compileAsync(resume: Resume<*, *, *>): CompletableFuture<ByteArray> = CompletableFuture.supplyAsync({ compile(resume) }, executor)
+
+    /**
+     * Compiles the LaTeX document to PDF on the thread pool of the compiler.
+     *
+     * @param latex The LaTeX document to compile
+     * @return The future content of the PDF file
+     */
+    fun compileAsync(latex: String): CompletableFuture<ByteArray> = CompletableFuture.supplyAsync({ compile(latex) }, executor)
+
+    /**
+     * Stops the thread pool of the compiler, letting the submitted compilations complete.
+     */
+    override fun close() {
+        if (executorDelegate.isInitialized()) executor.shutdown()
+    }
+
+    @OptIn(ExperimentalPathApi::class)
+    private fun runJob(latex: ByteArray): ByteArray {
+        val jobDirectory = if (workDirectory == null) {
+            Files.createTempDirectory("resume-")
+        } else {
+            Files.createTempDirectory(Files.createDirectories(workDirectory), "resume-")
+        }
+
+        try {
+            if (supportDirectory != null) stageSupportFiles(supportDirectory, jobDirectory)
+            val texFile = Files.write(jobDirectory.resolve("resume.tex"), latex)
+            return Files.readAllBytes(compiler.compile(texFile, timeout))
+        } finally {
+            jobDirectory.deleteRecursively()
+        }
+    }
+
+    /**
+     * Links the entries of the support directory into the job directory, or copies them where links are not supported.
+     */
+    @OptIn(ExperimentalPathApi::class)
+    private fun stageSupportFiles(supportDirectory: Path, jobDirectory: Path) {
+        Files.list(supportDirectory).use { entries ->
+            entries.forEach { entry ->
+                val target = jobDirectory.resolve(entry.fileName.toString())
+                try {
+                    Files.createSymbolicLink(target, entry.toAbsolutePath())
+                } catch (ignored: UnsupportedOperationException) {
+                    entry.copyToRecursively(target, followLinks = true)
+                } catch (ignored: IOException) {
+                    entry.copyToRecursively(target, followLinks = true)
+                }
+            }
+        }
+    }
+
+    /**
+     * Hashes the relative paths and the contents of the files of the support directory.
+     */
+    private fun digestOf(directory: Path): ByteArray {
+        val digest = MessageDigest.getInstance("SHA-256")
+        Files.walk(directory, FileVisitOption.FOLLOW_LINKS).use { paths ->
+            paths.filter { Files.isRegularFile(it) }.sorted().forEach { file ->
+                digest.update(directory.relativize(file).joinToString("/").toByteArray(StandardCharsets.UTF_8))
+                digest.update(0.toByte())
+                digest.update(Files.readAllBytes(file))
+            }
+        }
+        return digest.digest()
+    }
+}
@@ -0,0 +1,345 @@
+package com.melkassib.cvgenerator.common.utils
+
+import com.fasterxml.jackson.core.JsonProcessingException
+import com.fasterxml.jackson.databind.JsonNode
+import com.fasterxml.jackson.databind.node.ObjectNode
+import com.fasterxml.jackson.databind.node.TextNode
+import com.melkassib.cvgenerator.common.domain.Resume
+import com.melkassib.cvgenerator.common.domain.Section
+import com.melkassib.cvgenerator.common.serialization.JSON_MAPPER
+import com.melkassib.cvgenerator.common.serialization.jsonReaderFor
+import java.io.BufferedReader
+import java.io.Closeable
+import java.io.Reader
+import java.util.IdentityHashMap
+
+/**
+ * Placeholder of a field of the data rows in the strings of a template resume, such as `{{ name }}`.
+ */
+private val PLACEHOLDER = Regex("""\{\{\s*([A-Za-z0-9_.-]+)\s*}}""")
+
+/**
+ * Merges a template resume with rows of data: each row gives the values of the placeholders `{{ field }}`
+ * found in the strings of the template, and is rendered to its own LaTeX document.
+ *
+ * The template is analyzed once: the sections without placeholders are rendered once and their LaTeX is reused
+ * verbatim by every row, only the header, footer and sections with placeholders are built and rendered per row.
+ * Values are substituted before the resume of a row is built, so they are escaped like any other field.
+ *
+ * Rows are merged in parallel by the [ResumeBatchRenderer], see [mergeCsv] and [mergeNdjson]
+ * to stream them from CSV or NDJSON files.
+ *
+ * @param template The template resume, with placeholders in its strings
+ * @param batchRenderer The [ResumeBatchRenderer] merging the rows in parallel, or null to use one owned by the merge,
+ * stopped by [close]
+ */
+class ResumeMailMerge @JvmOverloads constructor(
+    private val template: Resume<*, *, *>,
+    batchRenderer: ResumeBatchRenderer? = null
+) : Closeable {
+    private val ownsBatchRenderer = batchRenderer == null
+    private val batchRenderer = batchRenderer ?: ResumeBatchRenderer()
+
+    /**
+     * The JSON tree of the template, without its sections.
+     */
+    private val templateTree: ObjectNode
+
+    /**
+     * The JSON trees of the sections with placeholders, in the order of the template sections.
+     */
+    private val dynamicSectionTrees: List<JsonNode>
+
+    /**
+     * Whether each template section has no placeholders, in the order of the template sections.
+     */
+    private val staticFlags: List<Boolean>
+
+    /**
+     * The LaTeX of the rendered sections without placeholders, by identity.
+     */
+    private val staticLaTeX = IdentityHashMap<Section, String>()
+
+    /**
+     * Renders the sections without placeholders from their LaTeX rendered once.
+     */
+    private val staticSections = SectionRenderer { section, out ->
+        val latex = staticLaTeX[section]
+        if (latex != null) out.append(latex) else renderSection(section, out)
+    }
+
+    /**
+     * The names of the fields used by the placeholders of the template.
+     */
+    val placeholders: Set<String>
+
+    init {
+        val tree = JSON_MAPPER.readTree(template.toJson())
+        val sectionTrees = tree.path("sections").toList()
+        check(sectionTrees.size == template.sections.size) { "template: sections should all be serialized" }
+
+        staticFlags = sectionTrees.map { !it.hasPlaceholders() }
+        dynamicSectionTrees = sectionTrees.filterIndexed { index, _ -> !staticFlags[index] }
+        templateTree = (tree as ObjectNode).deepCopy().apply { remove("sections") }
+        placeholders = buildSet { collectPlaceholders(tree, this) }
+
+        template.sections.forEachIndexed { index, section ->
+            if (staticFlags[index] && !section.ignored) staticLaTeX[section] = buildString { renderSection(section, this) }
+        }
+    }
+
+    /**
+     * The number of template sections without placeholders, rendered once for all the rows.
+     */
+    val staticSectionCount: Int
+        get() = staticFlags.count { it }
+
+    /**
+     * Builds the resume of a row, sharing the sections without placeholders of the template.
+     *
+     * @param row The values of the fields of the row
+     * @return The resume of the row
+     * @throws IllegalArgumentException If the row has no value for a placeholder of the template
+     */
+    fun resumeOf(row: Map<String, String>): Resume<*, *, *> {
+        val tree = templateTree.substituted(row) as ObjectNode
+        tree.putArray("sections").addAll(dynamicSectionTrees.map { it.substituted(row) })
+        val merged: Resume<*, *, *> = jsonReaderFor(template.javaClass).readValue(tree)
+
+        val dynamicSections = merged.sections.iterator()
+        return merged.withSections(
+            template.sections.mapIndexed { index, section -> if (staticFlags[index]) section else dynamicSections.next() }
+        )
+    }
+
+    /**
+     * Builds and renders the resume of a row to LaTeX.
+     *
+     * @param row The values of the fields of the row
+     * @return The LaTeX document of the row
+     * @throws IllegalArgumentException If the row has no value for a placeholder of the template
+     */
+    fun toLaTeX(row: Map<String, String>): String {
+        val resume = resumeOf(row)
+        val plan = resume.renderPlan()
+        return StringBuilder(plan.estimatedLength).also { resume.toLaTeX(plan, it, staticSections) }.toString()
+    }
+
+    /**
+     * Merges the rows in parallel, reporting every result to the given consumer on the calling thread.
+     * A row missing a value is reported as a [BatchResult.Failed].
+     *
+     * @param rows The rows of data
+     * @param ordered Whether the results are reported in the order of the rows, or as soon as they are ready
+     * @param onResult Receives the result of each row
+     */
+    @JvmOverloads
+    fun merge(rows: Iterable<Map<String, String>>, ordered: Boolean = true, onResult: (BatchResult) -> Unit) =
+        batchRenderer.renderWith(rows, ::toLaTeX, ordered, onResult)
+
+    /**
+     * Merges a sequence of rows in parallel, reporting every result to the given consumer on the calling thread.
+     * An exception thrown by the sequence stops the merge, see [mergeCsv] and [mergeNdjson] to report the rows
+     * of a file that cannot be read as failures instead.
+     *
+     * @param rows The rows of data
+     * @param ordered Whether the results are reported in the order of the rows, or as soon as they are ready
+     * @param onResult Receives the result of each row
+     */
+    @JvmOverloads
+    fun merge(rows: Sequence<Map<String, String>>, ordered: Boolean = true, onResult: (BatchResult) -> Unit) =
+        merge(rows.asIterable(), ordered, onResult)
+
+    /**
+     * Merges the rows of a CSV document in parallel (see [readCsvRows]), reporting every result to the given consumer
+     * on the calling thread. A record that cannot be read is reported as a [BatchResult.Failed], like a row
+     * missing a value, and the following records are still merged.
+     *
+     * @param reader The reader of the CSV document, not closed
+     * @param ordered Whether the results are reported in the order of the rows, or as soon as they are ready
+     * @param onResult Receives the result of each row
+     */
+    @JvmOverloads
+    fun mergeCsv(reader: Reader, ordered: Boolean = true, onResult: (BatchResult) -> Unit) =
+        mergeRowResults(readCsvRowResults(reader), ordered, onResult)
+
+    /**
+     * Merges the rows of an NDJSON document in parallel (see [readNdjsonRows]), reporting every result
+     * to the given consumer on the calling thread. A line that cannot be read is reported as a [BatchResult.Failed],
+     * like a row missing a value, and the following lines are still merged.
+     *
+     * @param reader The reader of the NDJSON document, not closed
+     * @param ordered Whether the results are reported in the order of the rows, or as soon as they are ready
+     * @param onResult Receives the result of each row
+     */
+    @JvmOverloads
+    fun mergeNdjson(reader: Reader, ordered: Boolean = true, onResult: (BatchResult) -> Unit) =
+        mergeRowResults(readNdjsonRowResults(reader), ordered, onResult)
+
+    /**
+     * Stops the [ResumeBatchRenderer] of the merge if it owns it, letting the submitted rows complete.
+     */
+    override fun close() {
+        if (ownsBatchRenderer) batchRenderer.close()
+    }
+
+    private fun mergeRowResults(
+        rows: Sequence<Result<Map<String, String>>>,
+        ordered: Boolean,
+        onResult: (BatchResult) -> Unit
+    ) = batchRenderer.renderWith(rows.asIterable(), { toLaTeX(it.getOrThrow()) }, ordered, onResult)
+
+    private fun JsonNode.hasPlaceholders(): Boolean =
+        if (isTextual) PLACEHOLDER.containsMatchIn(textValue()) else any { it.hasPlaceholders() }
+
+    private fun collectPlaceholders(node: JsonNode, into: MutableSet<String>) {
+        if (node.isTextual) {
+            PLACEHOLDER.findAll(node.textValue()).forEach { into += it.groupValues[1] }
+        } else {
+            node.forEach { collectPlaceholders(it, into) }
+        }
+    }
+
+    /**
+     * Returns a copy of the tree with the placeholders replaced by the values of the row,
+     * sharing the value nodes without placeholders.
+     */
+    private fun JsonNode.substituted(row: Map<String, String>): JsonNode = when {
+        isTextual && textValue().contains("{{") -> TextNode(
+            PLACEHOLDER.replace(textValue()) {
+                val field = it.groupValues[1]
+                requireNotNull(row[field]) { "row: should have a value for placeholder '$field'" }
+            }
+        )
+        isObject -> JSON_MAPPER.createObjectNode().also { copy ->
+            fields().forEach { (name, value) -> copy.replace(name, value.substituted(row)) }
+        }
+        isArray -> JSON_MAPPER.createArrayNode().also { copy -> forEach { copy.add(it.substituted(row)) } }
+        else -> this
+    }
+}
+
+/**
+ * Reads the rows of a CSV document (RFC 4180): the first record gives the field names, and every following record
+ * is a row. Fields may be quoted, with doubled quotes for quotes and embedded line breaks. Blank lines are skipped.
+ * Records are read lazily, so the sequence can only be iterated once, and the reader is not closed.
+ *
+ * @param reader The reader of the CSV document
+ * @return The rows of the document, mapping the field names to their values
+ * @throws IllegalArgumentException If a record has another number of fields than the header, or a quote is not closed
+ */
+fun readCsvRows(reader: Reader): Sequence<Map<String, String>> = readCsvRowResults(reader).map { it.getOrThrow() }
+
+/**
+ * Reads the rows of a CSV document like [readCsvRows], with the records that cannot be read as failures
+ * holding an [IllegalArgumentException]. A record with another number of fields than the header does not stop
+ * the reading, while a quote that is not closed ends the document.
+ */
+internal fun readCsvRowResults(reader: Reader): Sequence<Result<Map<String, String>>> = sequence {
+    val records = CsvRecordReader(reader as? BufferedReader ?: reader.buffered())
+    try {
+        val header = records.next() ?: return@sequence
+
+        var recordNumber = 1
+        while (true) {
+            val record = records.next() ?: break
+            recordNumber++
+            if (record.size == 1 && record[0].isEmpty()) continue
+
+            yield(
+                if (record.size == header.size) {
+                    Result.success(header.zip(record).toMap())
+                } else {
+                    Result.failure(IllegalArgumentException("csv: record $recordNumber should have ${header.size} fields"))
+                }
+            )
+        }
+    } catch (e: IllegalArgumentException) {
+        yield(Result.failure(e))
+    }
+}
+
+/**
+ * Reads the rows of an NDJSON document: every non-blank line is a JSON object, whose fields give the values
+ * of the row. Strings are taken as is, other scalars as their JSON text, and null fields are left out.
+ * Lines are read lazily, so the sequence can only be iterated once, and the reader is not closed.
+ *
+ * @param reader The reader of the NDJSON document
+ * @return The rows of the document, mapping the field names to their values
+ * @throws IllegalArgumentException If a line is not a JSON object, including a line that is not valid JSON
+ */
+fun readNdjsonRows(reader: Reader): Sequence<Map<String, String>> = readNdjsonRowResults(reader).map { it.getOrThrow() }
+
+/**
+ * Reads the rows of an NDJSON document like [readNdjsonRows], with the lines that are not JSON objects as failures
+ * holding an [IllegalArgumentException]. Such a line does not stop the reading.
+ */
+internal fun readNdjsonRowResults(reader: Reader): Sequence<Result<Map<String, String>>> =
+    (reader as? BufferedReader ?: reader.buffered()).lineSequence()
+        .withIndex()
+        .filter { it.value.isNotBlank() }
+        .map { (index, line) -> ndjsonRowOf(line, index + 1) }
+
+/**
+ * Reads the row of a non-blank NDJSON line.
+ */
+private fun ndjsonRowOf(line: String, lineNumber: Int): Result<Map<String, String>> {
+    val node = try {
+        JSON_MAPPER.readTree(line)
+    } catch (e: JsonProcessingException) {
+        return Result.failure(IllegalArgumentException("ndjson: line $lineNumber should be a JSON object", e))
+    }
+    if (!node.isObject) return Result.failure(IllegalArgumentException("ndjson: line $lineNumber should be a JSON object"))
+
+    return Result.success(
+        buildMap {
+            node.fields().forEach { (name, value) ->
+                when {
+                    value.isNull -> Unit
+                    value.isValueNode -> put(name, value.asText())
+                    else -> put(name, value.toString())
+                }
+            }
+        }
+    )
+}
+
+/**
+ * Reads the records of a CSV document one by one.
+ */
+private class CsvRecordReader(private val reader: BufferedReader) {
+    private val field = StringBuilder()
+
+    /**
+     * Reads the next record, or returns null at the end of the document.
+     *
+     * @throws IllegalArgumentException If a quote is not closed
+     */
+    fun next(): List<String>? {
+        var c = reader.read()
+        if (c == -1) return null
+
+        val fields = ArrayList<String>()
+        var quoted = false
+        field.setLength(0)
+        while (true) {
+            when {
+                quoted && c == '"'.code -> {
+                    c = reader.read()
+                    if (c != '"'.code) {
+                        quoted = false
+                        continue
+                    }
+                    field.append('"')
+                }
+                quoted && c == -1 -> throw IllegalArgumentException("csv: quoted field should be closed")
+                quoted -> field.append(c.toChar())
+                c == '"'.code && field.isEmpty() -> quoted = true
+                c == ','.code -> fields += field.toString().also { field.setLength(0) }
+                c == '\n'.code || c == -1 -> return fields.apply { add(field.toString()) }
+                c != '\r'.code -> field.append(c.toChar())
+            }
+            c = reader.read()
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.melkassib.cvgenerator.common.utils
+
+import com.melkassib.cvgenerator.common.domain.Resume
+import com.melkassib.cvgenerator.common.serialization.readBinaryResume
+import java.io.Closeable
+import java.io.IOException
+import java.io.StreamCorruptedException
+import java.nio.ByteBuffer
+import java.nio.MappedByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.charset.StandardCharsets
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Default size of the segments of a [ResumeStore] file, each mapped into memory as a whole.
+ */
+const val DEFAULT_STORE_SEGMENT_SIZE = 1 shl 28
+
+private val STORE_MAGIC = byteArrayOf('C'.code.toByte(), 'V'.code.toByte(), 'S'.code.toByte())
+private const val STORE_VERSION: Byte = 1
+private const val STORE_HEADER_SIZE = 8
+
+/**
+ * Size of the header of a record: the length of the record, then the length of its ID.
+ */
+private const val RECORD_HEADER_SIZE = 2 * Int.SIZE_BYTES
+
+/**
+ * Append-only store of resumes in a memory-mapped file, with random access by ID.
+ *
+ * Resumes are kept in their binary form (see [Resume.toBinary]) outside the Java heap,
+ * in segments of the file mapped into memory, so that only the index of the records lives in the heap.
+ * [get] decodes a resume straight from the mapped segment, without copying the record first.
+ * Storing a resume under an existing ID appends a new record which replaces the previous one.
+ *
+ * The file starts with a header holding the segment size, followed by the records.
+ * A record never spans two segments: when it does not fit in the rest of a segment, it starts the next one.
+ * A record is the length of the ID and resume bytes, the length of the ID, the ID in UTF-8, then the binary resume.
+ * The file is extended to whole segments, sparsely where the file system supports it, so that each segment is mapped
+ * once at its full size and the records appended later are read through the same mapping.
+ * The lengths of a record are written after its content, so that a record whose write was interrupted
+ * has no length, and is discarded with an incomplete record at the end of the file when the store is opened.
+ *
+ * Reads are thread-safe and lock-free; writes are serialized.
+ *
+ * @property path The path of the store file
+ * @property segmentSize The size of the segments of the file, and the maximum size of a record
+ */
+class ResumeStore private constructor(
+    val path: Path,
+    val segmentSize: Int,
+    private val channel: FileChannel
+) : Closeable {
+    private val index = ConcurrentHashMap<String, Long>()
+
+    @Volatile
+    private var segments = emptyArray<MappedByteBuffer?>()
+
+    /**
+     * Offset of the end of the last complete record.
+     */
+    private var end = STORE_HEADER_SIZE.toLong()
+
+    @Volatile
+    private var closed = false
+
+    /**
+     * The number of resumes in the store.
+     */
+    val size: Int
+        get() = index.size
+
+    /**
+     * The IDs of the resumes in the store.
+     */
+    val ids: Set<String>
+        get() = index.keys
+
+    /**
+     * Checks whether the store contains a resume with the given ID.
+     *
+     * @param id The ID of the resume
+     * @return true if a resume is stored under the ID
+     */
+    operator fun contains(id: String) = index.containsKey(id)
+
+    /**
+     * Returns the resume stored under the given ID, decoded from the mapped file.
+     *
+     * @param id The ID of the resume
+     * @return The [Resume], or null if no resume is stored under the ID
+     * @throws StreamCorruptedException If the record of the resume is corrupted
+     */
+    operator fun get(id: String): Resume<*, *, *>? {
+        check(!closed) { "store: is closed" }
+        val offset = index[id] ?: return null
+
+        val record = segmentAt(offset).duplicate()
+        val position = (offset % segmentSize).toInt()
+        val recordLength = record.getInt(position)
+        val idLength = record.getInt(position + Int.SIZE_BYTES)
+        if (idLength < 0 || recordLength < idLength || recordLength > segmentSize - position - RECORD_HEADER_SIZE) {
+            throw StreamCorruptedException("Corrupted record of resume '$id' in $path")
+        }
+        record.limit(position + RECORD_HEADER_SIZE + recordLength).position(position + RECORD_HEADER_SIZE + idLength)
+
+        return readBinaryResume(record)
+    }
+
+    /**
+     * Stores a resume under the given ID, replacing the resume previously stored under it.
+     * The record is appended to the file; call [force] to make sure that it reaches the storage device.
+     *
+     * @param id The ID of the resume
+     * @param resume The resume to store
+     * @throws IllegalArgumentException If the record is larger than the segment size
+     */
+    @Synchronized
+    fun put(id: String, resume: Resume<*, *, *>) {
+        check(!closed) { "store: is closed" }
+        val idBytes = id.toByteArray(StandardCharsets.UTF_8)
+        val resumeBytes = resume.toBinary()
+        val recordSize = RECORD_HEADER_SIZE + idBytes.size + resumeBytes.size
+        require(recordSize <= segmentSize - STORE_HEADER_SIZE) { "resume '$id': record of $recordSize bytes exceeds the segment size" }
+
+        var offset = end
+        val segmentEnd = (offset / segmentSize + 1) * segmentSize
+        if (offset + recordSize > segmentEnd) {
+            offset = segmentEnd
+        }
+
+        extendToSegmentOf(offset)
+        writeFully(ByteBuffer.allocate(idBytes.size + resumeBytes.size).put(idBytes).put(resumeBytes).flip(), offset + RECORD_HEADER_SIZE)
+        writeFully(ByteBuffer.allocate(RECORD_HEADER_SIZE).putInt(idBytes.size + resumeBytes.size).putInt(idBytes.size).flip(), offset)
+
+        end = offset + recordSize
+        index[id] = offset
+    }
+
+    /**
+     * Forces the records written so far to the storage device.
+     */
+    fun force() = channel.force(false)
+
+    /**
+     * Closes the store file. The segments stay mapped until they are garbage collected.
+     */
+    @Synchronized
+    override fun close() {
+        if (closed) return
+        closed = true
+        channel.close()
+    }
+
+    /**
+     * Returns the segment containing the record at the given offset, mapped once at its full size.
+     */
+    private fun segmentAt(offset: Long): MappedByteBuffer {
+        val segmentIndex = (offset / segmentSize).toInt()
+        segments.getOrNull(segmentIndex)?.let { return it }
+
+        return synchronized(channel) {
+            segments.getOrNull(segmentIndex) ?: channel.map(FileChannel.MapMode.READ_ONLY, segmentIndex.toLong() * segmentSize, segmentSize.toLong())
+                .also { segment ->
+                    val updated = segments.copyOf(maxOf(segments.size, segmentIndex + 1))
+                    updated[segmentIndex] = segment
+                    segments = updated
+                }
+        }
+    }
+
+    /**
+     * Extends the file to the end of the segment containing the given offset, if it is shorter.
+     * Writing the last byte only leaves the file sparse where the file system supports it.
+     */
+    private fun extendToSegmentOf(offset: Long) {
+        val segmentEnd = (offset / segmentSize + 1) * segmentSize
+        if (channel.size() < segmentEnd) writeFully(ByteBuffer.allocate(1), segmentEnd - 1)
+    }
+
+    private fun writeFully(buffer: ByteBuffer, offset: Long) {
+        var position = offset
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position)
+        }
+    }
+
+    /**
+     * Rebuilds the index from the records of the file, and discards an incomplete record at its end.
+     */
+    private fun load() {
+        val fileSize = channel.size()
+        if (fileSize == 0L) {
+            val header = ByteBuffer.allocate(STORE_HEADER_SIZE).put(STORE_MAGIC).put(STORE_VERSION).putInt(segmentSize).flip()
+            writeFully(header, 0)
+            extendToSegmentOf(0)
+            return
+        }
+
+        var offset = STORE_HEADER_SIZE.toLong()
+        val recordHeader = ByteBuffer.allocate(RECORD_HEADER_SIZE)
+        while (offset + RECORD_HEADER_SIZE <= fileSize) {
+            val segmentEnd = (offset / segmentSize + 1) * segmentSize
+            if (offset + RECORD_HEADER_SIZE > segmentEnd) {
+                offset = segmentEnd
+                continue
+            }
+
+            recordHeader.clear()
+            readFully(recordHeader, offset)
+            val recordLength = recordHeader.getInt(0)
+            val idLength = recordHeader.getInt(Int.SIZE_BYTES)
+
+            if (recordLength == 0) {
+                offset = segmentEnd
+                continue
+            }
+            if (idLength < 0 || recordLength < idLength || offset + RECORD_HEADER_SIZE + recordLength > minOf(fileSize, segmentEnd)) break
+
+            val id = ByteBuffer.allocate(idLength).also { readFully(it, offset + RECORD_HEADER_SIZE) }
+            index[String(id.array(), StandardCharsets.UTF_8)] = offset
+            offset += RECORD_HEADER_SIZE + recordLength
+            end = offset
+        }
+
+        // Discards the incomplete records, and zeroes the rest of the last segment
+        if (end < fileSize) channel.truncate(end)
+        extendToSegmentOf(end)
+    }
+
+    private fun readFully(buffer: ByteBuffer, offset: Long) {
+        var position = offset
+        while (buffer.hasRemaining()) {
+            val read = channel.read(buffer, position)
+            if (read < 0) throw StreamCorruptedException("Truncated resume store: $path")
+            position += read
+        }
+    }
+
+    companion object {
+        /**
+         * Opens the store in the given file, creating the file if it does not exist.
+         *
+         * @param path The path of the store file
+         * @param segmentSize The size of the segments of a new store file, ignored for an existing file
+         * @return The [ResumeStore]
+         * @throws StreamCorruptedException If the file is not a resume store
+         */
+        @JvmStatic
+        @JvmOverloads
+        fun open(path: Path, segmentSize: Int = DEFAULT_STORE_SEGMENT_SIZE): ResumeStore {
+            require(segmentSize > STORE_HEADER_SIZE + RECORD_HEADER_SIZE) { "segmentSize: should be larger than ${STORE_HEADER_SIZE + RECORD_HEADER_SIZE}" }
+
+            val channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)
+            try {
+                val store = ResumeStore(path, readSegmentSize(channel) ?: segmentSize, channel)
+                store.load()
+                return store
+            } catch (e: IOException) {
+                channel.close()
+                throw e
+            }
+        }
+
+        /**
+         * Reads the segment size from the header of an existing store file, or returns null for an empty file.
+         */
+        private fun readSegmentSize(channel: FileChannel): Int? {
+            if (channel.size() == 0L) return null
+
+            val header = ByteBuffer.allocate(STORE_HEADER_SIZE)
+            while (header.hasRemaining() && channel.read(header, header.position().toLong()) >= 0) Unit
+            if (header.hasRemaining() || STORE_MAGIC.indices.any { header[it] != STORE_MAGIC[it] }) {
+                throw StreamCorruptedException("Not a resume store")
+            }
+            if (header[STORE_MAGIC.size] != STORE_VERSION) throw StreamCorruptedException("Unsupported resume store version: ${header[STORE_MAGIC.size]}")
+
+            val segmentSize = header.getInt(STORE_MAGIC.size + 1)
+            if (segmentSize <= STORE_HEADER_SIZE + RECORD_HEADER_SIZE) throw StreamCorruptedException("Invalid resume store segment size: $segmentSize")
+            return segmentSize
+        }
+    }
+}
@@ -0,0 +1,423 @@
+package com.melkassib.cvgenerator.common.utils
+
+import com.melkassib.cvgenerator.common.domain.Resume
+import java.io.Closeable
+import java.io.IOException
+import java.io.UncheckedIOException
+import java.nio.file.ClosedWatchServiceException
+import java.nio.file.Files
+import java.nio.file.NoSuchFileException
+import java.nio.file.NotDirectoryException
+import java.nio.file.Path
+import java.nio.file.StandardWatchEventKinds.ENTRY_CREATE
+import java.nio.file.StandardWatchEventKinds.ENTRY_DELETE
+import java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY
+import java.nio.file.StandardWatchEventKinds.OVERFLOW
+import java.nio.file.WatchKey
+import java.nio.file.WatchService
+import java.time.Duration
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+import kotlin.io.path.extension
+import kotlin.io.path.isDirectory
+import kotlin.io.path.nameWithoutExtension
+
+/**
+ * Maximum time to wait for the watcher thread and the workers to stop.
+ */
+private const val CLOSE_TIMEOUT_MILLIS = 5000L
+
+/**
+ * Default quiet period after the last change of a file before it is rendered.
+ */
+val DEFAULT_WATCH_DEBOUNCE: Duration = Duration.ofMillis(100)
+
+/**
+ * Default maximum number of rendered sections kept by a [ResumeWatcher].
+ */
+const val DEFAULT_WATCH_SECTION_CACHE_SIZE = 4096
+
+/**
+ * Default extensions of the source files watched by a [ResumeWatcher].
+ */
+val DEFAULT_WATCH_EXTENSIONS = setOf("json", "yaml", "yml")
+
+/**
+ * Outcome of the handling of a changed source file by a [ResumeWatcher].
+ *
+ * @property source The changed source file
+ * @property latency The time from the first change event of the file to the end of its handling
+ */
+sealed class WatchResult(val source: Path, val latency: Duration) {
+    /**
+     * The source file was parsed and its LaTeX document replaced.
+     *
+     * @property output The LaTeX document of the resume
+     */
+    class Rendered(source: Path, val output: Path, latency: Duration) : WatchResult(source, latency) {
+        override fun toString() = "Rendered(source=$source, output=$output, latency=$latency)"
+    }
+
+    /**
+     * The source file was parsed, but the resume renders the same document as before, which was left untouched.
+     */
+    class Unchanged(source: Path, latency: Duration) : WatchResult(source, latency) {
+        override fun toString() = "Unchanged(source=$source, latency=$latency)"
+    }
+
+    /**
+     * The source file was deleted, and its LaTeX document with it.
+     *
+     * @property output The deleted LaTeX document
+     */
+    class Deleted(source: Path, val output: Path, latency: Duration) : WatchResult(source, latency) {
+        override fun toString() = "Deleted(source=$source, output=$output, latency=$latency)"
+    }
+
+    /**
+     * The source file could not be parsed or rendered, its LaTeX document was left untouched,
+     * or the source directory could not be watched.
+     *
+     * @property error The error raised while parsing or rendering the source file, or watching the directory
+     */
+    class Failed(source: Path, val error: Throwable, latency: Duration) : WatchResult(source, latency) {
+        override fun toString() = "Failed(source=$source, error=$error, latency=$latency)"
+    }
+}
+
+/**
+ * Watches a directory tree of resume source files, such as JSON or YAML files, and renders each changed file
+ * to a LaTeX document at the same relative path in the output directory.
+ *
+ * A single thread receives the change events of all the directories from a [WatchService], and waits for
+ * a quiet period of [debounce] after the last event of a file before handing it to a pool of [workerThreads] threads,
+ * so that editors saving a file in several steps trigger a single rendering. A file is never handled by two workers
+ * at the same time. Only the changed file is parsed, the sections that did not change since they were last rendered
+ * are spliced in from the section cache, and the document is not rewritten when the resume renders the same document.
+ * Documents are written with [writeAtomically].
+ *
+ * Every existing source file is rendered when the watcher starts. The latency from the first change event
+ * of a file to its handling is reported in each [WatchResult], and summarized by [averageLatency] and [maxLatency].
+ *
+ * @property sourceDirectory The directory tree of the source files
+ * @property outputDirectory The directory tree of the LaTeX documents, created if it does not exist
+ * @property debounce The quiet period after the last change of a file before it is rendered
+ * @property workerThreads The number of threads parsing and rendering the changed files
+ * @property extensions The extensions of the source files
+ * @param parse Builds the resume of a source file, for example `{ buildAltaCVResumeFromJson(it) }`
+ * @param sectionCache The [RenderCache] of rendered sections, shared by all the source files
+ * @param onResult Receives the result of each handled file, on the worker thread
+ */
+class ResumeWatcher @JvmOverloads constructor(
+    val sourceDirectory: Path,
+    val outputDirectory: Path,
+    private val parse: (Path) -> Resume<*, *, *>,
+    val debounce: Duration = DEFAULT_WATCH_DEBOUNCE,
+    val workerThreads: Int = 2,
+    val extensions: Set<String> = DEFAULT_WATCH_EXTENSIONS,
+    private val sectionCache: RenderCache = RenderCache(DEFAULT_WATCH_SECTION_CACHE_SIZE),
+    private val onResult: (WatchResult) -> Unit = {}
+) : Closeable {
+
+    init {
+        require(workerThreads > 0) { "workerThreads: should be positive" }
+        require(!debounce.isNegative) { "debounce: should not be negative" }
+    }
+
+    /**
+     * Change events of a source file waiting for the quiet period.
+     */
+    private class PendingChange(val firstEventNanos: Long, var lastEventNanos: Long)
+
+    private val watchService: WatchService = sourceDirectory.fileSystem.newWatchService()
+    private val watchedDirectories = HashMap<WatchKey, Path>()
+    private val pending = LinkedHashMap<Path, PendingChange>()
+    private val inProgress = ConcurrentHashMap.newKeySet<Path>()
+    private val fingerprints = ConcurrentHashMap<Path, Long>()
+
+    private val workers: ExecutorService =
+        Executors.newFixedThreadPool(workerThreads, daemonThreadFactory("resume-watcher-worker"))
+    private val watcherThread = Thread(::watchLoop, "resume-watcher").apply { isDaemon = true }
+
+    @Volatile
+    private var closed = false
+
+    private val renderedCount = AtomicLong()
+    private val unchangedCount = AtomicLong()
+    private val failedCount = AtomicLong()
+    private val latencyCount = AtomicLong()
+    private val totalLatencyNanos = AtomicLong()
+    private val maxLatencyNanos = AtomicLong()
+
+    /**
+     * The number of LaTeX documents written.
+     */
+    val rendered: Long
+        get() = renderedCount.get()
+
+    /**
+     * The number of changed files rendering the same document as before.
+     */
+    val unchanged: Long
+        get() = unchangedCount.get()
+
+    /**
+     * The number of changed files which could not be parsed or rendered, and directories which could not be watched.
+     */
+    val failed: Long
+        get() = failedCount.get()
+
+    /**
+     * The number of watched directories.
+     */
+    val directories: Int
+        get() = synchronized(watchedDirectories) { watchedDirectories.size }
+
+    /**
+     * Returns the average time from the first change event of a file to the end of its handling.
+     *
+     * @return The average latency, zero when no file was handled yet
+     */
+    fun averageLatency(): Duration {
+        val count = latencyCount.get()
+        return if (count == 0L) Duration.ZERO else Duration.ofNanos(totalLatencyNanos.get() / count)
+    }
+
+    /**
+     * Returns the longest time from the first change event of a file to the end of its handling.
+     *
+     * @return The maximum latency, zero when no file was handled yet
+     */
+    fun maxLatency(): Duration = Duration.ofNanos(maxLatencyNanos.get())
+
+    /**
+     * Returns the path of the LaTeX document of the given source file, whether it is rendered or not.
+     *
+     * @param source The source file, in the source directory
+     * @return The [Path] of the LaTeX document in the output directory
+     */
+    fun outputOf(source: Path): Path {
+        val relative = sourceDirectory.relativize(source)
+        return outputDirectory.resolve(relative).resolveSibling("${relative.nameWithoutExtension}.tex")
+    }
+
+    /**
+     * Starts watching the source directory tree, and renders every existing source file.
+     *
+     * @return This watcher
+     */
+    fun start(): ResumeWatcher {
+        check(!closed) { "watcher: is closed" }
+        check(!watcherThread.isAlive) { "watcher: is already started" }
+
+        Files.createDirectories(outputDirectory)
+        val now = System.nanoTime()
+        synchronized(pending) {
+            registerTree(sourceDirectory).forEach { pending[it] = PendingChange(now, now) }
+        }
+        watcherThread.start()
+        return this
+    }
+
+    /**
+     * Stops watching the source directory tree, letting the files being rendered complete.
+     */
+    override fun close() {
+        if (closed) return
+        closed = true
+
+        watchService.close()
+        // The watcher thread stops dispatching files before the workers stop accepting them
+        watcherThread.join(debounce.toMillis() + CLOSE_TIMEOUT_MILLIS)
+        workers.shutdown()
+        workers.awaitTermination(CLOSE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+    }
+
+    /**
+     * Registers the directory and its subdirectories with the watch service. Each directory is registered
+     * before it is listed, so that the entries created meanwhile are either listed or reported by an event.
+     *
+     * @return The source files of the directory tree
+     */
+    private fun registerTree(directory: Path): List<Path> {
+        val key = directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE)
+        synchronized(watchedDirectories) { watchedDirectories[key] = directory }
+
+        val entries = try {
+            Files.list(directory).use { it.toList() }
+        } catch (e: UncheckedIOException) {
+            throw e.cause ?: e
+        }
+        return entries.flatMap { path ->
+            when {
+                path.isDirectory() -> registerSubtree(path)
+                isSource(path) -> listOf(path)
+                else -> emptyList()
+            }
+        }
+    }
+
+    /**
+     * Registers a directory found by a listing or an event, skipping it when it was removed or replaced meanwhile,
+     * as with the temporary directories of editors and version control tools.
+     *
+     * @return The source files of the directory tree
+     */
+    private fun registerSubtree(directory: Path): List<Path> = try {
+        registerTree(directory)
+    } catch (ignored: NoSuchFileException) {
+        emptyList()
+    } catch (ignored: NotDirectoryException) {
+        emptyList()
+    }
+
+    /**
+     * Registers the directory tree and marks its source files as changed, reporting the directories
+     * which cannot be watched as failed instead of stopping the watcher.
+     *
+     * @return The source files of the directory tree, or null if it cannot be watched
+     */
+    private fun rescan(directory: Path, now: Long): List<Path>? = try {
+        registerSubtree(directory).onEach { markChanged(it, now) }
+    } catch (e: IOException) {
+        failedCount.incrementAndGet()
+        report(WatchResult.Failed(directory, e, Duration.ZERO))
+        null
+    }
+
+    private fun isSource(path: Path) = path.extension in extensions && Files.isRegularFile(path)
+
+    private fun watchLoop() {
+        try {
+            while (!closed) {
+                val key = watchService.poll(pollTimeoutMillis(), TimeUnit.MILLISECONDS)
+                if (key != null) handleEvents(key)
+                dispatchQuietFiles()
+            }
+        } catch (ignored: ClosedWatchServiceException) {
+            // Closed by close()
+        } catch (ignored: InterruptedException) {
+            // Stopped
+        }
+    }
+
+    /**
+     * Returns the time to wait for the next event, until the end of the earliest quiet period.
+     */
+    private fun pollTimeoutMillis(): Long = synchronized(pending) {
+        val earliest = pending.values.minOfOrNull { it.lastEventNanos } ?: return debounce.toMillis().coerceAtLeast(1)
+        val quietEnd = earliest + debounce.toNanos()
+        TimeUnit.NANOSECONDS.toMillis(quietEnd - System.nanoTime()).coerceIn(1, debounce.toMillis().coerceAtLeast(1))
+    }
+
+    private fun handleEvents(firstKey: WatchKey) {
+        val now = System.nanoTime()
+        var key: WatchKey? = firstKey
+        while (key != null) {
+            val directory = synchronized(watchedDirectories) { watchedDirectories[key] }
+            for (event in key.pollEvents()) {
+                if (event.kind() == OVERFLOW) {
+                    // Events were lost: every source file of the tree may have changed or been deleted
+                    val sources = rescan(sourceDirectory, now)?.toSet() ?: continue
+                    fingerprints.keys.filterNot { it in sources }.forEach { markChanged(it, now) }
+                    continue
+                }
+                if (directory == null) continue
+
+                val path = directory.resolve(event.context() as Path)
+                when {
+                    event.kind() == ENTRY_CREATE && path.isDirectory() -> rescan(path, now)
+                    path.extension in extensions -> markChanged(path, now)
+                    // A deleted or moved directory takes its source files along, without an event for each of them
+                    event.kind() == ENTRY_DELETE -> fingerprints.keys.filter { it.startsWith(path) }.forEach { markChanged(it, now) }
+                }
+            }
+            if (!key.reset()) synchronized(watchedDirectories) { watchedDirectories.remove(key) }
+            key = watchService.poll()
+        }
+    }
+
+    private fun markChanged(path: Path, now: Long) = synchronized(pending) {
+        val change = pending[path]
+        if (change == null) pending[path] = PendingChange(now, now) else change.lastEventNanos = now
+    }
+
+    /**
+     * Hands the files whose quiet period is over to the workers, keeping the files still being rendered
+     * until their previous rendering completes.
+     */
+    private fun dispatchQuietFiles() {
+        val quietBefore = System.nanoTime() - debounce.toNanos()
+        val quietFiles = synchronized(pending) {
+            val files = pending.entries.filter { (path, change) -> change.lastEventNanos <= quietBefore && path !in inProgress }
+            files.forEach { pending.remove(it.key) }
+            files.map { it.key to it.value.firstEventNanos }
+        }
+
+        for ((path, firstEventNanos) in quietFiles) {
+            inProgress.add(path)
+            try {
+                workers.execute {
+                    try {
+                        report(handle(path, firstEventNanos))
+                    } finally {
+                        inProgress.remove(path)
+                    }
+                }
+            } catch (ignored: RejectedExecutionException) {
+                // Closed by close() while the watcher thread was still dispatching
+                inProgress.remove(path)
+                return
+            }
+        }
+    }
+
+    private fun handle(source: Path, firstEventNanos: Long): WatchResult {
+        val output = outputOf(source)
+        @Suppress("TooGenericExceptionCaught")
+        try {
+            if (!Files.exists(source)) {
+                fingerprints.remove(source)
+                Files.deleteIfExists(output)
+                return WatchResult.Deleted(source, output, latencySince(firstEventNanos))
+            }
+
+            val resume = parse(source)
+            val fingerprint = resume.fingerprint(ignoreIgnoredSections = true)
+            if (fingerprints[source] == fingerprint && Files.exists(output)) {
+                unchangedCount.incrementAndGet()
+                return WatchResult.Unchanged(source, latencySince(firstEventNanos))
+            }
+
+            Files.createDirectories(output.parent)
+            writeAtomically(output, resume.toLaTeX(sectionCache = sectionCache).toByteArray())
+            fingerprints[source] = fingerprint
+            renderedCount.incrementAndGet()
+            return WatchResult.Rendered(source, output, latencySince(firstEventNanos))
+        } catch (e: Exception) {
+            failedCount.incrementAndGet()
+            return WatchResult.Failed(source, e, latencySince(firstEventNanos))
+        }
+    }
+
+    private fun latencySince(firstEventNanos: Long): Duration {
+        val latency = System.nanoTime() - firstEventNanos
+        latencyCount.incrementAndGet()
+        totalLatencyNanos.addAndGet(latency)
+        maxLatencyNanos.accumulateAndGet(latency, ::maxOf)
+        return Duration.ofNanos(latency)
+    }
+
+    private fun report(result: WatchResult) {
+        @Suppress("TooGenericExceptionCaught")
+        try {
+            onResult(result)
+        } catch (ignored: Exception) {
+            // A failing listener does not stop the watcher
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.melkassib.cvgenerator.common.utils
+
+import com.melkassib.cvgenerator.common.domain.Resume
+import com.melkassib.cvgenerator.common.domain.rendersSameDocumentAs
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executor
+import java.util.concurrent.ForkJoinPool
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Renders and compiles resumes, coalescing the concurrent requests for identical resumes: while a resume is being
+ * rendered or compiled, the requests for a resume of the same template and fingerprint (see [Resume.fingerprint])
+ * wait for the same result instead of doing the same work again. A request joins the work in flight only if its resume
+ * renders the same document as the resume of the work, so that resumes whose fingerprints collide are never mixed up.
+ *
+ * Only the requests arriving while the work is in flight share its result: nothing is cached once it completes,
+ * see [LaTeXFileCache] or the cache directory of [ResumeCompiler] for that.
+ * Each request gets its own future, so that cancelling it does not affect the other requests.
+ *
+ * The compilations always run on the thread pool of the compiler, as they block on the LaTeX process.
+ *
+ * @param executor The executor rendering the resumes, or null to render them on the thread pool of the compiler,
+ * or on the common [ForkJoinPool] when there is no compiler
+ * @param compiler The [ResumeCompiler] compiling the resumes, or null to only render them
+ */
+class SingleFlightRenderer @JvmOverloads constructor(
+    executor: Executor? = null,
+    private val compiler: ResumeCompiler? = null
+) {
+    private val executor: Executor = executor ?: compiler?.asyncExecutor ?: ForkJoinPool.commonPool()
+
+    /**
+     * Identifies the work done for a resume: its template, its fingerprint, and what is produced from it.
+     */
+    private data class FlightKey(val template: Class<*>, val fingerprint: Long, val output: String)
+
+    /**
+     * The work in flight for a key, with the resume it was started for.
+     */
+    private class Flight<T>(val resume: Resume<*, *, *>, val future: CompletableFuture<T>)
+
+    private val inFlight = ConcurrentHashMap<FlightKey, Flight<*>>()
+
+    private val requestCount = AtomicLong()
+    private val coalescedCount = AtomicLong()
+
+    /**
+     * The number of render and compile requests.
+     */
+    val requests: Long
+        get() = requestCount.get()
+
+    /**
+     * The number of requests served by the work of another request in flight.
+     */
+    val coalesced: Long
+        get() = coalescedCount.get()
+
+    /**
+     * The number of renderings and compilations in flight.
+     */
+    val inFlightCount: Int
+        get() = inFlight.size
+
+    /**
+     * Returns the share of the requests served by the work of another request in flight.
+     *
+     * @return The coalescing ratio, between 0 and 1, zero when there was no request yet
+     */
+    fun coalescingRatio(): Double {
+        val count = requestCount.get()
+        return if (count == 0L) 0.0 else coalescedCount.get().toDouble() / count
+    }
+
+    /**
+     * Renders the resume to LaTeX on the executor, or joins the rendering of an identical resume in flight.
+     *
+     * @param resume The resume to render
+     * @param compact Whether to render a compact document (see [Resume.toLaTeX])
+     * @return The future LaTeX document of the resume
+     */
+    @JvmOverloads
+    fun render(resume: Resume<*, *, *>, compact: Boolean = false): CompletableFuture<String> =
+        coalesce(resume, if (compact) "compact-tex" else "tex") {
+            CompletableFuture.supplyAsync({ resume.toLaTeX(compact) }, executor)
+        }
+
+    /**
+     * Compiles the resume to PDF with the compiler, or joins the compilation of an identical resume in flight.
+     *
+     * @param resume The resume to compile
+     * @return The future content of the PDF file
+     * @throws IllegalStateException If the renderer has no compiler
+     */
+    fun compile(resume: Resume<*, *, *>): CompletableFuture<ByteArray> {
+        val resumeCompiler = checkNotNull(compiler) { "compiler: should be set to compile resumes" }
+        return coalesce(resume, "pdf") { resumeCompiler.compileAsync(resume) }
+    }
+
+    /**
+     * Returns a copy of the future of the work in flight for an identical resume, starting the work if there is none.
+     * When the resume of the work in flight only has the same fingerprint, the work is started apart and not shared.
+     */
+    private fun <T> coalesce(resume: Resume<*, *, *>, output: String, start: () -> CompletableFuture<T>): CompletableFuture<T> {
+        requestCount.incrementAndGet()
+
+        val key = FlightKey(resume.javaClass, resume.fingerprint(ignoreIgnoredSections = true), output)
+        val leader = Flight(resume, CompletableFuture<T>())
+        @Suppress("UNCHECKED_CAST")
+        val shared = inFlight.putIfAbsent(key, leader) as Flight<T>?
+        if (shared != null) {
+            if (!shared.resume.rendersSameDocumentAs(resume)) return startSafely(start)
+
+            coalescedCount.incrementAndGet()
+            return shared.future.copy()
+        }
+
+        startSafely(start).whenComplete { result, error ->
+            // The key is removed first, so that the work is no longer in flight once its result is seen
+            inFlight.remove(key, leader)
+            if (error == null) leader.future.complete(result) else leader.future.completeExceptionally(error)
+        }
+        return leader.future.copy()
+    }
+
+    /**
+     * Starts the work, returning a failed future if it fails to start, so that the next request starts it again.
+     */
+    private fun <T> startSafely(start: () -> CompletableFuture<T>): CompletableFuture<T> {
+        @Suppress("TooGenericExceptionCaught")
+        return try {
+            start()
+        } catch (e: Throwable) {
+            CompletableFuture.failedFuture(e)
+        }
+    }
+}
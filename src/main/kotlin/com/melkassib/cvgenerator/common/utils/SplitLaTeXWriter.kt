@@ -0,0 +1,80 @@
+package com.melkassib.cvgenerator.common.utils
+
+import com.melkassib.cvgenerator.common.domain.Resume
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Writes resumes as split LaTeX documents in a directory: one shared preamble file per template and configuration,
+ * and one thin body file per resume inputting it (see [Resume.toLaTeXBody]).
+ *
+ * In bulk runs, the preamble is written once instead of being repeated in every document, and, since the preamble file
+ * does not change while the configuration does not, a precompiled LaTeX format can be built once per preamble file
+ * and reused by the compilation of every body inputting it.
+ *
+ * Preamble files are written with [writeAtomically].
+ *
+ * @property directory The directory of the LaTeX files, created if it does not exist
+ */
+class SplitLaTeXWriter(val directory: Path) {
+
+    init {
+        Files.createDirectories(directory)
+    }
+
+    /**
+     * Names of the preamble files known to exist in the directory.
+     */
+    private val preambles = ConcurrentHashMap.newKeySet<String>()
+
+    /**
+     * The number of preamble files written by this writer.
+     */
+    @Volatile
+    var preamblesWritten: Int = 0
+        private set
+
+    /**
+     * Writes the body of the resume to the file `<name>.tex`, replacing it if it exists,
+     * and its preamble file when it is not in the directory yet.
+     *
+     * @param resume The resume to write
+     * @param name The name of the body file, without extension
+     * @return The [Path] of the body file
+     */
+    fun write(resume: Resume<*, *, *>, name: String): Path {
+        require(name.isNotBlank()) { "name: should not be blank" }
+
+        val preambleName = resume.preambleName()
+        require(name != preambleName) { "name: should not be the name of the preamble file" }
+
+        writePreamble(resume, preambleName)
+
+        val bodyFile = pathOf(name)
+        Files.newBufferedWriter(bodyFile).use { resume.toLaTeXBody(preambleName, resume.renderPlan(), it) }
+        return bodyFile
+    }
+
+    /**
+     * Returns the path of the LaTeX file of the given name, whether it exists or not.
+     *
+     * @param name The name of the file, without extension
+     * @return The [Path] of the file in the directory
+     */
+    fun pathOf(name: String): Path = directory.resolve("$name.tex")
+
+    private fun writePreamble(resume: Resume<*, *, *>, preambleName: String) {
+        if (preambleName in preambles) return
+
+        val preambleFile = pathOf(preambleName)
+        synchronized(preambles) {
+            if (preambleName in preambles) return
+            if (!Files.exists(preambleFile)) {
+                writeAtomically(preambleFile, resume.toLaTeXPreamble().toByteArray())
+                preamblesWritten++
+            }
+            preambles += preambleName
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.melkassib.cvgenerator.server
+
+import com.fasterxml.jackson.core.JsonProcessingException
+import com.melkassib.cvgenerator.altacv.serialization.buildAltaCVResumeFromJson
+import com.melkassib.cvgenerator.awesomecv.serialization.buildAwesomeCVResumeFromJson
+import com.melkassib.cvgenerator.common.domain.Resume
+import com.melkassib.cvgenerator.common.utils.daemonThreadFactory
+import com.sun.net.httpserver.HttpExchange
+import com.sun.net.httpserver.HttpServer
+import java.io.Closeable
+import java.io.FilterInputStream
+import java.io.IOException
+import java.io.InputStream
+import java.io.OutputStream
+import java.io.OutputStreamWriter
+import java.net.InetSocketAddress
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.Executor
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Semaphore
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Default port of a [ResumeRenderServer].
+ */
+const val DEFAULT_SERVER_PORT = 8080
+
+/**
+ * Default maximum size of the body of a render request, in bytes.
+ */
+const val DEFAULT_MAX_REQUEST_BYTES = 1024L * 1024
+
+/**
+ * Buffer size of the LaTeX responses, flushed to the client as chunks.
+ */
+private const val RESPONSE_BUFFER_SIZE = 16 * 1024
+
+/**
+ * Raised when the body of a request exceeds the maximum request size.
+ */
+private class RequestTooLargeException(maxBytes: Long) : IOException("Request body exceeds $maxBytes bytes")
+
+/**
+ * Input stream failing once more than the maximum number of bytes were read, for request bodies of unknown length.
+ */
+private class LimitedInputStream(input: InputStream, private val maxBytes: Long) : FilterInputStream(input) {
+    private var count = 0L
+
+    override fun read(): Int = super.read().also { if (it >= 0) count(1) }
+
+    override fun read(b: ByteArray, off: Int, len: Int): Int = super.read(b, off, len).also { if (it > 0) count(it) }
+
+    private fun count(bytes: Int) {
+        count += bytes
+        if (count > maxBytes) throw RequestTooLargeException(maxBytes)
+    }
+}
+
+/**
+ * Response body sending the response headers on its first write, so that a rendering failing before its first bytes
+ * are sent can still be answered with an error status.
+ */
+private class DeferredResponseStream(private val exchange: HttpExchange, private val contentType: String) : OutputStream() {
+    /**
+     * Whether the response headers were sent.
+     */
+    var started = false
+        private set
+
+    override fun write(b: Int) {
+        start()
+        exchange.responseBody.write(b)
+    }
+
+    override fun write(b: ByteArray, off: Int, len: Int) {
+        start()
+        exchange.responseBody.write(b, off, len)
+    }
+
+    override fun flush() {
+        if (started) exchange.responseBody.flush()
+    }
+
+    override fun close() {
+        start()
+        exchange.responseBody.close()
+    }
+
+    private fun start() {
+        if (started) return
+        exchange.responseHeaders.add("Content-Type", contentType)
+        exchange.sendResponseHeaders(200, 0)
+        started = true
+    }
+}
+
+/**
+ * HTTP service rendering JSON resumes to LaTeX, built on the HTTP server of the JDK (`com.sun.net.httpserver`).
+ *
+ * Endpoints:
+ * - `POST /render/altacv` and `POST /render/awesomecv` parse the JSON resume of the request body and respond
+ * with its LaTeX document (`?compact=true` for a compact document, see [Resume.toLaTeX]);
+ * - `GET /health` responds with the status of the service and the number of requests being rendered.
+ *
+ * Request bodies are streamed into the parser, and LaTeX documents are streamed to the client as they are rendered,
+ * so no request or response is buffered whole. Bodies larger than [maxRequestBytes] are rejected with 413,
+ * and requests arriving while [maxConcurrentRequests] requests are being rendered are rejected with 503,
+ * so that bursts are shed instead of queued. Invalid resumes are rejected with 400, and resumes failing to render
+ * with 500, or by dropping the connection when the failure happens after the document started streaming.
+ *
+ * Requests are handled on the given executor: on JDK 21 or later, a virtual-thread executor
+ * (`Executors.newVirtualThreadPerTaskExecutor()`) can be given instead of the default pool of daemon threads.
+ *
+ * @param address The address to listen on (defaults to [DEFAULT_SERVER_PORT] on all interfaces, port 0 for any free port)
+ * @property maxRequestBytes The maximum size of the body of a render request, in bytes
+ * @property maxConcurrentRequests The maximum number of requests rendered at the same time
+ * @param executor The executor handling the requests, or null for a pool of daemon threads owned by the server
+ */
+class ResumeRenderServer @JvmOverloads constructor(
+    address: InetSocketAddress = InetSocketAddress(DEFAULT_SERVER_PORT),
+    val maxRequestBytes: Long = DEFAULT_MAX_REQUEST_BYTES,
+    val maxConcurrentRequests: Int = Runtime.getRuntime().availableProcessors() * 4,
+    executor: Executor? = null
+) : Closeable {
+
+    init {
+        require(maxRequestBytes > 0) { "maxRequestBytes: should be positive" }
+        require(maxConcurrentRequests > 0) { "maxConcurrentRequests: should be positive" }
+    }
+
+    private val ownedExecutor: ExecutorService? =
+        if (executor != null) null else Executors.newCachedThreadPool(daemonThreadFactory("resume-render-server"))
+
+    private val server: HttpServer = HttpServer.create(address, 0).apply {
+        this.executor = executor ?: ownedExecutor
+        createContext("/render/") { exchange -> handle(exchange, ::handleRender) }
+        createContext("/health") { exchange -> handle(exchange, ::handleHealth) }
+    }
+
+    private val permits = Semaphore(maxConcurrentRequests)
+    private val renderedCount = AtomicLong()
+    private val rejectedCount = AtomicLong()
+
+    /**
+     * The port the server listens on.
+     */
+    val port: Int
+        get() = server.address.port
+
+    /**
+     * The number of resumes rendered.
+     */
+    val rendered: Long
+        get() = renderedCount.get()
+
+    /**
+     * The number of render requests rejected because too many requests were being rendered.
+     */
+    val rejected: Long
+        get() = rejectedCount.get()
+
+    /**
+     * Starts listening for requests.
+     *
+     * @return This server
+     */
+    fun start(): ResumeRenderServer {
+        server.start()
+        return this
+    }
+
+    /**
+     * Stops the server, closing the open connections, and the pool of threads it owns.
+     */
+    override fun close() {
+        server.stop(0)
+        ownedExecutor?.shutdown()
+    }
+
+    /**
+     * Runs the handler and closes the exchange. An unexpected exception is left to the HTTP server without closing
+     * the exchange, so that the server drops the connection instead of completing a partial response.
+     */
+    private inline fun handle(exchange: HttpExchange, handler: (HttpExchange) -> Unit) {
+        try {
+            handler(exchange)
+        } catch (ignored: IOException) {
+            // The client went away, the exchange is closed below
+        }
+        exchange.close()
+    }
+
+    private fun handleHealth(exchange: HttpExchange) {
+        if (exchange.requestMethod != "GET" && exchange.requestMethod != "HEAD") return sendMethodNotAllowed(exchange, "GET, HEAD")
+
+        val inFlight = maxConcurrentRequests - permits.availablePermits()
+        sendText(exchange, 200, "{\"status\":\"UP\",\"inFlight\":$inFlight}", "application/json")
+    }
+
+    @Suppress("TooGenericExceptionCaught")
+    private fun handleRender(exchange: HttpExchange) {
+        val parse: (InputStream) -> Resume<*, *, *> = when (exchange.requestURI.path) {
+            "/render/altacv" -> ::buildAltaCVResumeFromJson
+            "/render/awesomecv" -> ::buildAwesomeCVResumeFromJson
+            else -> return sendText(exchange, 404, "Unknown template: ${exchange.requestURI.path.removePrefix("/render/")}")
+        }
+        if (exchange.requestMethod != "POST") return sendMethodNotAllowed(exchange, "POST")
+
+        val contentLength = exchange.requestHeaders.getFirst("Content-Length")?.toLongOrNull()
+        if (contentLength != null && contentLength > maxRequestBytes) {
+            return sendText(exchange, 413, "Request body exceeds $maxRequestBytes bytes")
+        }
+
+        if (!permits.tryAcquire()) {
+            rejectedCount.incrementAndGet()
+            exchange.responseHeaders.add("Retry-After", "1")
+            return sendText(exchange, 503, "Too many concurrent requests")
+        }
+
+        try {
+            val resume = try {
+                parse(LimitedInputStream(exchange.requestBody, maxRequestBytes))
+            } catch (e: RequestTooLargeException) {
+                return sendText(exchange, 413, e.message.orEmpty())
+            } catch (e: JsonProcessingException) {
+                return sendText(exchange, 400, "Invalid resume: ${e.originalMessage}")
+            } catch (e: IOException) {
+                throw e
+            } catch (e: Exception) {
+                // The deserializers reject well-formed JSON of the wrong shape with various runtime exceptions
+                return sendText(exchange, 400, "Invalid resume: ${e.message ?: e.javaClass.simpleName}")
+            }
+
+            val compact = exchange.requestURI.query?.split('&')?.contains("compact=true") == true
+            val response = DeferredResponseStream(exchange, "application/x-tex; charset=utf-8")
+            val writer = OutputStreamWriter(response, StandardCharsets.UTF_8).buffered(RESPONSE_BUFFER_SIZE)
+            try {
+                resume.writeLaTeX(writer, compact)
+            } catch (e: IOException) {
+                throw e
+            } catch (e: Exception) {
+                if (response.started) throw e
+                return sendText(exchange, 500, "Rendering failed: ${e.message ?: e.javaClass.simpleName}")
+            }
+            writer.close()
+            renderedCount.incrementAndGet()
+        } finally {
+            permits.release()
+        }
+    }
+
+    private fun sendMethodNotAllowed(exchange: HttpExchange, allowedMethods: String) {
+        exchange.responseHeaders.add("Allow", allowedMethods)
+        sendText(exchange, 405, "Method not allowed: ${exchange.requestMethod}")
+    }
+
+    private fun sendText(exchange: HttpExchange, status: Int, text: String, contentType: String = "text/plain") {
+        val body = text.toByteArray(StandardCharsets.UTF_8)
+        exchange.responseHeaders.add("Content-Type", "$contentType; charset=utf-8")
+        if (exchange.requestMethod == "HEAD") {
+            exchange.sendResponseHeaders(status, -1)
+        } else {
+            exchange.sendResponseHeaders(status, body.size.toLong())
+            exchange.responseBody.write(body)
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.melkassib.cvgenerator.altacv.domain
 
 import com.melkassib.cvgenerator.altacv.utils.ColorPalette
 import com.melkassib.cvgenerator.altacv.utils.PredefinedColorPalette
+import com.melkassib.cvgenerator.awesomecv.domain.AwesomeCVResume
 import com.melkassib.cvgenerator.common.domain.*
 import com.melkassib.cvgenerator.common.utils.firstColumn
 import com.melkassib.cvgenerator.common.utils.secondColumn
@@ -145,6 +146,87 @@ class ResumeTest {
         assertThat(myResume.toString(), containsString("sections = []"))
     }
 
+    @Test
+    fun `compile the render plan of a resume once`() {
+        val myResume = AltaCVResume(
+            sections = listOf(
+                Section("C", secondColumn(2)),
+                Section("A", firstColumn(2)),
+                Section("Ignored", secondColumn(1), ignored = true),
+                Section("B", firstColumn(1)),
+                Section("D", secondColumn(1))
+            )
+        )
+
+        val plan = myResume.renderPlan()
+        assertThat(plan.sections.map { it.title }, contains("B", "D", "C", "A"))
+        assertThat(plan.firstColumn.map { it.title }, contains("B", "A"))
+        assertThat(plan.secondColumn.map { it.title }, contains("D", "C"))
+        assertThat(plan.hasSecondColumn, equalTo(true))
+        assertThat(plan.estimatedLength, greaterThan(0))
+
+        assertThat(myResume.renderPlan(), sameInstance(plan))
+        assertThat(myResume.toLaTeX(), equalTo(myResume.toLaTeX()))
+    }
+
+    @Test
+    fun `copy the sections of a resume`() {
+        val sections = arrayListOf(Section("A", firstColumn(1), listOf(Tag("Tag1"))))
+        val myResume = AltaCVResume(header = AltaCVHeader("Tagline"), sections = sections)
+        val latex = myResume.toLaTeX()
+        val fingerprint = myResume.fingerprint()
+
+        sections += Section("B", secondColumn(1), listOf(Tag("Tag2")))
+
+        assertThat(myResume.sections.map { it.title }, contains("A"))
+        assertThat(myResume.toLaTeX(), equalTo(latex))
+        assertThat(myResume.fingerprint(), equalTo(fingerprint))
+    }
+
+    @Test
+    fun `fingerprint a resume`() {
+        val sections = listOf(Section("A", firstColumn(1), listOf(Tag("Tag1"))), Section("B", secondColumn(1)))
+        val myResume = AltaCVResume(header = AltaCVHeader("Tagline"), sections = sections)
+        val withIgnored = AltaCVResume(header = AltaCVHeader("Tagline"), sections = sections + Section("Ignored", firstColumn(2), ignored = true))
+
+        assertThat(myResume.fingerprint(), equalTo(AltaCVResume(header = AltaCVHeader("Tagline"), sections = sections).fingerprint()))
+        assertThat(withIgnored.fingerprint(), not(equalTo(myResume.fingerprint())))
+        assertThat(withIgnored.fingerprint(ignoreIgnoredSections = true), equalTo(myResume.fingerprint(ignoreIgnoredSections = true)))
+
+        val fingerprint = myResume.fingerprint()
+        myResume.config.columnRatio = 0.5
+        assertThat(myResume.fingerprint(), not(equalTo(fingerprint)))
+
+        val renderedFingerprint = withIgnored.fingerprint(ignoreIgnoredSections = true)
+        withIgnored.header.tagline = "Other tagline"
+        assertThat(withIgnored.fingerprint(ignoreIgnoredSections = true), not(equalTo(renderedFingerprint)))
+    }
+
+    @Test
+    fun `compare the documents rendered by resumes`() {
+        fun event(holder: String) = Event.create("Title") {
+            this.holder = holder
+            duration = EventPeriodString.eventDurationStr("2020-01")
+        }
+
+        fun resume(holder: String, vararg ignored: Section) = AltaCVResume(
+            header = AltaCVHeader("Tagline"),
+            sections = listOf(Section("A", firstColumn(1), listOf(Tag("Tag1"), event(holder)))) + ignored
+        )
+
+        val myResume = resume("Holder")
+
+        assertThat(myResume.rendersSameDocumentAs(resume("Holder")), equalTo(true))
+        assertThat(myResume.rendersSameDocumentAs(resume("Holder", Section("Ignored", firstColumn(2), ignored = true))), equalTo(true))
+        assertThat(myResume.rendersSameDocumentAs(resume("Other holder")), equalTo(false))
+        assertThat(myResume.rendersSameDocumentAs(resume("Holder", Section("Ignored", secondColumn(1), ignored = true))), equalTo(false))
+        assertThat(myResume.rendersSameDocumentAs(AwesomeCVResume()), equalTo(false))
+
+        val other = resume("Holder")
+        other.header.tagline = "Other tagline"
+        assertThat(myResume.rendersSameDocumentAs(other), equalTo(false))
+    }
+
     companion object {
         @JvmStatic
         fun buildResumes(): Stream<AltaCVResume> = Stream.of(
@@ -318,4 +318,28 @@ class SectionContentTest {
         assertThat(NewPage.render(), equalTo("\\newpage"))
         assertThat(NoContent.render(), emptyString())
     }
+
+    @Test
+    fun `fingerprint a section content`() {
+        assertThat(Tag("LaTeX").fingerprint(), equalTo(2820077328813870157L))
+        assertThat(Tag("LaTeX").fingerprint(), equalTo(Tag("LaTeX").fingerprint()))
+        assertThat(Tag("LaTeX").fingerprint(), not(equalTo(Quote("LaTeX").fingerprint())))
+        assertThat(Item("Item").fingerprint(), not(equalTo(Item("Item", withBullet = false).fingerprint())))
+        assertThat(Divider.fingerprint(), not(equalTo(NewLine.fingerprint())))
+
+        val event = Event.create("Title") {
+            holder = "Holder"
+            duration = eventDurationDate("2020-01", "2021-02")
+            description = listOf(Item("Task"))
+        }
+        val fingerprint = event.fingerprint()
+        assertThat(Event.create("Title") {
+            holder = "Holder"
+            duration = eventDurationDate("2020-01", "2021-02")
+            description = listOf(Item("Task"))
+        }.fingerprint(), equalTo(fingerprint))
+
+        event.description = listOf(Item("Task"), Item("Another task"))
+        assertThat(event.fingerprint(), not(equalTo(fingerprint)))
+    }
 }
@@ -69,4 +69,29 @@ class SectionTest {
 
         assertThat(ex.message, equalTo("column position: should be 1 or 2"))
     }
+
+    @Test
+    fun `fingerprint a section`() {
+        val section = Section("Example", firstColumn(1), listOf(Tag("Tag1"), Item("Item1")))
+
+        assertThat(section.fingerprint(), equalTo(Section("Example", firstColumn(1), listOf(Tag("Tag1"), Item("Item1"))).fingerprint()))
+        assertThat(section.fingerprint(), not(equalTo(section.copy(title = "Other").fingerprint())))
+        assertThat(section.fingerprint(), not(equalTo(section.copy(position = secondColumn(1)).fingerprint())))
+        assertThat(section.fingerprint(), not(equalTo(section.copy(ignored = true).fingerprint())))
+        assertThat(section.fingerprint(), not(equalTo(section.copy(contents = listOf(Item("Item1"), Tag("Tag1"))).fingerprint())))
+    }
+
+    @Test
+    fun `copy the contents of a section`() {
+        val contents = arrayListOf<SectionContent>(Tag("Tag1"))
+        val section = Section("Example", firstColumn(1), contents)
+        val fingerprint = section.fingerprint()
+
+        contents += Item("Item1")
+
+        assertThat(section.contents, contains(Tag("Tag1")))
+        assertThat(section.fingerprint(), equalTo(fingerprint))
+        assertThat(section, equalTo(Section("Example", firstColumn(1), listOf(Tag("Tag1")))))
+        assertThat(section.copy(contents = contents).fingerprint(), not(equalTo(fingerprint)))
+    }
 }
@@ -1,13 +1,24 @@
 package com.melkassib.cvgenerator.altacv.serialization
 
+import com.fasterxml.jackson.core.JsonFactory
+import com.fasterxml.jackson.databind.DatabindException
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.databind.module.SimpleModule
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory
+import com.fasterxml.jackson.dataformat.yaml.YAMLGenerator
+import com.fasterxml.jackson.module.kotlin.KotlinFeature
+import com.fasterxml.jackson.module.kotlin.KotlinModule
 import com.jayway.jsonpath.matchers.JsonPathMatchers.hasJsonPath
 import com.melkassib.cvgenerator.altacv.domain.*
+import com.melkassib.cvgenerator.awesomecv.domain.AwesomeCVResume
 import com.melkassib.cvgenerator.altacv.utils.PredefinedColorPalette
 import com.melkassib.cvgenerator.common.domain.*
 import com.melkassib.cvgenerator.common.domain.EventPeriodDate.Companion.eventDurationDate
 import com.melkassib.cvgenerator.common.domain.EventPeriodString.Companion.eventDurationStr
 import com.melkassib.cvgenerator.common.utils.firstColumn
 import com.melkassib.cvgenerator.common.utils.secondColumn
+import com.melkassib.cvgenerator.common.serialization.DateSerializers
+import com.melkassib.cvgenerator.common.serialization.MalformedRecord
 import com.networknt.schema.InputFormat
 import com.networknt.schema.JsonSchema
 import com.networknt.schema.JsonSchemaFactory
@@ -15,11 +26,19 @@ import com.networknt.schema.SpecVersion
 import org.hamcrest.MatcherAssert.assertThat
 import org.hamcrest.Matchers.*
 import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
 import org.junit.jupiter.params.ParameterizedTest
 import org.junit.jupiter.params.provider.MethodSource
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.EOFException
 import java.io.File
+import java.io.StreamCorruptedException
+import java.io.StringWriter
 import java.nio.file.Files
 import java.nio.file.Path
+import java.time.LocalDate
+import java.util.Locale
 import java.util.stream.Stream
 
 class ResumeSerializationTest {
@@ -191,7 +210,157 @@ class ResumeSerializationTest {
         assertThat(numberOfSectionsInSecondColumn, equalTo(5))
     }
 
+    @ParameterizedTest
+    @MethodSource("altaCVResumes")
+    fun `write a resume to streams`(resume: AltaCVResume) {
+        val jsonOutput = ByteArrayOutputStream()
+        resume.writeJson(jsonOutput)
+        assertThat(jsonOutput.toString(Charsets.UTF_8), equalTo(resume.toJson()))
+
+        val yamlWriter = StringWriter()
+        resume.writeYaml(yamlWriter)
+        assertThat(yamlWriter.toString(), equalTo(resume.toYaml()))
+    }
+
+    @ParameterizedTest
+    @MethodSource("altaCVResumes")
+    fun `bind a resume like the reflective mapper`(resume: AltaCVResume) {
+        val resumeJson = File("src/test/resources/altacv/sample-resume.json").readText()
+        val resumeYaml = File("src/test/resources/altacv/sample-resume.yaml").readText()
+
+        assertThat(resume.toJson(), equalTo(reflectiveJsonMapper.writeValueAsString(resume)))
+        assertThat(resume.toYaml(), equalTo(reflectiveYamlMapper.writeValueAsString(resume)))
+
+        assertThat(
+            buildAltaCVResumeFromJson(resumeJson).toJson(),
+            equalTo(reflectiveJsonMapper.readValue(resumeJson, AltaCVResume::class.java).toJson())
+        )
+        assertThat(
+            buildAltaCVResumeFromYaml(resumeYaml).toYaml(),
+            equalTo(reflectiveYamlMapper.readValue(resumeYaml, AltaCVResume::class.java).toYaml())
+        )
+    }
+
+    @Test
+    fun `read a stream of resumes`() {
+        val resumeJson = File("src/test/resources/altacv/sample-resume.json").readText().replace(Regex("\\s*\\n\\s*"), "")
+        val resumeYaml = File("src/test/resources/altacv/sample-resume.yaml").readText()
+
+        val ndjson = listOf(resumeJson, "{\"config\": 5}", resumeJson).joinToString("\n")
+        val malformed = mutableListOf<MalformedRecord>()
+        val jsonResumes = readAltaCVResumes(ndjson.byteInputStream()) { malformed += it }.toList()
+
+        assertThat(jsonResumes, hasSize(2))
+        assertThat(jsonResumes.map { it.toJson() }, everyItem(equalTo(buildAltaCVResumeFromJson(resumeJson).toJson())))
+        assertThat(malformed.map { it.index }, contains(1))
+        assertThat(malformed.map { it.line }, contains(2))
+
+        val yamlResumes = readAltaCVResumesFromYaml("$resumeYaml\n---\n$resumeYaml".byteInputStream()).toList()
+        assertThat(yamlResumes, hasSize(2))
+
+        assertThrows<DatabindException> {
+            readAltaCVResumes(ndjson.byteInputStream()).toList()
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("altaCVResumes")
+    fun `convert a resume to binary and back`(resume: AltaCVResume) {
+        val binary = resume.toBinary()
+        val fromBinary = buildAltaCVResumeFromBinary(binary)
+
+        assertThat(fromBinary.toJson(), equalTo(resume.toJson()))
+        assertThat(fromBinary.toLaTeX(), equalTo(resume.toLaTeX()))
+        assertThat(binary.size, lessThan(resume.toJson().toByteArray().size))
+
+        val output = ByteArrayOutputStream()
+        resume.toBinary(output)
+        resume.toBinary(output)
+        val input = ByteArrayInputStream(output.toByteArray())
+        assertThat(buildAltaCVResumeFromBinary(input).toJson(), equalTo(resume.toJson()))
+        assertThat(buildAltaCVResumeFromBinary(input).toJson(), equalTo(resume.toJson()))
+        assertThat(input.available(), equalTo(0))
+    }
+
+    @Test
+    fun `read a corrupted binary resume`() {
+        val binary = buildAltaCVResumeFromJson(File("src/test/resources/altacv/sample-resume.json").readText()).toBinary()
+
+        assertThrows<StreamCorruptedException> { buildAltaCVResumeFromBinary("{}".toByteArray()) }
+        assertThrows<StreamCorruptedException> { buildAltaCVResumeFromBinary(binary.copyOf(binary.size / 2)) }
+        assertThrows<StreamCorruptedException> { buildAltaCVResumeFromBinary(AwesomeCVResume().toBinary()) }
+        assertThrows<EOFException> { buildAltaCVResumeFromBinary(ByteArrayInputStream(binary.copyOf(binary.size / 2))) }
+
+        val ex = assertThrows<StreamCorruptedException> { buildAltaCVResumeFromBinary(binary.copyOf().also { it[3] = 2 }) }
+        assertThat(ex.message, equalTo("Unsupported binary resume version: 2"))
+    }
+
+    @Test
+    fun `read a binary resume with flipped bytes`() {
+        val binary = buildAltaCVResumeFromJson(File("src/test/resources/altacv/sample-resume.json").readText()).toBinary()
+
+        for (index in 5 until binary.size) {
+            for (value in listOf(0x00, 0x01, 0x7F, 0x80, 0xFF)) {
+                val corrupted = binary.copyOf().also { it[index] = value.toByte() }
+                try {
+                    buildAltaCVResumeFromBinary(corrupted)
+                } catch (ignored: StreamCorruptedException) {
+                    // Expected for most of the corrupted payloads
+                }
+                try {
+                    buildAltaCVResumeFromBinary(ByteArrayInputStream(corrupted))
+                } catch (ignored: StreamCorruptedException) {
+                    // Expected for most of the corrupted payloads
+                } catch (ignored: EOFException) {
+                    // Expected when the corrupted length exceeds the stream
+                }
+            }
+        }
+
+        val negativeLength = binary.copyOf(BINARY_HEADER_SIZE) + byteArrayOf(-1, -1, -1, -1, 0x0F)
+        assertThrows<StreamCorruptedException> { buildAltaCVResumeFromBinary(negativeLength) }
+        assertThrows<StreamCorruptedException> { buildAltaCVResumeFromBinary(ByteArrayInputStream(negativeLength)) }
+
+        val endlessVarint = binary.copyOf(BINARY_HEADER_SIZE) + ByteArray(6) { -1 }
+        assertThrows<StreamCorruptedException> { buildAltaCVResumeFromBinary(ByteArrayInputStream(endlessVarint)) }
+    }
+
+    @Test
+    fun `convert a resume to binary and back under a non-latin locale`() {
+        val resume = buildAltaCVResumeFromJson(File("src/test/resources/altacv/sample-resume.json").readText())
+        val defaultLocale = Locale.getDefault()
+
+        Locale.setDefault(Locale.forLanguageTag("fa-IR"))
+        try {
+            assertThat(buildAltaCVResumeFromBinary(resume.toBinary()).toJson(), equalTo(resume.toJson()))
+        } finally {
+            Locale.setDefault(defaultLocale)
+        }
+    }
+
     companion object {
+        private const val BINARY_HEADER_SIZE = 5
+
+        private val reflectiveJsonMapper = reflectiveMapper(JsonFactory())
+        private val reflectiveYamlMapper = reflectiveMapper(YAMLFactory().disable(YAMLGenerator.Feature.WRITE_DOC_START_MARKER))
+
+        /**
+         * Creates a mapper binding the domain model by reflection, as before the domain module.
+         */
+        private fun reflectiveMapper(factory: JsonFactory) = ObjectMapper(factory).apply {
+            registerModule(SimpleModule().addSerializer(LocalDate::class.java, DateSerializers.Serializer))
+            registerModule(
+                KotlinModule.Builder()
+                    .withReflectionCacheSize(512)
+                    .configure(KotlinFeature.NullToEmptyCollection, false)
+                    .configure(KotlinFeature.NullToEmptyMap, false)
+                    .configure(KotlinFeature.NullIsSameAsDefault, false)
+                    .configure(KotlinFeature.SingletonSupport, false)
+                    .configure(KotlinFeature.StrictNullChecks, false)
+                    .build()
+            )
+        }
+
         @JvmStatic
         fun altaCVResumes(): Stream<AltaCVResume> {
             val resumeJson = File("src/test/resources/altacv/sample-resume.json").readText()
@@ -199,8 +368,11 @@ class ResumeSerializationTest {
 
             val resume1 = buildAltaCVResumeFromJson(resumeJson)
             val resume2 = buildAltaCVResumeFromYaml(resumeYaml)
+            val resume3 = buildAltaCVResumeFromJson(Path.of("src/test/resources/altacv/sample-resume.json"))
+            val resume4 = File("src/test/resources/altacv/sample-resume.yaml").inputStream().use { buildAltaCVResumeFromYaml(it) }
+            val resume5 = resumeJson.reader().use { buildAltaCVResumeFromJson(it) }
 
-            return Stream.of(resume1, resume2)
+            return Stream.of(resume1, resume2, resume3, resume4, resume5)
         }
     }
 }
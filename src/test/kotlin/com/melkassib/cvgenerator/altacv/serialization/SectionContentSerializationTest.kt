@@ -222,6 +222,32 @@ class SectionContentSerializationTest {
         }
     }
 
+    @Test
+    fun `deserialize section with contents declared before their type`() {
+        val sectionJson = """
+            {
+                "title":"SectionC",
+                "position":{"column":1,"order":1},
+                "contents":[
+                   {"content":"T1","type":"TAG"},
+                   {"content":{"skill":"Arabic","fluency":"Native/Bilingual"},"type":"SKILL"},
+                   {"content":{"title":"Job Title","duration":{"start":"2023-10","end":"2023-11"}},"type":"EVENT"},
+                   {"type":"NEWLINE"}
+                ]
+            }
+        """.trimIndent()
+
+        JSON_MAPPER.readValue<Section>(sectionJson).apply {
+            assertThat(contents, hasSize(4))
+            assertThat(contents[0], equalTo(Tag("T1")))
+            assertThat(contents[1], equalTo(SkillStr("Arabic", "Native/Bilingual")))
+            assertThat(contents[2], instanceOf(Event::class.java))
+            assertThat((contents[2] as Event).title, equalTo("Job Title"))
+            assertThat((contents[2] as Event).duration, instanceOf(EventPeriodDate::class.java))
+            assertThat(contents[3], equalTo(NewLine))
+        }
+    }
+
     @Test
     fun `serialize a skill`() {
         val skill1 = Skill("SkillA", 5.0)
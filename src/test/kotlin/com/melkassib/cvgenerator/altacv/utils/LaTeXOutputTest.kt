@@ -5,11 +5,13 @@ import com.melkassib.cvgenerator.altacv.serialization.buildAltaCVResumeFromJson
 import com.melkassib.cvgenerator.common.domain.*
 import com.melkassib.cvgenerator.common.domain.EventPeriodString.Companion.eventDurationStr
 import com.melkassib.cvgenerator.common.domain.Section
+import com.melkassib.cvgenerator.common.utils.RenderCache
 import com.melkassib.cvgenerator.common.utils.firstColumn
 import com.melkassib.cvgenerator.common.utils.renderSections
 import org.hamcrest.MatcherAssert.assertThat
 import org.hamcrest.Matchers.*
 import org.junit.jupiter.api.Test
+import java.io.StringWriter
 
 class LaTeXOutputTest {
 
@@ -351,6 +353,63 @@ class LaTeXOutputTest {
         assertThat(renderTemplatePreamble(config), containsString(",normalphoto"))
     }
 
+    @Test
+    fun `render cached preamble of a mutated config`() {
+        val config = AltaCVConfig(photoShape = PhotoShape.NORMAL, theme = PredefinedColorPalette.THEME3)
+        val preamble = renderTemplatePreamble(config)
+
+        val hits = ALTACV_PREAMBLE_CACHE.hits
+        assertThat(renderTemplatePreamble(config.copy()), sameInstance(preamble))
+        assertThat(ALTACV_PREAMBLE_CACHE.hits, equalTo(hits + 1))
+
+        config.photoShape = PhotoShape.CIRCLE
+        assertThat(renderTemplatePreamble(config), not(containsString("withhyper,normalphoto")))
+        assertThat(renderTemplatePreamble(AltaCVConfig(photoShape = PhotoShape.NORMAL, theme = PredefinedColorPalette.THEME3)),
+            sameInstance(preamble))
+    }
+
+    @Test
+    fun `resume json to latex written into a writer`() {
+        val resumeJson = this.javaClass.getResource("/altacv/sample-resume.json")?.readText() ?: ""
+        val resume = buildAltaCVResumeFromJson(resumeJson)
+
+        val writer = StringWriter()
+        resume.writeLaTeX(writer)
+
+        assertThat(writer.toString(), equalTo(resume.toLaTeX()))
+    }
+
+    @Test
+    fun `resume json to compact latex`() {
+        val resumeJson = this.javaClass.getResource("/altacv/sample-resume.json")?.readText() ?: ""
+        val resume = buildAltaCVResumeFromJson(resumeJson)
+
+        val compactLatex = resume.toLaTeX(compact = true)
+        val essentialLines = resume.toLaTeX().lines().map { it.trim() }.filter { it.isNotEmpty() && (!it.startsWith("%") || it.startsWith("%!")) }
+
+        assertThat(compactLatex, startsWith(ALTACV_LICENSE_NOTICE + "\n"))
+        assertThat(compactLatex.length, lessThan(resume.toLaTeX().length * 2 / 3))
+        assertThat(compactLatex.lines().drop(1).filter { it.isNotEmpty() }, equalTo(essentialLines))
+        assertThat(compactLatex, not(containsString("\n\n\n")))
+
+        val writer = StringWriter()
+        resume.writeLaTeX(writer, compact = true)
+        assertThat(writer.toString(), equalTo(compactLatex))
+    }
+
+    @Test
+    fun `resume with verbatim latex to compact latex`() {
+        val verbatim = "\\begin{verbatim}\n    indented code\n    % not a comment\n\\end{verbatim}"
+        val resume = AltaCVResume(
+            header = AltaCVHeader("Tagline"),
+            sections = listOf(Section("Code", firstColumn(1), listOf(Tag("Kotlin"), LatexContent(verbatim))))
+        )
+
+        assertThat(resume.toLaTeX(compact = true), containsString("\n$verbatim\n"))
+        assertThat(resume.toLaTeX(compact = true, sectionCache = RenderCache()), equalTo(resume.toLaTeX(compact = true)))
+        assertThat(resume.toLaTeX(compact = true), not(containsString("\n    \\cvtag")))
+    }
+
     @Test
     fun `render empty resume`() {
         val emptyResume = altacv {}
@@ -1,23 +1,41 @@
 package com.melkassib.cvgenerator.awesomecv.serialization
 
+import com.fasterxml.jackson.core.JsonFactory
+import com.fasterxml.jackson.databind.DatabindException
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.databind.module.SimpleModule
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory
+import com.fasterxml.jackson.dataformat.yaml.YAMLGenerator
+import com.fasterxml.jackson.module.kotlin.KotlinFeature
+import com.fasterxml.jackson.module.kotlin.KotlinModule
 import com.jayway.jsonpath.matchers.JsonPathMatchers.hasJsonPath
+import com.melkassib.cvgenerator.altacv.domain.AltaCVResume
 import com.melkassib.cvgenerator.awesomecv.domain.*
 import com.melkassib.cvgenerator.common.domain.AwesomeCVFooter
 import com.melkassib.cvgenerator.common.domain.Divider
 import com.melkassib.cvgenerator.common.domain.EventPeriodString.Companion.eventDurationStr
 import com.melkassib.cvgenerator.common.domain.Item
 import com.melkassib.cvgenerator.common.domain.PhotoDirection
+import com.melkassib.cvgenerator.common.serialization.DateSerializers
+import com.melkassib.cvgenerator.common.serialization.MalformedRecord
 import com.networknt.schema.InputFormat
 import com.networknt.schema.JsonSchema
 import com.networknt.schema.JsonSchemaFactory
 import com.networknt.schema.SpecVersion
 import org.hamcrest.MatcherAssert.assertThat
 import org.hamcrest.Matchers.*
+import org.junit.jupiter.api.assertThrows
 import org.junit.jupiter.params.ParameterizedTest
 import org.junit.jupiter.params.provider.MethodSource
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.EOFException
 import java.io.File
+import java.io.StreamCorruptedException
+import java.io.StringWriter
 import java.nio.file.Files
 import java.nio.file.Path
+import java.time.LocalDate
 import java.util.stream.Stream
 import kotlin.test.Test
 
@@ -189,7 +207,112 @@ class ResumeSerializationTest {
         assertThat(resume.sections.size, equalTo(3))
     }
 
+    @ParameterizedTest
+    @MethodSource("awesomeCVResumes")
+    fun `write a resume to streams`(resume: AwesomeCVResume) {
+        val jsonOutput = ByteArrayOutputStream()
+        resume.writeJson(jsonOutput)
+        assertThat(jsonOutput.toString(Charsets.UTF_8), equalTo(resume.toJson()))
+
+        val yamlWriter = StringWriter()
+        resume.writeYaml(yamlWriter)
+        assertThat(yamlWriter.toString(), equalTo(resume.toYaml()))
+    }
+
+    @ParameterizedTest
+    @MethodSource("awesomeCVResumes")
+    fun `bind a resume like the reflective mapper`(resume: AwesomeCVResume) {
+        val resumeJson = File("src/test/resources/awesomecv/sample-resume.json").readText()
+        val resumeYaml = File("src/test/resources/awesomecv/sample-resume.yaml").readText()
+
+        assertThat(resume.toJson(), equalTo(reflectiveJsonMapper.writeValueAsString(resume)))
+        assertThat(resume.toYaml(), equalTo(reflectiveYamlMapper.writeValueAsString(resume)))
+
+        assertThat(
+            buildAwesomeCVResumeFromJson(resumeJson).toJson(),
+            equalTo(reflectiveJsonMapper.readValue(resumeJson, AwesomeCVResume::class.java).toJson())
+        )
+        assertThat(
+            buildAwesomeCVResumeFromYaml(resumeYaml).toYaml(),
+            equalTo(reflectiveYamlMapper.readValue(resumeYaml, AwesomeCVResume::class.java).toYaml())
+        )
+    }
+
+    @Test
+    fun `read a stream of resumes`() {
+        val resumeJson = File("src/test/resources/awesomecv/sample-resume.json").readText().replace(Regex("\\s*\\n\\s*"), "")
+        val resumeYaml = File("src/test/resources/awesomecv/sample-resume.yaml").readText()
+
+        val ndjson = listOf(resumeJson, "{\"config\": 5}", resumeJson).joinToString("\n")
+        val malformed = mutableListOf<MalformedRecord>()
+        val jsonResumes = readAwesomeCVResumes(ndjson.byteInputStream()) { malformed += it }.toList()
+
+        assertThat(jsonResumes, hasSize(2))
+        assertThat(jsonResumes.map { it.toJson() }, everyItem(equalTo(buildAwesomeCVResumeFromJson(resumeJson).toJson())))
+        assertThat(malformed.map { it.index }, contains(1))
+        assertThat(malformed.map { it.line }, contains(2))
+
+        val yamlResumes = readAwesomeCVResumesFromYaml("$resumeYaml\n---\n$resumeYaml".byteInputStream()).toList()
+        assertThat(yamlResumes, hasSize(2))
+
+        assertThrows<DatabindException> {
+            readAwesomeCVResumes(ndjson.byteInputStream()).toList()
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("awesomeCVResumes")
+    fun `convert a resume to binary and back`(resume: AwesomeCVResume) {
+        val binary = resume.toBinary()
+        val fromBinary = buildAwesomeCVResumeFromBinary(binary)
+
+        assertThat(fromBinary.toJson(), equalTo(resume.toJson()))
+        assertThat(fromBinary.toLaTeX(), equalTo(resume.toLaTeX()))
+        assertThat(binary.size, lessThan(resume.toJson().toByteArray().size))
+
+        val output = ByteArrayOutputStream()
+        resume.toBinary(output)
+        resume.toBinary(output)
+        val input = ByteArrayInputStream(output.toByteArray())
+        assertThat(buildAwesomeCVResumeFromBinary(input).toJson(), equalTo(resume.toJson()))
+        assertThat(buildAwesomeCVResumeFromBinary(input).toJson(), equalTo(resume.toJson()))
+        assertThat(input.available(), equalTo(0))
+    }
+
+    @Test
+    fun `read a corrupted binary resume`() {
+        val binary = buildAwesomeCVResumeFromJson(File("src/test/resources/awesomecv/sample-resume.json").readText()).toBinary()
+
+        assertThrows<StreamCorruptedException> { buildAwesomeCVResumeFromBinary("{}".toByteArray()) }
+        assertThrows<StreamCorruptedException> { buildAwesomeCVResumeFromBinary(binary.copyOf(binary.size / 2)) }
+        assertThrows<StreamCorruptedException> { buildAwesomeCVResumeFromBinary(AltaCVResume().toBinary()) }
+        assertThrows<EOFException> { buildAwesomeCVResumeFromBinary(ByteArrayInputStream(binary.copyOf(binary.size / 2))) }
+
+        val ex = assertThrows<StreamCorruptedException> { buildAwesomeCVResumeFromBinary(binary.copyOf().also { it[3] = 2 }) }
+        assertThat(ex.message, equalTo("Unsupported binary resume version: 2"))
+    }
+
     companion object {
+        private val reflectiveJsonMapper = reflectiveMapper(JsonFactory())
+        private val reflectiveYamlMapper = reflectiveMapper(YAMLFactory().disable(YAMLGenerator.Feature.WRITE_DOC_START_MARKER))
+
+        /**
+         * Creates a mapper binding the domain model by reflection, as before the domain module.
+         */
+        private fun reflectiveMapper(factory: JsonFactory) = ObjectMapper(factory).apply {
+            registerModule(SimpleModule().addSerializer(LocalDate::class.java, DateSerializers.Serializer))
+            registerModule(
+                KotlinModule.Builder()
+                    .withReflectionCacheSize(512)
+                    .configure(KotlinFeature.NullToEmptyCollection, false)
+                    .configure(KotlinFeature.NullToEmptyMap, false)
+                    .configure(KotlinFeature.NullIsSameAsDefault, false)
+                    .configure(KotlinFeature.SingletonSupport, false)
+                    .configure(KotlinFeature.StrictNullChecks, false)
+                    .build()
+            )
+        }
+
         @JvmStatic
         fun awesomeCVResumes(): Stream<AwesomeCVResume> {
             val resumeJson = File("src/test/resources/awesomecv/sample-resume.json").readText()
@@ -197,8 +320,11 @@ class ResumeSerializationTest {
 
             val resume1 = buildAwesomeCVResumeFromJson(resumeJson)
             val resume2 = buildAwesomeCVResumeFromYaml(resumeYaml)
+            val resume3 = buildAwesomeCVResumeFromJson(Path.of("src/test/resources/awesomecv/sample-resume.json"))
+            val resume4 = File("src/test/resources/awesomecv/sample-resume.yaml").inputStream().use { buildAwesomeCVResumeFromYaml(it) }
+            val resume5 = resumeJson.reader().use { buildAwesomeCVResumeFromJson(it) }
 
-            return Stream.of(resume1, resume2)
+            return Stream.of(resume1, resume2, resume3, resume4, resume5)
         }
     }
 }
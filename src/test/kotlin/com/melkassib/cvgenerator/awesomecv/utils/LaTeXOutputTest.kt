@@ -3,9 +3,14 @@ package com.melkassib.cvgenerator.awesomecv.utils
 import com.melkassib.cvgenerator.awesomecv.domain.*
 import com.melkassib.cvgenerator.awesomecv.serialization.buildAwesomeCVResumeFromJson
 import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.containsString
 import org.hamcrest.Matchers.equalTo
 import org.hamcrest.Matchers.equalToCompressingWhiteSpace
+import org.hamcrest.Matchers.lessThan
+import org.hamcrest.Matchers.not
+import org.hamcrest.Matchers.startsWith
 import org.junit.jupiter.api.Test
+import java.io.StringWriter
 
 class LaTeXOutputTest {
 
@@ -61,6 +66,35 @@ class LaTeXOutputTest {
         assertThat(actualResumeLatex, equalToCompressingWhiteSpace(expectedResumeLatex))
     }
 
+    @Test
+    fun `resume json to latex written into a writer`() {
+        val resumeJson = this.javaClass.getResource("/awesomecv/sample-resume.json")?.readText() ?: ""
+        val resume = buildAwesomeCVResumeFromJson(resumeJson)
+
+        val writer = StringWriter()
+        resume.writeLaTeX(writer)
+
+        assertThat(writer.toString(), equalTo(resume.toLaTeX()))
+    }
+
+    @Test
+    fun `resume json to compact latex`() {
+        val resumeJson = this.javaClass.getResource("/awesomecv/sample-resume.json")?.readText() ?: ""
+        val resume = buildAwesomeCVResumeFromJson(resumeJson)
+
+        val compactLatex = resume.toLaTeX(compact = true)
+        val essentialLines = resume.toLaTeX().lines().map { it.trim() }.filter { it.isNotEmpty() && (!it.startsWith("%") || it.startsWith("%!")) }
+
+        assertThat(compactLatex, startsWith(AWESOME_CV_LICENSE_NOTICE + "\n"))
+        assertThat(compactLatex.length, lessThan(resume.toLaTeX().length * 2 / 3))
+        assertThat(compactLatex.lines().drop(1).filter { it.isNotEmpty() }, equalTo(essentialLines))
+        assertThat(compactLatex, not(containsString("\n\n\n")))
+
+        val writer = StringWriter()
+        resume.writeLaTeX(writer, compact = true)
+        assertThat(writer.toString(), equalTo(compactLatex))
+    }
+
     @Test
     fun `render empty resume`() {
         val emptyResume = awesomecv {}
@@ -0,0 +1,69 @@
+package com.melkassib.cvgenerator.common.utils
+
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.*
+import org.junit.jupiter.api.Test
+
+class CompactLaTeXTest {
+
+    @Test
+    fun `strip comments, indentation and blank lines`() {
+        val latex = """
+            %!TEX TS-program = xelatex
+            % Comment
+            \documentclass{article}
+
+              \usepackage{hyperref}
+            \begin{document}
+
+
+            %-----------Section-----------
+            \section{Title} % Kept comment
+            Text with 100\% escaped
+
+                %
+            \newcommand{\cmd}{%
+              Value\
+            }
+            \end{document}
+        """.trimIndent()
+
+        assertThat(compactLaTeX(latex), equalTo("""
+            %!TEX TS-program = xelatex
+            \documentclass{article}
+            \usepackage{hyperref}
+            \begin{document}
+
+            \section{Title} % Kept comment
+            Text with 100\% escaped
+
+            \newcommand{\cmd}{%
+            Value\
+            }
+            \end{document}
+        """.trimIndent()))
+    }
+
+    @Test
+    fun `write the document in several parts`() {
+        val out = StringBuilder()
+        val compact = CompactLaTeXAppendable(out)
+        compact.append("  \\begin{doc").append("ument}\n\n  % Comment\n").append('T').append("ext\n\n\n").append("x\\end{document}y", 1, 15)
+
+        assertThat(out.toString(), equalTo("\\begin{document}\n\nText\n"))
+        compact.flush()
+        assertThat(out.toString(), equalTo("\\begin{document}\n\nText\n\n\\end{document}"))
+    }
+
+    @Test
+    fun `write verbatim content as is`() {
+        val out = StringBuilder()
+        val compact = CompactLaTeXAppendable(out)
+        compact.append("\\begin{document}\n\n\n  \\item ")
+        compact.appendVerbatim { it.append("  raw % kept\n  ").append('x') }
+        compact.append("  end  \n  % Comment\n")
+        compact.flush()
+
+        assertThat(out.toString(), equalTo("\\begin{document}\n\n\\item   raw % kept\n  x  end\n"))
+    }
+}
@@ -1,12 +1,18 @@
 package com.melkassib.cvgenerator.common.utils
 
 import com.melkassib.cvgenerator.common.domain.Divider
+import com.melkassib.cvgenerator.common.domain.Event
 import com.melkassib.cvgenerator.common.domain.Item
+import com.melkassib.cvgenerator.common.domain.Section
 import com.melkassib.cvgenerator.common.domain.SectionPosition
 import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.containsString
 import org.hamcrest.Matchers.equalTo
+import org.hamcrest.Matchers.sameInstance
 import org.junit.jupiter.api.Test
 import org.junit.jupiter.api.assertThrows
+import java.time.YearMonth
+import java.time.format.DateTimeParseException
 
 class HelpersTest {
 
@@ -38,6 +44,65 @@ class HelpersTest {
 
         val s2 = "{\$attr:'%value$'}".escapeSpecialChars()
         assertThat(s2, equalTo("\\{\\\$attr:'\\%value\\$'\\}"))
+
+        val s3 = "a^b~c#d".escapeSpecialChars()
+        assertThat(s3, equalTo("a\\textasciicircumb\\textasciitildec\\#d"))
+    }
+
+    @Test
+    fun `escape special characters without copying plain strings`() {
+        val plain = "John Doe and his son"
+        assertThat(plain.escapeSpecialChars(), sameInstance(plain))
+
+        val builder = StringBuilder("\\cvtag{").appendEscaped("C# & F#").append('}')
+        assertThat(builder.toString(), equalTo("\\cvtag{C\\# \\& F\\#}"))
+    }
+
+    @Test
+    fun `parse year-month dates`() {
+        assertThat("2023-10".isYearMonth(), equalTo(true))
+        assertThat("2023-1".isYearMonth(), equalTo(false))
+        assertThat("2023/10".isYearMonth(), equalTo(false))
+        assertThat("Oct 2023".isYearMonth(), equalTo(false))
+
+        assertThat("2023-10".toYearMonth(), equalTo(YearMonth.of(2023, 10)))
+
+        val ex1 = assertThrows<IllegalArgumentException> {
+            "2023-1".toYearMonth()
+        }
+        assertThat(ex1.message, equalTo("Invalid date format: 2023-1. Expected format: yyyy-MM"))
+
+        assertThrows<DateTimeParseException> {
+            "2023-13".toYearMonth()
+        }
+    }
+
+    @Test
+    fun `render only the sections that changed`() {
+        val event = Event.create("Job Title") {
+            holder = "Company"
+            description = listOf(Item("Task 1"), Item("Task 2"))
+        }
+        val sections = listOf(
+            Section("A", firstColumn(1), listOf(Item("Item1"), Divider)),
+            Section("B", firstColumn(2), listOf(event))
+        )
+        val cache = RenderCache(maxEntries = 2)
+
+        val rendered = buildString { renderOrderedSections(sections, this, cache) }
+        assertThat(rendered, equalTo(renderSections(sections)))
+        assertThat(cache.misses, equalTo(2L))
+
+        buildString { renderOrderedSections(sections, this, cache) }
+        assertThat(cache.hits, equalTo(2L))
+
+        event.description = listOf(Item("Task 1"), Item("Task 2 & 3"))
+        val updated = buildString { renderOrderedSections(sections, this, cache) }
+        assertThat(updated, equalTo(renderSections(sections)))
+        assertThat(updated, containsString("Task 2 \\& 3"))
+        assertThat(cache.hits, equalTo(3L))
+        assertThat(cache.misses, equalTo(3L))
+        assertThat(cache.size, equalTo(2))
     }
 
     @Test
@@ -0,0 +1,75 @@
+package com.melkassib.cvgenerator.common.utils
+
+import com.melkassib.cvgenerator.common.domain.Section
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.*
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.junit.jupiter.api.io.TempDir
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.FileTime
+import kotlin.io.path.listDirectoryEntries
+
+class LaTeXFileCacheTest {
+
+    @TempDir
+    lateinit var tempDir: Path
+
+    private fun buildResume(tagline: String, ignoredTitle: String = "Ignored") =
+        resumeWithTagline(tagline, sectionOf("Section", firstColumn(1), tagline), Section(ignoredTitle, firstColumn(2), ignored = true))
+
+    @Test
+    fun `render only the resumes that changed`() {
+        val cache = LaTeXFileCache(tempDir.resolve("cache"))
+        val resume = buildResume("Tagline")
+
+        assertThat(cache.toLaTeX(resume), equalTo(resume.toLaTeX()))
+        assertThat(cache.toLaTeX(resume), equalTo(resume.toLaTeX()))
+        assertThat(LaTeXFileCache(tempDir.resolve("cache")).toLaTeX(buildResume("Tagline")), equalTo(resume.toLaTeX()))
+        assertThat(cache.misses, equalTo(1L))
+        assertThat(cache.hits, equalTo(1L))
+        assertThat(Files.readString(cache.pathOf(resume)), equalTo(resume.toLaTeX()))
+
+        resume.header.tagline = "Updated tagline"
+        assertThat(cache.toLaTeX(resume), equalTo(resume.toLaTeX()))
+        assertThat(cache.misses, equalTo(2L))
+        assertThat(tempDir.resolve("cache").listDirectoryEntries(), hasSize(2))
+
+        val target = tempDir.resolve("resume.tex")
+        cache.writeLaTeX(buildResume("Tagline", ignoredTitle = "Other"), target)
+        assertThat(Files.readString(target), equalTo(buildResume("Tagline").toLaTeX()))
+        assertThat(cache.hits, equalTo(2L))
+
+        cache.clear()
+        assertThat(tempDir.resolve("cache").listDirectoryEntries(), empty())
+    }
+
+    @Test
+    fun `evict the least recently used documents`() {
+        val documentSize = resumeWithTagline("Tagline 0").toLaTeX().toByteArray().size.toLong()
+        val cache = LaTeXFileCache(tempDir.resolve("cache"), maxBytes = documentSize * 3 + documentSize / 2)
+        val resumes = (0 until 4).map { resumeWithTagline("Tagline $it") }
+
+        resumes.take(3).forEachIndexed { index, resume ->
+            cache.toLaTeX(resume)
+            Files.setLastModifiedTime(cache.pathOf(resume), FileTime.fromMillis(index * 1000L))
+        }
+        cache.toLaTeX(resumes[0])
+        cache.toLaTeX(resumes[3])
+
+        assertThat(Files.exists(cache.pathOf(resumes[0])), equalTo(true))
+        assertThat(Files.exists(cache.pathOf(resumes[1])), equalTo(false))
+        assertThat(Files.exists(cache.pathOf(resumes[2])), equalTo(true))
+        assertThat(Files.exists(cache.pathOf(resumes[3])), equalTo(true))
+        assertThat(tempDir.resolve("cache").listDirectoryEntries(), hasSize(3))
+    }
+
+    @Test
+    fun `create a document cache without capacity`() {
+        val ex = assertThrows<IllegalArgumentException> {
+            LaTeXFileCache(tempDir, maxBytes = 0)
+        }
+        assertThat(ex.message, equalTo("maxBytes: should be positive"))
+    }
+}
@@ -0,0 +1,83 @@
+package com.melkassib.cvgenerator.common.utils
+
+import com.melkassib.cvgenerator.altacv.domain.AltaCVResume
+import com.melkassib.cvgenerator.awesomecv.domain.AwesomeCVResume
+import com.melkassib.cvgenerator.common.domain.AltaCVHeader
+import com.melkassib.cvgenerator.common.domain.Item
+import com.melkassib.cvgenerator.common.domain.Section
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.*
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.junit.jupiter.api.io.TempDir
+import java.nio.file.Files
+import java.nio.file.Path
+import kotlin.io.path.listDirectoryEntries
+
+class MultiFileLaTeXWriterTest {
+
+    @TempDir
+    lateinit var tempDir: Path
+
+    private val sectionInput = Regex("""\\input\{sections/([0-9a-f]{16})}""")
+
+    private fun buildSections(firstItem: String = "Item 1") = listOf(
+        Section("Second", secondColumn(1), listOf(Item("Item 2"))),
+        Section("First", firstColumn(1), listOf(Item(firstItem))),
+        Section("Third", firstColumn(2), listOf(Item("Item 3"))),
+        Section("Ignored", firstColumn(3), listOf(Item("Item 4")), ignored = true)
+    )
+
+    private fun inlineSections(writer: MultiFileLaTeXWriter, document: Path) =
+        sectionInput.replace(Files.readString(document)) {
+            Files.readString(writer.sectionsDirectory.resolve("${it.groupValues[1]}.tex"))
+        }
+
+    @Test
+    fun `input a file per section in column order`() {
+        val writer = MultiFileLaTeXWriter(tempDir)
+        val altaCVResume = AltaCVResume(header = AltaCVHeader("Tagline"), sections = buildSections())
+        val awesomeCVResume = AwesomeCVResume(sections = buildSections())
+
+        for (resume in listOf(altaCVResume, awesomeCVResume)) {
+            val document = writer.write(resume, resume.javaClass.simpleName)
+
+            assertThat(Files.readString(document), not(containsString("\\cvsection{")))
+            assertThat(inlineSections(writer, document), equalTo(resume.toLaTeX()))
+        }
+
+        val inputs = sectionInput.findAll(Files.readString(tempDir.resolve("AltaCVResume.tex"))).map { it.groupValues[1] }.toList()
+        assertThat(inputs, equalTo(listOf("First", "Third", "Second").map { title ->
+            "%016x".format(altaCVResume.sections.first { it.title == title }.fingerprint())
+        }))
+        assertThat(writer.pathOf(altaCVResume.sections[1]).toFile().exists(), equalTo(true))
+        assertThat(writer.sectionsDirectory.listDirectoryEntries(), hasSize(3))
+        assertThat(writer.sectionsWritten, equalTo(3L))
+    }
+
+    @Test
+    fun `write only the files that changed`() {
+        val writer = MultiFileLaTeXWriter(tempDir)
+        val document = writer.write(AltaCVResume(sections = buildSections()), "resume")
+        val lastModified = Files.getLastModifiedTime(document)
+
+        writer.write(AltaCVResume(sections = buildSections()), "resume")
+        assertThat(writer.sectionsWritten, equalTo(3L))
+        assertThat(writer.documentsWritten, equalTo(1L))
+        assertThat(Files.getLastModifiedTime(document), equalTo(lastModified))
+
+        val resume = AltaCVResume(sections = buildSections(firstItem = "Updated item"))
+        writer.write(resume, "resume")
+        assertThat(writer.sectionsWritten, equalTo(4L))
+        assertThat(writer.documentsWritten, equalTo(2L))
+        assertThat(inlineSections(writer, document), equalTo(resume.toLaTeX()))
+    }
+
+    @Test
+    fun `write a resume with a blank name`() {
+        val ex = assertThrows<IllegalArgumentException> {
+            MultiFileLaTeXWriter(tempDir).write(AltaCVResume(), "")
+        }
+        assertThat(ex.message, equalTo("name: should not be blank"))
+    }
+}
@@ -0,0 +1,86 @@
+package com.melkassib.cvgenerator.common.utils
+
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.*
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+
+class ResumeBatchRendererTest {
+
+    @Test
+    fun `render a batch in the order of the inputs`() {
+        val inputs = (0 until 50).map { if (it % 10 == 3) " " else "Tagline $it" }
+        val executor = Executors.newFixedThreadPool(4)
+
+        try {
+            val results = ResumeBatchRenderer(executor, maxInFlight = 3).renderAll(inputs) { tagline ->
+                require(tagline.isNotBlank()) { "tagline: should not be blank" }
+                resumeWithTagline(tagline)
+            }
+
+            assertThat(results.map { it.index }, equalTo((0 until 50).toList()))
+            results.forEach { result ->
+                val input = inputs[result.index]
+                when (result) {
+                    is BatchResult.Rendered -> assertThat(result.latex, equalTo(resumeWithTagline(input).toLaTeX()))
+                    is BatchResult.Failed -> {
+                        assertThat(input, equalTo(" "))
+                        assertThat(result.error.message, equalTo("tagline: should not be blank"))
+                    }
+                }
+            }
+            assertThat(results.count { it is BatchResult.Failed }, equalTo(5))
+        } finally {
+            executor.shutdown()
+        }
+    }
+
+    @Test
+    fun `render a batch as results become ready`() {
+        val resumes = (0 until 20).map { resumeWithTagline("Tagline $it") }
+        val inFlight = AtomicInteger()
+        val maxObserved = AtomicInteger()
+        val executor = Executors.newFixedThreadPool(8)
+
+        try {
+            val indexes = mutableListOf<Int>()
+            ResumeBatchRenderer(executor, maxInFlight = 2).render(resumes, { resume ->
+                maxObserved.accumulateAndGet(inFlight.incrementAndGet(), ::maxOf)
+                Thread.sleep(2)
+                inFlight.decrementAndGet()
+                resume
+            }, ordered = false) { indexes += it.index }
+
+            assertThat(indexes.sorted(), equalTo((0 until 20).toList()))
+            assertThat(maxObserved.get(), lessThanOrEqualTo(2))
+        } finally {
+            executor.shutdown()
+        }
+    }
+
+    @Test
+    fun `render a batch on the pool of the renderer`() {
+        val threads = ConcurrentHashMap.newKeySet<String>()
+
+        ResumeBatchRenderer().use { renderer ->
+            val results = renderer.renderAll((0 until 10).toList()) {
+                threads += Thread.currentThread().name
+                resumeWithTagline("Tagline $it")
+            }
+
+            assertThat(results.filterIsInstance<BatchResult.Rendered>(), hasSize(10))
+            assertThat(threads, everyItem(startsWith("resume-batch-renderer-")))
+        }
+    }
+
+    @Test
+    fun `create a batch renderer without in-flight work`() {
+        val ex = assertThrows<IllegalArgumentException> {
+            ResumeBatchRenderer(maxInFlight = 0)
+        }
+        assertThat(ex.message, equalTo("maxInFlight: should be positive"))
+    }
+}
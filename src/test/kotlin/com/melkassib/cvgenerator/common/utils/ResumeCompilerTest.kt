@@ -0,0 +1,162 @@
+package com.melkassib.cvgenerator.common.utils
+
+import com.melkassib.cvgenerator.altacv.domain.AltaCVResume
+import com.melkassib.cvgenerator.common.domain.AltaCVHeader
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.*
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.junit.jupiter.api.condition.EnabledOnOs
+import org.junit.jupiter.api.condition.OS
+import org.junit.jupiter.api.io.TempDir
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Duration
+import java.util.concurrent.CompletionException
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.io.path.listDirectoryEntries
+
+class ResumeCompilerTest {
+
+    @TempDir
+    lateinit var tempDir: Path
+
+    @Test
+    fun `compile only the documents that changed`() {
+        val compiler = FakeLaTeXCompiler()
+        val resume = AltaCVResume(header = AltaCVHeader("Tagline"))
+        val workDirectory = tempDir.resolve("work")
+
+        ResumeCompiler(compiler, cacheDirectory = tempDir.resolve("cache"), workDirectory = workDirectory).use { resumeCompiler ->
+            val pdf = String(resumeCompiler.compile(resume))
+
+            assertThat(pdf, startsWith("%PDF-"))
+            assertThat(String(resumeCompiler.compile(resume)), equalTo(pdf))
+            assertThat(String(resumeCompiler.compileAsync(resume.toLaTeX()).join()), equalTo(pdf))
+            assertThat(String(resumeCompiler.compile("\\documentclass{article}")), not(equalTo(pdf)))
+            assertThat(compiler.compilations, equalTo(2))
+            assertThat(resumeCompiler.hits, equalTo(2L))
+            assertThat(resumeCompiler.misses, equalTo(2L))
+            assertThat(workDirectory.listDirectoryEntries(), empty())
+        }
+
+        ResumeCompiler(compiler, cacheDirectory = tempDir.resolve("cache")).use {
+            it.compile(resume)
+            assertThat(compiler.compilations, equalTo(2))
+        }
+    }
+
+    @Test
+    fun `run a bounded number of compilations at the same time`() {
+        val running = AtomicInteger()
+        val maxObserved = AtomicInteger()
+        val fakeCompiler = FakeLaTeXCompiler()
+        val compiler = LaTeXCompiler { texFile, timeout ->
+            maxObserved.accumulateAndGet(running.incrementAndGet(), ::maxOf)
+            Thread.sleep(5)
+            running.decrementAndGet()
+            fakeCompiler.compile(texFile, timeout)
+        }
+
+        ResumeCompiler(compiler, maxConcurrentJobs = 3).use { resumeCompiler ->
+            val pdfs = (0 until 20).map { resumeCompiler.compileAsync("Document $it") }.map { it.join() }
+
+            assertThat(pdfs.map { String(it) }.toSet(), hasSize(20))
+            assertThat(maxObserved.get(), lessThanOrEqualTo(3))
+        }
+    }
+
+    @Test
+    fun `fail a compilation which times out`() {
+        ResumeCompiler(FakeLaTeXCompiler(delay = Duration.ofSeconds(5)), timeout = Duration.ofMillis(50)).use { resumeCompiler ->
+            val ex = assertThrows<LaTeXCompilationException> {
+                resumeCompiler.compile("Document")
+            }
+            assertThat(ex.message, equalTo("Compilation of resume.tex timed out after PT0.05S"))
+
+            val asyncEx = assertThrows<CompletionException> {
+                resumeCompiler.compileAsync("Document").join()
+            }
+            assertThat(asyncEx.cause, instanceOf(LaTeXCompilationException::class.java))
+        }
+    }
+
+    @Test
+    @EnabledOnOs(OS.LINUX, OS.MAC)
+    fun `compile a document with an external command`() {
+        val compiler = ProcessLaTeXCompiler(listOf("sh", "-c", "echo compiling; cp ${TEX_FILE_PLACEHOLDER} resume.pdf"))
+        val pdf = ResumeCompiler(compiler).use { it.compile("%PDF-1.4") }
+        assertThat(String(pdf), equalTo("%PDF-1.4"))
+
+        val failing = ProcessLaTeXCompiler(listOf("sh", "-c", "echo 'LaTeX Error'; exit 12"))
+        val ex = assertThrows<LaTeXCompilationException> {
+            ResumeCompiler(failing).use { it.compile("Document") }
+        }
+        assertThat(ex.message, equalTo("Compilation of resume.tex failed with exit code 12"))
+        assertThat(ex.log, containsString("LaTeX Error"))
+
+        val slow = ProcessLaTeXCompiler(listOf("sh", "-c", "sleep 10"))
+        val start = System.nanoTime()
+        assertThrows<LaTeXCompilationException> {
+            ResumeCompiler(slow, timeout = Duration.ofMillis(200), workDirectory = tempDir).use { it.compile("Document") }
+        }
+        assertThat(Duration.ofNanos(System.nanoTime() - start), lessThan(Duration.ofSeconds(5)))
+        assertThat(Files.list(tempDir).use { it.count() }, equalTo(0L))
+    }
+
+    @Test
+    @EnabledOnOs(OS.LINUX, OS.MAC)
+    fun `compile a document with support files`() {
+        val supportDirectory = Files.createDirectories(tempDir.resolve("support/fonts"))
+        Files.writeString(supportDirectory.resolve("Roboto.ttf"), "font")
+        Files.writeString(tempDir.resolve("support/awesome-cv.cls"), "class")
+        val compiler = ProcessLaTeXCompiler(listOf("sh", "-c", "cat awesome-cv.cls fonts/Roboto.ttf ${TEX_FILE_PLACEHOLDER} > resume.pdf"))
+        val cacheDirectory = tempDir.resolve("cache")
+
+        val pdf = ResumeCompiler(compiler, cacheDirectory = cacheDirectory, supportDirectory = tempDir.resolve("support")).use {
+            it.compile(" document")
+        }
+        assertThat(String(pdf), equalTo("classfont document"))
+        assertThat(Files.readString(tempDir.resolve("support/awesome-cv.cls")), equalTo("class"))
+
+        Files.writeString(tempDir.resolve("support/awesome-cv.cls"), "other class")
+        ResumeCompiler(compiler, cacheDirectory = cacheDirectory, supportDirectory = tempDir.resolve("support")).use {
+            assertThat(String(it.compile(" document")), equalTo("other classfont document"))
+            assertThat(it.misses, equalTo(1L))
+        }
+    }
+
+    @Test
+    @EnabledOnOs(OS.LINUX, OS.MAC)
+    fun `kill the external command of an interrupted compilation`() {
+        val pidFile = tempDir.resolve("pid")
+        val compiler = ProcessLaTeXCompiler(listOf("sh", "-c", "sleep 30 & echo $! > $pidFile; wait"))
+        val workDirectory = tempDir.resolve("work")
+        var error: Throwable? = null
+
+        val thread = Thread {
+            try {
+                ResumeCompiler(compiler, workDirectory = workDirectory).use { it.compile("Document") }
+            } catch (e: InterruptedException) {
+                error = e
+            }
+        }
+        thread.start()
+        while (!Files.exists(pidFile) || Files.readString(pidFile).isBlank()) Thread.sleep(10)
+        thread.interrupt()
+        thread.join(5000)
+
+        assertThat(error, instanceOf(InterruptedException::class.java))
+        val sleeper = ProcessHandle.of(Files.readString(pidFile).trim().toLong())
+        assertThat(sleeper.map { it.isAlive }.orElse(false), equalTo(false))
+        assertThat(workDirectory.listDirectoryEntries(), empty())
+    }
+
+    @Test
+    fun `create a compiler without compilation slots`() {
+        val ex = assertThrows<IllegalArgumentException> {
+            ResumeCompiler(FakeLaTeXCompiler(), maxConcurrentJobs = 0)
+        }
+        assertThat(ex.message, equalTo("maxConcurrentJobs: should be positive"))
+    }
+}
@@ -0,0 +1,116 @@
+package com.melkassib.cvgenerator.common.utils
+
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.*
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import java.io.StringReader
+import java.util.concurrent.Executors
+
+class ResumeMailMergeTest {
+
+    private fun buildResume(title: String, greeting: String) = resumeWithTagline(
+        title,
+        sectionOf("Contact", firstColumn(1), "Same for everyone"),
+        sectionOf("About", secondColumn(1), greeting),
+        sectionOf("Skills", firstColumn(2), "Kotlin", "LaTeX")
+    )
+
+    private val template = buildResume("{{title}}", "Hello {{ name }}, welcome to {{ company }}")
+
+    @Test
+    fun `merge a template with a row`() {
+        val mailMerge = ResumeMailMerge(template)
+        val row = mapOf("title" to "Engineer", "name" to "Ada", "company" to "R&D")
+
+        assertThat(mailMerge.placeholders, containsInAnyOrder("title", "name", "company"))
+        assertThat(mailMerge.staticSectionCount, equalTo(2))
+        assertThat(mailMerge.toLaTeX(row), equalTo(buildResume("Engineer", "Hello Ada, welcome to R&D").toLaTeX()))
+
+        val resume = mailMerge.resumeOf(row)
+        assertThat(resume.sections[0], sameInstance(template.sections[0]))
+        assertThat(resume.sections[2], sameInstance(template.sections[2]))
+        assertThat(resume.sections[1], not(sameInstance(template.sections[1])))
+    }
+
+    @Test
+    fun `merge rows in parallel`() {
+        val rows = (0 until 40).map { mapOf("title" to "Title $it", "name" to "Name $it", "company" to "Company $it") } +
+            mapOf("title" to "Incomplete")
+        val executor = Executors.newFixedThreadPool(4)
+
+        try {
+            val results = mutableListOf<BatchResult>()
+            ResumeMailMerge(template, ResumeBatchRenderer(executor, maxInFlight = 4)).merge(rows) { results += it }
+
+            assertThat(results.map { it.index }, equalTo((0..40).toList()))
+            results.take(40).forEachIndexed { index, result ->
+                assertThat((result as BatchResult.Rendered).latex, equalTo(buildResume("Title $index", "Hello Name $index, welcome to Company $index").toLaTeX()))
+            }
+            assertThat((results[40] as BatchResult.Failed).error.message, equalTo("row: should have a value for placeholder 'name'"))
+        } finally {
+            executor.shutdown()
+        }
+    }
+
+    @Test
+    fun `read rows from csv`() {
+        val csv = "title,name,company\r\nEngineer,\"Lovelace, Ada\",\"The \"\"Analytical\"\"\nEngine\"\r\n\r\nManager,Grace,\n"
+
+        val rows = readCsvRows(StringReader(csv)).toList()
+
+        assertThat(rows, hasSize(2))
+        assertThat(rows[0], equalTo(mapOf("title" to "Engineer", "name" to "Lovelace, Ada", "company" to "The \"Analytical\"\nEngine")))
+        assertThat(rows[1], equalTo(mapOf("title" to "Manager", "name" to "Grace", "company" to "")))
+    }
+
+    @Test
+    fun `read invalid rows from csv`() {
+        val ex = assertThrows<IllegalArgumentException> {
+            readCsvRows(StringReader("title,name\nEngineer\n")).toList()
+        }
+        assertThat(ex.message, equalTo("csv: record 2 should have 2 fields"))
+
+        val unclosed = assertThrows<IllegalArgumentException> {
+            readCsvRows(StringReader("title\n\"Engineer\n")).toList()
+        }
+        assertThat(unclosed.message, equalTo("csv: quoted field should be closed"))
+    }
+
+    @Test
+    fun `read rows from ndjson`() {
+        val ndjson = "{\"title\":\"Engineer\",\"name\":\"Ada\",\"years\":12,\"company\":null}\n\n{\"title\":\"Manager\"}\n"
+
+        val rows = readNdjsonRows(StringReader(ndjson)).toList()
+
+        assertThat(rows, equalTo(listOf(mapOf("title" to "Engineer", "name" to "Ada", "years" to "12"), mapOf("title" to "Manager"))))
+        assertThrows<IllegalArgumentException> { readNdjsonRows(StringReader("[1]")).toList() }
+
+        val malformed = assertThrows<IllegalArgumentException> { readNdjsonRows(StringReader("{}\n\n{\"title\":")).toList() }
+        assertThat(malformed.message, equalTo("ndjson: line 3 should be a JSON object"))
+    }
+
+    @Test
+    fun `merge rows from files with invalid rows`() {
+        val mailMerge = ResumeMailMerge(template)
+        val csvResults = mutableListOf<BatchResult>()
+        val ndjsonResults = mutableListOf<BatchResult>()
+
+        mailMerge.mergeCsv(StringReader("title,name,company\nEngineer,Ada,R&D\nManager\nDesigner,Grace,Studio\n\"Writer\n")) {
+            csvResults += it
+        }
+        mailMerge.mergeNdjson(StringReader("{\"title\":\"Engineer\",\"name\":\"Ada\",\"company\":\"R&D\"}\n{\"title\":\n[1]\n")) {
+            ndjsonResults += it
+        }
+
+        assertThat(csvResults.map { it.index }, equalTo(listOf(0, 1, 2, 3)))
+        assertThat((csvResults[0] as BatchResult.Rendered).latex, equalTo(buildResume("Engineer", "Hello Ada, welcome to R&D").toLaTeX()))
+        assertThat((csvResults[1] as BatchResult.Failed).error.message, equalTo("csv: record 3 should have 3 fields"))
+        assertThat((csvResults[2] as BatchResult.Rendered).latex, equalTo(buildResume("Designer", "Hello Grace, welcome to Studio").toLaTeX()))
+        assertThat((csvResults[3] as BatchResult.Failed).error.message, equalTo("csv: quoted field should be closed"))
+
+        assertThat(ndjsonResults.map { it.javaClass.simpleName }, contains("Rendered", "Failed", "Failed"))
+        assertThat((ndjsonResults[1] as BatchResult.Failed).error.message, equalTo("ndjson: line 2 should be a JSON object"))
+        assertThat((ndjsonResults[2] as BatchResult.Failed).error.message, equalTo("ndjson: line 3 should be a JSON object"))
+    }
+}
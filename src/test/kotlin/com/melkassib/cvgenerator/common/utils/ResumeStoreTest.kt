@@ -0,0 +1,149 @@
+package com.melkassib.cvgenerator.common.utils
+
+import com.melkassib.cvgenerator.awesomecv.domain.AwesomeCVResume
+import com.melkassib.cvgenerator.common.domain.AwesomeCVHeader
+import com.melkassib.cvgenerator.common.domain.Item
+import com.melkassib.cvgenerator.common.domain.Section
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.*
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.junit.jupiter.api.io.TempDir
+import java.io.StreamCorruptedException
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+
+class ResumeStoreTest {
+
+    @TempDir
+    lateinit var tempDir: Path
+
+    private fun buildResume(index: Int) =
+        resumeWithTagline("Tagline $index", sectionOf("Section $index", firstColumn(1), *Array(index % 7 + 1) { "Item $index.$it" }))
+
+    @Test
+    fun `store and get resumes by id`() {
+        val path = tempDir.resolve("resumes.store")
+        val resumes = (0 until 200).associate { "resume-$it" to buildResume(it) }
+
+        ResumeStore.open(path, segmentSize = 4096).use { store ->
+            resumes.forEach { (id, resume) -> store.put(id, resume) }
+            store.put("awesome", AwesomeCVResume(header = AwesomeCVHeader(quote = "Quote")))
+            store.put("resume-0", buildResume(1000))
+
+            assertThat(store.size, equalTo(201))
+            assertThat(store["resume-0"]!!.toJson(), equalTo(buildResume(1000).toJson()))
+            assertThat(store["resume-199"]!!.toJson(), equalTo(resumes.getValue("resume-199").toJson()))
+            assertThat(store["awesome"], instanceOf(AwesomeCVResume::class.java))
+            assertThat(store["unknown"], nullValue())
+            assertThat(Files.size(path), greaterThan(4096L))
+            assertThat(Files.size(path) % 4096, equalTo(0L))
+        }
+
+        ResumeStore.open(path).use { store ->
+            assertThat(store.segmentSize, equalTo(4096))
+            assertThat(store.ids, hasSize(201))
+            assertThat("resume-42" in store, equalTo(true))
+            resumes.filterKeys { it != "resume-0" }.forEach { (id, resume) ->
+                assertThat(store[id]!!.toLaTeX(), equalTo(resume.toLaTeX()))
+            }
+            assertThat(store["resume-0"]!!.toLaTeX(), equalTo(buildResume(1000).toLaTeX()))
+        }
+    }
+
+    @Test
+    fun `discard an incomplete record when opening a store`() {
+        val path = tempDir.resolve("resumes.store")
+        ResumeStore.open(path).use { store ->
+            store.put("first", buildResume(1))
+            store.put("second", buildResume(2))
+        }
+        val secondOffset = 8L + 8 + "first".length + buildResume(1).toBinary().size
+
+        FileChannel.open(path, StandardOpenOption.WRITE).use { it.truncate(secondOffset + 20) }
+
+        ResumeStore.open(path).use { store ->
+            assertThat(store.ids, contains("first"))
+            store.put("third", buildResume(3))
+        }
+
+        ResumeStore.open(path).use { store ->
+            assertThat(store.ids, containsInAnyOrder("first", "third"))
+            assertThat(store["third"]!!.toJson(), equalTo(buildResume(3).toJson()))
+        }
+
+        // A write interrupted before the lengths of the record
+        FileChannel.open(path, StandardOpenOption.WRITE).use { it.write(ByteBuffer.allocate(8), secondOffset) }
+
+        ResumeStore.open(path).use { store ->
+            assertThat(store.ids, contains("first"))
+        }
+    }
+
+    @Test
+    fun `get a corrupted record`() {
+        val path = tempDir.resolve("resumes.store")
+        ResumeStore.open(path, segmentSize = 4096).use { store ->
+            store.put("resume", buildResume(1))
+            assertThat(store["resume"]!!.toJson(), equalTo(buildResume(1).toJson()))
+
+            FileChannel.open(path, StandardOpenOption.WRITE).use { it.write(ByteBuffer.allocate(4).putInt(0, 1 shl 20), 8L) }
+
+            val ex = assertThrows<StreamCorruptedException> {
+                store["resume"]
+            }
+            assertThat(ex.message, startsWith("Corrupted record of resume 'resume'"))
+        }
+    }
+
+    @Test
+    fun `open a file which is not a resume store`() {
+        val path = tempDir.resolve("resume.json")
+        Files.writeString(path, "{\"header\": {}}")
+
+        assertThrows<StreamCorruptedException> {
+            ResumeStore.open(path)
+        }
+    }
+
+    @Test
+    fun `open a store with an invalid segment size`() {
+        val path = tempDir.resolve("resumes.store")
+        ResumeStore.open(path, segmentSize = 4096).use { it.put("resume", buildResume(1)) }
+
+        for (segmentSize in listOf(0, -1, 16)) {
+            FileChannel.open(path, StandardOpenOption.WRITE).use { it.write(ByteBuffer.allocate(Int.SIZE_BYTES).putInt(segmentSize).flip(), 4) }
+
+            val ex = assertThrows<StreamCorruptedException> {
+                ResumeStore.open(path)
+            }
+            assertThat(ex.message, equalTo("Invalid resume store segment size: $segmentSize"))
+        }
+    }
+
+    @Test
+    fun `store a resume larger than a segment`() {
+        ResumeStore.open(tempDir.resolve("resumes.store"), segmentSize = 64).use { store ->
+            val ex = assertThrows<IllegalArgumentException> {
+                store.put("large", buildResume(6))
+            }
+            assertThat(ex.message, startsWith("resume 'large': record of"))
+            assertThat(store.size, equalTo(0))
+        }
+    }
+
+    @Test
+    fun `get a resume from a closed store`() {
+        val store = ResumeStore.open(tempDir.resolve("resumes.store"))
+        store.put("resume", buildResume(1))
+        store.close()
+
+        val ex = assertThrows<IllegalStateException> {
+            store["resume"]
+        }
+        assertThat(ex.message, equalTo("store: is closed"))
+    }
+}
@@ -0,0 +1,147 @@
+package com.melkassib.cvgenerator.common.utils
+
+import com.melkassib.cvgenerator.altacv.serialization.buildAltaCVResumeFromJson
+import com.melkassib.cvgenerator.common.domain.Item
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.*
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.junit.jupiter.api.io.TempDir
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Duration
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.TimeUnit
+
+class ResumeWatcherTest {
+
+    @TempDir
+    lateinit var tempDir: Path
+
+    private val results = LinkedBlockingQueue<WatchResult>()
+
+    private fun buildResume(tagline: String, item: String = "Item") =
+        resumeWithTagline(tagline, sectionOf("First", firstColumn(1), item), sectionOf("Second", firstColumn(2), "Other"))
+
+    private fun nextResult(): WatchResult = results.poll(10, TimeUnit.SECONDS) ?: throw AssertionError("No result in time")
+
+    private fun startWatcher(sectionCache: RenderCache = RenderCache()) = ResumeWatcher(
+        tempDir.resolve("src"),
+        tempDir.resolve("out"),
+        { buildAltaCVResumeFromJson(it) },
+        debounce = Duration.ofMillis(50),
+        sectionCache = sectionCache,
+        onResult = results::add
+    ).start()
+
+    @Test
+    fun `render the resumes whose source changed`() {
+        val source = tempDir.resolve("src/resume.json")
+        Files.createDirectories(source.parent)
+        Files.writeString(source, buildResume("Tagline").toJson())
+        val sectionCache = RenderCache()
+
+        startWatcher(sectionCache).use { watcher ->
+            val output = tempDir.resolve("out/resume.tex")
+            val initial = nextResult()
+            assertThat(initial, instanceOf(WatchResult.Rendered::class.java))
+            assertThat((initial as WatchResult.Rendered).output, equalTo(output))
+            assertThat(watcher.outputOf(source), equalTo(output))
+            assertThat(Files.readString(output), equalTo(buildResume("Tagline").toLaTeX()))
+
+            Files.writeString(source, buildResume("Tagline", item = "Updated item").toJson())
+            assertThat(nextResult(), instanceOf(WatchResult.Rendered::class.java))
+            assertThat(Files.readString(output), equalTo(buildResume("Tagline", item = "Updated item").toLaTeX()))
+            assertThat(sectionCache.hits, equalTo(1L))
+
+            Files.writeString(source, buildResume("Tagline", item = "Updated item").toJson() + "\n")
+            assertThat(nextResult(), instanceOf(WatchResult.Unchanged::class.java))
+
+            Files.writeString(source, "{")
+            assertThat(nextResult(), instanceOf(WatchResult.Failed::class.java))
+            assertThat(Files.readString(output), equalTo(buildResume("Tagline", item = "Updated item").toLaTeX()))
+
+            Files.delete(source)
+            assertThat(nextResult(), instanceOf(WatchResult.Deleted::class.java))
+            assertThat(Files.exists(output), equalTo(false))
+
+            assertThat(watcher.rendered, equalTo(2L))
+            assertThat(watcher.unchanged, equalTo(1L))
+            assertThat(watcher.failed, equalTo(1L))
+            assertThat(watcher.maxLatency(), greaterThanOrEqualTo(watcher.averageLatency()))
+            assertThat(watcher.averageLatency(), greaterThan(Duration.ZERO))
+        }
+    }
+
+    @Test
+    fun `render a burst of changes once`() {
+        Files.createDirectories(tempDir.resolve("src"))
+
+        startWatcher().use { watcher ->
+            val source = tempDir.resolve("src/nested/deeper/resume.json")
+            Files.createDirectories(source.parent)
+            Thread.sleep(200)
+
+            repeat(5) {
+                Files.writeString(source, buildResume("Tagline $it").toJson())
+                Thread.sleep(5)
+            }
+
+            val result = nextResult()
+            assertThat(result, instanceOf(WatchResult.Rendered::class.java))
+            assertThat(result.source, equalTo(source))
+            assertThat(Files.readString(tempDir.resolve("out/nested/deeper/resume.tex")), equalTo(buildResume("Tagline 4").toLaTeX()))
+            assertThat(results.poll(300, TimeUnit.MILLISECONDS), nullValue())
+            assertThat(watcher.directories, equalTo(3))
+        }
+    }
+
+    @Test
+    fun `keep watching when directories vanish`() {
+        Files.createDirectories(tempDir.resolve("src"))
+
+        startWatcher().use { watcher ->
+            repeat(50) {
+                val transient = Files.createDirectories(tempDir.resolve("src/transient-$it/nested"))
+                Files.delete(transient)
+                Files.delete(transient.parent)
+            }
+
+            val source = tempDir.resolve("src/resume.json")
+            Files.writeString(source, buildResume("Tagline").toJson())
+
+            val result = nextResult()
+            assertThat(result, instanceOf(WatchResult.Rendered::class.java))
+            assertThat(result.source, equalTo(source))
+            assertThat(watcher.failed, equalTo(0L))
+        }
+    }
+
+    @Test
+    fun `delete the outputs of a moved directory`() {
+        val source = tempDir.resolve("src/nested/resume.json")
+        Files.createDirectories(source.parent)
+        Files.writeString(source, buildResume("Tagline").toJson())
+
+        startWatcher().use {
+            val output = tempDir.resolve("out/nested/resume.tex")
+            assertThat(nextResult(), instanceOf(WatchResult.Rendered::class.java))
+            assertThat(Files.exists(output), equalTo(true))
+
+            Files.move(source.parent, tempDir.resolve("moved"))
+
+            val result = nextResult()
+            assertThat(result, instanceOf(WatchResult.Deleted::class.java))
+            assertThat(result.source, equalTo(source))
+            assertThat(Files.exists(output), equalTo(false))
+        }
+    }
+
+    @Test
+    fun `create a watcher without workers`() {
+        val ex = assertThrows<IllegalArgumentException> {
+            ResumeWatcher(tempDir, tempDir, { buildAltaCVResumeFromJson(it) }, workerThreads = 0)
+        }
+        assertThat(ex.message, equalTo("workerThreads: should be positive"))
+    }
+}
@@ -0,0 +1,139 @@
+package com.melkassib.cvgenerator.common.utils
+
+import com.melkassib.cvgenerator.awesomecv.domain.AwesomeCVResume
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.*
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import java.time.Duration
+import java.util.concurrent.CompletionException
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executor
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+
+class SingleFlightRendererTest {
+
+    @Test
+    fun `render identical concurrent requests once`() {
+        val gate = CountDownLatch(1)
+        val executions = AtomicInteger()
+        val pool = Executors.newFixedThreadPool(2)
+        val executor = Executor { task ->
+            pool.execute {
+                executions.incrementAndGet()
+                gate.await()
+                task.run()
+            }
+        }
+
+        try {
+            val renderer = SingleFlightRenderer(executor)
+            val futures = (0 until 10).map { renderer.render(resumeWithTagline("Tagline")) }
+            val other = renderer.render(resumeWithTagline("Other tagline"))
+            val compact = renderer.render(resumeWithTagline("Tagline"), compact = true)
+
+            assertThat(renderer.inFlightCount, equalTo(3))
+            gate.countDown()
+
+            assertThat(futures.map { it.join() }.toSet(), contains(resumeWithTagline("Tagline").toLaTeX()))
+            assertThat(other.join(), equalTo(resumeWithTagline("Other tagline").toLaTeX()))
+            assertThat(compact.join(), equalTo(resumeWithTagline("Tagline").toLaTeX(compact = true)))
+            assertThat(executions.get(), equalTo(3))
+            assertThat(renderer.requests, equalTo(12L))
+            assertThat(renderer.coalesced, equalTo(9L))
+            assertThat(renderer.coalescingRatio(), closeTo(0.75, 1e-9))
+
+            renderer.render(resumeWithTagline("Tagline")).join()
+            assertThat(executions.get(), equalTo(4))
+            assertThat(renderer.inFlightCount, equalTo(0))
+        } finally {
+            pool.shutdown()
+        }
+    }
+
+    @Test
+    fun `keep the requests of a resume independent`() {
+        val gate = CountDownLatch(1)
+        val pool = Executors.newSingleThreadExecutor()
+
+        try {
+            val renderer = SingleFlightRenderer({ task -> pool.execute { gate.await(); task.run() } })
+            val cancelled = renderer.render(resumeWithTagline("Tagline"))
+            val waiting = renderer.render(resumeWithTagline("Tagline"))
+            val awesomeCV = renderer.render(AwesomeCVResume())
+
+            cancelled.cancel(true)
+            gate.countDown()
+
+            assertThat(waiting.join(), equalTo(resumeWithTagline("Tagline").toLaTeX()))
+            assertThat(awesomeCV.join(), equalTo(AwesomeCVResume().toLaTeX()))
+            assertThat(renderer.coalesced, equalTo(1L))
+        } finally {
+            pool.shutdown()
+        }
+    }
+
+    @Test
+    fun `compile identical concurrent requests once`() {
+        val fakeCompiler = FakeLaTeXCompiler(delay = Duration.ofMillis(200))
+
+        ResumeCompiler(fakeCompiler).use { compiler ->
+            val renderer = SingleFlightRenderer(compiler = compiler)
+            val pdfs = (0 until 5).map { renderer.compile(resumeWithTagline("Tagline")) }.map { String(it.join()) }
+
+            assertThat(pdfs.toSet(), hasSize(1))
+            assertThat(fakeCompiler.compilations, equalTo(1))
+            assertThat(renderer.coalesced, equalTo(4L))
+        }
+    }
+
+    @Test
+    fun `render on the thread pool of the compiler by default`() {
+        val gate = CountDownLatch(1)
+
+        ResumeCompiler(FakeLaTeXCompiler(), maxConcurrentJobs = 1).use { compiler ->
+            compiler.asyncExecutor.execute { gate.await() }
+            val renderer = SingleFlightRenderer(compiler = compiler)
+            val thread = renderer.render(resumeWithTagline("Tagline")).thenApply { Thread.currentThread().name }
+            gate.countDown()
+
+            assertThat(thread.join(), startsWith("resume-compiler-"))
+        }
+    }
+
+    @Test
+    fun `share the failure of a compilation`() {
+        ResumeCompiler(FakeLaTeXCompiler(delay = Duration.ofSeconds(5)), timeout = Duration.ofMillis(50)).use { compiler ->
+            val renderer = SingleFlightRenderer(compiler = compiler)
+            val futures = (0 until 3).map { renderer.compile(resumeWithTagline("Tagline")) }
+
+            futures.forEach { future ->
+                val ex = assertThrows<CompletionException> { future.join() }
+                assertThat(ex.cause, instanceOf(LaTeXCompilationException::class.java))
+            }
+        }
+    }
+
+    @Test
+    fun `release a resume whose work fails to start`() {
+        val failures = AtomicInteger(1)
+        val renderer = SingleFlightRenderer({ task ->
+            check(failures.getAndDecrement() <= 0) { "executor: is not ready" }
+            task.run()
+        })
+
+        val ex = assertThrows<CompletionException> { renderer.render(resumeWithTagline("Tagline")).join() }
+        assertThat(ex.cause, instanceOf(IllegalStateException::class.java))
+        assertThat(renderer.inFlightCount, equalTo(0))
+        assertThat(renderer.render(resumeWithTagline("Tagline")).join(), equalTo(resumeWithTagline("Tagline").toLaTeX()))
+    }
+
+    @Test
+    fun `compile without a compiler`() {
+        val ex = assertThrows<IllegalStateException> {
+            SingleFlightRenderer().compile(resumeWithTagline("Tagline"))
+        }
+        assertThat(ex.message, equalTo("compiler: should be set to compile resumes"))
+    }
+}
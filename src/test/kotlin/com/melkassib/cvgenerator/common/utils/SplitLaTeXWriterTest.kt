@@ -0,0 +1,93 @@
+package com.melkassib.cvgenerator.common.utils
+
+import com.melkassib.cvgenerator.altacv.domain.AltaCVResume
+import com.melkassib.cvgenerator.altacv.domain.PhotoShape
+import com.melkassib.cvgenerator.awesomecv.domain.AwesomeCVResume
+import com.melkassib.cvgenerator.common.domain.AltaCVConfig
+import com.melkassib.cvgenerator.common.domain.AltaCVHeader
+import com.melkassib.cvgenerator.common.domain.AwesomeCVHeader
+import com.melkassib.cvgenerator.common.domain.Item
+import com.melkassib.cvgenerator.common.domain.Resume
+import com.melkassib.cvgenerator.common.domain.Section
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.*
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.junit.jupiter.api.io.TempDir
+import java.nio.file.Files
+import java.nio.file.Path
+import kotlin.io.path.listDirectoryEntries
+import kotlin.io.path.name
+
+class SplitLaTeXWriterTest {
+
+    @TempDir
+    lateinit var tempDir: Path
+
+    private fun inlinePreamble(resume: Resume<*, *, *>, body: String) =
+        body.replace("\\input{${resume.preambleName()}}", resume.toLaTeXPreamble())
+
+    @Test
+    fun `split a resume into a preamble and a body`() {
+        val altaCVResume = AltaCVResume(header = AltaCVHeader("Tagline"), sections = listOf(Section("Section", firstColumn(1), listOf(Item("Item")))))
+        val awesomeCVResume = AwesomeCVResume(header = AwesomeCVHeader(quote = "Quote"), sections = listOf(Section("Section", firstColumn(1), listOf(Item("Item")))))
+
+        for (resume in listOf(altaCVResume, awesomeCVResume)) {
+            val body = resume.toLaTeXBody()
+
+            assertThat(body, startsWith("\\input{${resume.preambleName()}}"))
+            assertThat(body, not(containsString("\\documentclass")))
+            assertThat(inlinePreamble(resume, body), equalTo(resume.toLaTeX()))
+        }
+
+        assertThat(altaCVResume.preambleName(), matchesPattern("AltaCVResume-preamble-[0-9a-f]{16}"))
+        assertThat(awesomeCVResume.preambleName(), matchesPattern("AwesomeCVResume-preamble-[0-9a-f]{16}"))
+        assertThat(AltaCVResume(header = AltaCVHeader("Other")).preambleName(), equalTo(altaCVResume.preambleName()))
+        assertThat(AltaCVResume(AltaCVConfig(photoShape = PhotoShape.CIRCLE)).preambleName(), not(equalTo(altaCVResume.preambleName())))
+    }
+
+    @Test
+    fun `write a single preamble file for resumes sharing a configuration`() {
+        val writer = SplitLaTeXWriter(tempDir.resolve("out"))
+        val resumes = (0 until 3).map { AltaCVResume(header = AltaCVHeader("Tagline $it")) }
+
+        val bodyFiles = resumes.mapIndexed { index, resume -> writer.write(resume, "resume-$index") }
+        val circleResume = AltaCVResume(AltaCVConfig(photoShape = PhotoShape.CIRCLE))
+        writer.write(circleResume, "resume-circle")
+
+        assertThat(writer.preamblesWritten, equalTo(2))
+        assertThat(tempDir.resolve("out").listDirectoryEntries().map { it.name }, containsInAnyOrder(
+            "${resumes[0].preambleName()}.tex",
+            "${circleResume.preambleName()}.tex",
+            "resume-0.tex",
+            "resume-1.tex",
+            "resume-2.tex",
+            "resume-circle.tex"
+        ))
+
+        resumes.zip(bodyFiles).forEach { (resume, bodyFile) ->
+            val preamble = Files.readString(writer.pathOf(resume.preambleName()))
+            assertThat(Files.readString(bodyFile).replace("\\input{${resume.preambleName()}}", preamble), equalTo(resume.toLaTeX()))
+        }
+
+        val otherWriter = SplitLaTeXWriter(tempDir.resolve("out"))
+        otherWriter.write(resumes[0], "resume-3")
+        assertThat(otherWriter.preamblesWritten, equalTo(0))
+    }
+
+    @Test
+    fun `write a resume with an invalid name`() {
+        val writer = SplitLaTeXWriter(tempDir)
+        val resume = AltaCVResume()
+
+        val ex = assertThrows<IllegalArgumentException> {
+            writer.write(resume, " ")
+        }
+        assertThat(ex.message, equalTo("name: should not be blank"))
+
+        val preambleEx = assertThrows<IllegalArgumentException> {
+            writer.write(resume, resume.preambleName())
+        }
+        assertThat(preambleEx.message, equalTo("name: should not be the name of the preamble file"))
+    }
+}
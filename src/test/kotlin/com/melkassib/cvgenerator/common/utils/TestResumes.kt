@@ -0,0 +1,31 @@
+package com.melkassib.cvgenerator.common.utils
+
+import com.melkassib.cvgenerator.altacv.domain.AltaCVResume
+import com.melkassib.cvgenerator.common.domain.AltaCVHeader
+import com.melkassib.cvgenerator.common.domain.Item
+import com.melkassib.cvgenerator.common.domain.Section
+import com.melkassib.cvgenerator.common.domain.SectionPosition
+
+/**
+ * Builds a small AltaCV resume with the given tagline and sections. By default, it has a single section
+ * listing the tagline, so that resumes with different taglines also have different sections.
+ *
+ * @param tagline The tagline of the header
+ * @param sections The sections of the resume
+ * @return The resume
+ */
+internal fun resumeWithTagline(
+    tagline: String,
+    vararg sections: Section = arrayOf(sectionOf("Section", firstColumn(1), tagline))
+) = AltaCVResume(header = AltaCVHeader(tagline), sections = sections.toList())
+
+/**
+ * Builds a section listing the given items.
+ *
+ * @param title The title of the section
+ * @param position The position of the section
+ * @param items The items of the section
+ * @return The section
+ */
+internal fun sectionOf(title: String, position: SectionPosition, vararg items: String) =
+    Section(title, position, items.map(::Item))
@@ -0,0 +1,108 @@
+package com.melkassib.cvgenerator.server
+
+import com.melkassib.cvgenerator.altacv.serialization.buildAltaCVResumeFromJson
+import com.melkassib.cvgenerator.awesomecv.serialization.buildAwesomeCVResumeFromJson
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.*
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import java.net.InetAddress
+import java.net.InetSocketAddress
+import java.net.Socket
+import java.net.URI
+import java.net.http.HttpClient
+import java.net.http.HttpRequest
+import java.net.http.HttpResponse
+
+class ResumeRenderServerTest {
+
+    private val client = HttpClient.newHttpClient()
+
+    private fun startServer(maxRequestBytes: Long = DEFAULT_MAX_REQUEST_BYTES, maxConcurrentRequests: Int = 4) =
+        ResumeRenderServer(InetSocketAddress(InetAddress.getLoopbackAddress(), 0), maxRequestBytes, maxConcurrentRequests).start()
+
+    private fun ResumeRenderServer.send(path: String, body: String? = null): HttpResponse<String> {
+        val request = HttpRequest.newBuilder(URI.create("http://localhost:$port$path"))
+        if (body != null) request.POST(HttpRequest.BodyPublishers.ofString(body))
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString())
+    }
+
+    private fun sampleJson(template: String) = this.javaClass.getResource("/$template/sample-resume.json")?.readText() ?: ""
+
+    @Test
+    fun `render json resumes to latex`() {
+        startServer().use { server ->
+            val altaCVResponse = server.send("/render/altacv", sampleJson("altacv"))
+            assertThat(altaCVResponse.statusCode(), equalTo(200))
+            assertThat(altaCVResponse.headers().firstValue("Content-Type").orElse(""), startsWith("application/x-tex"))
+            assertThat(altaCVResponse.body(), equalTo(buildAltaCVResumeFromJson(sampleJson("altacv")).toLaTeX()))
+
+            val awesomeCVResponse = server.send("/render/awesomecv?compact=true", sampleJson("awesomecv"))
+            assertThat(awesomeCVResponse.statusCode(), equalTo(200))
+            assertThat(awesomeCVResponse.body(), equalTo(buildAwesomeCVResumeFromJson(sampleJson("awesomecv")).toLaTeX(compact = true)))
+
+            assertThat(server.rendered, equalTo(2L))
+        }
+    }
+
+    @Test
+    fun `reject invalid requests`() {
+        startServer(maxRequestBytes = 1024).use { server ->
+            assertThat(server.send("/render/moderncv", "{}").statusCode(), equalTo(404))
+            assertThat(server.send("/render/altacv").statusCode(), equalTo(405))
+            assertThat(server.send("/render/altacv", sampleJson("altacv")).statusCode(), equalTo(413))
+
+            val invalidResponse = server.send("/render/altacv", "{\"config\":")
+            assertThat(invalidResponse.statusCode(), equalTo(400))
+            assertThat(invalidResponse.body(), startsWith("Invalid resume"))
+        }
+
+        startServer().use { server ->
+            val wrongShapeResponse = server.send("/render/altacv", sampleJson("altacv").replaceFirst("\"fieldName\": \"email\",", ""))
+            assertThat(wrongShapeResponse.statusCode(), equalTo(400))
+            assertThat(wrongShapeResponse.body(), startsWith("Invalid resume"))
+        }
+    }
+
+    @Test
+    fun `reject requests over the concurrency limit`() {
+        startServer(maxConcurrentRequests = 1).use { server ->
+            Socket(InetAddress.getLoopbackAddress(), server.port).use { socket ->
+                // Holds the only slot while the server waits for the announced body
+                socket.getOutputStream().apply {
+                    write("POST /render/altacv HTTP/1.1\r\nHost: localhost\r\nContent-Length: 100\r\n\r\n{".toByteArray())
+                    flush()
+                }
+
+                var response = server.send("/health")
+                while (!response.body().contains("\"inFlight\":1")) {
+                    Thread.sleep(10)
+                    response = server.send("/health")
+                }
+
+                val rejectedResponse = server.send("/render/altacv", sampleJson("altacv"))
+                assertThat(rejectedResponse.statusCode(), equalTo(503))
+                assertThat(rejectedResponse.headers().firstValue("Retry-After").orElse(""), equalTo("1"))
+                assertThat(server.rejected, equalTo(1L))
+            }
+        }
+    }
+
+    @Test
+    fun `report the health of the service`() {
+        startServer().use { server ->
+            val response = server.send("/health")
+
+            assertThat(response.statusCode(), equalTo(200))
+            assertThat(response.body(), equalTo("{\"status\":\"UP\",\"inFlight\":0}"))
+        }
+    }
+
+    @Test
+    fun `create a server without request slots`() {
+        val ex = assertThrows<IllegalArgumentException> {
+            ResumeRenderServer(maxConcurrentRequests = 0)
+        }
+        assertThat(ex.message, equalTo("maxConcurrentRequests: should be positive"))
+    }
+}